@@ -2,29 +2,38 @@
 API REST para cifrado Vigenère
 Servidor Flask que expone endpoints para cifrar y descifrar texto
 Integrado con el módulo vigenere.py existente
+
+Desarrollo:  python app.py                 (servidor de Flask con debug)
+Producción: python app.py --produccion     (varios procesos, ver servidor.py)
 """
 import logging
+import os
 import re
-from logging.handlers import RotatingFileHandler
-from flask import Flask, request, jsonify
+from flask import Flask, Response, request, jsonify
 from flask_cors import CORS
 from vigenere import cifrar_vigenere, descifrar_vigenere
+import registro
+import cache
+import trama
 
 
-# Configurar logger general
-logger = logging.getLogger()
-logger.setLevel(logging.INFO)
+# Validadores compilados una sola vez al importar el módulo, no en cada petición
+PATRON_TEXTO = re.compile(r'[A-Za-zÁÀÄÂÃÉÈËÊÍÌÏÎÓÒÖÔÕÚÙÜÛÑáàäâãéèëêíìïîóòöôõúùüûñ .,;:¡!¿?()\-\n\r]*')
+PATRON_CLAVE = re.compile(r'[A-Za-zÑñ]+')
+MENSAJE_CARACTERES = ("El texto contiene caracteres no permitidos,"
+                      + "como emoticonos o símbolos especiales.")
 
-# Crear un manejador que guarde en un archivo (con rotación para evitar archivos enormes)
-handler = RotatingFileHandler('api_cifrado_vigenere.log', maxBytes=1024*1024*10, backupCount=5)
-handler.setLevel(logging.INFO)
+# Configurar logger general: las peticiones solo encolan, un hilo de fondo
+# escribe en el fichero con rotación (ver registro.py)
+registro.configurar('api_cifrado_vigenere.log', max_bytes=1024*1024*10, backups=5)
+logger = logging.getLogger()
 
-# Formato legible para los logs
-formatter = logging.Formatter('%(asctime)s - %(name)s - %(levelname)s - %(message)s')
-handler.setFormatter(formatter)
+# Los errores de validación se repiten mucho bajo carga: se muestrean
+logger_validacion = logging.getLogger('validacion')
+logger_validacion.addFilter(registro.FiltroMuestreo(limite=10, ventana=1.0))
 
-# Añadir el handler al logger
-logger.addHandler(handler)
+# Resultados ya calculados (Vigenère es determinista); VIGENERE_CACHE_BYTES=0 la desactiva
+resultados = cache.CacheLRU(int(os.environ.get('VIGENERE_CACHE_BYTES', 8 * 1024 * 1024)))
 
 # Crear aplicación Flask
 app = Flask(__name__)
@@ -46,7 +55,8 @@ def home():
             'POST /api/vigenere/cifrar': 'Cifrar texto',
             'POST /api/vigenere/descifrar': 'Descifrar texto',
             'GET /api/health': 'Estado del servidor'
-        }
+        },
+        'formatos': ['application/json', trama.TIPO]
     }), 200
 
 
@@ -57,7 +67,8 @@ def health():
     """
     return jsonify({
         'status': 'ok',
-        'mensaje': 'El servidor está funcionando correctamente'
+        'mensaje': 'El servidor está funcionando correctamente',
+        'cache': resultados.estadisticas()
     }), 200
 
 
@@ -71,46 +82,33 @@ def cifrar():
     Returns:
         En caso de error devuelve un mensaje descriptivo con código HTTP adecuado.
     """
+    binario = request.mimetype == trama.TIPO
     try:
-        data = request.get_json()
-
-        if not data:
-            mensaje = 'No se proporcionaron datos JSON'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        texto = data.get('texto')
-        clave = data.get('clave')
-
-        if not texto or not clave:
-            mensaje = 'Se requieren los campos "texto" y "clave"'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        try:
-            validar_texto_sin_emoticonos(texto)
-            validar_texto_sin_emoticonos(clave)
-        except ValueError as ve:
-            logger.error("Error de validación: %s", str(ve))
-            return jsonify({'error': str(ve)}), 400
-
-        if not clave.strip():
-            mensaje = 'La clave no puede estar vacía'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        if len(clave.strip()) < 3:
-            mensaje = 'La clave debe tener al menos 3 caracteres'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        if not es_clave_valida_vigenere(clave):
-            mensaje = 'La clave de Vigenère debe contener solo letras (sin números ni símbolos).'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        texto_cifrado = cifrar_vigenere(texto, clave)
+        if binario:
+            texto, clave = trama.leer_peticion(request.get_data(cache=False))
+        else:
+            data = request.get_json()
+
+            if not data:
+                mensaje = 'No se proporcionaron datos JSON'
+                logger_validacion.error(mensaje)
+                return jsonify({'error': mensaje}), 400
+
+            texto = data.get('texto')
+            clave = data.get('clave')
+
+        mensaje = validar_peticion(texto, clave)
+        if mensaje:
+            logger_validacion.error("Error de validación: %s", mensaje)
+            return _error(mensaje, 400, binario)
+
+        texto_cifrado = resultados.obtener('cifrar', clave, texto)
+        if texto_cifrado is None:
+            texto_cifrado = cifrar_vigenere(texto, clave)
+            resultados.guardar('cifrar', clave, texto, texto_cifrado)
         logger.info("Texto cifrado exitosamente (longitud: %d)", len(texto))
+        if binario:
+            return Response(trama.escribir_respuesta(texto_cifrado), mimetype=trama.TIPO)
         return jsonify({
             'texto_cifrado': texto_cifrado,
             'longitud_original': len(texto),
@@ -118,12 +116,28 @@ def cifrar():
         }), 200
 
     except ValueError as ve:
-        logger.error("Error de validación: %s", str(ve))
-        return jsonify({'error': str(ve)}), 400
+        logger_validacion.error("Error de validación: %s", str(ve))
+        return _error(str(ve), 400, binario)
     except Exception as e:
         logger.error("Error inesperado en cifrar: %s", str(e), exc_info=True)  # Asegura que
-        return jsonify({'error': 'Error interno del servidor'}), 500
+        return _error('Error interno del servidor', 500, binario)
+
+
 
+def _error(mensaje, codigo, binario=False):
+    """Construye la respuesta de error en el formato negociado por la petición.
+
+    Args:
+        mensaje (str): Mensaje de error
+        codigo (int): Código HTTP
+        binario (bool): True si la petición llegó como trama binaria
+
+    Returns:
+        tuple: Respuesta y código HTTP
+    """
+    if binario:
+        return Response(trama.escribir_respuesta(mensaje, trama.ESTADO_ERROR), mimetype=trama.TIPO), codigo
+    return jsonify({'error': mensaje}), codigo
 
 
 def es_clave_valida_vigenere(clave):
@@ -136,7 +150,7 @@ def es_clave_valida_vigenere(clave):
         _bool_: True si es valida, False en caso contrario
     """
     # Solo permite letras (mayúsculas y minúsculas, sin espacios, números ni símbolos)
-    return bool(re.fullmatch(r'[A-Za-zÑñ]+', clave.strip() if clave else ""))
+    return bool(PATRON_CLAVE.fullmatch(clave.strip() if clave else ""))
 
 @app.route('/api/vigenere/descifrar', methods=['POST'])
 def descifrar():
@@ -148,57 +162,44 @@ def descifrar():
     Returns:
         En caso de error devuelve un mensaje descriptivo con código HTTP adecuado.
     """
+    binario = request.mimetype == trama.TIPO
     try:
-        data = request.get_json()
-
-        if not data:
-            mensaje = 'No se proporcionaron datos JSON'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        texto_cifrado = data.get('texto')
-        clave = data.get('clave')
-
-        if not texto_cifrado or not clave:
-            mensaje = 'Se requieren los campos "texto" y "clave"'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        try:
-            validar_texto_sin_emoticonos(texto_cifrado)
-            validar_texto_sin_emoticonos(clave)
-        except ValueError as ve:
-            logger.error("Error de validación: %s", str(ve))
-            return jsonify({'error': str(ve)}), 400
-
-        if not clave.strip():
-            mensaje = 'La clave no puede estar vacía'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        if len(clave.strip()) < 3:
-            mensaje = 'La clave debe tener al menos 3 caracteres'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        if not es_clave_valida_vigenere(clave):
-            mensaje = 'La clave de Vigenère debe contener solo letras (sin números ni símbolos).'
-            logger.error(mensaje)
-            return jsonify({'error': mensaje}), 400
-
-        texto_descifrado = descifrar_vigenere(texto_cifrado, clave)
+        if binario:
+            texto_cifrado, clave = trama.leer_peticion(request.get_data(cache=False))
+        else:
+            data = request.get_json()
+
+            if not data:
+                mensaje = 'No se proporcionaron datos JSON'
+                logger_validacion.error(mensaje)
+                return jsonify({'error': mensaje}), 400
+
+            texto_cifrado = data.get('texto')
+            clave = data.get('clave')
+
+        mensaje = validar_peticion(texto_cifrado, clave)
+        if mensaje:
+            logger_validacion.error("Error de validación: %s", mensaje)
+            return _error(mensaje, 400, binario)
+
+        texto_descifrado = resultados.obtener('descifrar', clave, texto_cifrado)
+        if texto_descifrado is None:
+            texto_descifrado = descifrar_vigenere(texto_cifrado, clave)
+            resultados.guardar('descifrar', clave, texto_cifrado, texto_descifrado)
         logger.info("Texto descifrado exitosamente (longitud: %d)", len(texto_cifrado))
+        if binario:
+            return Response(trama.escribir_respuesta(texto_descifrado), mimetype=trama.TIPO)
         return jsonify({
             'texto_descifrado': texto_descifrado,
             'longitud_cifrado': len(texto_cifrado),
             'longitud_descifrado': len(texto_descifrado)
         }), 200
     except ValueError as ve:
-        logger.error("Error de validación: %s", str(ve))
-        return jsonify({'error': str(ve)}), 400
+        logger_validacion.error("Error de validación: %s", str(ve))
+        return _error(str(ve), 400, binario)
     except Exception as e:
         logger.error("Error inesperado en descifrar: %s", str(e), exc_info=True)
-        return jsonify({'error': 'Error interno del servidor'}), 500
+        return _error('Error interno del servidor', 500, binario)
 
 
 
@@ -242,15 +243,51 @@ def validar_texto_sin_emoticonos(texto):
     Raises:
         ValueError: Error que se muestra si contiene caracteres incorrectos
     """
-    # Permite sólo letras, números, signos básicos y espacios
-    patron = re.compile(r'^[A-Za-zÁÀÄÂÃÉÈËÊÍÌÏÎÓÒÖÔÕÚÙÜÛÑáàäâãéèëêíìïîóòöôõúùüûñ .,;:¡!¿?()\-\n\r]*$')
-    # Modifica el patrón para lo que desees permitir
-    if not patron.match(texto):
-        raise ValueError("El texto contiene caracteres no permitidos,"
-                          + "como emoticonos o símbolos especiales.")
+    # Permite sólo letras, números, signos básicos y espacios (ver PATRON_TEXTO)
+    if not PATRON_TEXTO.fullmatch(texto):
+        raise ValueError(MENSAJE_CARACTERES)
+
+
+def validar_peticion(texto, clave):
+    """Valida texto y clave de una petición con los patrones precompilados.
+
+    Aplica las mismas reglas y mensajes que validar_texto_sin_emoticonos y
+    es_clave_valida_vigenere, pero recortando la clave una sola vez y sin
+    excepciones en el camino habitual.
+
+    Args:
+        texto (String): texto recibido
+        clave (String): clave recibida
+
+    Returns:
+        str: Mensaje de error, o None si la petición es válida
+    """
+    if not texto or not clave:
+        return 'Se requieren los campos "texto" y "clave"'
+    if not PATRON_TEXTO.fullmatch(texto) or not PATRON_TEXTO.fullmatch(clave):
+        return MENSAJE_CARACTERES
+    clave_limpia = clave.strip()
+    if not clave_limpia:
+        return 'La clave no puede estar vacía'
+    if len(clave_limpia) < 3:
+        return 'La clave debe tener al menos 3 caracteres'
+    if not PATRON_CLAVE.fullmatch(clave_limpia):
+        return 'La clave de Vigenère debe contener solo letras (sin números ni símbolos).'
+    return None
 
 
 if __name__ == '__main__':
+    import argparse
+
+    parser = argparse.ArgumentParser(description='API Cifrado Vigenère')
+    parser.add_argument('--produccion', action='store_true',
+                        help='servidor WSGI con varios procesos y sin modo debug')
+    parser.add_argument('--trabajadores', type=int, default=os.cpu_count() or 1,
+                        help='procesos trabajadores en modo producción')
+    parser.add_argument('--vigilar-stdin', action='store_true',
+                        help='apagar de forma ordenada al cerrarse la entrada estándar')
+    args = parser.parse_args()
+
     print("=" * 50)
     print("      API CIFRADO VIGENÈRE")
     print("=" * 50)
@@ -264,4 +301,8 @@ if __name__ == '__main__':
     print("\n Servidor listo para recibir peticiones")
     print("=" * 50)
 
-    app.run(host='localhost', port=5000, debug=True)
+    if args.produccion:
+        import servidor
+        servidor.servir('app:app', 'localhost', 5000, max(1, args.trabajadores), args.vigilar_stdin)
+    else:
+        app.run(host='localhost', port=5000, debug=True)
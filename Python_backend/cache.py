@@ -0,0 +1,104 @@
+"""
+    Caché LRU de resultados de la API Vigenère.
+    El cifrado es determinista: la misma operación con la misma clave y el
+    mismo texto da siempre el mismo resultado, así que se puede reutilizar
+    sin repetir el bucle de cifrado.
+
+    La capacidad se mide en bytes (tamaño real de las cadenas guardadas) y
+    se expulsan primero las entradas usadas hace más tiempo. Cada proceso
+    trabajador tiene su propia caché.
+
+    Autor: Gaizka
+    Fecha: 2025
+"""
+
+import sys
+import threading
+from collections import OrderedDict
+
+# Coste fijo estimado por entrada (tupla de clave + nodo del diccionario)
+SOBRECOSTE_ENTRADA = 200
+
+
+class CacheLRU:
+    """Caché LRU segura entre hilos con límite de tamaño en bytes."""
+
+    def __init__(self, max_bytes):
+        """
+        Args:
+            max_bytes (int): Tamaño máximo; 0 desactiva la caché
+        """
+        self.max_bytes = max_bytes
+        self._cerrojo = threading.Lock()
+        self._entradas = OrderedDict()  # (operación, clave, texto) -> (resultado, bytes)
+        self._bytes = 0
+        self.aciertos = 0
+        self.fallos = 0
+        self.expulsiones = 0
+
+    def obtener(self, operacion, clave, texto):
+        """Busca un resultado y, si está, lo marca como usado recientemente.
+
+        Args:
+            operacion (str): 'cifrar' o 'descifrar'
+            clave (str): Clave
+            texto (str): Texto de entrada
+        Returns:
+            str: Resultado guardado, o None si no está
+        """
+        if not self.max_bytes:
+            return None
+        k = (operacion, clave, texto)
+        with self._cerrojo:
+            entrada = self._entradas.get(k)
+            if entrada is None:
+                self.fallos += 1
+                return None
+            self._entradas.move_to_end(k)
+            self.aciertos += 1
+            return entrada[0]
+
+    def guardar(self, operacion, clave, texto, resultado):
+        """Guarda un resultado expulsando lo menos usado hasta que quepa.
+
+        Las entradas mayores que la caché completa no se guardan.
+
+        Args:
+            operacion (str): 'cifrar' o 'descifrar'
+            clave (str): Clave
+            texto (str): Texto de entrada
+            resultado (str): Resultado de la operación
+        """
+        tam = (sys.getsizeof(clave) + sys.getsizeof(texto) + sys.getsizeof(resultado)
+               + SOBRECOSTE_ENTRADA)
+        if tam > self.max_bytes:
+            return
+        k = (operacion, clave, texto)
+        with self._cerrojo:
+            anterior = self._entradas.pop(k, None)
+            if anterior is not None:
+                self._bytes -= anterior[1]
+            self._entradas[k] = (resultado, tam)
+            self._bytes += tam
+            while self._bytes > self.max_bytes:
+                _, (_, liberados) = self._entradas.popitem(last=False)
+                self._bytes -= liberados
+                self.expulsiones += 1
+
+    def estadisticas(self):
+        """Métricas de uso de la caché.
+
+        Returns:
+            dict: Entradas, bytes, aciertos, fallos, expulsiones y tasa de aciertos
+        """
+        with self._cerrojo:
+            consultas = self.aciertos + self.fallos
+            return {
+                'entradas': len(self._entradas),
+                'bytes': self._bytes,
+                'max_bytes': self.max_bytes,
+                'aciertos': self.aciertos,
+                'fallos': self.fallos,
+                'expulsiones': self.expulsiones,
+                'tasa_aciertos': round(self.aciertos / consultas, 4) if consultas else 0.0
+            }
@@ -0,0 +1,239 @@
+"""
+    Prueba de carga de la API Vigenère.
+    Arranca la aplicación Flask en un servidor WSGI local con hilos (wsgiref),
+    lanza peticiones concurrentes contra /api/vigenere/cifrar y muestra
+    peticiones por segundo y latencias (p50, p99, máxima).
+
+    Cada petición lleva un texto distinto, para que la caché de resultados de
+    app.py no convierta la prueba en una medida de aciertos de caché; con
+    --repetir se envía siempre el mismo texto y se mide precisamente eso.
+
+    Uso:
+        python carga.py                                  # app.py actual
+        python carga.py --peticiones 20000 --concurrencia 32 --formato trama
+        python carga.py --url http://localhost:5000      # servidor ya arrancado
+        python carga.py --repetir                        # solo aciertos de caché
+
+    Comparar antes/después de un cambio:
+        git show HEAD~1:Python_backend/app.py > app_anterior.py
+        python carga.py --app app_anterior.py
+        python carga.py
+
+    Autor: Gaizka
+    Fecha: 2025
+"""
+
+import argparse
+import http.client
+import importlib.util
+import json
+import os
+import sys
+import threading
+import time
+from concurrent.futures import ThreadPoolExecutor
+from socketserver import ThreadingMixIn
+from urllib.parse import urlsplit
+from wsgiref.simple_server import WSGIRequestHandler, WSGIServer, make_server
+
+DIRECTORIO = os.path.dirname(os.path.abspath(__file__))
+sys.path.insert(0, DIRECTORIO)
+
+import trama  # noqa: E402  (necesita DIRECTORIO en sys.path)
+
+RUTA = "/api/vigenere/cifrar"
+TEXTO = "Hola Mundo desde la prueba de carga, ñandú y camión. " * 8
+CLAVE = "CLAVE"
+
+
+class _ServidorConHilos(ThreadingMixIn, WSGIServer):
+    """Servidor WSGI de la biblioteca estándar con un hilo por conexión."""
+    daemon_threads = True
+    request_queue_size = 256  # el valor por defecto (5) provoca reintentos de conexión
+
+
+class _ManejadorSilencioso(WSGIRequestHandler):
+    """Manejador que no escribe una línea en stderr por cada petición."""
+
+    def log_message(self, *args):
+        pass
+
+
+def cargar_app(ruta):
+    """Importa la aplicación Flask de un fichero (app.py u otra versión).
+
+    Args:
+        ruta (str): Ruta del módulo que define `app`
+    Returns:
+        Flask: Aplicación WSGI
+    """
+    sys.path.insert(0, os.path.dirname(os.path.abspath(ruta)))
+    spec = importlib.util.spec_from_file_location("app_carga", ruta)
+    modulo = importlib.util.module_from_spec(spec)
+    spec.loader.exec_module(modulo)
+    return modulo.app
+
+
+def arrancar(app):
+    """Sirve la aplicación en un puerto libre de loopback.
+
+    Args:
+        app: Aplicación WSGI
+    Returns:
+        WSGIServer: Servidor en marcha (en un hilo de fondo)
+    """
+    servidor = make_server("127.0.0.1", 0, app,
+                           server_class=_ServidorConHilos,
+                           handler_class=_ManejadorSilencioso)
+    threading.Thread(target=servidor.serve_forever, daemon=True).start()
+    return servidor
+
+
+def sufijo(n):
+    """Escribe un número con letras (base 26), porque la API no admite dígitos.
+
+    Args:
+        n (int): Número de petición
+    Returns:
+        str: Letras distintas para cada número
+    """
+    letras = ""
+    while True:
+        n, resto = divmod(n, 26)
+        letras = chr(ord("a") + resto) + letras
+        if n == 0:
+            return letras
+
+
+def cuerpo_peticion(formato, n):
+    """Construye el cuerpo y las cabeceras de la petición de prueba.
+
+    Args:
+        formato (str): 'json' o 'trama'
+        n (int): Número de petición; forma parte del texto, así que cada
+            número da una petición distinta
+    Returns:
+        tuple: (bytes, dict de cabeceras)
+    """
+    texto = TEXTO + sufijo(n)
+    if formato == "trama":
+        t, c = texto.encode("utf-8"), CLAVE.encode("utf-8")
+        cuerpo = (bytes([trama.MAGIA, trama.VERSION])
+                  + len(t).to_bytes(4, "big") + t
+                  + len(c).to_bytes(4, "big") + c)
+        return cuerpo, {"Content-Type": trama.TIPO}
+    cuerpo = json.dumps({"texto": texto, "clave": CLAVE}).encode("utf-8")
+    return cuerpo, {"Content-Type": "application/json"}
+
+
+def lanzar(host, puerto, peticiones, concurrencia, formato, desde=0, repetir=False):
+    """Lanza las peticiones y mide la latencia de cada una.
+
+    Args:
+        host (str): Servidor
+        puerto (int): Puerto
+        peticiones (int): Número total de peticiones
+        concurrencia (int): Clientes simultáneos
+        formato (str): 'json' o 'trama'
+        desde (int): Número de la primera petición (para no repetir textos
+            entre el calentamiento y la medida)
+        repetir (bool): Enviar siempre el mismo texto (el de la petición 0)
+    Returns:
+        tuple: (lista de latencias en segundos, errores, duración total)
+    """
+    latencias = []
+    errores = [0]
+    cerrojo = threading.Lock()
+    reparto = [peticiones // concurrencia + (1 if i < peticiones % concurrencia else 0)
+               for i in range(concurrencia)]
+    primeras = [desde + sum(reparto[:i]) for i in range(concurrencia)]
+
+    def cliente(n, primera):
+        propias = []
+        fallos = 0
+        conexion = None
+        for k in range(n):
+            cuerpo, cabeceras = cuerpo_peticion(formato, 0 if repetir else primera + k)
+            inicio = time.perf_counter()
+            try:
+                if conexion is None:
+                    conexion = http.client.HTTPConnection(host, puerto, timeout=30)
+                conexion.request("POST", RUTA, body=cuerpo, headers=cabeceras)
+                respuesta = conexion.getresponse()
+                respuesta.read()
+                if respuesta.status != 200:
+                    fallos += 1
+                if respuesta.will_close:
+                    conexion.close()
+                    conexion = None
+            except (OSError, http.client.HTTPException):
+                fallos += 1
+                conexion = None
+            propias.append(time.perf_counter() - inicio)
+        with cerrojo:
+            latencias.extend(propias)
+            errores[0] += fallos
+
+    inicio = time.perf_counter()
+    with ThreadPoolExecutor(max_workers=concurrencia) as grupo:
+        list(grupo.map(cliente, reparto, primeras))
+    return latencias, errores[0], time.perf_counter() - inicio
+
+
+def percentil(ordenadas, p):
+    """Percentil por el método del rango más cercano.
+
+    Args:
+        ordenadas (list): Valores ordenados
+        p (float): Percentil (0-100)
+    Returns:
+        float: Valor del percentil
+    """
+    if not ordenadas:
+        return 0.0
+    i = max(0, min(len(ordenadas) - 1, int(round(p / 100 * len(ordenadas))) - 1))
+    return ordenadas[i]
+
+
+def main():
+    """Punto de entrada: interpreta argumentos, calienta, mide e informa."""
+    parser = argparse.ArgumentParser(description="Prueba de carga de la API Vigenère")
+    parser.add_argument("--app", default=os.path.join(DIRECTORIO, "app.py"),
+                        help="fichero con la aplicación Flask a medir")
+    parser.add_argument("--url", help="medir un servidor ya arrancado en lugar de --app")
+    parser.add_argument("--peticiones", type=int, default=5000)
+    parser.add_argument("--concurrencia", type=int, default=16)
+    parser.add_argument("--calentamiento", type=int, default=200)
+    parser.add_argument("--formato", choices=("json", "trama"), default="json")
+    parser.add_argument("--repetir", action="store_true",
+                        help="enviar siempre el mismo texto (mide los aciertos de caché)")
+    args = parser.parse_args()
+
+    servidor = None
+    if args.url:
+        partes = urlsplit(args.url)
+        host, puerto, destino = partes.hostname, partes.port or 80, args.url
+    else:
+        servidor = arrancar(cargar_app(args.app))
+        host, puerto = servidor.server_address[:2]
+        destino = args.app
+
+    lanzar(host, puerto, args.calentamiento, min(args.concurrencia, args.calentamiento), args.formato,
+           desde=args.peticiones, repetir=args.repetir)
+    latencias, errores, duracion = lanzar(host, puerto, args.peticiones, args.concurrencia, args.formato,
+                                          repetir=args.repetir)
+    if servidor:
+        servidor.shutdown()
+
+    latencias.sort()
+    print(f"Destino:       {destino}")
+    print(f"Formato:       {args.formato}{' (mismo texto)' if args.repetir else ''}")
+    print(f"Peticiones:    {len(latencias)} ({errores} errores), concurrencia {args.concurrencia}")
+    print(f"Rendimiento:   {len(latencias) / duracion:,.0f} peticiones/s")
+    print(f"Latencia p50:  {percentil(latencias, 50) * 1000:.2f} ms")
+    print(f"Latencia p99:  {percentil(latencias, 99) * 1000:.2f} ms")
+    print(f"Latencia máx.: {latencias[-1] * 1000 if latencias else 0:.2f} ms")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,147 @@
+"""
+    Registro asíncrono para la API Vigenère.
+    Los hilos que atienden peticiones solo encolan el registro (QueueHandler);
+    un hilo de fondo (QueueListener) lo escribe en el fichero con rotación,
+    así que ninguna petición espera al disco.
+
+    Con el servidor de producción (servidor.py) la cola es de multiprocessing:
+    los trabajadores envían sus registros al proceso principal, que es el único
+    que escribe y rota el fichero.
+
+    Los errores de validación repetidos se muestrean con FiltroMuestreo para
+    que una ráfaga de peticiones inválidas no inunde el log.
+
+    Autor: Gaizka
+    Fecha: 2025
+"""
+
+import atexit
+import logging
+import queue
+import threading
+import time
+from logging.handlers import QueueHandler, QueueListener, RotatingFileHandler
+
+FORMATO = '%(asctime)s - %(name)s - %(levelname)s - %(message)s'
+
+# Estado del proceso: manejador de cola en el logger raíz y su escritor de fondo
+_cola_handler = None
+_listener = None
+_fichero = None
+
+
+class FiltroMuestreo(logging.Filter):
+    """Deja pasar como mucho `limite` registros iguales por ventana de tiempo.
+
+    Los registros se consideran iguales si su mensaje final coincide. Al abrirse
+    una ventana nueva, el primer registro indica cuántos se omitieron en la anterior.
+    """
+
+    # Mensajes distintos que se siguen a la vez antes de empezar de cero
+    MAX_CLAVES = 1024
+
+    def __init__(self, limite=10, ventana=1.0):
+        """
+        Args:
+            limite (int): Registros iguales que se dejan pasar por ventana
+            ventana (float): Duración de la ventana en segundos
+        """
+        super().__init__()
+        self.limite = limite
+        self.ventana = ventana
+        self._cerrojo = threading.Lock()
+        self._estado = {}  # mensaje -> [inicio de ventana, emitidos, omitidos]
+
+    def filter(self, record):
+        mensaje = record.getMessage()
+        ahora = time.monotonic()
+        with self._cerrojo:
+            estado = self._estado.get(mensaje)
+            if estado is None:
+                if len(self._estado) >= self.MAX_CLAVES:
+                    self._estado.clear()
+                self._estado[mensaje] = [ahora, 1, 0]
+                return True
+            if ahora - estado[0] >= self.ventana:
+                omitidos = estado[2]
+                estado[:] = [ahora, 1, 0]
+                if omitidos:
+                    record.msg = f"{mensaje} (omitidos {omitidos} mensajes iguales)"
+                    record.args = None
+                return True
+            if estado[1] < self.limite:
+                estado[1] += 1
+                return True
+            estado[2] += 1
+            return False
+
+
+def configurar(ruta, max_bytes=1024 * 1024 * 10, backups=5, nivel=logging.INFO):
+    """Envía el logger raíz a un fichero con rotación a través de una cola.
+
+    Se puede llamar varias veces: solo la primera tiene efecto.
+
+    Args:
+        ruta (str): Fichero de log
+        max_bytes (int): Tamaño a partir del cual se rota
+        backups (int): Ficheros rotados que se conservan
+        nivel (int): Nivel mínimo
+    """
+    global _cola_handler, _listener, _fichero
+    if _cola_handler is not None:
+        return
+    _fichero = RotatingFileHandler(ruta, maxBytes=max_bytes, backupCount=backups, delay=True)
+    _fichero.setLevel(nivel)
+    _fichero.setFormatter(logging.Formatter(FORMATO))
+
+    cola = queue.SimpleQueue()
+    _listener = QueueListener(cola, _fichero, respect_handler_level=True)
+    _listener.start()
+    _cola_handler = QueueHandler(cola)
+
+    raiz = logging.getLogger()
+    raiz.setLevel(nivel)
+    raiz.addHandler(_cola_handler)
+    atexit.register(detener)
+
+
+def compartir(contexto):
+    """En el proceso principal: pasa a escribir lo que llegue de una cola entre procesos.
+
+    Args:
+        contexto: Contexto de multiprocessing con el que se crean los trabajadores
+    Returns:
+        Cola para los trabajadores, o None si el registro no está configurado
+    """
+    global _listener
+    if _cola_handler is None:
+        return None
+    cola = contexto.Queue(-1)
+    _listener.stop()
+    _listener = QueueListener(cola, _fichero, respect_handler_level=True)
+    _listener.start()
+    _cola_handler.queue = cola
+    return cola
+
+
+def usar_cola(cola):
+    """En un trabajador: envía los registros al proceso principal en lugar de al fichero.
+
+    Args:
+        cola: Cola devuelta por compartir() (None para no cambiar nada)
+    """
+    global _listener
+    if cola is None or _cola_handler is None:
+        return
+    _listener.stop()
+    _listener = None
+    _fichero.close()
+    _cola_handler.queue = cola
+
+
+def detener():
+    """Escribe lo que quede en la cola y detiene el hilo de fondo."""
+    global _listener
+    if _listener is not None:
+        _listener.stop()
+        _listener = None
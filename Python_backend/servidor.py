@@ -0,0 +1,169 @@
+"""
+    Servidor WSGI de producción para la API Vigenère.
+    Abre el socket de escucha una sola vez y reparte las conexiones entre
+    varios procesos trabajadores, de modo que las peticiones concurrentes
+    se atienden en varios núcleos (cada proceso tiene su propio GIL).
+    Sin modo debug ni recargador.
+
+    Solo usa la biblioteca estándar (multiprocessing + wsgiref), por lo que
+    funciona igual en Windows, donde no existe fork().
+
+    Apagado ordenado: el proceso principal deja de aceptar conexiones, espera
+    a que cada trabajador termine las peticiones en curso y sale. Se dispara con
+    SIGTERM, Ctrl+C o, con --vigilar-stdin, al cerrarse la entrada estándar
+    (así lo hace Main desde Java, donde Process.destroy() no es ordenado en Windows).
+
+    Uso:
+        python app.py --produccion --trabajadores 4
+        python servidor.py --modulo app:app --puerto 5000
+
+    Autor: Gaizka
+    Fecha: 2025
+"""
+
+import argparse
+import importlib
+import multiprocessing
+import os
+import signal
+import socket
+import sys
+import threading
+from socketserver import ThreadingMixIn
+from wsgiref.simple_server import WSGIRequestHandler, WSGIServer
+
+import registro
+
+# Segundos que se espera a un trabajador antes de terminarlo a la fuerza
+ESPERA_APAGADO = 10
+
+
+class _ServidorConHilos(ThreadingMixIn, WSGIServer):
+    """Servidor WSGI con un hilo por conexión que espera a las peticiones en curso al cerrar."""
+    daemon_threads = False
+    block_on_close = True
+
+
+class _Manejador(WSGIRequestHandler):
+    """Manejador sin línea de acceso en stderr (la aplicación ya registra cada petición)."""
+
+    def log_message(self, *args):
+        pass
+
+
+def _cargar(modulo):
+    """Importa la aplicación WSGI indicada como 'modulo:atributo'.
+
+    Args:
+        modulo (str): Por ejemplo 'app:app'
+    Returns:
+        callable: Aplicación WSGI
+    """
+    nombre, _, atributo = modulo.partition(":")
+    # Con 'spawn' el script principal ya se ejecutó como __mp_main__: reutilizarlo
+    # evita importar app.py dos veces (y duplicar sus manejadores de log)
+    principal = sys.modules.get("__mp_main__")
+    ruta = getattr(principal, "__file__", None) or ""
+    if os.path.splitext(os.path.basename(ruta))[0] == nombre:
+        return getattr(principal, atributo or "app")
+    return getattr(importlib.import_module(nombre), atributo or "app")
+
+
+def _trabajador(modulo, escucha, parar, directorio, cola_log):
+    """Cuerpo de cada proceso trabajador: sirve peticiones hasta que se pida parar.
+
+    Args:
+        modulo (str): Aplicación WSGI ('modulo:atributo')
+        escucha (socket.socket): Socket de escucha compartido
+        parar (multiprocessing.Event): Señal de apagado del proceso principal
+        directorio (str): Directorio de la aplicación (se añade a sys.path)
+        cola_log: Cola de registro del proceso principal (ver registro.compartir)
+    """
+    # Ctrl+C llega a todo el grupo de procesos: solo el principal decide cuándo parar
+    signal.signal(signal.SIGINT, signal.SIG_IGN)
+    sys.path.insert(0, directorio)
+    app = _cargar(modulo)
+    registro.usar_cola(cola_log)
+
+    servidor = _ServidorConHilos(escucha.getsockname()[:2], _Manejador, bind_and_activate=False)
+    servidor.socket = escucha
+    servidor.server_name, servidor.server_port = escucha.getsockname()[:2]
+    servidor.setup_environ()
+    servidor.set_app(app)
+
+    hilo = threading.Thread(target=servidor.serve_forever, name="wsgi", daemon=True)
+    hilo.start()
+    parar.wait()
+    servidor.shutdown()      # deja de aceptar conexiones
+    servidor.server_close()  # espera a las peticiones en curso
+
+
+def servir(modulo, host, puerto, trabajadores, vigilar_stdin=False):
+    """Arranca los trabajadores y espera a la señal de apagado.
+
+    Args:
+        modulo (str): Aplicación WSGI ('modulo:atributo')
+        host (str): Interfaz de escucha
+        puerto (int): Puerto
+        trabajadores (int): Número de procesos trabajadores
+        vigilar_stdin (bool): Apagar al cerrarse la entrada estándar
+    """
+    contexto = multiprocessing.get_context("spawn")
+    parar = contexto.Event()
+    directorio = os.path.dirname(os.path.abspath(__file__))
+    cola_log = registro.compartir(contexto)  # solo este proceso escribe el fichero de log
+
+    escucha = socket.create_server((host, puerto), backlog=256)
+    escucha.set_inheritable(True)
+
+    def lanzar():
+        proceso = contexto.Process(target=_trabajador, args=(modulo, escucha, parar, directorio, cola_log),
+                                   name="vigenere-wsgi", daemon=True)
+        proceso.start()
+        return proceso
+
+    procesos = [lanzar() for _ in range(trabajadores)]
+
+    signal.signal(signal.SIGTERM, lambda *_: parar.set())
+    if vigilar_stdin:
+        def esperar_eof():
+            while sys.stdin.readline():
+                pass
+            parar.set()
+        threading.Thread(target=esperar_eof, name="stdin", daemon=True).start()
+
+    print(f" Servidor de producción en http://{host}:{puerto} con {trabajadores} trabajadores", flush=True)
+    try:
+        while not parar.wait(0.5):
+            # Un trabajador caído se sustituye para no perder capacidad
+            for i, proceso in enumerate(procesos):
+                if not proceso.is_alive():
+                    print(f" Trabajador {proceso.pid} terminó (código {proceso.exitcode}), relanzando",
+                          flush=True)
+                    procesos[i] = lanzar()
+    except KeyboardInterrupt:
+        parar.set()
+
+    print(" Apagando servidor...", flush=True)
+    for proceso in procesos:
+        proceso.join(ESPERA_APAGADO)
+        if proceso.is_alive():
+            proceso.terminate()
+    escucha.close()
+    print(" Servidor detenido", flush=True)
+
+
+def main():
+    """Punto de entrada para lanzar cualquier aplicación WSGI del directorio."""
+    parser = argparse.ArgumentParser(description="Servidor WSGI de producción")
+    parser.add_argument("--modulo", default="app:app")
+    parser.add_argument("--host", default="localhost")
+    parser.add_argument("--puerto", type=int, default=5000)
+    parser.add_argument("--trabajadores", type=int, default=os.cpu_count() or 1)
+    parser.add_argument("--vigilar-stdin", action="store_true")
+    args = parser.parse_args()
+    servir(args.modulo, args.host, args.puerto, max(1, args.trabajadores), args.vigilar_stdin)
+
+
+if __name__ == "__main__":
+    main()
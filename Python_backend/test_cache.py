@@ -0,0 +1,98 @@
+"""
+    Pruebas de la caché LRU de resultados (cache.CacheLRU).
+    Se ejecutan desde Python_backend con: python3 -m unittest test_cache
+
+    Autor: Gaizka
+    Fecha: 2025
+"""
+
+import sys
+import unittest
+
+from cache import CacheLRU, SOBRECOSTE_ENTRADA
+
+
+def _tam(clave, texto, resultado):
+    """Tamaño con el que la caché contabiliza una entrada.
+
+    Args:
+        clave (str): Clave
+        texto (str): Texto de entrada
+        resultado (str): Resultado
+    Returns:
+        int: Bytes estimados
+    """
+    return (sys.getsizeof(clave) + sys.getsizeof(texto) + sys.getsizeof(resultado)
+            + SOBRECOSTE_ENTRADA)
+
+
+# Todas las entradas de las pruebas tienen campos de un carácter ASCII: ocupan lo mismo
+ENTRADA = _tam("K", "A", "1")
+
+
+class CacheLRUTest(unittest.TestCase):
+
+    def test_expulsa_la_menos_reciente(self):
+        cache = CacheLRU(3 * ENTRADA)
+        for texto, resultado in (("A", "1"), ("B", "2"), ("C", "3"), ("D", "4")):
+            cache.guardar("cifrar", "K", texto, resultado)
+
+        self.assertIsNone(cache.obtener("cifrar", "K", "A"))
+        self.assertEqual(cache.obtener("cifrar", "K", "B"), "2")
+        self.assertEqual(cache.obtener("cifrar", "K", "D"), "4")
+        self.assertEqual(cache.estadisticas()['expulsiones'], 1)
+
+    def test_consultar_refresca_la_entrada(self):
+        cache = CacheLRU(3 * ENTRADA)
+        for texto, resultado in (("A", "1"), ("B", "2"), ("C", "3")):
+            cache.guardar("cifrar", "K", texto, resultado)
+        self.assertEqual(cache.obtener("cifrar", "K", "A"), "1")
+        cache.guardar("cifrar", "K", "D", "4")
+
+        self.assertEqual(cache.obtener("cifrar", "K", "A"), "1")
+        self.assertIsNone(cache.obtener("cifrar", "K", "B"))
+
+    def test_reemplazar_no_cuenta_dos_veces(self):
+        cache = CacheLRU(3 * ENTRADA)
+        cache.guardar("cifrar", "K", "A", "1")
+        cache.guardar("cifrar", "K", "A", "9")
+
+        stats = cache.estadisticas()
+        self.assertEqual(stats['entradas'], 1)
+        self.assertEqual(stats['bytes'], ENTRADA)
+        self.assertEqual(cache.obtener("cifrar", "K", "A"), "9")
+
+    def test_la_operacion_forma_parte_de_la_clave(self):
+        cache = CacheLRU(3 * ENTRADA)
+        cache.guardar("cifrar", "K", "A", "1")
+
+        self.assertIsNone(cache.obtener("descifrar", "K", "A"))
+        self.assertEqual(cache.obtener("cifrar", "K", "A"), "1")
+
+    def test_entrada_mayor_que_la_cache_no_se_guarda(self):
+        cache = CacheLRU(3 * ENTRADA)
+        cache.guardar("cifrar", "K", "A", "1")
+        cache.guardar("cifrar", "K", "X" * 1000, "Y" * 1000)
+
+        self.assertIsNone(cache.obtener("cifrar", "K", "X" * 1000))
+        self.assertEqual(cache.obtener("cifrar", "K", "A"), "1")
+        self.assertEqual(cache.estadisticas()['expulsiones'], 0)
+
+    def test_tamano_cero_desactiva_la_cache(self):
+        cache = CacheLRU(0)
+        cache.guardar("cifrar", "K", "A", "1")
+
+        self.assertIsNone(cache.obtener("cifrar", "K", "A"))
+        self.assertEqual(cache.estadisticas()['entradas'], 0)
+
+    def test_tasa_de_aciertos(self):
+        cache = CacheLRU(3 * ENTRADA)
+        cache.guardar("cifrar", "K", "A", "1")
+        cache.obtener("cifrar", "K", "A")
+        cache.obtener("cifrar", "K", "B")
+
+        self.assertEqual(cache.estadisticas()['tasa_aciertos'], 0.5)
+
+
+if __name__ == "__main__":
+    unittest.main()
@@ -0,0 +1,70 @@
+"""
+    Trama binaria para la API Vigenère.
+    Alternativa compacta al JSON: campos UTF-8 precedidos de su longitud,
+    sin escapes ni nombres de campo. Se negocia con la cabecera Content-Type.
+
+    Petición:  'V' | versión (1) | u32 len | texto | u32 len | clave
+    Respuesta: 'V' | versión (1) | estado (0 ok, 1 error) | u32 len | texto o mensaje
+    (enteros big-endian, igual que com.gaizkaFrost.vigenere.Trama en Java)
+
+    Autor: Gaizka
+    Fecha: 2025
+"""
+
+import struct
+
+TIPO = "application/x-vigenere-trama"
+
+MAGIA = 0x56  # 'V'
+VERSION = 1
+ESTADO_OK = 0
+ESTADO_ERROR = 1
+
+_CABECERA = struct.Struct(">BB")
+_LONGITUD = struct.Struct(">I")
+_RESPUESTA = struct.Struct(">BBBI")
+
+
+def leer_peticion(datos):
+    """Decodifica una petición sin copiar el cuerpo más que al crear las cadenas.
+
+    Args:
+        datos (bytes): Cuerpo de la petición
+    Returns:
+        tuple: (texto, clave)
+    Raises:
+        ValueError: Si la trama está mal formada
+    """
+    vista = memoryview(datos)
+    if len(vista) < _CABECERA.size:
+        raise ValueError("Trama incompleta")
+    magia, version = _CABECERA.unpack_from(vista, 0)
+    if magia != MAGIA or version != VERSION:
+        raise ValueError("Trama no reconocida")
+    pos = _CABECERA.size
+    campos = []
+    for _ in range(2):
+        if pos + _LONGITUD.size > len(vista):
+            raise ValueError("Trama incompleta")
+        (n,) = _LONGITUD.unpack_from(vista, pos)
+        pos += _LONGITUD.size
+        if pos + n > len(vista):
+            raise ValueError("Trama incompleta")
+        campos.append(str(vista[pos:pos + n], "utf-8"))
+        pos += n
+    if pos != len(vista):
+        raise ValueError("Datos sobrantes tras la trama")
+    return campos[0], campos[1]
+
+
+def escribir_respuesta(texto, estado=ESTADO_OK):
+    """Codifica una respuesta: cabecera fija seguida del texto en UTF-8.
+
+    Args:
+        texto (str): Resultado o mensaje de error
+        estado (int): ESTADO_OK o ESTADO_ERROR
+    Returns:
+        bytes: Trama de respuesta
+    """
+    cuerpo = texto.encode("utf-8")
+    return _RESPUESTA.pack(MAGIA, VERSION, estado, len(cuerpo)) + cuerpo
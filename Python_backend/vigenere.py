@@ -8,10 +8,16 @@
 """
 
 import os
+from functools import lru_cache
 
 ABC = "AÁÀÄÂÃBCDEÉÈËÊFGHIÍÌÏÎJKLMNÑOÓÒÖÔÕPQRSTUÚÙÜÛVWXYZ"
 CLAVE="CLAVE"
 
+# Tablas de traducción del alfabeto: fila d = cada letra desplazada d posiciones
+_N = len(ABC)
+_DIRECTA = [{letra: ABC[(i + d) % _N] for i, letra in enumerate(ABC)} for d in range(_N)]
+_INVERSA = [{letra: ABC[(i - d) % _N] for i, letra in enumerate(ABC)} for d in range(_N)]
+
 
 
 def letra_a_num(letra):
@@ -64,6 +70,97 @@ def repetir_clave(texto, clave):
     return clave_final
 
 
+class ClaveVigenere:
+    """Clave compilada: desplazamientos y filas de traducción precalculados.
+
+    El bucle de cifrado queda en una consulta de diccionario por carácter,
+    sin letra_a_num ni ABC.index. Se obtiene con clave_compilada(), que la
+    guarda en caché por cadena. Da el mismo resultado y los mismos errores que
+    el algoritmo original (una letra de la clave fuera del alfabeto solo falla
+    si llega a usarse).
+    """
+
+    __slots__ = ("clave", "desplazamientos", "_cifrado", "_descifrado")
+
+    def __init__(self, clave):
+        """
+        Args:
+            clave (str): Clave no vacía
+        """
+        self.clave = clave.upper()
+        # Igual que letra_a_num: el espacio vale -1; None si no está en el alfabeto
+        self.desplazamientos = [-1 if k == ' ' else (ABC.index(k) if k in ABC else None)
+                                for k in self.clave]
+        self._cifrado = [None if d is None else _DIRECTA[d % _N] for d in self.desplazamientos]
+        self._descifrado = [None if d is None else _INVERSA[d % _N] for d in self.desplazamientos]
+
+    def cifrar(self, texto):
+        """Cifra el texto con esta clave.
+
+        Args:
+            texto (str): Texto a cifrar
+        Returns:
+            str: Texto cifrado
+        """
+        return self._aplicar(texto, self._cifrado)
+
+    def descifrar(self, texto):
+        """Descifra el texto con esta clave.
+
+        Args:
+            texto (str): Texto a descifrar
+        Returns:
+            str: Texto descifrado
+        """
+        return self._aplicar(texto, self._descifrado)
+
+    def _aplicar(self, texto, filas):
+        """Recorre el texto traduciendo cada letra con la fila de su posición en la clave.
+
+        Args:
+            texto (str): Texto de entrada
+            filas (list): Fila de traducción de cada posición de la clave
+        Returns:
+            str: Resultado
+        Raises:
+            ValueError: Si hay un carácter fuera del alfabeto en el texto o en la clave
+        """
+        resultado = []
+        agregar = resultado.append
+        n = len(filas)
+        j = 0
+        for char in texto.upper():
+            if char == ' ':
+                agregar(' ')
+                continue
+            try:
+                agregar(filas[j][char])
+            except (KeyError, TypeError):
+                if char not in ABC:
+                    raise ValueError(f"Caracter inválido en texto: '{char}'") from None
+                raise ValueError(f"Caracter no válido: '{self.clave[j]}'") from None
+            j += 1
+            if j == n:
+                j = 0
+        return "".join(resultado)
+
+
+@lru_cache(maxsize=256)
+def clave_compilada(clave):
+    """Devuelve la clave compilada, reutilizándola si ya se usó.
+
+    Args:
+        clave (str): Clave
+    Returns:
+        ClaveVigenere: Clave compilada
+    Raises:
+        ValueError: Si la clave está vacía
+    """
+    if not clave:
+        raise ValueError("La clave no puede estar vacía")
+    return ClaveVigenere(clave)
+
+
 def cifrar(texto, clave):
     """Cifra el texto usando el cifrado Vigenère.
     Args:
@@ -72,21 +169,7 @@ def cifrar(texto, clave):
     Returns:
         str: Texto cifrado
     """
-    texto = texto.upper()
-    clave = repetir_clave(texto, clave)
-    resultado = ""
-    indice_clave = 0
-    for char in texto:
-        if char == ' ':
-            resultado += ' '  # Mantiene espacios tal cual
-        elif char in ABC:
-            k = clave[indice_clave % len(clave)]
-            suma = letra_a_num(char) + letra_a_num(k)
-            resultado += num_a_letra(suma)
-            indice_clave += 1
-        else:
-            raise ValueError(f"Caracter inválido en texto: '{char}'")
-    return resultado
+    return clave_compilada(clave).cifrar(texto)
 
 
 def descifrar(texto, clave):
@@ -97,21 +180,7 @@ def descifrar(texto, clave):
     Returns:
         str: Texto descifrado
     """
-    texto = texto.upper()
-    clave = repetir_clave(texto, clave)
-    resultado = ""
-    indice_clave = 0
-    for char in texto:
-        if char == ' ':
-            resultado += ' '
-        elif char in ABC:
-            k = clave[indice_clave % len(clave)]
-            resta = letra_a_num(char) - letra_a_num(k)
-            resultado += num_a_letra(resta)
-            indice_clave += 1
-        else:
-            raise ValueError(f"Caracter inválido en texto: '{char}'")
-    return resultado
+    return clave_compilada(clave).descifrar(texto)
 
 # --- Métodos extra para trabajar con ficheros ---
 def leer_fichero(ruta):
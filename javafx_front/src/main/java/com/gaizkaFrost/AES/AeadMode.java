@@ -0,0 +1,309 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import java.lang.management.ManagementFactory;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <h2>Registro de modos AEAD soportados</h2>
+ *
+ * <p>
+ * Cada modo se identifica por el byte {@code mode} guardado en los artefactos
+ * ({@link CipherArtifact}, {@link SegmentedContainer}, {@link LogContainer}), de modo
+ * que el descifrado siempre usa el modo que declara el blob, sea cual sea el
+ * preferido por el equipo actual.
+ * </p>
+ *
+ * <ul>
+ *     <li><b>GCM</b>: AES-GCM, el modo original y el más rápido con AES-NI.</li>
+ *     <li><b>CHACHA20_POLY1305</b>: incluido en el JDK; varias veces más rápido
+ *     que AES-GCM en equipos sin aceleración AES.</li>
+ *     <li><b>GCM_SIV</b>: AES-GCM-SIV; el JDK no lo incluye, así que se usa el de
+ *     BouncyCastle (sin registrarlo como proveedor global). Es más lento que los
+ *     anteriores, por lo que nunca se elige automáticamente: hay que pedirlo con
+ *     {@link Policy#AEAD_MODE_PROPERTY} ({@code -Ddescifrador.aead=gcm-siv}).</li>
+ * </ul>
+ *
+ * <p>
+ * Todos usan nonce de 12 bytes y tag de 16 bytes, por lo que los formatos
+ * binarios no cambian entre modos.
+ * </p>
+ *
+ * @see CryptoEngine
+ * @see Policy#MODE_ID_GCM
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+enum AeadMode {
+
+    /**
+     * AES en modo GCM.
+     */
+    GCM(Policy.MODE_ID_GCM, "gcm", Policy.CIPHER_TRANSFORM, Policy.KEY_ALGO, false),
+
+    /**
+     * ChaCha20-Poly1305 (RFC 8439).
+     */
+    CHACHA20_POLY1305(Policy.MODE_ID_CHACHA20_POLY1305, "chacha20-poly1305", "ChaCha20-Poly1305", "ChaCha20", false),
+
+    /**
+     * AES-GCM-SIV (RFC 8452).
+     */
+    GCM_SIV(Policy.MODE_ID_GCM_SIV, "gcm-siv", "AES/GCM-SIV/NoPadding", Policy.KEY_ALGO, true);
+
+    /**
+     * Tamaño del bloque usado por la microprueba de rendimiento.
+     */
+    private static final int BENCH_LEN = 64 * 1024;
+
+    /**
+     * Rondas de la microprueba (cada ronda cifra un bloque con cada modo).
+     */
+    private static final int BENCH_ROUNDS = 50;
+
+    /**
+     * Byte identificador en el protocolo.
+     */
+    final int id;
+
+    /**
+     * Nombre corto usado en {@link Policy#AEAD_MODE_PROPERTY}.
+     */
+    final String label;
+
+    /**
+     * Transformación JCA.
+     */
+    final String transform;
+
+    /**
+     * Algoritmo de la clave esperado por la transformación.
+     */
+    final String keyAlgo;
+
+    /**
+     * {@code true} si la implementación es la de BouncyCastle en lugar de la del JDK.
+     * Estos modos solo se usan si se piden explícitamente.
+     */
+    final boolean bouncyCastle;
+
+    /**
+     * Crea una entrada del registro.
+     *
+     * @param id           Byte identificador.
+     * @param label        Nombre corto.
+     * @param transform    Transformación JCA.
+     * @param keyAlgo      Algoritmo de clave.
+     * @param bouncyCastle {@code true} para usar el proveedor de BouncyCastle.
+     */
+    AeadMode(int id, String label, String transform, String keyAlgo, boolean bouncyCastle) {
+        this.id = id;
+        this.label = label;
+        this.transform = transform;
+        this.keyAlgo = keyAlgo;
+        this.bouncyCastle = bouncyCastle;
+    }
+
+    /**
+     * Busca el modo declarado por un artefacto.
+     *
+     * @param id Byte {@code mode} leído del blob.
+     * @return El modo correspondiente.
+     * @throws CryptoFormatException Si el identificador no está registrado.
+     */
+    static AeadMode byId(int id) {
+        for (AeadMode m : values()) {
+            if (m.id == id) return m;
+        }
+        throw new CryptoFormatException("Modo de cifrado no soportado: " + id);
+    }
+
+    /**
+     * Parámetros del cifrador para un nonce dado.
+     *
+     * @param nonce Nonce de 12 bytes.
+     * @return Especificación adecuada al modo.
+     */
+    AlgorithmParameterSpec spec(byte[] nonce) {
+        return this == CHACHA20_POLY1305
+                ? new IvParameterSpec(nonce)
+                : new GCMParameterSpec(Policy.GCM_TAG_BITS, nonce);
+    }
+
+    /**
+     * Adapta una clave derivada al algoritmo que espera la transformación.
+     * Los bytes son los mismos; solo cambia la etiqueta del algoritmo.
+     *
+     * @param key Clave derivada (etiquetada como AES).
+     * @return Clave utilizable con este modo.
+     */
+    SecretKey adapt(SecretKey key) {
+        if (key.getAlgorithm().equalsIgnoreCase(keyAlgo)) return key;
+        byte[] raw = key.getEncoded();
+        try {
+            return new SecretKeySpec(raw, keyAlgo);
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    /**
+     * Crea una instancia de {@link Cipher} para este modo.
+     *
+     * @return Cifrador sin inicializar.
+     * @throws CryptoException Si el modo no está disponible en este equipo.
+     */
+    Cipher newCipher() {
+        try {
+            return bouncyCastle ? Cipher.getInstance(transform, Bc.PROVIDER) : Cipher.getInstance(transform);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Modo " + label + " no disponible: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return {@code true} si algún proveedor JCA instalado implementa este modo.
+     */
+    boolean isAvailable() {
+        try {
+            newCipher();
+            return true;
+        } catch (CryptoException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * <h3>Modo preferido para cifrar en este equipo</h3>
+     *
+     * <p>
+     * Si se define {@link Policy#AEAD_MODE_PROPERTY} se usa ese modo. Si la JVM
+     * indica que dispone de instrucciones AES por hardware ({@code -XX:+UseAES}),
+     * se usa AES-GCM directamente. En otro caso se elige, una única vez por proceso,
+     * el más rápido según una microprueba sobre bloques de 64 KiB.
+     * </p>
+     *
+     * <p>
+     * La comprobación de hardware va primero porque las rutas aceleradas de AES-GCM
+     * solo se activan tras miles de iteraciones del JIT: una microprueba corta al
+     * arrancar penaliza a GCM justo en los equipos donde es varias veces más rápido.
+     * </p>
+     *
+     * @return Modo a usar al cifrar.
+     */
+    static AeadMode preferred() {
+        return Preferred.MODE;
+    }
+
+    /**
+     * Ejecuta la microprueba: cifra un bloque con cada modo disponible, de forma
+     * intercalada para que el calentamiento del JIT no favorezca a ninguno, y se
+     * queda con el mejor tiempo de cada modo. Ante cualquier error se usa GCM.
+     *
+     * @return El modo más rápido.
+     */
+    private static AeadMode benchmark() {
+        byte[] data = new byte[BENCH_LEN];
+        byte[] out = new byte[BENCH_LEN + Policy.GCM_TAG_LEN];
+        SecretKey key = new SecretKeySpec(RandomSource.nextBytes(32), Policy.KEY_ALGO);
+        byte[] nonce = RandomSource.nextBytes(Policy.GCM_NONCE_LEN);
+
+        List<AeadMode> candidates = new ArrayList<>();
+        List<Cipher> ciphers = new ArrayList<>();
+        for (AeadMode m : values()) {
+            if (m.bouncyCastle || !m.isAvailable()) continue;
+            candidates.add(m);
+            ciphers.add(m.newCipher());
+        }
+        if (candidates.size() < 2) return candidates.isEmpty() ? GCM : candidates.get(0);
+
+        long[] best = new long[candidates.size()];
+        Arrays.fill(best, Long.MAX_VALUE);
+        try {
+            for (int round = 0; round < BENCH_ROUNDS; round++) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    AeadMode m = candidates.get(i);
+                    Cipher c = ciphers.get(i);
+                    nonce[0]++;
+                    long start = System.nanoTime();
+                    c.init(Cipher.ENCRYPT_MODE, m.adapt(key), m.spec(nonce));
+                    c.doFinal(data, 0, data.length, out, 0);
+                    best[i] = Math.min(best[i], System.nanoTime() - start);
+                }
+            }
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return GCM;
+        }
+
+        int winner = 0;
+        for (int i = 1; i < best.length; i++) {
+            if (best[i] < best[winner]) winner = i;
+        }
+        return candidates.get(winner);
+    }
+
+    /**
+     * Proveedor de BouncyCastle, creado solo si se usa un modo que lo necesita.
+     */
+    private static final class Bc {
+
+        /**
+         * Instancia privada; no se registra en {@link java.security.Security}.
+         */
+        static final Provider PROVIDER = new BouncyCastleProvider();
+    }
+
+    /**
+     * Resuelve el modo preferido de forma perezosa (idiom <i>holder</i>), para que
+     * la microprueba solo se ejecute si realmente se cifra algo.
+     */
+    private static final class Preferred {
+
+        /**
+         * Modo elegido para este proceso.
+         */
+        static final AeadMode MODE = resolve();
+
+        /**
+         * @return El modo forzado por propiedad del sistema, o el más rápido.
+         */
+        private static AeadMode resolve() {
+            String forced = System.getProperty(Policy.AEAD_MODE_PROPERTY);
+            if (forced != null) {
+                for (AeadMode m : values()) {
+                    if (m.label.equalsIgnoreCase(forced.trim()) && m.isAvailable()) return m;
+                }
+            }
+            if (hasAesHardware()) return GCM;
+            return benchmark();
+        }
+
+        /**
+         * Consulta a HotSpot si la CPU ofrece instrucciones AES (opción {@code UseAES}).
+         *
+         * @return {@code true} solo si la JVM confirma el soporte por hardware.
+         */
+        private static boolean hasAesHardware() {
+            try {
+                HotSpotDiagnosticMXBean hs = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+                return hs != null && Boolean.parseBoolean(hs.getVMOption("UseAES").getValue());
+            } catch (RuntimeException | LinkageError e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h2>Archivo cifrado con muchas entradas (formato v5)</h2>
+ *
+ * <p>
+ * Empaqueta una carpeta de ficheros pequeños en un único contenedor, en lugar de un
+ * {@code .enc} por fichero: una sola derivación KDF por archivo, sin metadatos ni
+ * inodos por entrada. Cada entrada se cifra por separado y un índice central cifrado
+ * al final permite extraer cualquiera de ellas con una lectura posicional, sin
+ * descifrar el resto.
+ * </p>
+ *
+ * <pre>
+ * MAGIC (3) | VERSION_ARCHIVE (1) | mode (1) | nonce base (12)     ← cabecera
+ * keyLen (2 bytes, BE) | clave de datos en un blob v4 en modo sobre
+ * entrada 0 (cifrado + tag) | entrada 1 | ...
+ * índice (cifrado + tag)
+ * indexOffset (8 bytes, BE) | indexLen (4 bytes, BE)
+ * </pre>
+ *
+ * <p>
+ * Como en el formato v2, el nonce de la entrada {@code i} es el nonce base XOR
+ * {@code i} y su AAD es la cabecera seguida de {@code i}; el índice usa
+ * {@link #INDEX_SLOT}. La clave de datos va envuelta para cada {@link Recipient} con
+ * la cabecera como AAD, y queda fuera de la AAD de las entradas. El índice guarda,
+ * por entrada: {@code nameLen (2) nombre (UTF-8) mtime (8) offset (8) length (4)}.
+ * </p>
+ *
+ * <p>
+ * Al empaquetar, los ficheros se leen y cifran en paralelo por lotes de
+ * {@link Policy#ARCHIVE_BATCH_BYTES} y se escriben en orden.
+ * </p>
+ *
+ * @see SegmentedContainer
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class ArchiveContainer implements Closeable {
+
+    /**
+     * Índice de nonce/AAD reservado para el índice central.
+     */
+    private static final long INDEX_SLOT = 0xFFFFFFFFL;
+
+    /**
+     * Longitud de la cabecera autenticada.
+     */
+    private static final int HEADER_LEN = Policy.MAGIC.length + 2 + Policy.GCM_NONCE_LEN;
+
+    /**
+     * Longitud del pie (offset + longitud del índice).
+     */
+    private static final int TRAILER_LEN = 12;
+
+    /**
+     * Tamaño máximo de una entrada: se lee y se sella en un único array, así que no
+     * puede acercarse al límite de {@code int} (el tag GCM se añade detrás).
+     */
+    private static final long MAX_ENTRY_LEN = Integer.MAX_VALUE - 1024;
+
+    /**
+     * Canal del archivo abierto.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Modo AEAD del archivo.
+     */
+    private final AeadMode mode;
+
+    /**
+     * Clave de datos.
+     */
+    private final SecretKey key;
+
+    /**
+     * Cabecera autenticada.
+     */
+    private final byte[] header;
+
+    /**
+     * Entradas por nombre, en el orden del archivo.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param channel Canal del archivo.
+     * @param mode    Modo AEAD.
+     * @param key     Clave de datos.
+     * @param header  Cabecera autenticada.
+     * @param entries Entradas del índice.
+     */
+    private ArchiveContainer(FileChannel channel, AeadMode mode, SecretKey key, byte[] header,
+                             Map<String, Entry> entries) {
+        this.channel = channel;
+        this.mode = mode;
+        this.key = key;
+        this.header = header;
+        this.entries = entries;
+    }
+
+    /**
+     * <h3>Empaqueta una carpeta en un archivo</h3>
+     *
+     * @param source     Carpeta de origen; las entradas se nombran con su ruta relativa.
+     * @param archive    Archivo de destino (se sobrescribe si existe).
+     * @param recipients Destinatarios que podrán abrirlo (al menos uno).
+     * @throws IOException              Si falla la lectura o escritura.
+     * @throws IllegalArgumentException Si hay demasiadas entradas o alguna supera el tamaño máximo.
+     */
+    public static void pack(Path source, Path archive, List<Recipient> recipients) throws IOException {
+        List<Path> files;
+        try (Stream<Path> s = Files.walk(source)) {
+            files = s.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        if (files.size() >= INDEX_SLOT) throw new IllegalArgumentException("Demasiadas entradas");
+        for (Path file : files) {
+            if (Files.size(file) > MAX_ENTRY_LEN)
+                throw new IllegalArgumentException("Fichero demasiado grande para una entrada del archivo ("
+                        + Files.size(file) + " bytes, máximo " + MAX_ENTRY_LEN + "): " + file);
+        }
+
+        AeadMode mode = AeadMode.preferred();
+        byte[] nonce = RandomSource.nextBytes(Policy.GCM_NONCE_LEN);
+        byte[] header = ByteBuffer.allocate(HEADER_LEN)
+                .put(Policy.MAGIC).put((byte) Policy.VERSION_ARCHIVE).put((byte) mode.id).put(nonce)
+                .array();
+        byte[] raw = RandomSource.nextBytes(Policy.KEY_BITS_DEFAULT / 8);
+        SecretKey key = new SecretKeySpec(raw, Policy.KEY_ALGO);
+        byte[] keyBlob = UseCases.encryptEnvelope(raw, header, false, recipients);
+        Arrays.fill(raw, (byte) 0);
+        if (keyBlob.length > 0xFFFF) throw new IllegalArgumentException("Demasiados destinatarios");
+
+        ByteBuffer index = ByteBuffer.allocate(1024);
+        index.putInt(files.size());
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "archive-packer");
+            t.setDaemon(true);
+            return t;
+        });
+        try (FileChannel out = FileChannel.open(archive, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(out, ByteBuffer.allocate(HEADER_LEN + 2 + keyBlob.length)
+                    .put(header).putShort((short) keyBlob.length).put(keyBlob).flip());
+
+            int next = 0;
+            while (next < files.size()) {
+                List<Future<byte[]>> batch = new ArrayList<>();
+                long batchBytes = 0;
+                int first = next;
+                while (next < files.size() && (batch.isEmpty() || batchBytes < Policy.ARCHIVE_BATCH_BYTES)) {
+                    Path file = files.get(next);
+                    long slot = next++;
+                    batchBytes += Files.size(file);
+                    batch.add(pool.submit(() -> sealEntry(mode, key, nonce, header, slot, Files.readAllBytes(file))));
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    Path file = files.get(first + i);
+                    byte[] sealed = await(batch.get(i));
+                    long offset = out.position();
+                    writeFully(out, ByteBuffer.wrap(sealed));
+                    byte[] name = relativeName(source, file).getBytes(StandardCharsets.UTF_8);
+                    if (name.length > 0xFFFF) throw new IllegalArgumentException("Nombre demasiado largo: " + file);
+                    index = ensure(index, 2 + name.length + 20);
+                    index.putShort((short) name.length).put(name)
+                            .putLong(Files.getLastModifiedTime(file).toMillis())
+                            .putLong(offset)
+                            .putInt(sealed.length - Policy.GCM_TAG_LEN);
+                }
+            }
+
+            long indexOffset = out.position();
+            byte[] sealedIndex = sealEntry(mode, key, nonce, header, INDEX_SLOT,
+                    Arrays.copyOf(index.array(), index.position()));
+            writeFully(out, ByteBuffer.wrap(sealedIndex));
+            writeFully(out, ByteBuffer.allocate(TRAILER_LEN).putLong(indexOffset).putInt(sealedIndex.length).flip());
+            out.force(true);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * <h3>Abre un archivo para extraer entradas</h3>
+     *
+     * @param archive   Archivo v5.
+     * @param recipient Destinatario con acceso al archivo.
+     * @return El archivo abierto; hay que cerrarlo.
+     * @throws IOException           Si no se puede leer.
+     * @throws CryptoFormatException Si el fichero no es un archivo v5 válido.
+     * @throws CryptoException       Si el destinatario no puede abrirlo o el índice está manipulado.
+     */
+    public static ArchiveContainer open(Path archive, Recipient recipient) throws IOException {
+        FileChannel ch = FileChannel.open(archive, StandardOpenOption.READ);
+        try {
+            byte[] header = readAt(ch, 0, HEADER_LEN);
+            if (!Arrays.equals(header, 0, Policy.MAGIC.length, Policy.MAGIC, 0, Policy.MAGIC.length)
+                    || (header[Policy.MAGIC.length] & 0xFF) != Policy.VERSION_ARCHIVE)
+                throw new CryptoFormatException("No es un archivo cifrado v5");
+            AeadMode mode = AeadMode.byId(header[Policy.MAGIC.length + 1] & 0xFF);
+            byte[] nonce = Arrays.copyOfRange(header, HEADER_LEN - Policy.GCM_NONCE_LEN, HEADER_LEN);
+
+            int keyLen = ByteBuffer.wrap(readAt(ch, HEADER_LEN, 2)).getShort() & 0xFFFF;
+            byte[] keyRaw = UseCases.decrypt(readAt(ch, HEADER_LEN + 2, keyLen), recipient, header);
+            SecretKey key = new SecretKeySpec(keyRaw, Policy.KEY_ALGO);
+            Arrays.fill(keyRaw, (byte) 0);
+
+            ByteBuffer trailer = ByteBuffer.wrap(readAt(ch, ch.size() - TRAILER_LEN, TRAILER_LEN));
+            long indexOffset = trailer.getLong();
+            int indexLen = trailer.getInt();
+            if (indexOffset < HEADER_LEN || indexLen < Policy.GCM_TAG_LEN
+                    || indexOffset + indexLen != ch.size() - TRAILER_LEN)
+                throw new CryptoFormatException("Pie del archivo inválido");
+            byte[] plainIndex = openEntry(mode, key, nonce, header, INDEX_SLOT, readAt(ch, indexOffset, indexLen));
+
+            return new ArchiveContainer(ch, mode, key, header, decodeIndex(plainIndex, indexOffset));
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Nombres de las entradas, en el orden del archivo.
+     */
+    public List<String> names() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * <h3>Extrae una entrada</h3>
+     *
+     * <p>
+     * Solo lee y descifra esa entrada. Puede llamarse desde varios hilos a la vez.
+     * </p>
+     *
+     * @param name Nombre (ruta relativa) de la entrada.
+     * @return Contenido en claro.
+     * @throws IOException     Si falla la lectura.
+     * @throws CryptoException Si la entrada no existe o está corrupta.
+     */
+    public byte[] read(String name) throws IOException {
+        Entry e = entries.get(name);
+        if (e == null) throw new CryptoException("Entrada desconocida: " + name);
+        byte[] sealed = readAt(channel, e.offset, e.length + Policy.GCM_TAG_LEN);
+        byte[] nonce = Arrays.copyOfRange(header, HEADER_LEN - Policy.GCM_NONCE_LEN, HEADER_LEN);
+        return openEntry(mode, key, nonce, header, e.slot, sealed);
+    }
+
+    /**
+     * <h3>Extrae todas las entradas a una carpeta</h3>
+     *
+     * @param target Carpeta de destino; los ficheros existentes se sobrescriben.
+     * @throws IOException     Si no se puede escribir.
+     * @throws CryptoException Si alguna entrada está corrupta.
+     */
+    public void extractAll(Path target) throws IOException {
+        Path base = target.toAbsolutePath().normalize();
+        for (Map.Entry<String, Entry> me : entries.entrySet()) {
+            Path out = base.resolve(me.getKey()).normalize();
+            if (!out.startsWith(base) || out.equals(base))
+                throw new CryptoFormatException("Ruta fuera del destino: " + me.getKey());
+            Files.createDirectories(out.getParent());
+            Files.write(out, read(me.getKey()));
+            Files.setLastModifiedTime(out, FileTime.fromMillis(me.getValue().mtime));
+        }
+    }
+
+    /**
+     * Comprueba el tag de todas las entradas sin conservar su contenido.
+     *
+     * @param scratch Búferes reutilizables del hilo.
+     * @throws IOException     Si falla la lectura.
+     * @throws CryptoException Si alguna entrada está corrupta o manipulada.
+     */
+    void verifyEntries(IntegrityVerifier.Scratch scratch) throws IOException {
+        Cipher cipher = scratch.cipher(mode);
+        byte[] nonce = Arrays.copyOfRange(header, HEADER_LEN - Policy.GCM_NONCE_LEN, HEADER_LEN);
+        byte[] segNonce = new byte[nonce.length];
+        byte[] segAad = new byte[header.length + 4];
+        for (Map.Entry<String, Entry> me : entries.entrySet()) {
+            Entry e = me.getValue();
+            ByteBuffer in = scratch.in(e.length + Policy.GCM_TAG_LEN);
+            while (in.hasRemaining()) {
+                if (channel.read(in, e.offset + in.position()) < 0) throw new EOFException("Archivo truncado");
+            }
+            in.flip();
+            try {
+                CryptoEngine.decryptSegment(cipher, mode, key,
+                        SegmentedContainer.indexedNonce(nonce, e.slot, segNonce),
+                        SegmentedContainer.indexedAad(header, e.slot, segAad),
+                        in, scratch.out(e.length));
+            } catch (CryptoException ex) {
+                throw new CryptoException("Entrada corrupta o manipulada: " + me.getKey(), ex);
+            }
+        }
+    }
+
+    /**
+     * Cierra el fichero.
+     *
+     * @throws IOException Si falla el cierre.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Cifra una entrada en su posición.
+     *
+     * @param mode   Modo AEAD.
+     * @param key    Clave de datos.
+     * @param nonce  Nonce base.
+     * @param header Cabecera autenticada.
+     * @param slot   Posición de la entrada (o {@link #INDEX_SLOT}).
+     * @param plain  Contenido en claro.
+     * @return Cifrado + tag.
+     */
+    private static byte[] sealEntry(AeadMode mode, SecretKey key, byte[] nonce, byte[] header, long slot,
+                                    byte[] plain) {
+        Cipher cipher = CryptoEngine.newCipher(mode);
+        ByteBuffer out = ByteBuffer.allocate(plain.length + Policy.GCM_TAG_LEN);
+        CryptoEngine.encryptSegment(cipher, mode, key,
+                SegmentedContainer.indexedNonce(nonce, slot, new byte[nonce.length]),
+                SegmentedContainer.indexedAad(header, slot, new byte[header.length + 4]),
+                ByteBuffer.wrap(plain), out);
+        return out.array();
+    }
+
+    /**
+     * Descifra una entrada de su posición.
+     *
+     * @param mode   Modo AEAD.
+     * @param key    Clave de datos.
+     * @param nonce  Nonce base.
+     * @param header Cabecera autenticada.
+     * @param slot   Posición de la entrada (o {@link #INDEX_SLOT}).
+     * @param sealed Cifrado + tag.
+     * @return Contenido en claro.
+     * @throws CryptoException Si el tag no coincide.
+     */
+    private static byte[] openEntry(AeadMode mode, SecretKey key, byte[] nonce, byte[] header, long slot,
+                                    byte[] sealed) {
+        Cipher cipher = CryptoEngine.newCipher(mode);
+        ByteBuffer out = ByteBuffer.allocate(sealed.length - Policy.GCM_TAG_LEN);
+        CryptoEngine.decryptSegment(cipher, mode, key,
+                SegmentedContainer.indexedNonce(nonce, slot, new byte[nonce.length]),
+                SegmentedContainer.indexedAad(header, slot, new byte[header.length + 4]),
+                ByteBuffer.wrap(sealed), out);
+        return out.array();
+    }
+
+    /**
+     * @param data        Índice en claro.
+     * @param indexOffset Inicio del índice (fin de las entradas).
+     * @return Entradas por nombre.
+     * @throws CryptoFormatException Si el índice está truncado o es incoherente.
+     */
+    private static Map<String, Entry> decodeIndex(byte[] data, long indexOffset) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(data);
+            int count = bb.getInt();
+            if (count < 0) throw new CryptoFormatException("Índice del archivo inválido");
+            Map<String, Entry> out = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[bb.getShort() & 0xFFFF];
+                bb.get(name);
+                long mtime = bb.getLong();
+                long offset = bb.getLong();
+                int length = bb.getInt();
+                if (offset < HEADER_LEN || length < 0 || offset + length + Policy.GCM_TAG_LEN > indexOffset)
+                    throw new CryptoFormatException("Entrada fuera del archivo");
+                out.put(new String(name, StandardCharsets.UTF_8), new Entry(i, mtime, offset, length));
+            }
+            if (bb.hasRemaining()) throw new CryptoFormatException("Bytes sobrantes en el índice del archivo");
+            return out;
+        } catch (CryptoFormatException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CryptoFormatException("Índice del archivo truncado", e);
+        }
+    }
+
+    /**
+     * @param ch  Canal.
+     * @param pos Posición.
+     * @param len Bytes a leer.
+     * @return Bytes leídos.
+     * @throws IOException Si el fichero termina antes.
+     */
+    private static byte[] readAt(FileChannel ch, long pos, int len) throws IOException {
+        if (pos < 0) throw new CryptoFormatException("Archivo truncado");
+        ByteBuffer bb = ByteBuffer.allocate(len);
+        while (bb.hasRemaining()) {
+            int n = ch.read(bb, pos + bb.position());
+            if (n < 0) throw new EOFException("Archivo truncado");
+        }
+        return bb.array();
+    }
+
+    /**
+     * @param ch Canal.
+     * @param bb Datos a escribir enteros.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void writeFully(FileChannel ch, ByteBuffer bb) throws IOException {
+        while (bb.hasRemaining()) ch.write(bb);
+    }
+
+    /**
+     * @param bb    Búfer del índice.
+     * @param extra Bytes que se van a añadir.
+     * @return El mismo búfer o uno mayor con su contenido.
+     */
+    private static ByteBuffer ensure(ByteBuffer bb, int extra) {
+        if (bb.remaining() >= extra) return bb;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(bb.capacity() * 2, bb.position() + extra));
+        bb.flip();
+        return bigger.put(bb);
+    }
+
+    /**
+     * @param future Cifrado de una entrada.
+     * @return Su resultado.
+     * @throws IOException Si la lectura del fichero falló.
+     */
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Empaquetado interrumpido", e);
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof IOException) throw (IOException) c;
+            if (c instanceof RuntimeException) throw (RuntimeException) c;
+            throw new IOException(c);
+        }
+    }
+
+    /**
+     * @param source Carpeta de origen.
+     * @param file   Fichero dentro de ella.
+     * @return Ruta relativa con {@code /} como separador.
+     */
+    private static String relativeName(Path source, Path file) {
+        List<String> parts = new ArrayList<>();
+        for (Path p : source.relativize(file)) parts.add(p.toString());
+        return String.join("/", parts);
+    }
+
+    /**
+     * Posición y metadatos de una entrada.
+     */
+    private static final class Entry {
+        /** Posición de la entrada (índice de nonce/AAD). */
+        final long slot;
+        /** Fecha de modificación en milisegundos. */
+        final long mtime;
+        /** Inicio del cifrado en el archivo. */
+        final long offset;
+        /** Longitud en claro. */
+        final int length;
+
+        /**
+         * @param slot   Posición.
+         * @param mtime  Fecha de modificación.
+         * @param offset Inicio del cifrado.
+         * @param length Longitud en claro.
+         */
+        Entry(long slot, long mtime, long offset, int length) {
+            this.slot = slot;
+            this.mtime = mtime;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
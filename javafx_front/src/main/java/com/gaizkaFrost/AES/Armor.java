@@ -0,0 +1,249 @@
+package com.gaizkaFrost.AES;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * <h2>Armadura de texto por flujos</h2>
+ *
+ * <p>
+ * Envuelve un contenedor binario en texto al estilo PEM, en líneas de
+ * {@link Policy#ARMOR_LINE_LEN} caracteres Base64:
+ * </p>
+ *
+ * <pre>
+ * -----BEGIN DESCIFRADOR MESSAGE-----
+ * RU5DAgEC...
+ * ...
+ * -----END DESCIFRADOR MESSAGE-----
+ * </pre>
+ *
+ * <p>
+ * Codifica y decodifica en flujo, sin construir nunca el blob ni la cadena completa:
+ * encadenado al cifrado segmentado v2 permite copiar, pegar y guardar textos cifrados
+ * de cualquier tamaño con memoria constante. Al decodificar se ignoran los saltos de
+ * línea ({@code \n} o {@code \r\n}) y los espacios que añaden los editores y el
+ * portapapeles.
+ * </p>
+ *
+ * @see UseCases#encryptToArmor(InputStream, long, OutputStream, char[], byte[])
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class Armor {
+
+    /**
+     * Separador de líneas al codificar.
+     */
+    private static final byte[] LF = {'\n'};
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private Armor() {}
+
+    /**
+     * <h3>Abre un flujo que escribe con armadura</h3>
+     *
+     * <p>
+     * Escribe la línea de inicio de inmediato; la de fin se escribe al cerrar el flujo
+     * devuelto, que no cierra {@code target}.
+     * </p>
+     *
+     * @param target Destino del texto.
+     * @return Flujo en el que escribir el contenido binario.
+     * @throws IOException Si falla la escritura.
+     */
+    static OutputStream encoder(OutputStream target) throws IOException {
+        target.write((Policy.ARMOR_BEGIN + "\n").getBytes(StandardCharsets.US_ASCII));
+        OutputStream shielded = new FilterOutputStream(target) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        OutputStream body = Base64.getMimeEncoder(Policy.ARMOR_LINE_LEN, LF).wrap(shielded);
+        return new FilterOutputStream(body) {
+            private boolean closed;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) return;
+                closed = true;
+                body.close();
+                target.write(("\n" + Policy.ARMOR_END + "\n").getBytes(StandardCharsets.US_ASCII));
+                target.flush();
+            }
+        };
+    }
+
+    /**
+     * <h3>Abre un flujo que lee el contenido de un texto con armadura</h3>
+     *
+     * <p>
+     * Valida la línea de inicio al abrir y la de fin al llegar al final del cuerpo; si
+     * el texto se corta antes, la lectura falla en lugar de devolver un fin de flujo.
+     * </p>
+     *
+     * @param in Texto con armadura.
+     * @return Flujo con el contenido binario.
+     * @throws IOException           Si falla la lectura.
+     * @throws CryptoFormatException Si falta la línea de inicio.
+     */
+    static InputStream decoder(InputStream in) throws IOException {
+        String first;
+        do {
+            first = readLine(in);
+            if (first == null) throw new CryptoFormatException("Texto sin cabecera " + Policy.ARMOR_BEGIN);
+            first = first.trim();
+        } while (first.isEmpty());
+        if (!first.equals(Policy.ARMOR_BEGIN))
+            throw new CryptoFormatException("Texto sin cabecera " + Policy.ARMOR_BEGIN);
+        Body body = new Body(in);
+        return new FilterInputStream(Base64.getMimeDecoder().wrap(body)) {
+            @Override
+            public int read() throws IOException {
+                int c = super.read();
+                if (c < 0) body.finish();
+                return c;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n < 0) body.finish();
+                return n;
+            }
+        };
+    }
+
+    /**
+     * @param in Flujo de origen.
+     * @return Siguiente línea sin el salto, o {@code null} al final del flujo.
+     * @throws IOException Si falla la lectura.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            if (sb.length() > Policy.ARMOR_BEGIN.length() + 64)
+                throw new CryptoFormatException("Texto sin cabecera " + Policy.ARMOR_BEGIN);
+            sb.append((char) c);
+        }
+        return c < 0 && sb.length() == 0 ? null : sb.toString();
+    }
+
+    /**
+     * Cuerpo Base64: termina en el primer {@code '-'}, que solo puede abrir la línea de
+     * fin porque no pertenece al alfabeto Base64.
+     */
+    private static final class Body extends InputStream {
+        /** Texto con armadura. */
+        private final InputStream in;
+        /** Búfer de lectura. */
+        private final byte[] buf = new byte[8192];
+        /** Posición y límite de los bytes pendientes en {@link #buf}. */
+        private int pos, lim;
+        /** {@code true} tras validar la línea de fin. */
+        private boolean done;
+
+        /**
+         * @param in Texto con armadura, tras la línea de inicio.
+         */
+        Body(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (done) return -1;
+            if (pos == lim && fill() == 0) return read();
+            if (buf[pos] != '-') return buf[pos++] & 0xFF;
+            checkEnd();
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) return -1;
+            if (len == 0) return 0;
+            if (pos == lim) fill();
+            int n = 0;
+            while (n < len && pos < lim && buf[pos] != '-') b[off + n++] = buf[pos++];
+            if (pos < lim && buf[pos] == '-') {
+                if (n > 0) return n;
+                checkEnd();
+                return -1;
+            }
+            return n;
+        }
+
+        /**
+         * Tras el relleno ({@code =}) el decodificador deja de leer: salta los espacios
+         * que queden y comprueba la línea de fin.
+         *
+         * @throws IOException           Si falla la lectura.
+         * @throws CryptoFormatException Si sigue algo distinto de la línea de fin.
+         */
+        void finish() throws IOException {
+            while (!done) {
+                if (pos == lim) fill();
+                else if (buf[pos] == '-') checkEnd();
+                else if (Character.isWhitespace(buf[pos])) pos++;
+                else throw new CryptoFormatException("Datos inesperados antes de " + Policy.ARMOR_END);
+            }
+        }
+
+        /**
+         * Rellena el búfer vacío.
+         *
+         * @return Bytes leídos.
+         * @throws IOException           Si falla la lectura.
+         * @throws CryptoFormatException Si el texto termina sin línea de fin.
+         */
+        private int fill() throws IOException {
+            int n = in.read(buf, 0, buf.length);
+            if (n < 0) throw new CryptoFormatException("Texto truncado: falta " + Policy.ARMOR_END);
+            pos = 0;
+            lim = n;
+            return n;
+        }
+
+        /**
+         * Comprueba que lo que sigue es la línea de fin.
+         *
+         * @throws IOException           Si falla la lectura.
+         * @throws CryptoFormatException Si la línea no coincide.
+         */
+        private void checkEnd() throws IOException {
+            byte[] expected = Policy.ARMOR_END.getBytes(StandardCharsets.US_ASCII);
+            for (byte e : expected) {
+                if (pos == lim) {
+                    lim = Math.max(0, in.read(buf, 0, expected.length));
+                    pos = 0;
+                }
+                if (pos == lim || buf[pos++] != e)
+                    throw new CryptoFormatException("Texto truncado o dañado: falta " + Policy.ARMOR_END);
+            }
+            done = true;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.gaizkaFrost.AES;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * <h2>Contenedor interno para artefactos del cifrado AES</h2>
  *
@@ -22,6 +25,10 @@ package com.gaizkaFrost.AES;
  *     <li><b>aad</b>: datos autenticados adicionales.</li>
  *     <li><b>ciphertext</b>: datos cifrados.</li>
  *     <li><b>tag</b>: etiqueta de autenticación GCM.</li>
+ *     <li><b>compression</b>: codec aplicado antes de cifrar (formato extendido).</li>
+ *     <li><b>originalLength</b>: longitud del texto en claro sin comprimir.</li>
+ *     <li><b>kdfParams</b>: parámetros de coste de la KDF (formato extendido).</li>
+ *     <li><b>keyWraps</b>: clave de datos envuelta, si el blob no usa clave derivada directa.</li>
  * </ul>
  * </p>
  *
@@ -83,12 +90,35 @@ final class CipherArtifact {
      */
     final byte[] tag;
 
+    /**
+     * Codec de compresión aplicado al texto en claro antes de cifrar
+     * ({@link Policy#COMPRESSION_NONE} si no se comprimió).
+     */
+    final int compression;
+
+    /**
+     * Longitud del texto en claro antes de comprimir. Solo es significativa
+     * cuando {@link #compression} es distinto de {@link Policy#COMPRESSION_NONE}.
+     */
+    final int originalLength;
+
+    /**
+     * Parámetros de la KDF. En los blobs v1 son los implícitos
+     * ({@link KdfParams#legacy()}).
+     */
+    final KdfParams kdfParams;
+
+    /**
+     * Claves de datos envueltas; vacía si la clave se deriva directamente de la contraseña.
+     */
+    final List<KeyWrap> keyWraps;
+
     /**
      * <h3>Constructor del artefacto de cifrado</h3>
      *
      * <p>
      * Crea un contenedor inmutable con todos los campos necesarios
-     * para representar un cifrado autenticado completo.
+     * para representar un cifrado autenticado completo, sin compresión.
      * </p>
      *
      * @param version    Versión del formato.
@@ -103,6 +133,29 @@ final class CipherArtifact {
      */
     CipherArtifact(int version, int mode, int kdf, int keyBits,
                    byte[] salt, byte[] nonce, byte[] aad, byte[] ciphertext, byte[] tag) {
+        this(version, mode, kdf, keyBits, salt, nonce, aad, ciphertext, tag, Policy.COMPRESSION_NONE, 0, null, List.of());
+    }
+
+    /**
+     * <h3>Constructor del artefacto de cifrado con compresión y parámetros KDF</h3>
+     *
+     * @param version        Versión del formato.
+     * @param mode           Modo de cifrado usado.
+     * @param kdf            Identificador de la función KDF empleada.
+     * @param keyBits        Tamaño de clave AES en bits.
+     * @param salt           Sal para la derivación de clave.
+     * @param nonce          Nonce o IV del cifrado.
+     * @param aad            Datos autenticados adicionales.
+     * @param ciphertext     Datos cifrados.
+     * @param tag            Tag de autenticación GCM.
+     * @param compression    Codec de compresión aplicado.
+     * @param originalLength Longitud del texto en claro sin comprimir.
+     * @param kdfParams      Parámetros de la KDF; {@code null} para los implícitos de v1.
+     * @param keyWraps       Claves de datos envueltas (vacía si no hay).
+     */
+    CipherArtifact(int version, int mode, int kdf, int keyBits,
+                   byte[] salt, byte[] nonce, byte[] aad, byte[] ciphertext, byte[] tag,
+                   int compression, int originalLength, KdfParams kdfParams, List<KeyWrap> keyWraps) {
         this.version = version;
         this.mode = mode;
         this.kdf = kdf;
@@ -112,7 +165,57 @@ final class CipherArtifact {
         this.aad = aad != null ? aad : new byte[0];
         this.ciphertext = ciphertext;
         this.tag = tag;
+        this.compression = compression;
+        this.originalLength = originalLength;
+        this.kdfParams = kdfParams != null ? kdfParams : KdfParams.legacy();
+        this.keyWraps = List.copyOf(keyWraps);
     }
-}
 
+    /**
+     * <h3>Copia del artefacto con otras claves envueltas</h3>
+     *
+     * <p>
+     * El payload (nonce, AAD, texto cifrado y tag) se conserva tal cual; solo cambia la
+     * forma de obtener la clave, por lo que no hace falta volver a cifrar.
+     * </p>
+     *
+     * @param wraps Nuevas claves envueltas.
+     * @return Artefacto v4 con clave envuelta.
+     */
+    CipherArtifact withKeyWraps(List<KeyWrap> wraps) {
+        return new CipherArtifact(Policy.VERSION_EXTENDED, mode, Policy.KDF_ID_WRAPPED, keyBits,
+                new byte[0], nonce, aad, ciphertext, tag, compression, originalLength, null, wraps);
+    }
 
+    /**
+     * <h3>AAD efectiva del cifrado</h3>
+     *
+     * <p>
+     * En el formato v1 coincide con {@link #aad}. En el formato extendido se le
+     * añaden el codec y la longitud original, de modo que alterar la extensión de
+     * compresión invalida el tag GCM.
+     * </p>
+     *
+     * @param compression    Codec de compresión.
+     * @param originalLength Longitud original del texto en claro.
+     * @param aad            AAD del usuario.
+     * @return AAD que debe pasarse a {@link CryptoEngine}.
+     */
+    static byte[] payloadAad(int compression, int originalLength, byte[] aad) {
+        if (compression == Policy.COMPRESSION_NONE) return aad;
+        byte[] out = Arrays.copyOf(aad, aad.length + 5);
+        out[aad.length] = (byte) compression;
+        out[aad.length + 1] = (byte) (originalLength >>> 24);
+        out[aad.length + 2] = (byte) (originalLength >>> 16);
+        out[aad.length + 3] = (byte) (originalLength >>> 8);
+        out[aad.length + 4] = (byte) originalLength;
+        return out;
+    }
+
+    /**
+     * @return AAD efectiva de este artefacto (ver {@link #payloadAad(int, int, byte[])}).
+     */
+    byte[] payloadAad() {
+        return payloadAad(compression, originalLength, aad);
+    }
+}
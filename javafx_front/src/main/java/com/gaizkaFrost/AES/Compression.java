@@ -0,0 +1,229 @@
+package com.gaizkaFrost.AES;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>Etapa de compresión previa al cifrado</h2>
+ *
+ * <p>
+ * Registro de {@link CompressionCodec} disponibles y utilidades para decidir si
+ * compensa comprimir. Cifrar datos ya comprimidos (PNG, JPEG, ZIP…) no reduce su
+ * tamaño y solo añade CPU, por lo que antes de comprimir se estima la entropía
+ * sobre unas pocas muestras repartidas por la entrada; si supera
+ * {@link Policy#COMPRESSION_MAX_ENTROPY}, la compresión se omite.
+ * </p>
+ *
+ * <p>
+ * Por defecto se registra {@link DeflateCodec}. Pueden añadirse otros codecs con
+ * {@link #register(CompressionCodec)} y elegir con {@link #setDefaultCodec(int)} el que
+ * se usa al cifrar cuando no se indica ninguno; al descifrar siempre se usa el que
+ * declara el artefacto.
+ * </p>
+ *
+ * @see CompressionCodec
+ * @see UseCases#encryptWithPassword(byte[], char[], byte[], boolean)
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class Compression {
+
+    /**
+     * Número de ventanas muestreadas para estimar la entropía.
+     */
+    private static final int SAMPLE_WINDOWS = 16;
+
+    /**
+     * Tamaño de cada ventana de muestreo.
+     */
+    private static final int SAMPLE_WINDOW_LEN = 4 * 1024;
+
+    /**
+     * Codecs registrados, indexados por su identificador.
+     */
+    private static final Map<Integer, CompressionCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(new DeflateCodec());
+    }
+
+    /**
+     * Codec que se usa al cifrar cuando solo se pide "comprimir".
+     */
+    private static volatile int defaultCodec = Policy.COMPRESSION_DEFLATE;
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private Compression() {}
+
+    /**
+     * Registra (o sustituye) un codec de compresión.
+     *
+     * @param codec Codec a registrar.
+     */
+    public static void register(CompressionCodec codec) {
+        int id = codec.id();
+        if (id <= Policy.COMPRESSION_NONE || id > 0xFF)
+            throw new IllegalArgumentException("Identificador de codec inválido: " + id);
+        CODECS.put(id, codec);
+    }
+
+    /**
+     * @return Identificador del codec usado por defecto al cifrar.
+     */
+    public static int defaultCodec() {
+        return defaultCodec;
+    }
+
+    /**
+     * Cambia el codec usado por defecto al cifrar.
+     * @param id Identificador de un codec ya registrado.
+     * @throws IllegalArgumentException Si no hay ningún codec con ese identificador.
+     */
+    public static void setDefaultCodec(int id) {
+        if (!CODECS.containsKey(id))
+            throw new IllegalArgumentException("Codec de compresión no registrado: " + id);
+        defaultCodec = id;
+    }
+
+    /**
+     * Obtiene el codec registrado con el identificador dado.
+     *
+     * @param id Identificador del codec.
+     * @return El codec.
+     * @throws CryptoFormatException Si no hay ningún codec con ese identificador.
+     */
+    static CompressionCodec codec(int id) {
+        CompressionCodec c = CODECS.get(id);
+        if (c == null) throw new CryptoFormatException("Compresión no soportada: " + id);
+        return c;
+    }
+
+    /**
+     * <h3>Decide si merece la pena comprimir</h3>
+     *
+     * @param data Datos en claro.
+     * @return {@code true} si son suficientemente grandes y su entropía muestreada es baja.
+     */
+    static boolean worthCompressing(byte[] data) {
+        return worthCompressing(data, data.length);
+    }
+
+    /**
+     * Igual que {@link #worthCompressing(byte[])} sobre los primeros {@code len} bytes.
+     *
+     * @param data Búfer con los datos en claro.
+     * @param len  Bytes válidos en {@code data}.
+     * @return {@code true} si son suficientemente grandes y su entropía muestreada es baja.
+     */
+    static boolean worthCompressing(byte[] data, int len) {
+        return len >= Policy.COMPRESSION_MIN_SIZE
+                && sampledEntropy(data, len) < Policy.COMPRESSION_MAX_ENTROPY;
+    }
+
+    /**
+     * Estima la entropía de Shannon (bits por byte) a partir de
+     * {@link #SAMPLE_WINDOWS} ventanas repartidas uniformemente por los datos.
+     *
+     * @param data Datos a analizar.
+     * @return Entropía estimada entre 0 y 8.
+     */
+    static double sampledEntropy(byte[] data) {
+        return sampledEntropy(data, data.length);
+    }
+
+    /**
+     * @param data Búfer con los datos a analizar.
+     * @param len  Bytes válidos en {@code data}.
+     * @return Entropía estimada de los primeros {@code len} bytes, entre 0 y 8.
+     */
+    static double sampledEntropy(byte[] data, int len) {
+        int[] hist = new int[256];
+        int total = 0;
+        int windows = Math.max(1, Math.min(SAMPLE_WINDOWS, len / SAMPLE_WINDOW_LEN));
+        long stride = (long) len / windows;
+        for (int w = 0; w < windows; w++) {
+            int start = (int) (w * stride);
+            int end = Math.min(len, start + SAMPLE_WINDOW_LEN);
+            for (int i = start; i < end; i++) hist[data[i] & 0xFF]++;
+            total += end - start;
+        }
+        if (total == 0) return 0;
+
+        double entropy = 0;
+        for (int count : hist) {
+            if (count == 0) continue;
+            double p = (double) count / total;
+            entropy -= p * (Math.log(p) / Math.log(2));
+        }
+        return entropy;
+    }
+
+    /**
+     * Comprime un bloque completo con el codec indicado.
+     *
+     * @param codec Codec a usar.
+     * @param data  Datos en claro.
+     * @return Datos comprimidos.
+     * @throws CryptoException Si falla la compresión.
+     */
+    static byte[] compress(CompressionCodec codec, byte[] data) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        try (OutputStream out = codec.compressing(bos)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new CryptoException("Error comprimiendo: " + e.getMessage(), e);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Descomprime un bloque comprobando que produce exactamente la longitud esperada,
+     * lo que también impide que un bloque manipulado se expanda sin límite.
+     *
+     * @param codec          Codec a usar.
+     * @param data           Datos comprimidos.
+     * @param originalLength Longitud original registrada en el artefacto.
+     * @return Datos en claro.
+     * @throws CryptoFormatException Si los datos no se descomprimen a la longitud esperada.
+     */
+    static byte[] decompress(CompressionCodec codec, byte[] data, int originalLength) {
+        byte[] out = new byte[originalLength];
+        decompress(codec, data, data.length, out, originalLength);
+        return out;
+    }
+
+    /**
+     * Igual que {@link #decompress(CompressionCodec, byte[], int)}, pero lee los primeros
+     * {@code len} bytes de {@code data} y escribe en un búfer del llamante.
+     *
+     * @param codec          Codec a usar.
+     * @param data           Búfer con los datos comprimidos.
+     * @param len            Bytes válidos en {@code data}.
+     * @param out            Destino, de al menos {@code originalLength} bytes.
+     * @param originalLength Longitud original registrada en el artefacto.
+     * @throws CryptoFormatException Si los datos no se descomprimen a la longitud esperada.
+     */
+    static void decompress(CompressionCodec codec, byte[] data, int len, byte[] out, int originalLength) {
+        try (InputStream in = codec.decompressing(new ByteArrayInputStream(data, 0, len))) {
+            int off = 0;
+            while (off < originalLength) {
+                int n = in.read(out, off, originalLength - off);
+                if (n < 0) throw new CryptoFormatException("Datos comprimidos truncados");
+                off += n;
+            }
+            if (in.read() >= 0) throw new CryptoFormatException("Datos comprimidos mayores de lo declarado");
+        } catch (IOException e) {
+            throw new CryptoFormatException("Error descomprimiendo: " + e.getMessage(), e);
+        }
+    }
+}
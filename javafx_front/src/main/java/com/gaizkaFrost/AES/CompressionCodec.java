@@ -0,0 +1,55 @@
+package com.gaizkaFrost.AES;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <h2>Codec de compresión previo al cifrado</h2>
+ *
+ * <p>
+ * Contrato que deben cumplir los algoritmos de compresión aplicables al texto
+ * en claro antes de cifrarlo. Cada codec se identifica con un byte que se guarda
+ * en la extensión {@link Policy#EXT_COMPRESSION} del artefacto, de modo que el
+ * descifrado sabe qué codec usar sin configuración adicional.
+ * </p>
+ *
+ * <p>
+ * Los codecs trabajan en modo <i>streaming</i> envolviendo flujos, por lo que
+ * pueden encadenarse con E/S de ficheros sin cargar todo en memoria.
+ * Se registran mediante {@link Compression#register(CompressionCodec)}.
+ * </p>
+ *
+ * @see Compression
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return Identificador del codec (1 byte, distinto de {@link Policy#COMPRESSION_NONE}).
+     */
+    int id();
+
+    /**
+     * Envuelve un flujo de salida para que lo escrito se comprima.
+     * Cerrar el flujo devuelto debe finalizar la compresión y cerrar {@code out}.
+     *
+     * @param out Flujo de destino de los datos comprimidos.
+     * @return Flujo en el que escribir los datos en claro.
+     * @throws IOException Si no puede inicializarse el compresor.
+     */
+    OutputStream compressing(OutputStream out) throws IOException;
+
+    /**
+     * Envuelve un flujo de entrada comprimido para leer los datos originales.
+     *
+     * @param in Flujo con los datos comprimidos.
+     * @return Flujo del que leer los datos descomprimidos.
+     * @throws IOException Si no puede inicializarse el descompresor.
+     */
+    InputStream decompressing(InputStream in) throws IOException;
+}
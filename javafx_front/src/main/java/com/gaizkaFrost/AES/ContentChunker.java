@@ -0,0 +1,124 @@
+package com.gaizkaFrost.AES;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * <h2>Troceado de un flujo según su contenido (CDC)</h2>
+ *
+ * <p>
+ * Divide un flujo en trozos cuyos límites dependen de los propios bytes y no de su
+ * posición: insertar o borrar datos en un fichero solo cambia los trozos cercanos a la
+ * modificación, y los ficheros duplicados producen exactamente los mismos trozos.
+ * </p>
+ *
+ * <p>
+ * Usa un hash <i>Gear</i> rodante ({@code h = (h << 1) + gear[b]}) con corte
+ * normalizado al estilo FastCDC: antes del tamaño medio se exige una máscara con más
+ * bits (cortes menos probables) y después una con menos, lo que concentra los tamaños
+ * en torno a {@link Policy#CDC_AVG_SIZE}. La tabla {@code gear} se deriva de una clave
+ * para que los tamaños de los trozos no revelen el contenido.
+ * </p>
+ *
+ * @see DedupRepository
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class ContentChunker {
+
+    /**
+     * Bits del tamaño medio (log2 de {@link Policy#CDC_AVG_SIZE}).
+     */
+    private static final int AVG_BITS = Integer.numberOfTrailingZeros(Policy.CDC_AVG_SIZE);
+
+    /**
+     * Máscara antes del tamaño medio: bits altos del hash, dos más que el medio.
+     */
+    private static final long MASK_SMALL = -1L << (64 - (AVG_BITS + 2));
+
+    /**
+     * Máscara a partir del tamaño medio: dos bits menos que el medio.
+     */
+    private static final long MASK_LARGE = -1L << (64 - (AVG_BITS - 2));
+
+    /**
+     * Tabla de 256 valores aleatorios del hash Gear.
+     */
+    private final long[] gear;
+
+    /**
+     * Flujo de entrada.
+     */
+    private final InputStream in;
+
+    /**
+     * Datos leídos y aún no devueltos.
+     */
+    private final byte[] buf = new byte[Policy.CDC_MAX_SIZE];
+
+    /**
+     * Bytes válidos en {@link #buf}.
+     */
+    private int filled;
+
+    /**
+     * {@code true} cuando el flujo se ha agotado.
+     */
+    private boolean eof;
+
+    /**
+     * @param in   Flujo a trocear (no se cierra).
+     * @param gear Tabla Gear de 256 entradas.
+     */
+    ContentChunker(InputStream in, long[] gear) {
+        if (gear.length != 256) throw new IllegalArgumentException("La tabla Gear debe tener 256 entradas");
+        this.in = in;
+        this.gear = gear;
+    }
+
+    /**
+     * @return El siguiente trozo, o {@code null} al final del flujo.
+     * @throws IOException Si falla la lectura.
+     */
+    byte[] next() throws IOException {
+        while (!eof && filled < buf.length) {
+            int n = in.read(buf, filled, buf.length - filled);
+            if (n < 0) eof = true;
+            else filled += n;
+        }
+        if (filled == 0) return null;
+
+        int cut = cutPoint(buf, filled);
+        byte[] chunk = Arrays.copyOf(buf, cut);
+        System.arraycopy(buf, cut, buf, 0, filled - cut);
+        filled -= cut;
+        return chunk;
+    }
+
+    /**
+     * Busca el primer límite de trozo.
+     *
+     * @param b Datos.
+     * @param n Bytes válidos (como mucho {@link Policy#CDC_MAX_SIZE}).
+     * @return Longitud del trozo.
+     */
+    private int cutPoint(byte[] b, int n) {
+        if (n <= Policy.CDC_MIN_SIZE) return n;
+        int normal = Math.min(Policy.CDC_AVG_SIZE, n);
+        long h = 0;
+        int i = Policy.CDC_MIN_SIZE;
+        for (; i < normal; i++) {
+            h = (h << 1) + gear[b[i] & 0xFF];
+            if ((h & MASK_SMALL) == 0) return i + 1;
+        }
+        for (; i < n; i++) {
+            h = (h << 1) + gear[b[i] & 0xFF];
+            if ((h & MASK_LARGE) == 0) return i + 1;
+        }
+        return n;
+    }
+}
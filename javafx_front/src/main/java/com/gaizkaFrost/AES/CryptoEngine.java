@@ -1,18 +1,18 @@
 package com.gaizkaFrost.AES;
 
 import javax.crypto.*;
-import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
 
 /**
- * <h2>Motor criptográfico interno para AES-GCM</h2>
+ * <h2>Motor criptográfico interno para cifrado autenticado (AEAD)</h2>
  *
  * <p>
  * Esta clase encapsula las operaciones de cifrado y descifrado usando
- * <b>AES en modo GCM</b>, gestionando internamente la AAD,
- * el nonce, el tag y la separación correcta entre los bytes cifrados
- * y la etiqueta de autenticación.
+ * <b>AES en modo GCM</b> u otro modo AEAD del registro {@link AeadMode},
+ * gestionando internamente la AAD, el nonce, el tag y la separación correcta
+ * entre los bytes cifrados y la etiqueta de autenticación.
  * </p>
  *
  * <p>
@@ -27,8 +27,9 @@ import java.util.Arrays;
  * </p>
  *
  * @see Policy
+ * @see AeadMode
  * @see javax.crypto.Cipher
- * @see GCMParameterSpec
+ * @see javax.crypto.spec.GCMParameterSpec
  *
  * @since 2025
  * @version 1.0
@@ -62,25 +63,32 @@ final class CryptoEngine {
      * esta función separa ambos para permitir almacenarlos de forma explícita.
      * </p>
      *
+     * @param mode      Modo AEAD a usar.
      * @param plaintext Datos originales sin cifrar.
-     * @param key       Clave secreta AES.
-     * @param nonce     Vector de inicialización (IV) para GCM.
+     * @param key       Clave secreta derivada.
+     * @param nonce     Vector de inicialización (IV) de 12 bytes.
      * @param aad       Datos autenticados adicionales.
      * @return Resultado del cifrado (ciphertext + tag separados).
      *
      * @throws CryptoException Si ocurre cualquier error criptográfico interno.
      */
-    static EncryptResult encrypt(byte[] plaintext, SecretKey key, byte[] nonce, byte[] aad) {
+    static EncryptResult encrypt(AeadMode mode, byte[] plaintext, SecretKey key, byte[] nonce, byte[] aad) {
+        CryptoEvents.Aead ev = new CryptoEvents.Aead();
+        ev.begin();
         try {
-            Cipher cipher = Cipher.getInstance(Policy.CIPHER_TRANSFORM);
-            GCMParameterSpec spec = new GCMParameterSpec(Policy.GCM_TAG_BITS, nonce);
-            cipher.init(Cipher.ENCRYPT_MODE, key, spec);
+            Cipher cipher = mode.newCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, mode.adapt(key), mode.spec(nonce));
             if (aad != null && aad.length > 0) cipher.updateAAD(aad);
             byte[] ctAndTag = cipher.doFinal(plaintext);
 
             int tlen = Policy.GCM_TAG_LEN;
             byte[] ct = Arrays.copyOf(ctAndTag, ctAndTag.length - tlen);
             byte[] tag = Arrays.copyOfRange(ctAndTag, ctAndTag.length - tlen, ctAndTag.length);
+            CryptoEvents.commit(ev, e -> {
+                e.operation = "encrypt";
+                e.mode = mode.label;
+                e.bytes = plaintext.length;
+            });
             return new EncryptResult(ct, tag);
         } catch (GeneralSecurityException e) {
             throw new CryptoException("Fallo cifrando: " + e.getMessage(), e);
@@ -97,9 +105,10 @@ final class CryptoEngine {
      * y obtener los datos en claro.
      * </p>
      *
-     * @param ciphertext Datos cifrados sin la etiqueta GCM.
-     * @param tag        Etiqueta GCM de autenticación.
-     * @param key        Clave secreta AES.
+     * @param mode       Modo AEAD declarado por el artefacto.
+     * @param ciphertext Datos cifrados sin la etiqueta.
+     * @param tag        Etiqueta de autenticación.
+     * @param key        Clave secreta derivada.
      * @param nonce      Nonce/IV usado en el cifrado.
      * @param aad        Datos adicionales autenticados.
      * @return Los datos descifrados en claro.
@@ -107,17 +116,24 @@ final class CryptoEngine {
      * @throws CryptoException Si la etiqueta no coincide, si los datos están corruptos
      *                         o si la contraseña derivada es incorrecta.
      */
-    static byte[] decrypt(byte[] ciphertext, byte[] tag, SecretKey key, byte[] nonce, byte[] aad) {
+    static byte[] decrypt(AeadMode mode, byte[] ciphertext, byte[] tag, SecretKey key, byte[] nonce, byte[] aad) {
+        CryptoEvents.Aead ev = new CryptoEvents.Aead();
+        ev.begin();
         try {
-            Cipher cipher = Cipher.getInstance(Policy.CIPHER_TRANSFORM);
-            GCMParameterSpec spec = new GCMParameterSpec(Policy.GCM_TAG_BITS, nonce);
-            cipher.init(Cipher.DECRYPT_MODE, key, spec);
+            Cipher cipher = mode.newCipher();
+            cipher.init(Cipher.DECRYPT_MODE, mode.adapt(key), mode.spec(nonce));
             if (aad != null && aad.length > 0) cipher.updateAAD(aad);
 
             byte[] ctAndTag = new byte[ciphertext.length + tag.length];
             System.arraycopy(ciphertext, 0, ctAndTag, 0, ciphertext.length);
             System.arraycopy(tag, 0, ctAndTag, ciphertext.length, tag.length);
-            return cipher.doFinal(ctAndTag);
+            byte[] plain = cipher.doFinal(ctAndTag);
+            CryptoEvents.commit(ev, e -> {
+                e.operation = "decrypt";
+                e.mode = mode.label;
+                e.bytes = ciphertext.length;
+            });
+            return plain;
         } catch (AEADBadTagException bad) {
             throw new CryptoException("Contraseña incorrecta o datos corruptos");
         } catch (GeneralSecurityException e) {
@@ -125,6 +141,145 @@ final class CryptoEngine {
         }
     }
 
+    /**
+     * <h3>Crea una instancia reutilizable de {@link Cipher}</h3>
+     *
+     * <p>
+     * Pensado para los formatos segmentados, donde un mismo {@link Cipher}
+     * se reinicializa para cada segmento en lugar de crear uno nuevo.
+     * </p>
+     *
+     * @param mode Modo AEAD del contenedor.
+     * @return Instancia de {@link Cipher} para el modo indicado.
+     * @throws CryptoException Si el modo no está disponible.
+     */
+    static Cipher newCipher(AeadMode mode) {
+        return mode.newCipher();
+    }
+
+    /**
+     * <h3>Cifrado AEAD de un segmento</h3>
+     *
+     * <p>
+     * Cifra los bytes restantes de {@code in} y escribe en {@code out}
+     * el texto cifrado seguido del tag, sin arrays intermedios.
+     * </p>
+     *
+     * @param cipher Instancia reutilizable obtenida con {@link #newCipher(AeadMode)}.
+     * @param mode   Modo AEAD del contenedor.
+     * @param key    Clave secreta AES.
+     * @param nonce  Nonce propio del segmento.
+     * @param aad    Datos autenticados del segmento.
+     * @param in     Texto en claro del segmento.
+     * @param out    Destino del texto cifrado + tag.
+     * @return Número de bytes escritos en {@code out}.
+     *
+     * @throws CryptoException Si ocurre cualquier error criptográfico interno.
+     */
+    static int encryptSegment(Cipher cipher, AeadMode mode, SecretKey key, byte[] nonce, byte[] aad,
+                              ByteBuffer in, ByteBuffer out) {
+        CryptoEvents.Aead ev = new CryptoEvents.Aead();
+        ev.begin();
+        long start = System.nanoTime();
+        int n = in.remaining();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, mode.adapt(key), mode.spec(nonce));
+            cipher.updateAAD(aad);
+            int written = cipher.doFinal(in, out);
+            CryptoMetrics.SEGMENT_ENCRYPT.record(System.nanoTime() - start, n);
+            CryptoEvents.commit(ev, e -> {
+                e.operation = "segmentEncrypt";
+                e.mode = mode.label;
+                e.bytes = n;
+            });
+            return written;
+        } catch (GeneralSecurityException e) {
+            CryptoException ce = new CryptoException("Fallo cifrando segmento: " + e.getMessage(), e);
+            CryptoMetrics.failed(ce);
+            throw ce;
+        }
+    }
+
+    /**
+     * <h3>Descifrado AEAD de un segmento</h3>
+     *
+     * <p>
+     * Verifica el tag del segmento y escribe el texto en claro en {@code out}.
+     * </p>
+     *
+     * @param cipher Instancia reutilizable obtenida con {@link #newCipher(AeadMode)}.
+     * @param mode   Modo AEAD del contenedor.
+     * @param key    Clave secreta AES.
+     * @param nonce  Nonce propio del segmento.
+     * @param aad    Datos autenticados del segmento.
+     * @param in     Texto cifrado + tag del segmento.
+     * @param out    Destino del texto en claro.
+     * @return Número de bytes escritos en {@code out}.
+     *
+     * @throws CryptoException Si la etiqueta no coincide o el segmento está corrupto.
+     */
+    static int decryptSegment(Cipher cipher, AeadMode mode, SecretKey key, byte[] nonce, byte[] aad,
+                              ByteBuffer in, ByteBuffer out) {
+        CryptoEvents.Aead ev = new CryptoEvents.Aead();
+        ev.begin();
+        long start = System.nanoTime();
+        int n = in.remaining();
+        CryptoException failure;
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, mode.adapt(key), mode.spec(nonce));
+            cipher.updateAAD(aad);
+            int written = cipher.doFinal(in, out);
+            CryptoMetrics.SEGMENT_DECRYPT.record(System.nanoTime() - start, n);
+            CryptoEvents.commit(ev, e -> {
+                e.operation = "segmentDecrypt";
+                e.mode = mode.label;
+                e.bytes = n;
+            });
+            return written;
+        } catch (AEADBadTagException bad) {
+            failure = new CryptoException("Contraseña incorrecta o segmento corrupto");
+        } catch (GeneralSecurityException e) {
+            failure = new CryptoException("Fallo descifrando segmento: " + e.getMessage(), e);
+        }
+        CryptoMetrics.failed(failure);
+        throw failure;
+    }
+
+    /**
+     * <h3>Verificación AEAD sin conservar el texto en claro</h3>
+     *
+     * <p>
+     * Comprueba el tag de un payload con el texto cifrado y el tag por separado, sin
+     * concatenarlos ni devolver el texto en claro: la salida se descarta en
+     * {@code scratch}, un búfer reutilizable de al menos {@code ciphertext.length} bytes.
+     * </p>
+     *
+     * @param cipher     Instancia reutilizable obtenida con {@link #newCipher(AeadMode)}.
+     * @param mode       Modo AEAD declarado por el artefacto.
+     * @param ciphertext Datos cifrados sin la etiqueta.
+     * @param tag        Etiqueta de autenticación.
+     * @param key        Clave secreta.
+     * @param nonce      Nonce/IV usado en el cifrado.
+     * @param aad        Datos adicionales autenticados.
+     * @param scratch    Búfer de descarte.
+     *
+     * @throws CryptoException Si la etiqueta no coincide.
+     */
+    static void verify(Cipher cipher, AeadMode mode, byte[] ciphertext, byte[] tag, SecretKey key, byte[] nonce,
+                       byte[] aad, ByteBuffer scratch) {
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, mode.adapt(key), mode.spec(nonce));
+            if (aad != null && aad.length > 0) cipher.updateAAD(aad);
+            scratch.clear();
+            cipher.update(ByteBuffer.wrap(ciphertext), scratch);
+            cipher.doFinal(ByteBuffer.wrap(tag), scratch);
+        } catch (AEADBadTagException bad) {
+            throw new CryptoException("Contraseña incorrecta o datos corruptos");
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Fallo verificando: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * <h3>Resultado del cifrado AES-GCM</h3>
      *
@@ -0,0 +1,190 @@
+package com.gaizkaFrost.AES;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Consumer;
+
+/**
+ * <h2>Eventos de Java Flight Recorder del flujo de cifrado</h2>
+ *
+ * <p>
+ * Un tipo de evento por etapa: derivación de clave, AEAD, serialización, Base64 y
+ * E/S de ficheros. Cada evento lleva su duración, el tamaño procesado y el modo o la
+ * operación, de modo que una grabación continua permite atribuir a una etapa concreta
+ * una caída de rendimiento.
+ * </p>
+ *
+ * <p>
+ * Con JFR desactivado, {@link Event#shouldCommit()} es falso y el JIT elimina el
+ * objeto del evento; el coste es prácticamente nulo. La configuración
+ * {@code descifrador.jfc} (en los recursos) activa estos eventos con umbrales pensados
+ * para grabar en producción:
+ * </p>
+ *
+ * <pre>
+ * java -XX:StartFlightRecording:settings=descifrador.jfc,maxage=1h,filename=descifrador.jfr ...
+ * </pre>
+ *
+ * <p>
+ * Uso en el código instrumentado:
+ * </p>
+ *
+ * <pre>
+ * CryptoEvents.Aead ev = new CryptoEvents.Aead();
+ * ev.begin();
+ * ... operación ...
+ * CryptoEvents.commit(ev, e -&gt; { e.operation = "encrypt"; ... });
+ * </pre>
+ *
+ * @see CryptoMetrics
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class CryptoEvents {
+
+    /**
+     * Categoría común de todos los eventos.
+     */
+    private static final String CATEGORY = "Descifrador";
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private CryptoEvents() {}
+
+    /**
+     * <h3>Completa y registra un evento si la grabación lo requiere</h3>
+     *
+     * <p>
+     * Los campos solo se rellenan cuando el evento se va a registrar, así que con JFR
+     * desactivado no se calcula nada.
+     * </p>
+     *
+     * @param ev     Evento iniciado con {@link Event#begin()}.
+     * @param fields Rellena los campos del evento.
+     * @param <E>    Tipo de evento.
+     */
+    public static <E extends Event> void commit(E ev, Consumer<? super E> fields) {
+        ev.end();
+        if (!ev.shouldCommit()) return;
+        fields.accept(ev);
+        ev.commit();
+    }
+
+    /**
+     * <h3>Derivación de una clave desde contraseña</h3>
+     */
+    @Name("com.gaizkaFrost.KeyDerivation")
+    @Label("Derivación de clave")
+    @Category({CATEGORY, "Cifrado"})
+    @StackTrace(false)
+    static final class KeyDerivation extends Event {
+        /** KDF y parámetros de coste. */
+        @Label("KDF")
+        String kdf;
+
+        /** Tamaño de la clave en bits. */
+        @Label("Bits de clave")
+        int keyBits;
+    }
+
+    /**
+     * <h3>Cifrado o descifrado AEAD</h3>
+     */
+    @Name("com.gaizkaFrost.Aead")
+    @Label("Cifrado AEAD")
+    @Category({CATEGORY, "Cifrado"})
+    @StackTrace(false)
+    static final class Aead extends Event {
+        /** {@code encrypt}, {@code decrypt}, {@code segmentEncrypt} o {@code segmentDecrypt}. */
+        @Label("Operación")
+        String operation;
+
+        /** Modo AEAD. */
+        @Label("Modo")
+        String mode;
+
+        /** Bytes de entrada. */
+        @Label("Tamaño")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * <h3>Serialización o deserialización de un blob</h3>
+     */
+    @Name("com.gaizkaFrost.Serializer")
+    @Label("Serialización")
+    @Category({CATEGORY, "Formato"})
+    @StackTrace(false)
+    static final class Serialize extends Event {
+        /** {@code encode} o {@code decode}. */
+        @Label("Operación")
+        String operation;
+
+        /** Versión del formato. */
+        @Label("Versión")
+        int version;
+
+        /** Bytes del blob. */
+        @Label("Tamaño")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * <h3>Codificación o decodificación Base64</h3>
+     */
+    @Name("com.gaizkaFrost.Base64")
+    @Label("Base64")
+    @Category({CATEGORY, "Formato"})
+    @StackTrace(false)
+    static final class Base64Codec extends Event {
+        /** {@code encode} o {@code decode}. */
+        @Label("Operación")
+        String operation;
+
+        /** Bytes binarios (antes de codificar o después de decodificar). */
+        @Label("Tamaño")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * <h3>Lectura o escritura de un fichero completo</h3>
+     *
+     * <p>
+     * Público para que lo usen los servicios fuera del paquete (p. ej.
+     * {@code AESImageService}). Solo guarda el nombre del fichero: la ruta completa
+     * revelaría directorios y nombres de usuario en grabaciones que se comparten.
+     * </p>
+     */
+    @Name("com.gaizkaFrost.FileIo")
+    @Label("E/S de fichero")
+    @Description("Lectura o escritura completa de un fichero cifrado o en claro")
+    @Category({CATEGORY, "E/S"})
+    @StackTrace(false)
+    public static final class FileIo extends Event {
+        /** {@code read} o {@code write}. */
+        @Label("Operación")
+        public String operation;
+
+        /** Nombre del fichero, sin directorios. */
+        @Label("Fichero")
+        public String file;
+
+        /** Bytes leídos o escritos. */
+        @Label("Tamaño")
+        @DataAmount
+        public long bytes;
+    }
+}
@@ -36,38 +36,3 @@ public class CryptoException extends RuntimeException {
      */
     CryptoException(String m, Throwable c) { super(m, c); }
 }
-
-/**
- * <h2>Excepción para errores de formato criptográfico</h2>
- *
- * <p>
- * Esta excepción indica que los datos recibidos no cumplen el formato esperado
- * para ser procesados por el sistema criptográfico (por ejemplo:
- * estructuras incompletas, bytes alterados, longitudes incorrectas, etc.).
- * </p>
- *
- * <p>
- * Se emplea durante la fase de parsing o interpretación de artefactos
- * cifrados en clases del paquete <code>com.gaizkaFrost.AES</code>.
- * </p>
- *
- * @see CipherArtifact
- * @see CryptoEngine
- */
-class CryptoFormatException extends RuntimeException {
-
-    /**
-     * Crea una excepción de formato criptográfico con un mensaje explicativo.
-     *
-     * @param m Descripción del error detectado.
-     */
-    CryptoFormatException(String m) { super(m); }
-
-    /**
-     * Crea una excepción de formato criptográfico con mensaje y causa asociada.
-     *
-     * @param m Mensaje explicativo del error.
-     * @param c Excepción original que produjo el fallo.
-     */
-    CryptoFormatException(String m, Throwable c) { super(m, c); }
-}
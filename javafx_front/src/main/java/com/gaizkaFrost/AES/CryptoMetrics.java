@@ -0,0 +1,286 @@
+package com.gaizkaFrost.AES;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * <h2>Métricas del camino crítico de cifrado</h2>
+ *
+ * <p>
+ * Cuenta y cronometra las operaciones del módulo AES: cifrado y descifrado de blobs,
+ * de segmentos (v2) y la derivación de claves, con los bytes procesados y un
+ * histograma de latencias por operación ({@link OperationTimer}). También cuenta los
+ * fallos por causa y expone la profundidad de las colas registradas (p. ej. la del
+ * appender de logs cifrados).
+ * </p>
+ *
+ * <p>
+ * Registrar una medida es un puñado de sumas sobre {@link LongAdder}: sin reservas,
+ * sin bloqueos y sin dependencias externas. Las métricas se publican por JMX con
+ * {@link #registerJmx()} (visibles en JConsole o VisualVM bajo
+ * {@code com.gaizkaFrost.AES}) o en cualquier sistema de monitorización mediante un
+ * {@link MetricsRegistry}.
+ * </p>
+ *
+ * @see OperationTimer
+ * @see MetricsRegistry
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class CryptoMetrics {
+
+    /**
+     * Dominio JMX de las métricas.
+     */
+    static final String JMX_DOMAIN = "com.gaizkaFrost.AES";
+
+    /**
+     * Cifrado de blobs (v1/v4).
+     */
+    static final OperationTimer ENCRYPT = new OperationTimer("encrypt");
+
+    /**
+     * Descifrado de blobs (v1/v4).
+     */
+    static final OperationTimer DECRYPT = new OperationTimer("decrypt");
+
+    /**
+     * Cifrado de segmentos (v2).
+     */
+    static final OperationTimer SEGMENT_ENCRYPT = new OperationTimer("segmentEncrypt");
+
+    /**
+     * Descifrado de segmentos (v2).
+     */
+    static final OperationTimer SEGMENT_DECRYPT = new OperationTimer("segmentDecrypt");
+
+    /**
+     * Derivación de claves desde contraseña (PBKDF2, scrypt, Argon2id).
+     */
+    static final OperationTimer KDF = new OperationTimer("kdf");
+
+    /**
+     * Todos los temporizadores.
+     */
+    private static final List<OperationTimer> TIMERS = List.of(ENCRYPT, DECRYPT, SEGMENT_ENCRYPT, SEGMENT_DECRYPT, KDF);
+
+    /**
+     * Fallos de autenticación o criptográficos ({@link CryptoException}).
+     */
+    private static final LongAdder CRYPTO_FAILURES = new LongAdder();
+
+    /**
+     * Fallos de formato ({@link CryptoFormatException}).
+     */
+    private static final LongAdder FORMAT_FAILURES = new LongAdder();
+
+    /**
+     * Otros fallos.
+     */
+    private static final LongAdder OTHER_FAILURES = new LongAdder();
+
+    /**
+     * Colas observadas, por nombre.
+     */
+    private static final Map<String, IntSupplier> QUEUES = new ConcurrentHashMap<>();
+
+    /**
+     * Resumen publicado por JMX.
+     */
+    private static final CryptoMetricsMXBean SUMMARY = new Summary();
+
+    /**
+     * {@code true} cuando ya se han registrado los MBeans.
+     */
+    private static boolean jmxRegistered;
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private CryptoMetrics() {}
+
+    /**
+     * Cuenta un fallo según su causa.
+     *
+     * @param e Excepción lanzada por la operación.
+     */
+    static void failed(RuntimeException e) {
+        if (e instanceof CryptoFormatException) FORMAT_FAILURES.increment();
+        else if (e instanceof CryptoException) CRYPTO_FAILURES.increment();
+        else OTHER_FAILURES.increment();
+    }
+
+    /**
+     * <h3>Observa la profundidad de una cola</h3>
+     *
+     * @param name  Nombre único de la cola.
+     * @param depth Función que devuelve su número de elementos pendientes.
+     */
+    public static void registerQueue(String name, IntSupplier depth) {
+        QUEUES.put(name, depth);
+    }
+
+    /**
+     * Deja de observar una cola.
+     *
+     * @param name Nombre de la cola.
+     */
+    public static void unregisterQueue(String name) {
+        QUEUES.remove(name);
+    }
+
+    /**
+     * @return Resumen de las métricas (el mismo objeto que se publica por JMX).
+     */
+    public static CryptoMetricsMXBean summary() {
+        return SUMMARY;
+    }
+
+    /**
+     * <h3>Publica las métricas en el servidor JMX de la plataforma</h3>
+     *
+     * <p>
+     * Registra el resumen como {@code com.gaizkaFrost.AES:type=CryptoMetrics} y cada
+     * operación como {@code com.gaizkaFrost.AES:type=CryptoMetrics,operation=<nombre>}.
+     * Llamarlo más de una vez no tiene efecto.
+     * </p>
+     *
+     * @throws CryptoException Si el servidor JMX rechaza el registro.
+     */
+    public static synchronized void registerJmx() {
+        if (jmxRegistered) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName summaryName = new ObjectName(JMX_DOMAIN + ":type=CryptoMetrics");
+            if (!server.isRegistered(summaryName))
+                server.registerMBean(new StandardMBean(SUMMARY, CryptoMetricsMXBean.class, true), summaryName);
+            for (OperationTimer t : TIMERS) {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=CryptoMetrics,operation=" + t.name);
+                if (!server.isRegistered(name))
+                    server.registerMBean(new StandardMBean(t, TimerMXBean.class, true), name);
+            }
+            jmxRegistered = true;
+        } catch (JMException e) {
+            throw new CryptoException("No se pudieron registrar las métricas JMX: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <h3>Publica las métricas en un registro externo</h3>
+     *
+     * <p>
+     * Por cada operación registra {@code descifrador.<op>.count}, {@code .bytes},
+     * {@code .time.ms}, {@code .mean.us}, {@code .max.us}, {@code .p50.us} y
+     * {@code .p99.us}; además {@code descifrador.failures.<causa>} y
+     * {@code descifrador.queue.<nombre>} para las colas ya registradas.
+     * </p>
+     *
+     * @param registry Registro de destino.
+     */
+    public static void bindTo(MetricsRegistry registry) {
+        for (OperationTimer t : TIMERS) {
+            String p = "descifrador." + t.name;
+            registry.counter(p + ".count", "Operaciones " + t.name, t::getCount);
+            registry.counter(p + ".bytes", "Bytes procesados por " + t.name, t::getBytes);
+            registry.gauge(p + ".time.ms", "Tiempo total de " + t.name, t::getTotalMillis);
+            registry.gauge(p + ".mean.us", "Latencia media de " + t.name, t::getMeanMicros);
+            registry.gauge(p + ".max.us", "Latencia máxima de " + t.name, t::getMaxMicros);
+            registry.gauge(p + ".p50.us", "Latencia p50 de " + t.name, t::getP50Micros);
+            registry.gauge(p + ".p99.us", "Latencia p99 de " + t.name, t::getP99Micros);
+        }
+        registry.counter("descifrador.failures.crypto", "Fallos criptográficos", CRYPTO_FAILURES::sum);
+        registry.counter("descifrador.failures.format", "Fallos de formato", FORMAT_FAILURES::sum);
+        registry.counter("descifrador.failures.other", "Otros fallos", OTHER_FAILURES::sum);
+        for (String q : QUEUES.keySet()) {
+            registry.gauge("descifrador.queue." + q, "Elementos pendientes en " + q, () -> {
+                IntSupplier depth = QUEUES.get(q);
+                return depth != null ? depth.getAsInt() : 0;
+            });
+        }
+    }
+
+    /**
+     * <h3>Vista JMX de una operación</h3>
+     */
+    public interface TimerMXBean {
+        /** @return Operaciones registradas. */
+        long getCount();
+
+        /** @return Bytes procesados. */
+        long getBytes();
+
+        /** @return Tiempo total en milisegundos. */
+        double getTotalMillis();
+
+        /** @return Latencia media en microsegundos. */
+        double getMeanMicros();
+
+        /** @return Latencia máxima en microsegundos. */
+        double getMaxMicros();
+
+        /** @return Cota superior de la mediana en microsegundos. */
+        double getP50Micros();
+
+        /** @return Cota superior del percentil 99 en microsegundos. */
+        double getP99Micros();
+
+        /** @return Histograma: el cubo {@code i} cuenta latencias en {@code [2^(i-1), 2^i)} ns. */
+        long[] getHistogram();
+    }
+
+    /**
+     * <h3>Vista JMX del resumen</h3>
+     */
+    public interface CryptoMetricsMXBean {
+        /** @return Fallos de autenticación o criptográficos. */
+        long getCryptoFailures();
+
+        /** @return Fallos de formato. */
+        long getFormatFailures();
+
+        /** @return Otros fallos. */
+        long getOtherFailures();
+
+        /** @return Profundidad actual de cada cola registrada. */
+        Map<String, Integer> getQueueDepths();
+    }
+
+    /**
+     * Implementación del resumen.
+     */
+    private static final class Summary implements CryptoMetricsMXBean {
+        @Override
+        public long getCryptoFailures() {
+            return CRYPTO_FAILURES.sum();
+        }
+
+        @Override
+        public long getFormatFailures() {
+            return FORMAT_FAILURES.sum();
+        }
+
+        @Override
+        public long getOtherFailures() {
+            return OTHER_FAILURES.sum();
+        }
+
+        @Override
+        public Map<String, Integer> getQueueDepths() {
+            Map<String, Integer> out = new TreeMap<>();
+            QUEUES.forEach((name, depth) -> out.put(name, depth.getAsInt()));
+            return out;
+        }
+    }
+}
@@ -0,0 +1,664 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h2>Repositorio cifrado de directorios con deduplicación por contenido</h2>
+ *
+ * <p>
+ * Cifra carpetas completas guardando cada trozo de contenido una sola vez. Los
+ * ficheros se dividen con {@link ContentChunker}, cada trozo se identifica con un
+ * HMAC de su contenido ({@link Policy#CHUNK_ID_MAC}) y solo se cifran y escriben los
+ * trozos que aún no están en el repositorio. Los ficheros duplicados, o las copias
+ * nocturnas de una carpeta que apenas cambia, solo cuestan el troceado y el HMAC.
+ * </p>
+ *
+ * <pre>
+ * repository.key            claves del repositorio (blob en modo sobre)
+ * chunks/ab/abcd...         un trozo cifrado por identificador
+ * manifests/1234...         un manifiesto cifrado por fichero
+ * index-N.idx               índice de ficheros ya copiados ({@link FileIndex})
+ * </pre>
+ *
+ * <p>
+ * El fichero de claves es un blob de {@link UseCases#encryptEnvelope} con la clave de
+ * cifrado y la clave de identificadores, por lo que se abre con cualquier
+ * {@link Recipient} (contraseña, fichero de clave o clave de un {@link LocalKeyStore})
+ * y solo hay una derivación KDF por apertura. Trozos y manifiestos se guardan como
+ * {@code modo (1) nonce (12) cifrado + tag}, con su nombre en la AAD para que no
+ * puedan intercambiarse. Los nombres de los manifiestos son también un HMAC, de la
+ * ruta relativa, para no revelar los nombres de los ficheros.
+ * </p>
+ *
+ * <p>
+ * Cada {@link #backup(Path)} deja el repositorio como espejo de la carpeta de origen:
+ * los manifiestos de ficheros que ya no existen se borran y {@link #prune()} elimina
+ * después los trozos que nadie referencia. Las instancias no son seguras para hilos.
+ * </p>
+ *
+ * @see ContentChunker
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class DedupRepository {
+
+    /**
+     * Nombre del fichero de claves.
+     */
+    private static final String KEY_FILE = "repository.key";
+
+    /**
+     * Directorio de trozos.
+     */
+    private static final String CHUNKS_DIR = "chunks";
+
+    /**
+     * Directorio de manifiestos.
+     */
+    private static final String MANIFESTS_DIR = "manifests";
+
+    /**
+     * Longitud de un identificador (HMAC-SHA256).
+     */
+    private static final int ID_LEN = 32;
+
+    /**
+     * Tipo de registro en la AAD: trozo.
+     */
+    private static final byte KIND_CHUNK = 'C';
+
+    /**
+     * Tipo de registro en la AAD: manifiesto.
+     */
+    private static final byte KIND_MANIFEST = 'M';
+
+    /**
+     * Raíz del repositorio.
+     */
+    private final Path root;
+
+    /**
+     * Clave de cifrado de trozos y manifiestos.
+     */
+    private final SecretKey key;
+
+    /**
+     * HMAC con la clave de identificadores.
+     */
+    private final Mac mac;
+
+    /**
+     * Tabla Gear derivada de la clave de identificadores.
+     */
+    private final long[] gear;
+
+    /**
+     * @param root   Raíz del repositorio.
+     * @param keyRaw Clave de cifrado seguida de la clave de identificadores.
+     */
+    private DedupRepository(Path root, byte[] keyRaw) {
+        this.root = root;
+        int half = Policy.KEY_BITS_DEFAULT / 8;
+        this.key = new SecretKeySpec(keyRaw, 0, half, Policy.KEY_ALGO);
+        try {
+            this.mac = Mac.getInstance(Policy.CHUNK_ID_MAC);
+            mac.init(new SecretKeySpec(keyRaw, half, keyRaw.length - half, Policy.CHUNK_ID_MAC));
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Error iniciando el HMAC de trozos: " + e.getMessage(), e);
+        } finally {
+            Arrays.fill(keyRaw, (byte) 0);
+        }
+        this.gear = deriveGear();
+    }
+
+    /**
+     * <h3>Crea un repositorio vacío</h3>
+     *
+     * @param root       Directorio del repositorio (se crea si no existe; debe estar vacío).
+     * @param recipients Destinatarios que podrán abrirlo (al menos uno).
+     * @return El repositorio abierto.
+     * @throws IOException Si el directorio no está vacío o no se puede escribir.
+     */
+    public static DedupRepository create(Path root, List<Recipient> recipients) throws IOException {
+        Files.createDirectories(root);
+        try (Stream<Path> s = Files.list(root)) {
+            if (s.findAny().isPresent()) throw new IOException("El directorio del repositorio no está vacío: " + root);
+        }
+        byte[] keyRaw = RandomSource.nextBytes(2 * (Policy.KEY_BITS_DEFAULT / 8));
+        byte[] blob = UseCases.encryptEnvelope(keyRaw, Policy.DEDUP_AAD.getBytes(StandardCharsets.UTF_8), false,
+                recipients);
+        Files.createDirectories(root.resolve(CHUNKS_DIR));
+        Files.createDirectories(root.resolve(MANIFESTS_DIR));
+        Files.write(root.resolve(KEY_FILE), blob);
+        return new DedupRepository(root, keyRaw);
+    }
+
+    /**
+     * <h3>Abre un repositorio existente</h3>
+     *
+     * @param root      Directorio del repositorio.
+     * @param recipient Destinatario del fichero de claves.
+     * @return El repositorio abierto.
+     * @throws IOException     Si no se puede leer el fichero de claves.
+     * @throws CryptoException Si el destinatario no puede abrirlo.
+     */
+    public static DedupRepository open(Path root, Recipient recipient) throws IOException {
+        byte[] keyRaw = UseCases.decrypt(Files.readAllBytes(root.resolve(KEY_FILE)), recipient);
+        if (keyRaw.length != 2 * (Policy.KEY_BITS_DEFAULT / 8))
+            throw new CryptoFormatException("Fichero de claves del repositorio inválido");
+        return new DedupRepository(root, keyRaw);
+    }
+
+    /**
+     * <h3>Copia una carpeta en el repositorio</h3>
+     *
+     * <p>
+     * Los ficheros cuyo tamaño y fecha coinciden con los del índice ({@link FileIndex})
+     * se saltan sin leerlos. Cualquier otro fichero se vuelve a trocear: sus trozos se
+     * identifican por HMAC, así que si el contenido no cambió solo se reescribe el
+     * manifiesto y no se cifra ni se escribe ningún trozo nuevo.
+     * </p>
+     *
+     * @param source Carpeta de origen.
+     * @return Estadísticas de la copia.
+     * @throws IOException Si falla la lectura del origen o la escritura del repositorio.
+     */
+    public BackupStats backup(Path source) throws IOException {
+        BackupStats stats = new BackupStats();
+        FileIndex index = FileIndex.load(root);
+        long generation = index.nextGeneration();
+        List<byte[]> indexEntries = new ArrayList<>();
+        Set<String> live = new HashSet<>();
+        HexFormat hex = HexFormat.of();
+
+        for (Path file : regularFiles(source)) {
+            String rel = relativeName(source, file);
+            byte[] manifestId = manifestId(rel);
+            String name = hex.formatHex(manifestId);
+            Path manifestPath = root.resolve(MANIFESTS_DIR).resolve(name);
+            live.add(name);
+            stats.files++;
+
+            long size = Files.size(file);
+            long mtime = Files.getLastModifiedTime(file).toMillis();
+            byte[] pad = indexPad(generation, rel);
+            byte[] previous = index.find(manifestId);
+            if (previous != null && Files.exists(manifestPath)) {
+                ByteBuffer prev = ByteBuffer.wrap(xor(previous, indexPad(index.generation(), rel)));
+                long prevSize = prev.getLong();
+                long prevMtime = prev.getLong();
+                if (prevSize == size && prevMtime == mtime) {
+                    indexEntries.add(indexEntry(manifestId, pad, size, mtime));
+                    stats.skippedFiles++;
+                    continue;
+                }
+            }
+
+            List<byte[]> ids = new ArrayList<>();
+            long read = 0;
+            try (InputStream in = Files.newInputStream(file)) {
+                ContentChunker chunker = new ContentChunker(in, gear);
+                for (byte[] chunk = chunker.next(); chunk != null; chunk = chunker.next()) {
+                    byte[] id = mac.doFinal(chunk);
+                    ids.add(id);
+                    read += chunk.length;
+                    stats.chunks++;
+                    if (storeChunk(id, chunk)) {
+                        stats.newChunks++;
+                        stats.bytesStored += chunk.length;
+                    }
+                }
+            }
+            stats.bytesRead += read;
+            byte[] manifest = encodeManifest(rel, read, mtime, ids);
+            writeAtomically(manifestPath, seal(manifest, KIND_MANIFEST, name.getBytes(StandardCharsets.US_ASCII)));
+            indexEntries.add(indexEntry(manifestId, pad, read, mtime));
+        }
+
+        for (String name : manifestNames()) {
+            if (!live.contains(name)) Files.delete(root.resolve(MANIFESTS_DIR).resolve(name));
+        }
+        index.replace(indexEntries, generation);
+        return stats;
+    }
+
+    /**
+     * <h3>Restaura todos los ficheros del repositorio</h3>
+     *
+     * @param target Carpeta de destino; los ficheros existentes se sobrescriben.
+     * @throws IOException     Si no se puede escribir el destino o falta un trozo.
+     * @throws CryptoException Si un trozo o manifiesto está corrupto o manipulado.
+     */
+    public void restore(Path target) throws IOException {
+        Path base = target.toAbsolutePath().normalize();
+        for (String name : manifestNames()) {
+            Manifest m = readManifest(name);
+            Path out = base.resolve(m.path).normalize();
+            if (!out.startsWith(base) || out.equals(base))
+                throw new CryptoFormatException("Ruta fuera del destino: " + m.path);
+            Files.createDirectories(out.getParent());
+            long written = 0;
+            try (OutputStream os = Files.newOutputStream(out)) {
+                for (byte[] id : m.chunkIds) {
+                    byte[] chunk = readChunk(id);
+                    os.write(chunk);
+                    written += chunk.length;
+                }
+            }
+            if (written != m.size) throw new CryptoFormatException("Tamaño restaurado incorrecto: " + m.path);
+            Files.setLastModifiedTime(out, FileTime.fromMillis(m.mtime));
+        }
+    }
+
+    /**
+     * @return Rutas relativas de los ficheros guardados, en orden alfabético.
+     * @throws IOException Si no se pueden leer los manifiestos.
+     */
+    public List<String> list() throws IOException {
+        List<String> out = new ArrayList<>();
+        for (String name : manifestNames()) out.add(readManifest(name).path);
+        out.sort(null);
+        return out;
+    }
+
+    /**
+     * <h3>Borra los trozos que ningún manifiesto referencia</h3>
+     *
+     * @return Número de trozos borrados.
+     * @throws IOException Si no se puede leer o borrar.
+     */
+    public int prune() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        HexFormat hex = HexFormat.of();
+        for (String name : manifestNames()) {
+            for (byte[] id : readManifest(name).chunkIds) referenced.add(hex.formatHex(id));
+        }
+        int removed = 0;
+        try (Stream<Path> s = Files.walk(root.resolve(CHUNKS_DIR))) {
+            for (Path p : s.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                if (!referenced.contains(p.getFileName().toString())) {
+                    Files.delete(p);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Cifra y guarda un trozo si aún no existe o si el existente está dañado.
+     *
+     * @param id    Identificador del trozo.
+     * @param chunk Contenido en claro.
+     * @return {@code true} si el trozo se ha escrito.
+     * @throws IOException Si no se puede escribir.
+     */
+    private boolean storeChunk(byte[] id, byte[] chunk) throws IOException {
+        Path path = chunkPath(id);
+        if (Files.exists(path)) {
+            if (isIntact(path, id, chunk)) return false;
+            // p. ej. truncado por un corte de luz: se reemplaza por uno correcto
+        } else {
+            Files.createDirectories(path.getParent());
+        }
+        writeAtomically(path, seal(chunk, KIND_CHUNK, id));
+        return true;
+    }
+
+    /**
+     * @param path  Trozo ya guardado.
+     * @param id    Identificador del trozo.
+     * @param chunk Contenido en claro esperado.
+     * @return {@code true} si el trozo guardado se descifra y coincide con {@code chunk}.
+     * @throws IOException Si no se puede leer.
+     */
+    private boolean isIntact(Path path, byte[] id, byte[] chunk) throws IOException {
+        if (Files.size(path) != 1 + Policy.GCM_NONCE_LEN + chunk.length + Policy.GCM_TAG_LEN) return false;
+        try {
+            return Arrays.equals(readChunk(id), chunk);
+        } catch (CryptoException | CryptoFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param id Identificador del trozo.
+     * @return Contenido en claro.
+     * @throws IOException     Si el trozo no existe.
+     * @throws CryptoException Si está corrupto.
+     */
+    private byte[] readChunk(byte[] id) throws IOException {
+        return open(Files.readAllBytes(chunkPath(id)), KIND_CHUNK, id);
+    }
+
+    /**
+     * @param name Nombre del manifiesto.
+     * @return Manifiesto descifrado.
+     * @throws IOException Si no se puede leer.
+     */
+    private Manifest readManifest(String name) throws IOException {
+        byte[] record = Files.readAllBytes(root.resolve(MANIFESTS_DIR).resolve(name));
+        return decodeManifest(open(record, KIND_MANIFEST, name.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * @param id Identificador del trozo.
+     * @return Ruta del trozo, repartida en subdirectorios por su primer byte.
+     */
+    private Path chunkPath(byte[] id) {
+        String hex = HexFormat.of().formatHex(id);
+        return root.resolve(CHUNKS_DIR).resolve(hex.substring(0, 2)).resolve(hex);
+    }
+
+    /**
+     * @param rel Ruta relativa del fichero.
+     * @return Identificador del manifiesto: HMAC de la ruta. Su nombre es este valor en hexadecimal.
+     */
+    private byte[] manifestId(String rel) {
+        return mac.doFinal(("path:" + rel).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Máscara de un registro del índice: HMAC de la generación y la ruta. Al cambiar
+     * con cada generación, comparar dos versiones del índice no revela qué cambió.
+     *
+     * @param generation Generación del índice en que se guarda el registro.
+     * @param rel        Ruta relativa del fichero.
+     * @return Máscara de al menos {@link FileIndex#VALUE_LEN} bytes.
+     */
+    private byte[] indexPad(long generation, String rel) {
+        return mac.doFinal(("index:" + generation + ":" + rel).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Registro del índice. Tamaño y fecha se guardan enmascarados con
+     * {@link #indexPad(long, String)}, de modo que el índice, que no va cifrado, no
+     * revela nada del fichero.
+     *
+     * @param manifestId Identificador del manifiesto (clave del registro).
+     * @param pad        Máscara de la generación y la ruta.
+     * @param size       Tamaño del fichero.
+     * @param mtime      Fecha de modificación en milisegundos.
+     * @return Registro para {@link FileIndex}.
+     */
+    private static byte[] indexEntry(byte[] manifestId, byte[] pad, long size, long mtime) {
+        byte[] value = ByteBuffer.allocate(FileIndex.VALUE_LEN).putLong(size).putLong(mtime).array();
+        return FileIndex.entry(manifestId, xor(value, pad));
+    }
+
+    /**
+     * @param value Valor de {@link FileIndex#VALUE_LEN} bytes.
+     * @param pad   Máscara de al menos esa longitud.
+     * @return {@code value} XOR {@code pad}.
+     */
+    private static byte[] xor(byte[] value, byte[] pad) {
+        byte[] out = new byte[FileIndex.VALUE_LEN];
+        for (int i = 0; i < out.length; i++) out[i] = (byte) (value[i] ^ pad[i]);
+        return out;
+    }
+
+    /**
+     * @return Nombres de los manifiestos existentes.
+     * @throws IOException Si no se puede listar el directorio.
+     */
+    private List<String> manifestNames() throws IOException {
+        try (Stream<Path> s = Files.list(root.resolve(MANIFESTS_DIR))) {
+            return s.filter(Files::isRegularFile)
+                    .map(p -> p.getFileName().toString())
+                    .filter(n -> n.length() == 2 * ID_LEN)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Cifra un registro: {@code modo (1) nonce (12) cifrado + tag}.
+     *
+     * @param plain Datos en claro.
+     * @param kind  Tipo de registro.
+     * @param name  Nombre del registro (identificador o nombre del manifiesto).
+     * @return Registro cifrado.
+     */
+    private byte[] seal(byte[] plain, byte kind, byte[] name) {
+        AeadMode mode = AeadMode.preferred();
+        byte[] nonce = RandomSource.nextBytes(Policy.GCM_NONCE_LEN);
+        CryptoEngine.EncryptResult res = CryptoEngine.encrypt(mode, plain, key, nonce, recordAad(kind, name));
+        return ByteBuffer.allocate(1 + nonce.length + res.ciphertext.length + res.tag.length)
+                .put((byte) mode.id).put(nonce).put(res.ciphertext).put(res.tag)
+                .array();
+    }
+
+    /**
+     * Descifra un registro de {@link #seal(byte[], byte, byte[])}.
+     *
+     * @param record Registro cifrado.
+     * @param kind   Tipo esperado.
+     * @param name   Nombre esperado.
+     * @return Datos en claro.
+     * @throws CryptoException Si el registro está corrupto, manipulado o cambiado de sitio.
+     */
+    private byte[] open(byte[] record, byte kind, byte[] name) {
+        int header = 1 + Policy.GCM_NONCE_LEN;
+        if (record.length < header + Policy.GCM_TAG_LEN)
+            throw new CryptoFormatException("Registro del repositorio truncado");
+        AeadMode mode = AeadMode.byId(record[0] & 0xFF);
+        byte[] nonce = Arrays.copyOfRange(record, 1, header);
+        byte[] ct = Arrays.copyOfRange(record, header, record.length - Policy.GCM_TAG_LEN);
+        byte[] tag = Arrays.copyOfRange(record, record.length - Policy.GCM_TAG_LEN, record.length);
+        return CryptoEngine.decrypt(mode, ct, tag, key, nonce, recordAad(kind, name));
+    }
+
+    /**
+     * @param kind Tipo de registro.
+     * @param name Nombre del registro.
+     * @return AAD: {@link Policy#DEDUP_AAD}, tipo y nombre.
+     */
+    private static byte[] recordAad(byte kind, byte[] name) {
+        byte[] prefix = Policy.DEDUP_AAD.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(prefix.length + 1 + name.length).put(prefix).put(kind).put(name).array();
+    }
+
+    /**
+     * Escribe un fichero mediante un temporal, forzado a disco antes del renombrado
+     * atómico para que un corte no deje en su sitio un fichero vacío.
+     *
+     * @param path Destino.
+     * @param data Contenido.
+     * @throws IOException Si no se puede escribir.
+     */
+    private void writeAtomically(Path path, byte[] data) throws IOException {
+        Path tmp = Files.createTempFile(root, ".tmp-", ".part");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.wrap(data);
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return Tabla Gear: 256 valores obtenidos con el HMAC en modo contador.
+     */
+    private long[] deriveGear() {
+        long[] table = new long[256];
+        for (int block = 0; block < table.length / 4; block++) {
+            byte[] out = mac.doFinal(("gear:" + block).getBytes(StandardCharsets.US_ASCII));
+            ByteBuffer bb = ByteBuffer.wrap(out);
+            for (int j = 0; j < 4; j++) table[block * 4 + j] = bb.getLong();
+        }
+        return table;
+    }
+
+    /**
+     * @param source Carpeta de origen.
+     * @return Ficheros regulares de la carpeta, en orden.
+     * @throws IOException Si no se puede recorrer.
+     */
+    private static List<Path> regularFiles(Path source) throws IOException {
+        try (Stream<Path> s = Files.walk(source)) {
+            return s.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param source Carpeta de origen.
+     * @param file   Fichero dentro de ella.
+     * @return Ruta relativa con {@code /} como separador.
+     */
+    private static String relativeName(Path source, Path file) {
+        List<String> parts = new ArrayList<>();
+        for (Path p : source.relativize(file)) parts.add(p.toString());
+        return String.join("/", parts);
+    }
+
+    /**
+     * <pre>
+     * pathLen (2) ruta (UTF-8) size (8) mtime (8) count (4) ids (32 cada uno)
+     * </pre>
+     *
+     * @param rel   Ruta relativa.
+     * @param size  Tamaño del fichero.
+     * @param mtime Fecha de modificación en milisegundos.
+     * @param ids   Identificadores de sus trozos, en orden.
+     * @return Manifiesto serializado.
+     */
+    private static byte[] encodeManifest(String rel, long size, long mtime, List<byte[]> ids) {
+        byte[] path = rel.getBytes(StandardCharsets.UTF_8);
+        if (path.length > 0xFFFF) throw new IllegalArgumentException("Ruta demasiado larga: " + rel);
+        ByteBuffer bb = ByteBuffer.allocate(2 + path.length + 8 + 8 + 4 + ids.size() * ID_LEN);
+        bb.putShort((short) path.length).put(path).putLong(size).putLong(mtime).putInt(ids.size());
+        for (byte[] id : ids) bb.put(id);
+        return bb.array();
+    }
+
+    /**
+     * @param data Manifiesto serializado.
+     * @return Manifiesto.
+     * @throws CryptoFormatException Si está truncado.
+     */
+    private static Manifest decodeManifest(byte[] data) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(data);
+            byte[] path = new byte[bb.getShort() & 0xFFFF];
+            bb.get(path);
+            long size = bb.getLong();
+            long mtime = bb.getLong();
+            int count = bb.getInt();
+            if (count < 0 || (long) count * ID_LEN != bb.remaining())
+                throw new CryptoFormatException("Manifiesto inválido");
+            List<byte[]> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[ID_LEN];
+                bb.get(id);
+                ids.add(id);
+            }
+            return new Manifest(new String(path, StandardCharsets.UTF_8), size, mtime, ids);
+        } catch (CryptoFormatException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CryptoFormatException("Manifiesto truncado", e);
+        }
+    }
+
+    /**
+     * Manifiesto de un fichero: ruta, tamaño, fecha y lista de trozos.
+     */
+    private static final class Manifest {
+        /** Ruta relativa. */
+        final String path;
+        /** Tamaño en bytes. */
+        final long size;
+        /** Fecha de modificación en milisegundos. */
+        final long mtime;
+        /** Identificadores de los trozos, en orden. */
+        final List<byte[]> chunkIds;
+
+        /**
+         * @param path     Ruta relativa.
+         * @param size     Tamaño.
+         * @param mtime    Fecha de modificación.
+         * @param chunkIds Trozos.
+         */
+        Manifest(String path, long size, long mtime, List<byte[]> chunkIds) {
+            this.path = path;
+            this.size = size;
+            this.mtime = mtime;
+            this.chunkIds = chunkIds;
+        }
+    }
+
+    /**
+     * <h3>Estadísticas de una copia</h3>
+     */
+    public static final class BackupStats {
+        /** Ficheros procesados. */
+        int files;
+        /** Ficheros sin cambios que no se han vuelto a leer ni trocear. */
+        int skippedFiles;
+        /** Trozos leídos. */
+        long chunks;
+        /** Trozos nuevos cifrados y escritos. */
+        long newChunks;
+        /** Bytes leídos del origen. */
+        long bytesRead;
+        /** Bytes en claro de los trozos nuevos. */
+        long bytesStored;
+
+        /** @return Ficheros procesados. */
+        public int files() { return files; }
+
+        /** @return Ficheros sin cambios que se han saltado. */
+        public int skippedFiles() { return skippedFiles; }
+
+        /** @return Trozos leídos. */
+        public long chunks() { return chunks; }
+
+        /** @return Trozos nuevos cifrados y escritos. */
+        public long newChunks() { return newChunks; }
+
+        /** @return Bytes leídos del origen. */
+        public long bytesRead() { return bytesRead; }
+
+        /** @return Bytes en claro de los trozos nuevos. */
+        public long bytesStored() { return bytesStored; }
+
+        /**
+         * Solo las crea {@link DedupRepository#backup(Path)}.
+         */
+        BackupStats() {}
+
+        @Override
+        public String toString() {
+            return files + " ficheros (" + skippedFiles + " sin cambios), " + chunks + " trozos (" + newChunks + " nuevos), "
+                    + bytesRead + " bytes leídos, " + bytesStored + " bytes nuevos";
+        }
+    }
+}
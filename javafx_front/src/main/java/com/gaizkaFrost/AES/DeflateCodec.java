@@ -0,0 +1,83 @@
+package com.gaizkaFrost.AES;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <h2>Codec Deflate (RFC 1951)</h2>
+ *
+ * <p>
+ * Implementación de {@link CompressionCodec} basada en {@link Deflater} en modo
+ * <i>raw</i> (sin cabecera zlib), ya que la integridad la garantiza AES-GCM.
+ * Se usa el nivel por defecto, que ofrece un buen equilibrio entre ratio y CPU.
+ * </p>
+ *
+ * @see Compression
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class DeflateCodec implements CompressionCodec {
+
+    /**
+     * Tamaño del buffer interno de los flujos de compresión.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * @return {@link Policy#COMPRESSION_DEFLATE}.
+     */
+    @Override
+    public int id() {
+        return Policy.COMPRESSION_DEFLATE;
+    }
+
+    /**
+     * Comprime con Deflate raw; el {@link Deflater} se libera al cerrar el flujo.
+     *
+     * @param out Flujo de destino.
+     * @return Flujo compresor.
+     */
+    @Override
+    public OutputStream compressing(OutputStream out) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Descomprime Deflate raw; el {@link Inflater} se libera al cerrar el flujo.
+     *
+     * @param in Flujo comprimido.
+     * @return Flujo descompresor.
+     */
+    @Override
+    public InputStream decompressing(InputStream in) {
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,276 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>Lector incremental de logs cifrados</h2>
+ *
+ * <p>
+ * Lee un log escrito por {@link EncryptedLogWriter} segmento a segmento. Cada llamada
+ * a {@link #poll()} devuelve los registros de los segmentos completos que aparecieron
+ * desde la llamada anterior, de modo que el log puede seguirse (<i>tail</i>) mientras
+ * el escritor continúa anexando. Un frame final incompleto se deja para la siguiente
+ * llamada.
+ * </p>
+ *
+ * @see LogContainer
+ * @see EncryptedLogWriter
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class EncryptedLogReader implements Closeable {
+
+    /**
+     * Canal del fichero de log.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Cabecera del log.
+     */
+    private final LogContainer header;
+
+    /**
+     * Clave AES derivada.
+     */
+    private final SecretKey key;
+
+    /**
+     * Indica si el lector debe cerrar el canal al cerrarse.
+     */
+    private final boolean ownsChannel;
+
+    /**
+     * Modo AEAD declarado por la cabecera.
+     */
+    private final AeadMode mode;
+
+    /**
+     * Instancia de {@link Cipher} reutilizada entre segmentos.
+     */
+    private final Cipher cipher;
+
+    /**
+     * Buffer del prefijo de longitud de cada frame.
+     */
+    private final ByteBuffer lenBuf = ByteBuffer.allocate(LogContainer.LEN_PREFIX);
+
+    /**
+     * Nonce reutilizable por segmento.
+     */
+    private final byte[] segNonce = new byte[Policy.GCM_NONCE_LEN];
+
+    /**
+     * AAD reutilizable por segmento.
+     */
+    private final byte[] segAad;
+
+    /**
+     * Buffer reutilizable del texto cifrado; crece si aparece un frame mayor.
+     */
+    private ByteBuffer ct = ByteBuffer.allocate(Policy.LOG_SEGMENT_BYTES_DEFAULT + Policy.GCM_TAG_LEN);
+
+    /**
+     * Buffer reutilizable del texto en claro; crece junto a {@link #ct}.
+     */
+    private ByteBuffer plain = ByteBuffer.allocate(Policy.LOG_SEGMENT_BYTES_DEFAULT);
+
+    /**
+     * Posición en el fichero del siguiente frame por leer.
+     */
+    private long position;
+
+    /**
+     * Número de secuencia del siguiente frame por leer.
+     */
+    private long seq;
+
+    /**
+     * Crea el lector sobre un canal cuya cabecera ya se ha leído.
+     *
+     * @param channel     Canal del fichero.
+     * @param header      Cabecera del log.
+     * @param key         Clave AES derivada.
+     * @param ownsChannel {@code true} si {@link #close()} debe cerrar el canal.
+     */
+    EncryptedLogReader(FileChannel channel, LogContainer header, SecretKey key, boolean ownsChannel) {
+        this.channel = channel;
+        this.header = header;
+        this.mode = AeadMode.byId(header.mode);
+        this.key = mode.adapt(key);
+        this.cipher = CryptoEngine.newCipher(mode);
+        this.ownsChannel = ownsChannel;
+        this.segAad = new byte[header.headerBytes.length + 4];
+        this.position = header.headerBytes.length;
+    }
+
+    /**
+     * <h3>Abre un log cifrado para lectura</h3>
+     *
+     * @param file     Fichero de log.
+     * @param password Contraseña del log.
+     * @return Lector posicionado en el primer segmento.
+     * @throws IOException Si falla la apertura o lectura de la cabecera.
+     */
+    public static EncryptedLogReader open(Path file, char[] password) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            LogContainer header = LogContainer.readHeader(ch);
+            KeyMaterial km = KeyDerivation.derive(password, header.salt, header.keyBits, header.kdfParams);
+            return new EncryptedLogReader(ch, header, km.key(), true);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * <h3>Lee los segmentos completados desde la última llamada</h3>
+     *
+     * @return Registros descifrados, en orden; lista vacía si no hay segmentos nuevos.
+     * @throws IOException     Si falla la lectura.
+     * @throws CryptoException Si un segmento no supera la verificación GCM.
+     */
+    public synchronized List<byte[]> poll() throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        long size = channel.size();
+        int len;
+        while ((len = nextFrameLength(size)) >= 0) {
+            if (len == LogContainer.BURNED_FRAME_LEN) {
+                position += LogContainer.LEN_PREFIX;
+                seq++;
+                continue;
+            }
+            decryptFrame(position, len, seq);
+            while (plain.hasRemaining()) {
+                if (plain.remaining() < LogContainer.LEN_PREFIX)
+                    throw new CryptoFormatException("Registro truncado en el segmento " + seq);
+                int n = plain.getInt();
+                if (n < 0 || n > plain.remaining())
+                    throw new CryptoFormatException("Longitud de registro inválida en el segmento " + seq);
+                byte[] r = new byte[n];
+                plain.get(r);
+                records.add(r);
+            }
+            position += LogContainer.LEN_PREFIX + len;
+            seq++;
+        }
+        return records;
+    }
+
+    /**
+     * @return Número de segmentos leídos hasta ahora.
+     */
+    public synchronized long segmentsRead() {
+        return seq;
+    }
+
+    /**
+     * @return Posición en el fichero del siguiente frame por leer.
+     */
+    synchronized long position() {
+        return position;
+    }
+
+    /**
+     * Avanza hasta el final del último frame completo sin descifrar los intermedios.
+     * Solo se descifra el último con datos, para comprobar que la clave es la correcta.
+     *
+     * @throws IOException     Si falla la lectura.
+     * @throws CryptoException Si la clave no corresponde al log.
+     */
+    synchronized void skipToEnd() throws IOException {
+        long size = channel.size();
+        long lastPos = -1, lastSeq = 0;
+        int lastLen = 0;
+        int len;
+        while ((len = nextFrameLength(size)) >= 0) {
+            if (len != LogContainer.BURNED_FRAME_LEN) {
+                lastPos = position;
+                lastLen = len;
+                lastSeq = seq;
+            }
+            position += LogContainer.LEN_PREFIX + len;
+            seq++;
+        }
+        if (lastPos >= 0) decryptFrame(lastPos, lastLen, lastSeq);
+    }
+
+    /**
+     * Cierra el fichero si este lector es su propietario.
+     *
+     * @throws IOException Si falla el cierre.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) channel.close();
+    }
+
+    /**
+     * Devuelve la longitud del frame en {@link #position} si está completo.
+     *
+     * @param size Tamaño actual del fichero.
+     * @return Longitud del frame ({@link LogContainer#BURNED_FRAME_LEN} si es una marca de
+     *         secuencia quemada), o -1 si aún no se ha escrito entero.
+     * @throws IOException Si falla la lectura.
+     */
+    private int nextFrameLength(long size) throws IOException {
+        if (size - position < LogContainer.LEN_PREFIX) return -1;
+        lenBuf.clear();
+        readAt(lenBuf, position);
+        int len = lenBuf.flip().getInt();
+        if ((len < Policy.GCM_TAG_LEN && len != LogContainer.BURNED_FRAME_LEN) || len > LogContainer.MAX_FRAME_LEN)
+            throw new CryptoFormatException("Longitud de frame inválida en el segmento " + seq + ": " + len);
+        return size - position - LogContainer.LEN_PREFIX < len ? -1 : len;
+    }
+
+    /**
+     * Lee y descifra un frame dejando su texto en claro en {@link #plain}.
+     *
+     * @param pos   Posición del frame en el fichero.
+     * @param len   Longitud del texto cifrado + tag.
+     * @param index Número de secuencia del frame.
+     * @throws IOException Si falla la lectura.
+     */
+    private void decryptFrame(long pos, int len, long index) throws IOException {
+        if (ct.capacity() < len) {
+            ct = ByteBuffer.allocate(len);
+            plain = ByteBuffer.allocate(len);
+        }
+        ct.clear().limit(len);
+        readAt(ct, pos + LogContainer.LEN_PREFIX);
+        ct.flip();
+        plain.clear();
+        CryptoEngine.decryptSegment(cipher, mode, key, header.frameNonce(index, segNonce),
+                header.frameAad(index, segAad), ct, plain);
+        plain.flip();
+    }
+
+    /**
+     * Lectura posicional completa, sin alterar la posición del canal.
+     *
+     * @param dst Buffer a rellenar.
+     * @param pos Posición de inicio en el fichero.
+     * @throws IOException Si el fichero termina antes de tiempo.
+     */
+    private void readAt(ByteBuffer dst, long pos) throws IOException {
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, pos);
+            if (n < 0) throw new EOFException("Fin de log inesperado");
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Escritor de log cifrado de solo anexado</h2>
+ *
+ * <p>
+ * Permite escribir registros (por ejemplo, líneas de log) cifrados en disco sin
+ * disponer del texto completo de antemano. Los registros se acumulan en memoria y
+ * se sellan como un segmento AES-GCM independiente cuando:
+ * </p>
+ *
+ * <ul>
+ *     <li>el segmento en curso alcanza {@code segmentBytes} bytes, o</li>
+ *     <li>han pasado {@code sealMillis} milisegundos desde el último sellado.</li>
+ * </ul>
+ *
+ * <p>
+ * Los {@code fsync} se agrupan (<i>group commit</i>): se fuerzan a disco cada
+ * {@code syncBatch} segmentos y en cada ciclo del temporizador, en lugar de tras
+ * cada registro. Un {@link EncryptedLogReader} puede ir leyendo los segmentos ya
+ * sellados mientras el escritor sigue anexando.
+ * </p>
+ *
+ * <p>
+ * Si el fichero ya existe, el escritor continúa a partir del último segmento
+ * completo, descartando un posible frame final a medio escribir. El número de
+ * secuencia de ese frame queda quemado (ver {@link LogContainer}): su texto cifrado
+ * pudo llegar a disco, y reutilizar su nonce con otro texto en claro rompería GCM.
+ * </p>
+ *
+ * <p>
+ * Un error de E/S al escribir un segmento deja el escritor inutilizable: las
+ * llamadas siguientes fallan en lugar de anexar tras un frame incompleto.
+ * </p>
+ *
+ * <p>
+ * Todos los métodos públicos son seguros para uso concurrente.
+ * </p>
+ *
+ * @see LogContainer
+ * @see EncryptedLogReader
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class EncryptedLogWriter implements Closeable {
+
+    /**
+     * Temporizador compartido que sella los segmentos pendientes de todos los escritores.
+     */
+    private static final ScheduledExecutorService SEALER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "encrypted-log-sealer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Canal del fichero de log.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Cabecera del log.
+     */
+    private final LogContainer header;
+
+    /**
+     * Clave AES derivada.
+     */
+    private final SecretKey key;
+
+    /**
+     * Modo AEAD declarado por la cabecera.
+     */
+    private final AeadMode mode;
+
+    /**
+     * Instancia de {@link Cipher} reutilizada entre segmentos.
+     */
+    private final Cipher cipher;
+
+    /**
+     * Número de segmentos sellados entre cada {@code fsync}.
+     */
+    private final int syncBatch;
+
+    /**
+     * Registros pendientes de sellar.
+     */
+    private final ByteBuffer pending;
+
+    /**
+     * Buffer reutilizable para el texto cifrado de un segmento.
+     */
+    private final ByteBuffer ct;
+
+    /**
+     * Prefijo de longitud del frame.
+     */
+    private final ByteBuffer frameLen = ByteBuffer.allocate(LogContainer.LEN_PREFIX);
+
+    /**
+     * Nonce reutilizable por segmento.
+     */
+    private final byte[] segNonce = new byte[Policy.GCM_NONCE_LEN];
+
+    /**
+     * AAD reutilizable por segmento.
+     */
+    private final byte[] segAad;
+
+    /**
+     * Tarea periódica de sellado.
+     */
+    private final ScheduledFuture<?> sealTask;
+
+    /**
+     * Número de secuencia del siguiente segmento.
+     */
+    private long seq;
+
+    /**
+     * Segmentos sellados desde el último {@code fsync}.
+     */
+    private int unsynced;
+
+    /**
+     * Error de E/S producido en el temporizador, que se relanza en la siguiente llamada.
+     */
+    private IOException failure;
+
+    /**
+     * Indica si el escritor ya se cerró.
+     */
+    private boolean closed;
+
+    /**
+     * Crea el escritor sobre un canal ya posicionado al final del último frame completo.
+     *
+     * @param channel      Canal del fichero.
+     * @param header       Cabecera del log.
+     * @param key          Clave AES derivada.
+     * @param seq          Número de segmentos ya presentes.
+     * @param segmentBytes Tamaño de sellado en bytes.
+     * @param sealMillis   Intervalo máximo de sellado.
+     * @param syncBatch    Segmentos por {@code fsync}.
+     */
+    private EncryptedLogWriter(FileChannel channel, LogContainer header, SecretKey key, long seq,
+                               int segmentBytes, long sealMillis, int syncBatch) {
+        this.channel = channel;
+        this.header = header;
+        this.mode = AeadMode.byId(header.mode);
+        this.key = mode.adapt(key);
+        this.cipher = CryptoEngine.newCipher(mode);
+        this.seq = seq;
+        this.syncBatch = syncBatch;
+        this.pending = ByteBuffer.allocate(segmentBytes);
+        this.ct = ByteBuffer.allocate(segmentBytes + Policy.GCM_TAG_LEN);
+        this.segAad = new byte[header.headerBytes.length + 4];
+        this.sealTask = SEALER.scheduleAtFixedRate(this::tick, sealMillis, sealMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * <h3>Abre un log cifrado con los parámetros por defecto de {@link Policy}</h3>
+     *
+     * @param file     Fichero de log (se crea si no existe).
+     * @param password Contraseña del log.
+     * @return Escritor listo para anexar registros.
+     * @throws IOException Si falla la apertura o lectura del fichero.
+     */
+    public static EncryptedLogWriter open(Path file, char[] password) throws IOException {
+        return open(file, password, Policy.LOG_SEGMENT_BYTES_DEFAULT,
+                Policy.LOG_SEAL_MILLIS_DEFAULT, Policy.LOG_SYNC_BATCH_DEFAULT);
+    }
+
+    /**
+     * <h3>Abre un log cifrado</h3>
+     *
+     * <p>
+     * Si el fichero no existe o está vacío se escribe una cabecera nueva. Si ya existe,
+     * se verifica la contraseña descifrando el último segmento y se continúa anexando.
+     * </p>
+     *
+     * @param file         Fichero de log.
+     * @param password     Contraseña del log.
+     * @param segmentBytes Bytes acumulados a partir de los cuales se sella un segmento.
+     * @param sealMillis   Intervalo máximo, en milisegundos, antes de sellar lo pendiente.
+     * @param syncBatch    Número de segmentos sellados por cada {@code fsync}.
+     * @return Escritor listo para anexar registros.
+     * @throws IOException     Si falla la apertura o lectura del fichero.
+     * @throws CryptoException Si la contraseña no corresponde al log existente.
+     */
+    public static EncryptedLogWriter open(Path file, char[] password, int segmentBytes,
+                                          long sealMillis, int syncBatch) throws IOException {
+        if (segmentBytes <= LogContainer.LEN_PREFIX || sealMillis <= 0 || syncBatch <= 0)
+            throw new IllegalArgumentException("Parámetros de log inválidos");
+
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (ch.size() == 0) {
+                int keyBits = Policy.KEY_BITS_DEFAULT;
+                byte[] salt = RandomSource.nextBytes(Policy.SALT_LEN);
+                KdfParams kdfParams = KdfParams.preferred();
+                KeyMaterial km = KeyDerivation.derive(password, salt, keyBits, kdfParams);
+                LogContainer header = new LogContainer(AeadMode.preferred().id, kdfParams, keyBits,
+                        salt, RandomSource.nextBytes(Policy.GCM_NONCE_LEN));
+                SegmentedContainer.writeFully(ch, ByteBuffer.wrap(header.headerBytes));
+                ch.force(false);
+                return new EncryptedLogWriter(ch, header, km.key(), 0, segmentBytes, sealMillis, syncBatch);
+            }
+
+            ch.position(0);
+            LogContainer header = LogContainer.readHeader(ch);
+            KeyMaterial km = KeyDerivation.derive(password, header.salt, header.keyBits, header.kdfParams);
+
+            EncryptedLogReader reader = new EncryptedLogReader(ch, header, km.key(), false);
+            reader.skipToEnd();
+            long seq = reader.segmentsRead();
+            boolean torn = ch.size() > reader.position();
+            ch.truncate(reader.position());
+            ch.position(reader.position());
+            if (torn) {
+                SegmentedContainer.writeFully(ch, ByteBuffer.allocate(LogContainer.LEN_PREFIX)
+                        .putInt(LogContainer.BURNED_FRAME_LEN).flip());
+                ch.force(false);
+                seq++;
+            }
+            return new EncryptedLogWriter(ch, header, km.key(), seq, segmentBytes, sealMillis, syncBatch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Anexa un registro completo.
+     *
+     * @param record Bytes del registro.
+     * @throws IOException Si falla la escritura de un segmento.
+     */
+    public void append(byte[] record) throws IOException {
+        append(record, 0, record.length);
+    }
+
+    /**
+     * <h3>Anexa un registro</h3>
+     *
+     * <p>
+     * El registro se copia al segmento en curso; solo se cifra y escribe en disco
+     * cuando el segmento se llena o vence el temporizador. Un registro mayor que el
+     * tamaño de segmento se sella en un segmento propio.
+     * </p>
+     *
+     * @param record Array con el registro.
+     * @param off    Desplazamiento inicial.
+     * @param len    Longitud del registro.
+     * @throws IOException Si falla la escritura de un segmento.
+     */
+    public synchronized void append(byte[] record, int off, int len) throws IOException {
+        ensureUsable();
+        int needed = LogContainer.LEN_PREFIX + len;
+        if (needed > pending.remaining()) sealPending();
+
+        if (needed > pending.capacity()) {
+            ByteBuffer big = ByteBuffer.allocate(needed);
+            big.putInt(len).put(record, off, len).flip();
+            seal(big, ByteBuffer.allocate(needed + Policy.GCM_TAG_LEN));
+            return;
+        }
+        pending.putInt(len).put(record, off, len);
+        if (!pending.hasRemaining()) sealPending();
+    }
+
+    /**
+     * Sella lo pendiente y fuerza a disco todos los segmentos escritos.
+     *
+     * @throws IOException Si falla la escritura o el {@code fsync}.
+     */
+    public synchronized void flush() throws IOException {
+        ensureUsable();
+        sealPending();
+        sync();
+    }
+
+    /**
+     * @return Número de segmentos sellados en el fichero (incluidos los previos a la apertura).
+     */
+    public synchronized long sealedSegments() {
+        return seq;
+    }
+
+    /**
+     * Sella lo pendiente, fuerza a disco y cierra el fichero.
+     *
+     * @throws IOException Si falla la escritura final o el cierre.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        sealTask.cancel(false);
+        try {
+            if (failure == null) {
+                sealPending();
+                sync();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Ciclo del temporizador: sella lo pendiente y completa el {@code fsync} del grupo.
+     */
+    private synchronized void tick() {
+        if (closed || failure != null) return;
+        try {
+            sealPending();
+            sync();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Sella el segmento en curso si contiene algún registro.
+     *
+     * @throws IOException Si falla la escritura.
+     */
+    private void sealPending() throws IOException {
+        if (pending.position() == 0) return;
+        pending.flip();
+        seal(pending, ct);
+        pending.clear();
+    }
+
+    /**
+     * Cifra un segmento y lo escribe como frame al final del fichero.
+     *
+     * @param plain Texto en claro del segmento (modo lectura).
+     * @param out   Buffer de destino del texto cifrado.
+     * @throws IOException Si falla la escritura; el escritor queda inutilizable.
+     */
+    private void seal(ByteBuffer plain, ByteBuffer out) throws IOException {
+        if (seq >= SegmentedContainer.MAX_SEGMENTS)
+            throw new CryptoException("El log ha alcanzado el número máximo de segmentos");
+
+        out.clear();
+        CryptoEngine.encryptSegment(cipher, mode, key, header.frameNonce(seq, segNonce),
+                header.frameAad(seq, segAad), plain, out);
+        out.flip();
+
+        frameLen.clear();
+        frameLen.putInt(out.remaining()).flip();
+        ByteBuffer[] frame = {frameLen, out};
+        try {
+            while (out.hasRemaining()) channel.write(frame);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+
+        seq++;
+        if (++unsynced >= syncBatch) sync();
+    }
+
+    /**
+     * Fuerza a disco los segmentos escritos desde el último {@code fsync}.
+     *
+     * @throws IOException Si falla el {@code fsync}; el escritor queda inutilizable.
+     */
+    private void sync() throws IOException {
+        if (unsynced == 0) return;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        unsynced = 0;
+    }
+
+    /**
+     * Comprueba que el escritor siga abierto y sin errores diferidos.
+     *
+     * @throws IOException Si un sellado anterior o el temporizador registró un error de E/S.
+     */
+    private void ensureUsable() throws IOException {
+        if (closed) throw new IOException("El log cifrado está cerrado");
+        if (failure != null) throw new IOException("Fallo previo escribiendo el log cifrado", failure);
+    }
+}
@@ -0,0 +1,284 @@
+package com.gaizkaFrost.AES;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h2>Índice binario de ficheros ya procesados</h2>
+ *
+ * <p>
+ * Tabla ordenada de registros de longitud fija, {@code clave (32) valor (16)}, que se
+ * abre proyectada en memoria ({@link FileChannel#map}) y se consulta por búsqueda
+ * binaria: con millones de ficheros cada consulta toca unas pocas páginas y no carga
+ * el índice en el heap.
+ * </p>
+ *
+ * <pre>
+ * magic "DIX2" (4 bytes)
+ * count (4 bytes, BE)
+ * count registros ordenados por clave (sin signo)
+ * </pre>
+ *
+ * <p>
+ * Cada versión se escribe en un fichero nuevo {@code index-<generación>.idx} y se
+ * borran las anteriores; así nunca se sobrescribe un fichero proyectado, cosa que
+ * algunos sistemas (Windows) no permiten. El significado de clave y valor lo decide
+ * quien lo usa ({@link DedupRepository}). El índice es solo una caché: uno de una
+ * versión anterior del formato se ignora y se vuelve a construir.
+ * </p>
+ *
+ * @see DedupRepository
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class FileIndex {
+
+    /**
+     * Longitud de la clave de un registro.
+     */
+    static final int KEY_LEN = 32;
+
+    /**
+     * Longitud del valor de un registro.
+     */
+    static final int VALUE_LEN = 16;
+
+    /**
+     * Longitud de un registro.
+     */
+    static final int ENTRY_LEN = KEY_LEN + VALUE_LEN;
+
+    /**
+     * Cabecera mágica del fichero.
+     */
+    private static final byte[] MAGIC = {'D', 'I', 'X', '2'};
+
+    /**
+     * Cabecera mágica de la versión anterior, con valores de 20 bytes.
+     */
+    private static final byte[] MAGIC_V1 = {'D', 'I', 'X', '1'};
+
+    /**
+     * Bytes de la cabecera (magic + count).
+     */
+    private static final int HEADER_LEN = MAGIC.length + 4;
+
+    /**
+     * Nombre de los ficheros de índice.
+     */
+    private static final Pattern NAME = Pattern.compile("index-(\\d+)\\.idx");
+
+    /**
+     * Directorio del índice.
+     */
+    private final Path dir;
+
+    /**
+     * Generación cargada (0 si no había índice).
+     */
+    private final long generation;
+
+    /**
+     * Registros proyectados en memoria (vacío si no había índice).
+     */
+    private final ByteBuffer entries;
+
+    /**
+     * Número de registros.
+     */
+    private final int count;
+
+    /**
+     * @param dir        Directorio del índice.
+     * @param generation Generación cargada.
+     * @param entries    Registros.
+     * @param count      Número de registros.
+     */
+    private FileIndex(Path dir, long generation, ByteBuffer entries, int count) {
+        this.dir = dir;
+        this.generation = generation;
+        this.entries = entries;
+        this.count = count;
+    }
+
+    /**
+     * <h3>Abre la última generación del índice de un directorio</h3>
+     *
+     * @param dir Directorio del índice.
+     * @return El índice; vacío si aún no hay ninguno.
+     * @throws IOException           Si no se puede leer.
+     * @throws CryptoFormatException Si el fichero está dañado.
+     */
+    static FileIndex load(Path dir) throws IOException {
+        long gen = latestGeneration(dir);
+        if (gen == 0) return new FileIndex(dir, 0, ByteBuffer.allocate(0), 0);
+
+        try (FileChannel ch = FileChannel.open(fileFor(dir, gen), StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_LEN) throw new CryptoFormatException("Índice truncado");
+            if (size > Integer.MAX_VALUE) throw new CryptoFormatException("Índice demasiado grande");
+            ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.BIG_ENDIAN);
+            byte[] magic = new byte[MAGIC.length];
+            map.get(magic);
+            if (Arrays.equals(magic, MAGIC_V1)) return new FileIndex(dir, gen, ByteBuffer.allocate(0), 0);
+            int count = map.getInt();
+            if (!Arrays.equals(magic, MAGIC) || count < 0 || size != HEADER_LEN + (long) count * ENTRY_LEN)
+                throw new CryptoFormatException("Índice inválido");
+            return new FileIndex(dir, gen, map.slice(), count);
+        }
+    }
+
+    /**
+     * @return Generación cargada (0 si no había índice).
+     */
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * @return Generación que escribirá el siguiente {@link #replace(List, long)}.
+     * @throws IOException Si no se puede listar el directorio.
+     */
+    long nextGeneration() throws IOException {
+        return Math.max(generation, latestGeneration(dir)) + 1;
+    }
+
+    /**
+     * @return Número de registros.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Busca un registro por su clave.
+     *
+     * @param key Clave de {@link #KEY_LEN} bytes.
+     * @return Copia del valor, o {@code null} si no está.
+     */
+    byte[] find(byte[] key) {
+        byte[] probe = new byte[KEY_LEN];
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int base = Math.toIntExact((long) mid * ENTRY_LEN);
+            entries.get(base, probe);
+            int c = Arrays.compareUnsigned(probe, key);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else {
+                byte[] value = new byte[VALUE_LEN];
+                entries.get(base + KEY_LEN, value);
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <h3>Escribe una nueva generación con los registros indicados</h3>
+     *
+     * <p>
+     * Las generaciones anteriores se borran si es posible; si el sistema no lo permite
+     * porque siguen proyectadas, se borrarán en la siguiente escritura.
+     * </p>
+     *
+     * @param records Registros de {@link #ENTRY_LEN} bytes (se ordenan aquí).
+     * @param next    Generación nueva, obtenida con {@link #nextGeneration()}.
+     * @throws IOException Si no se puede escribir o esa generación ya existe.
+     */
+    void replace(List<byte[]> records, long next) throws IOException {
+        if (next <= generation) throw new IllegalArgumentException("Generación de índice no válida: " + next);
+        records.sort((a, b) -> Arrays.compareUnsigned(a, 0, KEY_LEN, b, 0, KEY_LEN));
+        Path tmp = Files.createTempFile(dir, ".index-", ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer bb = ByteBuffer.allocate(64 * 1024);
+                bb.put(MAGIC).putInt(records.size());
+                for (byte[] r : records) {
+                    if (r.length != ENTRY_LEN) throw new IllegalArgumentException("Registro de índice inválido");
+                    if (bb.remaining() < ENTRY_LEN) {
+                        bb.flip();
+                        while (bb.hasRemaining()) ch.write(bb);
+                        bb.clear();
+                    }
+                    bb.put(r);
+                }
+                bb.flip();
+                while (bb.hasRemaining()) ch.write(bb);
+                ch.force(true);
+            }
+            Files.move(tmp, fileFor(dir, next));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        for (long gen : generations(dir)) {
+            if (gen < next) {
+                try {
+                    Files.deleteIfExists(fileFor(dir, gen));
+                } catch (IOException ignored) {
+                    // Sigue proyectado; se reintentará en la siguiente escritura.
+                }
+            }
+        }
+    }
+
+    /**
+     * @param key   Clave de {@link #KEY_LEN} bytes.
+     * @param value Valor de {@link #VALUE_LEN} bytes.
+     * @return Registro.
+     */
+    static byte[] entry(byte[] key, byte[] value) {
+        byte[] r = Arrays.copyOf(key, ENTRY_LEN);
+        System.arraycopy(value, 0, r, KEY_LEN, VALUE_LEN);
+        return r;
+    }
+
+    /**
+     * @param dir Directorio del índice.
+     * @param gen Generación.
+     * @return Ruta del fichero de esa generación.
+     */
+    private static Path fileFor(Path dir, long gen) {
+        return dir.resolve("index-" + gen + ".idx");
+    }
+
+    /**
+     * @param dir Directorio del índice.
+     * @return Generación más alta presente, o 0.
+     * @throws IOException Si no se puede listar.
+     */
+    private static long latestGeneration(Path dir) throws IOException {
+        long max = 0;
+        for (long gen : generations(dir)) max = Math.max(max, gen);
+        return max;
+    }
+
+    /**
+     * @param dir Directorio del índice.
+     * @return Generaciones presentes.
+     * @throws IOException Si no se puede listar.
+     */
+    private static List<Long> generations(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.map(p -> NAME.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(m -> Long.parseLong(m.group(1)))
+                    .collect(Collectors.toList());
+        }
+    }
+}
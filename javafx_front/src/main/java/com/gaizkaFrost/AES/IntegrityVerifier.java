@@ -0,0 +1,414 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.BufferedInputStream;
+import java.io.Console;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h2>Verificación de integridad sin descifrar a memoria</h2>
+ *
+ * <p>
+ * Comprueba los tags AEAD de blobs (v1/v4, binarios o en Base64), ficheros
+ * segmentados (v2, binarios o con armadura de texto) y archivos (v5) sin devolver su
+ * contenido: el texto en claro se descarta en búferes reutilizables por hilo
+ * ({@link Scratch}), de modo que una auditoría nocturna no reserva memoria por
+ * fichero. Tras cada verificación esos búferes se borran y, si superan
+ * {@link TextCipher#POOLED_MAX}, se sueltan. Los ficheros se verifican en
+ * paralelo y se informa de cada uno por separado.
+ * </p>
+ *
+ * <p>
+ * Verificar necesita la clave, así que cada fichero cuesta lo mismo que abrirlo con
+ * el {@link Recipient} dado (una KDF por blob con clave derivada; ninguna si la clave
+ * está en un {@link LocalKeyStore}). Los logs v3 no se verifican aquí.
+ * </p>
+ *
+ * <pre>
+ * java com.gaizkaFrost.AES.IntegrityVerifier [--keyfile F] fichero|carpeta...
+ * </pre>
+ *
+ * @see CryptoEngine#verify
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class IntegrityVerifier {
+
+    /**
+     * Búferes de cada hilo de verificación.
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Valor de {@link #version(Path)} para un texto con armadura (v2 en Base64).
+     */
+    private static final int ARMORED = -2;
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private IntegrityVerifier() {}
+
+    /**
+     * <h3>Punto de entrada</h3>
+     *
+     * @param args Opciones y ficheros o carpetas a verificar.
+     */
+    public static void main(String[] args) {
+        Path keyFile = null;
+        List<Path> targets = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--keyfile")) keyFile = Path.of(args[++i]);
+                else targets.add(Path.of(args[i]));
+            }
+        } catch (RuntimeException e) {
+            usage();
+            return;
+        }
+        if (targets.isEmpty()) {
+            usage();
+            return;
+        }
+
+        Console console = System.console();
+        if (keyFile == null && console == null) {
+            System.err.println("Se necesita una consola interactiva para pedir la contraseña");
+            System.exit(2);
+            return;
+        }
+
+        Recipient recipient;
+        char[] password = null;
+        int exitCode = 0;
+        try {
+            if (keyFile != null) {
+                recipient = Recipient.keyFile(keyFile);
+            } else {
+                password = console.readPassword("Contraseña: ");
+                recipient = Recipient.password(password, KdfParams.legacy());
+            }
+
+            List<Path> files = new ArrayList<>();
+            for (Path t : targets) {
+                if (Files.isDirectory(t)) {
+                    try (Stream<Path> s = Files.walk(t)) {
+                        files.addAll(s.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                    }
+                } else {
+                    files.add(t);
+                }
+            }
+
+            int failed = 0;
+            for (Result r : verifyAll(files, recipient)) {
+                System.out.println(r);
+                if (!r.isValid()) failed++;
+            }
+            System.out.println(files.size() + " ficheros, " + failed + " con errores");
+            if (failed > 0) exitCode = 1;
+        } catch (IOException e) {
+            System.err.println("ERROR " + e.getMessage());
+            exitCode = 2;
+        } finally {
+            if (password != null) Arrays.fill(password, '\0');
+        }
+        // Fuera del try: System.exit no vuelve y el finally no llegaría a borrar la contraseña
+        if (exitCode != 0) System.exit(exitCode);
+    }
+
+    /**
+     * <h3>Verifica varios ficheros en paralelo</h3>
+     *
+     * @param files     Ficheros a verificar.
+     * @param recipient Destinatario con acceso a todos ellos.
+     * @return Un resultado por fichero, en el mismo orden.
+     */
+    public static List<Result> verifyAll(List<Path> files, Recipient recipient) {
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "integrity-verifier");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path f : files) futures.add(pool.submit(() -> verifyQuietly(f, recipient)));
+            List<Result> out = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    out.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    out.add(new Result(files.get(i), String.valueOf(e.getCause())));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    out.add(new Result(files.get(i), "Verificación interrumpida"));
+                }
+            }
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * <h3>Verifica un fichero</h3>
+     *
+     * @param file      Blob (binario o Base64), fichero v2 (binario o con armadura) o archivo v5.
+     * @param recipient Destinatario con acceso al fichero.
+     * @throws IOException           Si no se puede leer.
+     * @throws CryptoFormatException Si el formato no es válido o no está soportado.
+     * @throws CryptoException       Si algún tag no coincide (datos corruptos, manipulados
+     *                               o destinatario incorrecto).
+     */
+    public static void verify(Path file, Recipient recipient) throws IOException {
+        try {
+            int version = version(file);
+            if (version == Policy.VERSION_SEGMENTED) {
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                    verifySegmented(ch, ch.size(), recipient);
+                }
+            } else if (version == ARMORED) {
+                verifyArmored(file, recipient);
+            } else if (version == Policy.VERSION_ARCHIVE) {
+                try (ArchiveContainer archive = ArchiveContainer.open(file, recipient)) {
+                    archive.verifyEntries(SCRATCH.get());
+                }
+            } else if (version == Policy.VERSION_LOG) {
+                throw new CryptoFormatException("Los logs v3 no se verifican con esta herramienta");
+            } else {
+                byte[] content = Files.readAllBytes(file);
+                verifyBlob(version < 0
+                        ? Base64.getMimeDecoder().decode(new String(content, StandardCharsets.US_ASCII).trim())
+                        : content, recipient);
+            }
+        } finally {
+            SCRATCH.get().release();
+        }
+    }
+
+    /**
+     * <h3>Verifica un blob v1/v4 en memoria</h3>
+     *
+     * @param blob      Blob cifrado.
+     * @param recipient Destinatario con acceso al blob.
+     * @throws CryptoException Si el tag no coincide.
+     */
+    public static void verifyBlob(byte[] blob, Recipient recipient) {
+        Scratch s = SCRATCH.get();
+        try {
+            CipherArtifact a = Serializer.decode(blob);
+            SecretKey key = UseCases.payloadKey(a, recipient);
+            AeadMode mode = AeadMode.byId(a.mode);
+            CryptoEngine.verify(s.cipher(mode), mode, a.ciphertext, a.tag, key, a.nonce, a.payloadAad(),
+                    s.out(a.ciphertext.length));
+        } finally {
+            s.release();
+        }
+    }
+
+    /**
+     * Verifica un v2 con armadura de texto leyéndolo en flujo, sin decodificarlo entero.
+     *
+     * @param file      Texto con armadura.
+     * @param recipient Destinatario.
+     * @throws IOException           Si no se puede leer.
+     * @throws CryptoFormatException Si la armadura está truncada o dañada.
+     * @throws CryptoException       Si algún segmento no supera la verificación.
+     */
+    private static void verifyArmored(Path file, Recipient recipient) throws IOException {
+        try (InputStream in = Armor.decoder(new BufferedInputStream(Files.newInputStream(file),
+                Policy.SEGMENT_SIZE_DEFAULT))) {
+            verifySegmented(Channels.newChannel(in), -1, recipient);
+            // Leer el final comprueba también la línea de cierre de la armadura
+            if (in.read() >= 0) throw new CryptoFormatException("Datos sobrantes tras el último segmento");
+        }
+    }
+
+    /**
+     * @param ch        Canal posicionado al inicio del contenedor v2.
+     * @param size      Tamaño total del contenedor, o -1 si no se conoce (flujo).
+     * @param recipient Destinatario.
+     * @throws IOException     Si no se puede leer o está truncado.
+     * @throws CryptoException Si algún segmento no supera la verificación.
+     */
+    private static void verifySegmented(ReadableByteChannel ch, long size, Recipient recipient) throws IOException {
+        SegmentedContainer header = SegmentedContainer.readHeader(ch);
+        SecretKey key = header.isEnvelope()
+                ? recipient.unwrap(header.keyWraps)
+                : recipient.derive(header.salt, header.keyBits, header.kdfParams);
+        long count = header.segmentCount();
+        if (size >= 0 && size != header.segmentOffset(count - 1) + header.plainLength(count - 1) + Policy.GCM_TAG_LEN)
+            throw new CryptoFormatException("Longitud del fichero v2 incorrecta");
+
+        AeadMode mode = AeadMode.byId(header.mode);
+        Scratch s = SCRATCH.get();
+        Cipher cipher = s.cipher(mode);
+        byte[] segNonce = new byte[header.nonce.length];
+        byte[] segAad = new byte[header.headerBytes.length + 4];
+        // readHeader deja el canal al inicio del primer segmento
+        for (long i = 0; i < count; i++) {
+            int plainLen = header.plainLength(i);
+            ByteBuffer in = s.in(plainLen + Policy.GCM_TAG_LEN);
+            SegmentedContainer.readFully(ch, in);
+            in.flip();
+            try {
+                CryptoEngine.decryptSegment(cipher, mode, key, header.segmentNonce(i, segNonce),
+                        header.segmentAad(i, segAad), in, s.out(plainLen));
+            } catch (CryptoException e) {
+                throw new CryptoException("Segmento " + i + " corrupto o manipulado", e);
+            }
+        }
+    }
+
+    /**
+     * @param file      Fichero.
+     * @param recipient Destinatario.
+     * @return Resultado de {@link #verify(Path, Recipient)} sin lanzar excepciones.
+     */
+    private static Result verifyQuietly(Path file, Recipient recipient) {
+        try {
+            verify(file, recipient);
+            return new Result(file, null);
+        } catch (IOException | RuntimeException e) {
+            return new Result(file, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * @param file Fichero.
+     * @return Versión del formato, {@link #ARMORED} si empieza por
+     *         {@link Policy#ARMOR_BEGIN}, o -1 si no empieza por {@link Policy#MAGIC}.
+     * @throws IOException Si no se puede leer.
+     */
+    private static int version(Path file) throws IOException {
+        byte[] head = new byte[Policy.ARMOR_BEGIN.length() + 64];
+        int n;
+        try (InputStream in = Files.newInputStream(file)) {
+            n = in.readNBytes(head, 0, head.length);
+        }
+        if (n > Policy.MAGIC.length
+                && Arrays.equals(head, 0, Policy.MAGIC.length, Policy.MAGIC, 0, Policy.MAGIC.length))
+            return head[Policy.MAGIC.length] & 0xFF;
+        return new String(head, 0, n, StandardCharsets.US_ASCII).strip().startsWith(Policy.ARMOR_BEGIN)
+                ? ARMORED : -1;
+    }
+
+    /**
+     * Muestra la ayuda de uso.
+     */
+    private static void usage() {
+        System.err.println("Uso: IntegrityVerifier [--keyfile F] fichero|carpeta...");
+    }
+
+    /**
+     * Búferes y cifradores reutilizables de un hilo. Entre verificaciones solo se
+     * conservan hasta {@link TextCipher#POOLED_MAX} bytes.
+     */
+    static final class Scratch {
+        /** Búfer de texto cifrado. */
+        private ByteBuffer in = ByteBuffer.allocate(0);
+        /** Búfer de descarte del texto en claro. */
+        private ByteBuffer out = ByteBuffer.allocate(0);
+        /** Bytes escritos en {@link #out} desde la última limpieza. */
+        private int outUsed;
+        /** Un {@link Cipher} por modo. */
+        private final Map<AeadMode, Cipher> ciphers = new EnumMap<>(AeadMode.class);
+
+        /**
+         * @param n Bytes necesarios.
+         * @return Búfer de entrada vacío con límite {@code n}.
+         */
+        ByteBuffer in(int n) {
+            if (in.capacity() < n) in = ByteBuffer.allocate(n);
+            return in.clear().limit(n);
+        }
+
+        /**
+         * @param n Bytes necesarios.
+         * @return Búfer de descarte vacío con al menos {@code n} bytes libres.
+         */
+        ByteBuffer out(int n) {
+            if (out.capacity() < n) out = ByteBuffer.allocate(n);
+            outUsed = Math.max(outUsed, n);
+            return out.clear();
+        }
+
+        /**
+         * Borra el texto en claro descartado y suelta los búferes que superan
+         * {@link TextCipher#POOLED_MAX}.
+         */
+        void release() {
+            Arrays.fill(out.array(), 0, Math.min(outUsed, out.capacity()), (byte) 0);
+            outUsed = 0;
+            if (in.capacity() > TextCipher.POOLED_MAX) in = ByteBuffer.allocate(0);
+            if (out.capacity() > TextCipher.POOLED_MAX) out = ByteBuffer.allocate(0);
+        }
+
+        /**
+         * @param mode Modo AEAD.
+         * @return Cifrador reutilizable para ese modo.
+         */
+        Cipher cipher(AeadMode mode) {
+            return ciphers.computeIfAbsent(mode, CryptoEngine::newCipher);
+        }
+    }
+
+    /**
+     * <h3>Resultado de verificar un fichero</h3>
+     */
+    public static final class Result {
+        /** Fichero verificado. */
+        private final Path path;
+        /** Motivo del fallo; {@code null} si es válido. */
+        private final String error;
+
+        /**
+         * @param path  Fichero.
+         * @param error Motivo del fallo, o {@code null}.
+         */
+        Result(Path path, String error) {
+            this.path = path;
+            this.error = error;
+        }
+
+        /** @return Fichero verificado. */
+        public Path path() { return path; }
+
+        /** @return {@code true} si todos sus tags son correctos. */
+        public boolean isValid() { return error == null; }
+
+        /** @return Motivo del fallo, o {@code null} si es válido. */
+        public String error() { return error; }
+
+        @Override
+        public String toString() {
+            return (error == null ? "OK    " : "ERROR ") + path + (error == null ? "" : ": " + error);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.gaizkaFrost.AES;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <h2>Parámetros de coste de la función de derivación de clave</h2>
+ *
+ * <p>
+ * Agrupa la KDF elegida (identificada por el byte {@code kdf} del formato) y sus
+ * parámetros de coste, de modo que se guarden junto al blob cifrado en lugar de
+ * depender de constantes fijas. Así cada despliegue puede ajustar el equilibrio
+ * entre latencia y resistencia a ataques sin romper el formato.
+ * </p>
+ *
+ * <ul>
+ *     <li><b>PBKDF2</b>: {@code cost} = iteraciones.</li>
+ *     <li><b>scrypt</b>: {@code cost} = log2(N), {@code memory} = r, {@code parallelism} = p.</li>
+ *     <li><b>Argon2id</b>: {@code cost} = pasadas, {@code memory} = memoria en KiB,
+ *     {@code parallelism} = carriles.</li>
+ *     <li><b>Fichero de clave</b>: sin parámetros (solo en claves envueltas).</li>
+ * </ul>
+ *
+ * <p>
+ * {@link #calibrate(int, long)} elige los parámetros que tardan aproximadamente un
+ * tiempo objetivo en el equipo actual.
+ * </p>
+ *
+ * <p>
+ * Los parámetros se leen de cabeceras que puede manipular cualquiera, y se usan
+ * antes de poder autenticar nada. Por eso se rechazan, como
+ * {@link CryptoFormatException}, los que superan un coste total acotado: 1 GiB de
+ * memoria (128·r·N en scrypt, {@code m} en Argon2id), 4 GiB de trabajo de memoria
+ * (multiplicando por p o por las pasadas) y 10 millones de iteraciones PBKDF2.
+ * </p>
+ *
+ * @see KeyDerivation
+ * @see Policy#EXT_KDF_PARAMS
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class KdfParams {
+
+    /**
+     * Longitud de los parámetros serializados: cost, memory y parallelism (4 bytes BE cada uno).
+     */
+    static final int ENCODED_LEN = 12;
+
+    /**
+     * Iteraciones PBKDF2 máximas aceptadas al leer un blob.
+     */
+    private static final int MAX_PBKDF2_ITERATIONS = 10_000_000;
+
+    /**
+     * Memoria máxima que puede exigir una derivación (1 GiB).
+     */
+    private static final long MAX_MEMORY_BYTES = 1L << 30;
+
+    /**
+     * Trabajo máximo de una derivación, medido como memoria recorrida: 128·r·N·p en
+     * scrypt y memoria·pasadas en Argon2id (4 GiB).
+     */
+    private static final long MAX_WORK_BYTES = 4L << 30;
+
+    /**
+     * log2(N) máximo para scrypt; en la práctica limita antes {@link #MAX_MEMORY_BYTES}.
+     */
+    private static final int MAX_SCRYPT_LOG_N = 30;
+
+    /**
+     * Producto r·p máximo para scrypt.
+     */
+    private static final int MAX_SCRYPT_R_P = 64;
+
+    /**
+     * Pasadas máximas de Argon2id.
+     */
+    private static final int MAX_ARGON2_PASSES = 10;
+
+    /**
+     * Carriles máximos de Argon2id.
+     */
+    private static final int MAX_ARGON2_LANES = 16;
+
+    /**
+     * Ejecuciones por medición durante la calibración.
+     */
+    private static final int MEASURE_RUNS = 3;
+
+    /**
+     * Parámetros implícitos de los blobs sin extensión de KDF.
+     */
+    private static final KdfParams LEGACY = new KdfParams(Policy.KDF_ID_PBKDF2, Policy.PBKDF2_ITERATIONS, 0, 0);
+
+    /**
+     * Parámetros de las claves envueltas con un fichero de clave.
+     */
+    static final KdfParams KEYFILE = new KdfParams(Policy.KDF_ID_KEYFILE, 0, 0, 0);
+
+    /**
+     * Parámetros de las claves envueltas con una clave de un almacén local.
+     */
+    static final KdfParams KEYSTORE = new KdfParams(Policy.KDF_ID_KEYSTORE, 0, 0, 0);
+
+    /**
+     * Identificador de la KDF.
+     */
+    final int kdf;
+
+    /**
+     * Parámetro de coste principal (ver la descripción de la clase).
+     */
+    final int cost;
+
+    /**
+     * Parámetro de memoria (0 en PBKDF2).
+     */
+    final int memory;
+
+    /**
+     * Parámetro de paralelismo (0 en PBKDF2).
+     */
+    final int parallelism;
+
+    /**
+     * Crea y valida un juego de parámetros.
+     *
+     * @param kdf         Identificador de la KDF.
+     * @param cost        Coste principal.
+     * @param memory      Memoria.
+     * @param parallelism Paralelismo.
+     * @throws CryptoFormatException Si la KDF es desconocida o los parámetros están fuera de rango.
+     */
+    private KdfParams(int kdf, int cost, int memory, int parallelism) {
+        switch (kdf) {
+            case Policy.KDF_ID_PBKDF2:
+                check(cost >= 1 && cost <= MAX_PBKDF2_ITERATIONS, "iteraciones PBKDF2", cost);
+                break;
+            case Policy.KDF_ID_SCRYPT:
+                check(cost >= 1 && cost <= MAX_SCRYPT_LOG_N, "log2(N) de scrypt", cost);
+                check(memory >= 1 && memory <= MAX_SCRYPT_R_P, "r de scrypt", memory);
+                check(parallelism >= 1 && parallelism <= MAX_SCRYPT_R_P / memory, "p de scrypt", parallelism);
+                check(withinCaps(scryptMemory(cost, memory), parallelism), "coste total de scrypt con log2(N)", cost);
+                break;
+            case Policy.KDF_ID_ARGON2ID:
+                check(cost >= 1 && cost <= MAX_ARGON2_PASSES, "pasadas de Argon2id", cost);
+                check(parallelism >= 1 && parallelism <= MAX_ARGON2_LANES, "paralelismo de Argon2id", parallelism);
+                check(memory >= 8 * parallelism && withinCaps(memory * 1024L, cost), "memoria de Argon2id", memory);
+                break;
+            case Policy.KDF_ID_KEYFILE:
+            case Policy.KDF_ID_KEYSTORE:
+                check(cost == 0 && memory == 0 && parallelism == 0, "parámetros sin derivación", cost);
+                break;
+            default:
+                throw new CryptoFormatException("KDF no soportada: " + kdf);
+        }
+        this.kdf = kdf;
+        this.cost = cost;
+        this.memory = memory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param iterations Iteraciones de PBKDF2-HMAC-SHA256.
+     * @return Parámetros PBKDF2.
+     */
+    public static KdfParams pbkdf2(int iterations) {
+        return new KdfParams(Policy.KDF_ID_PBKDF2, iterations, 0, 0);
+    }
+
+    /**
+     * @param logN log2 del coste N.
+     * @param r    Tamaño de bloque.
+     * @param p    Paralelismo.
+     * @return Parámetros scrypt.
+     */
+    public static KdfParams scrypt(int logN, int r, int p) {
+        return new KdfParams(Policy.KDF_ID_SCRYPT, logN, r, p);
+    }
+
+    /**
+     * @param memoryKib   Memoria en KiB.
+     * @param iterations  Número de pasadas.
+     * @param parallelism Número de carriles.
+     * @return Parámetros Argon2id.
+     */
+    public static KdfParams argon2id(int memoryKib, int iterations, int parallelism) {
+        return new KdfParams(Policy.KDF_ID_ARGON2ID, iterations, memoryKib, parallelism);
+    }
+
+    /**
+     * @return Parámetros implícitos de los blobs v1: PBKDF2 con {@link Policy#PBKDF2_ITERATIONS}.
+     */
+    public static KdfParams legacy() {
+        return LEGACY;
+    }
+
+    /**
+     * <h3>Parámetros usados por defecto al cifrar en este proceso</h3>
+     *
+     * <p>
+     * Se eligen una única vez: la KDF indicada en {@link Policy#KDF_PROPERTY}
+     * (PBKDF2 si no se define) y, si se define {@link Policy#KDF_TARGET_MILLIS_PROPERTY},
+     * calibrada para ese tiempo; si no, sus valores por defecto.
+     * </p>
+     *
+     * @return Parámetros preferidos.
+     */
+    public static KdfParams preferred() {
+        return Preferred.PARAMS;
+    }
+
+    /**
+     * @param kdf Identificador de la KDF.
+     * @return Parámetros por defecto de esa KDF.
+     */
+    public static KdfParams defaults(int kdf) {
+        switch (kdf) {
+            case Policy.KDF_ID_PBKDF2:
+                return LEGACY;
+            case Policy.KDF_ID_SCRYPT:
+                return scrypt(Policy.SCRYPT_LOG_N_DEFAULT, Policy.SCRYPT_R_DEFAULT, Policy.SCRYPT_P_DEFAULT);
+            case Policy.KDF_ID_ARGON2ID:
+                return argon2id(Policy.ARGON2_MEMORY_KIB_DEFAULT, Policy.ARGON2_ITERATIONS_DEFAULT,
+                        Policy.ARGON2_PARALLELISM_DEFAULT);
+            default:
+                throw new CryptoException("KDF no soportada: " + kdf);
+        }
+    }
+
+    /**
+     * <h3>Calibra la KDF para un tiempo de derivación objetivo</h3>
+     *
+     * <ul>
+     *     <li><b>PBKDF2</b>: escala linealmente las iteraciones a partir de una medición.</li>
+     *     <li><b>scrypt</b>: duplica N mientras la derivación no supere el objetivo.</li>
+     *     <li><b>Argon2id</b>: con la memoria por defecto, ajusta las pasadas; si una
+     *     sola pasada ya supera el objetivo, reduce la memoria.</li>
+     * </ul>
+     *
+     * <p>
+     * Nunca baja de {@link Policy#PBKDF2_MIN_ITERATIONS}, N = 2^10 o
+     * {@link Policy#ARGON2_MIN_MEMORY_KIB}, aunque eso supere el objetivo.
+     * </p>
+     *
+     * @param kdf          Identificador de la KDF.
+     * @param targetMillis Tiempo objetivo por derivación, en milisegundos.
+     * @return Parámetros calibrados para este equipo.
+     */
+    public static KdfParams calibrate(int kdf, long targetMillis) {
+        if (targetMillis <= 0) throw new IllegalArgumentException("Tiempo objetivo inválido: " + targetMillis);
+        double target = targetMillis * 1_000_000.0;
+        switch (kdf) {
+            case Policy.KDF_ID_PBKDF2: {
+                int probe = 20_000;
+                measure(pbkdf2(probe));
+                long t = measure(pbkdf2(probe));
+                long iterations = Math.round(probe * target / Math.max(t, 1) / 1000.0) * 1000;
+                return pbkdf2((int) Math.min(MAX_PBKDF2_ITERATIONS, Math.max(Policy.PBKDF2_MIN_ITERATIONS, iterations)));
+            }
+            case Policy.KDF_ID_SCRYPT: {
+                int logN = 10;
+                measure(scrypt(logN, Policy.SCRYPT_R_DEFAULT, Policy.SCRYPT_P_DEFAULT));
+                while (withinCaps(scryptMemory(logN + 1, Policy.SCRYPT_R_DEFAULT), Policy.SCRYPT_P_DEFAULT)) {
+                    long t = measure(scrypt(logN + 1, Policy.SCRYPT_R_DEFAULT, Policy.SCRYPT_P_DEFAULT));
+                    if (t > target) break;
+                    logN++;
+                }
+                return scrypt(logN, Policy.SCRYPT_R_DEFAULT, Policy.SCRYPT_P_DEFAULT);
+            }
+            case Policy.KDF_ID_ARGON2ID: {
+                int memory = Policy.ARGON2_MEMORY_KIB_DEFAULT;
+                int p = Policy.ARGON2_PARALLELISM_DEFAULT;
+                measure(argon2id(memory, 1, p));
+                long t = measure(argon2id(memory, 1, p));
+                while (t > target && memory / 2 >= Policy.ARGON2_MIN_MEMORY_KIB) {
+                    memory /= 2;
+                    t = measure(argon2id(memory, 1, p));
+                }
+                int maxPasses = (int) Math.min(MAX_ARGON2_PASSES, MAX_WORK_BYTES / (memory * 1024L));
+                int passes = (int) Math.max(1, Math.min(maxPasses, Math.round(target / Math.max(t, 1))));
+                return argon2id(memory, passes, p);
+            }
+            default:
+                throw new CryptoException("KDF no soportada: " + kdf);
+        }
+    }
+
+    /**
+     * @return {@code true} si coincide con los parámetros implícitos de los blobs v1.
+     */
+    boolean isLegacy() {
+        return kdf == LEGACY.kdf && cost == LEGACY.cost;
+    }
+
+    /**
+     * @return Byte {@code kdf} para las cabeceras v2/v3: el identificador, con
+     *         {@link Policy#KDF_PARAMS_FLAG} si los parámetros no son los implícitos.
+     */
+    int headerByte() {
+        return isLegacy() ? kdf : kdf | Policy.KDF_PARAMS_FLAG;
+    }
+
+    /**
+     * @return Bytes que ocupan los parámetros en una cabecera v2/v3.
+     */
+    int headerLength() {
+        return isLegacy() ? 0 : ENCODED_LEN;
+    }
+
+    /**
+     * Escribe los parámetros en una cabecera v2/v3 si no son los implícitos.
+     *
+     * @param bb Buffer de la cabecera.
+     */
+    void writeHeader(ByteBuffer bb) {
+        if (!isLegacy()) bb.put(encode());
+    }
+
+    /**
+     * Lee los parámetros de una cabecera v2/v3.
+     *
+     * @param kdfByte Byte {@code kdf} de la cabecera.
+     * @param bb      Buffer posicionado tras la sal, con al menos {@link #headerLength(int)} bytes.
+     * @return Parámetros validados.
+     * @throws CryptoFormatException Si faltan parámetros para una KDF distinta de PBKDF2.
+     */
+    static KdfParams readHeader(int kdfByte, ByteBuffer bb) {
+        int kdf = kdfByte & ~Policy.KDF_PARAMS_FLAG;
+        if ((kdfByte & Policy.KDF_PARAMS_FLAG) == 0) {
+            if (kdf != Policy.KDF_ID_PBKDF2)
+                throw new CryptoFormatException("Faltan los parámetros de la KDF " + kdf);
+            return LEGACY;
+        }
+        return decode(kdf, bb.slice().limit(ENCODED_LEN));
+    }
+
+    /**
+     * @param kdfByte Byte {@code kdf} de una cabecera v2/v3.
+     * @return Bytes que ocupan los parámetros tras la sal.
+     */
+    static int headerLength(int kdfByte) {
+        return (kdfByte & Policy.KDF_PARAMS_FLAG) != 0 ? ENCODED_LEN : 0;
+    }
+
+    /**
+     * @return Parámetros serializados ({@link #ENCODED_LEN} bytes, BE).
+     */
+    byte[] encode() {
+        return ByteBuffer.allocate(ENCODED_LEN).order(ByteOrder.BIG_ENDIAN)
+                .putInt(cost).putInt(memory).putInt(parallelism).array();
+    }
+
+    /**
+     * Reconstruye los parámetros leídos de un blob.
+     *
+     * @param kdf   Identificador de la KDF declarado en la cabecera.
+     * @param value Parámetros serializados.
+     * @return Parámetros validados.
+     * @throws CryptoFormatException Si la longitud o los valores no son válidos.
+     */
+    static KdfParams decode(int kdf, ByteBuffer value) {
+        if (value.remaining() != ENCODED_LEN)
+            throw new CryptoFormatException("Longitud de parámetros KDF inválida: " + value.remaining());
+        return new KdfParams(kdf, value.getInt(), value.getInt(), value.getInt());
+    }
+
+    /**
+     * @return Descripción legible de la KDF y sus parámetros.
+     */
+    @Override
+    public String toString() {
+        switch (kdf) {
+            case Policy.KDF_ID_PBKDF2:
+                return "PBKDF2(iterations=" + cost + ")";
+            case Policy.KDF_ID_SCRYPT:
+                return "scrypt(N=2^" + cost + ", r=" + memory + ", p=" + parallelism + ")";
+            case Policy.KDF_ID_KEYFILE:
+                return "keyfile";
+            case Policy.KDF_ID_KEYSTORE:
+                return "keystore";
+            default:
+                return "Argon2id(m=" + memory + "KiB, t=" + cost + ", p=" + parallelism + ")";
+        }
+    }
+
+    /**
+     * Mide una derivación con contraseña y sal fijas; se queda con la mejor de
+     * {@link #MEASURE_RUNS} ejecuciones para reducir el ruido del JIT y del GC.
+     *
+     * @param params Parámetros a medir.
+     * @return Tiempo de la ejecución más rápida, en nanosegundos.
+     */
+    private static long measure(KdfParams params) {
+        char[] password = "calibracion".toCharArray();
+        byte[] salt = new byte[Policy.SALT_LEN];
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_RUNS; i++) {
+            long start = System.nanoTime();
+            KeyDerivation.derive(password, salt, Policy.KEY_BITS_DEFAULT, params);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * @param logN log2(N).
+     * @param r    Tamaño de bloque.
+     * @return Memoria que reserva scrypt: 128·r·N bytes.
+     */
+    private static long scryptMemory(int logN, int r) {
+        return (128L * r) << logN;
+    }
+
+    /**
+     * @param memoryBytes Memoria que reserva la derivación.
+     * @param repeats     Veces que se recorre (p en scrypt, pasadas en Argon2id).
+     * @return {@code true} si no supera {@link #MAX_MEMORY_BYTES} ni {@link #MAX_WORK_BYTES}.
+     */
+    private static boolean withinCaps(long memoryBytes, int repeats) {
+        return memoryBytes <= MAX_MEMORY_BYTES && memoryBytes * repeats <= MAX_WORK_BYTES;
+    }
+
+    /**
+     * @param ok    Condición que debe cumplirse.
+     * @param what  Nombre del parámetro.
+     * @param value Valor recibido.
+     */
+    private static void check(boolean ok, String what, int value) {
+        if (!ok) throw new CryptoFormatException("Valor fuera de rango para " + what + ": " + value);
+    }
+
+    /**
+     * Inicialización diferida de {@link #preferred()}: la calibración solo se ejecuta
+     * si se usa.
+     */
+    private static final class Preferred {
+
+        /**
+         * Parámetros elegidos para este proceso.
+         */
+        static final KdfParams PARAMS = resolve();
+
+        /**
+         * @return Parámetros según las propiedades del sistema.
+         */
+        private static KdfParams resolve() {
+            String name = System.getProperty(Policy.KDF_PROPERTY, "pbkdf2").trim();
+            int kdf;
+            if (name.equalsIgnoreCase("scrypt")) kdf = Policy.KDF_ID_SCRYPT;
+            else if (name.equalsIgnoreCase("argon2id")) kdf = Policy.KDF_ID_ARGON2ID;
+            else kdf = Policy.KDF_ID_PBKDF2;
+
+            String target = System.getProperty(Policy.KDF_TARGET_MILLIS_PROPERTY);
+            if (target != null) {
+                try {
+                    return calibrate(kdf, Long.parseLong(target.trim()));
+                } catch (IllegalArgumentException e) {
+                    // valor no numérico o no positivo: se usan los parámetros por defecto
+                }
+            }
+            return defaults(kdf);
+        }
+    }
+}
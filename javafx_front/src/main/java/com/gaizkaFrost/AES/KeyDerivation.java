@@ -1,9 +1,16 @@
 package com.gaizkaFrost.AES;
 
+import javax.crypto.Mac;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.spec.KeySpec;
 import java.util.Arrays;
 
@@ -23,11 +30,17 @@ import java.util.Arrays;
  * </p>
  *
  * <p>
+ * Además de PBKDF2 admite las KDF de memoria dura scrypt y Argon2id
+ * (implementadas por BouncyCastle), elegidas mediante {@link KdfParams}.
+ * </p>
+ *
+ * <p>
  * La clase es <b>package-private</b> y expone únicamente métodos estáticos,
  * ya que no está diseñada para creación de instancias.
  * </p>
  *
  * @see KeyMaterial
+ * @see KdfParams
  * @see Policy
  * @see PBEKeySpec
  * @since 2025
@@ -73,6 +86,9 @@ final class KeyDerivation {
      * @throws CryptoException Si ocurre algún error durante la derivación.
      */
     static KeyMaterial deriveFromPassword(char[] password, byte[] salt, int keyBits, int iterations) {
+        CryptoEvents.KeyDerivation ev = new CryptoEvents.KeyDerivation();
+        ev.begin();
+        long start = System.nanoTime();
         try {
             SecretKeyFactory skf = SecretKeyFactory.getInstance(Policy.KDF_ALGO);
             KeySpec spec = new PBEKeySpec(password, salt, iterations, keyBits);
@@ -81,9 +97,128 @@ final class KeyDerivation {
 
             Arrays.fill(keyBytes, (byte) 0); // limpiar clave temporal en memoria
 
+            CryptoMetrics.KDF.record(System.nanoTime() - start, 0);
+            CryptoEvents.commit(ev, e -> {
+                e.kdf = "PBKDF2(iterations=" + iterations + ")";
+                e.keyBits = keyBits;
+            });
             return new KeyMaterial(key);
         } catch (Exception e) {
-            throw new CryptoException("Fallo al derivar la clave: " + e.getMessage(), e);
+            throw failed(new CryptoException("Fallo al derivar la clave: " + e.getMessage(), e));
         }
     }
+
+    /**
+     * <h3>Deriva una clave con la KDF y los parámetros indicados</h3>
+     *
+     * <p>
+     * La contraseña se codifica en UTF-8 para scrypt y Argon2id, igual que hace
+     * internamente PBKDF2; la copia en bytes se sobrescribe al terminar.
+     * </p>
+     *
+     * @param password Contraseña de entrada (char[]).
+     * @param salt     Sal utilizada en la derivación.
+     * @param keyBits  Tamaño de clave deseado (en bits).
+     * @param params   KDF y parámetros de coste.
+     * @return Objeto {@link KeyMaterial} que contiene la clave derivada.
+     *
+     * @throws CryptoException Si ocurre algún error durante la derivación.
+     */
+    static KeyMaterial derive(char[] password, byte[] salt, int keyBits, KdfParams params) {
+        if (params.kdf == Policy.KDF_ID_PBKDF2)
+            return deriveFromPassword(password, salt, keyBits, params.cost);
+
+        CryptoEvents.KeyDerivation ev = new CryptoEvents.KeyDerivation();
+        ev.begin();
+        long start = System.nanoTime();
+        byte[] pwBytes = utf8(password);
+        byte[] keyBytes = new byte[keyBits / 8];
+        try {
+            if (params.kdf == Policy.KDF_ID_SCRYPT) {
+                byte[] out = SCrypt.generate(pwBytes, salt, 1 << params.cost, params.memory, params.parallelism, keyBytes.length);
+                System.arraycopy(out, 0, keyBytes, 0, keyBytes.length);
+                Arrays.fill(out, (byte) 0);
+            } else {
+                Argon2BytesGenerator gen = new Argon2BytesGenerator();
+                gen.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                        .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                        .withSalt(salt)
+                        .withMemoryAsKB(params.memory)
+                        .withIterations(params.cost)
+                        .withParallelism(params.parallelism)
+                        .build());
+                gen.generateBytes(pwBytes, keyBytes);
+            }
+            CryptoMetrics.KDF.record(System.nanoTime() - start, 0);
+            CryptoEvents.commit(ev, e -> {
+                e.kdf = params.toString();
+                e.keyBits = keyBits;
+            });
+            return new KeyMaterial(new SecretKeySpec(keyBytes, Policy.KEY_ALGO));
+        } catch (RuntimeException e) {
+            throw failed(new CryptoException("Fallo al derivar la clave: " + e.getMessage(), e));
+        } catch (OutOfMemoryError e) {
+            // La memoria de la KDF se reserva de una vez; si el heap no da para ella,
+            // el proceso puede seguir y se informa como un fallo más de la derivación
+            throw failed(new CryptoException("Memoria insuficiente para derivar la clave con " + params, e));
+        } finally {
+            Arrays.fill(pwBytes, (byte) 0);
+            Arrays.fill(keyBytes, (byte) 0); // SecretKeySpec guarda su propia copia
+        }
+    }
+
+    /**
+     * <h3>Deriva una clave desde el contenido de un fichero de clave</h3>
+     *
+     * <p>
+     * Aplica HKDF-Extract (HMAC-SHA256 con la sal como clave). No usa una KDF lenta
+     * porque un fichero de clave, a diferencia de una contraseña, ya tiene entropía
+     * completa.
+     * </p>
+     *
+     * @param keyFile Contenido del fichero de clave.
+     * @param salt    Sal utilizada en la derivación.
+     * @param keyBits Tamaño de clave deseado (en bits, máximo 256).
+     * @return Objeto {@link KeyMaterial} que contiene la clave derivada.
+     *
+     * @throws CryptoException Si ocurre algún error durante la derivación.
+     */
+    static KeyMaterial deriveFromKeyFile(byte[] keyFile, byte[] salt, int keyBits) {
+        byte[] prk = null;
+        try {
+            Mac mac = Mac.getInstance(Policy.KEYFILE_MAC);
+            mac.init(new SecretKeySpec(salt, Policy.KEYFILE_MAC));
+            prk = mac.doFinal(keyFile);
+            return new KeyMaterial(new SecretKeySpec(prk, 0, keyBits / 8, Policy.KEY_ALGO));
+        } catch (Exception e) {
+            throw failed(new CryptoException("Fallo al derivar la clave: " + e.getMessage(), e));
+        } finally {
+            if (prk != null) Arrays.fill(prk, (byte) 0);
+        }
+    }
+
+    /**
+     * Codifica la contraseña en UTF-8 sin crear un {@link String} intermedio.
+     *
+     * @param password Contraseña.
+     * @return Bytes UTF-8 de la contraseña.
+     */
+    private static byte[] utf8(char[] password) {
+        ByteBuffer bb = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        byte[] out = new byte[bb.remaining()];
+        bb.get(out);
+        if (bb.hasArray()) Arrays.fill(bb.array(), (byte) 0);
+        return out;
+    }
+
+    /**
+     * Cuenta el fallo de derivación en {@link CryptoMetrics}.
+     *
+     * @param e Fallo.
+     * @return El mismo fallo, para lanzarlo.
+     */
+    private static CryptoException failed(CryptoException e) {
+        CryptoMetrics.failed(e);
+        return e;
+    }
 }
@@ -0,0 +1,144 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+
+/**
+ * <h2>Clave de datos envuelta para un destinatario</h2>
+ *
+ * <p>
+ * En los blobs con clave envuelta el payload no se cifra con la clave derivada de la
+ * contraseña, sino con una clave de datos (DEK). Esta clase guarda la DEK cifrada con
+ * AES Key Wrap (RFC 3394) bajo una clave derivada (KEK) con su propia sal y
+ * parámetros de KDF. Cambiar la contraseña o el coste de la KDF solo requiere volver a
+ * envolver la DEK; el texto cifrado no se toca. Un mismo blob puede llevar varias
+ * entradas, una por destinatario ({@link Recipient}).
+ * </p>
+ *
+ * <p>
+ * Se serializa como valor de la extensión {@link Policy#EXT_KEY_WRAP}:
+ * </p>
+ *
+ * <pre>
+ * kdf (1 byte)
+ * parámetros KDF (12 bytes)
+ * saltLen (1 byte)
+ * salt (...)
+ * wrappedLen (1 byte)
+ * DEK envuelta (...)
+ * </pre>
+ *
+ * @see KdfParams
+ * @see Recipient
+ * @see Policy#KEY_WRAP_ALGO
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class KeyWrap {
+
+    /**
+     * KDF y parámetros con los que se deriva la KEK.
+     */
+    final KdfParams kdfParams;
+
+    /**
+     * Sal de la KEK.
+     */
+    final byte[] salt;
+
+    /**
+     * DEK envuelta.
+     */
+    final byte[] wrapped;
+
+    /**
+     * @param kdfParams KDF y parámetros de la KEK.
+     * @param salt      Sal de la KEK.
+     * @param wrapped   DEK envuelta.
+     */
+    private KeyWrap(KdfParams kdfParams, byte[] salt, byte[] wrapped) {
+        this.kdfParams = kdfParams;
+        this.salt = salt;
+        this.wrapped = wrapped;
+    }
+
+    /**
+     * <h3>Envuelve una DEK con una KEK ya derivada</h3>
+     *
+     * @param dek       Clave de datos.
+     * @param kek       Clave de envoltorio.
+     * @param kdfParams KDF y parámetros con los que se derivó la KEK.
+     * @param salt      Sal con la que se derivó la KEK.
+     * @return Entrada lista para serializar.
+     * @throws CryptoException Si falla el envoltorio.
+     */
+    static KeyWrap wrap(SecretKey dek, SecretKey kek, KdfParams kdfParams, byte[] salt) {
+        try {
+            Cipher c = Cipher.getInstance(Policy.KEY_WRAP_ALGO);
+            c.init(Cipher.WRAP_MODE, kek);
+            return new KeyWrap(kdfParams, salt, c.wrap(dek));
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Error envolviendo la clave: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <h3>Recupera la DEK con una KEK candidata</h3>
+     *
+     * @param kek Clave de envoltorio derivada con la sal y parámetros de esta entrada.
+     * @return La DEK.
+     * @throws CryptoException Si la KEK no corresponde a esta entrada.
+     */
+    SecretKey unwrap(SecretKey kek) {
+        try {
+            Cipher c = Cipher.getInstance(Policy.KEY_WRAP_ALGO);
+            c.init(Cipher.UNWRAP_MODE, kek);
+            return (SecretKey) c.unwrap(wrapped, Policy.KEY_ALGO, Cipher.SECRET_KEY);
+        } catch (InvalidKeyException e) {
+            throw new CryptoException("Contraseña o fichero de clave incorrecto", e);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Error desenvolviendo la clave: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Entrada serializada según la estructura descrita en la clase.
+     */
+    byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(kdfParams.kdf);
+        out.writeBytes(kdfParams.encode());
+        out.write(salt.length);
+        out.writeBytes(salt);
+        out.write(wrapped.length);
+        out.writeBytes(wrapped);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reconstruye una entrada desde el valor de la extensión.
+     *
+     * @param value Valor de la extensión {@link Policy#EXT_KEY_WRAP}.
+     * @return La entrada.
+     * @throws CryptoFormatException Si el valor está truncado o sus parámetros son inválidos.
+     */
+    static KeyWrap decode(ByteBuffer value) {
+        int kdf = value.get() & 0xFF;
+        KdfParams params = KdfParams.decode(kdf, value.slice().limit(KdfParams.ENCODED_LEN));
+        value.position(value.position() + KdfParams.ENCODED_LEN);
+        byte[] salt = new byte[value.get() & 0xFF];
+        value.get(salt);
+        byte[] wrapped = new byte[value.get() & 0xFF];
+        value.get(wrapped);
+        if (value.hasRemaining())
+            throw new CryptoFormatException("Bytes sobrantes en la clave envuelta");
+        return new KeyWrap(params, salt, wrapped);
+    }
+}
@@ -0,0 +1,383 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Almacén local de claves con nombre</h2>
+ *
+ * <p>
+ * Fichero cifrado con las claves AES del usuario, cada una identificada por un nombre.
+ * Se desbloquea una sola vez por proceso con la contraseña maestra (una única
+ * derivación KDF) y, a partir de ahí, las operaciones usan el nombre de la clave en
+ * lugar de una contraseña: cifrar y descifrar solo cuesta desenvolver la clave de
+ * datos con AES Key Wrap, sin KDF.
+ * </p>
+ *
+ * <p>
+ * El fichero es un blob v4 en modo sobre ({@link UseCases#encryptEnvelope}) cuyo
+ * payload es la lista de claves. Por eso la contraseña maestra o su KDF se cambian
+ * con {@link RewrapTool} como cualquier otro blob, sin volver a cifrar las claves.
+ * </p>
+ *
+ * <p>
+ * Mientras está desbloqueado, las claves se guardan en memoria como arrays propios.
+ * Tras {@link Policy#KEYSTORE_IDLE_PROPERTY} segundos sin uso (por defecto
+ * {@link Policy#KEYSTORE_IDLE_SECONDS_DEFAULT}), o al llamar a {@link #lock()} o
+ * {@link #close()}, se sobrescriben con ceros y hay que volver a desbloquearlo.
+ * Las {@link SecretKey} que se entregan a JCA son copias de vida corta.
+ * </p>
+ *
+ * <pre>
+ * count (2 bytes, BE)
+ * por clave: idLen (1 byte) id (UTF-8) keyLen (1 byte) clave
+ * </pre>
+ *
+ * @see Recipient#storedKey(LocalKeyStore, String)
+ * @see UseCases#encryptWithKey(byte[], byte[], boolean, LocalKeyStore, String)
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class LocalKeyStore implements Closeable {
+
+    /**
+     * Longitud máxima del nombre de una clave en UTF-8 (cabe en el campo de sal de {@link KeyWrap}).
+     */
+    private static final int MAX_KEY_ID_BYTES = 255;
+
+    /**
+     * Temporizador compartido que bloquea los almacenes inactivos.
+     */
+    private static final ScheduledExecutorService IDLE_LOCKER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "keystore-idle-lock");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Fichero del almacén.
+     */
+    private final Path file;
+
+    /**
+     * Inactividad máxima antes de bloquear, en nanosegundos.
+     */
+    private final long idleNanos;
+
+    /**
+     * Clave de datos del fichero; {@code null} mientras está bloqueado.
+     */
+    private byte[] storeKey;
+
+    /**
+     * Claves desbloqueadas por nombre; vacío mientras está bloqueado.
+     */
+    private final Map<String, byte[]> keys = new LinkedHashMap<>();
+
+    /**
+     * Último uso ({@link System#nanoTime()}).
+     */
+    private volatile long lastUse;
+
+    /**
+     * Comprobación de inactividad pendiente.
+     */
+    private ScheduledFuture<?> idleCheck;
+
+    /**
+     * @param file Fichero del almacén.
+     */
+    private LocalKeyStore(Path file) {
+        this.file = file;
+        long seconds = Long.getLong(Policy.KEYSTORE_IDLE_PROPERTY, Policy.KEYSTORE_IDLE_SECONDS_DEFAULT);
+        this.idleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, seconds));
+    }
+
+    /**
+     * <h3>Crea un almacén vacío</h3>
+     *
+     * @param file           Fichero del almacén (no debe existir).
+     * @param masterPassword Contraseña maestra.
+     * @return El almacén, ya desbloqueado.
+     * @throws IOException Si el fichero ya existe o no se puede escribir.
+     */
+    public static LocalKeyStore create(Path file, char[] masterPassword) throws IOException {
+        if (Files.exists(file)) throw new IOException("El almacén de claves ya existe: " + file);
+        LocalKeyStore ks = new LocalKeyStore(file);
+        byte[] raw = RandomSource.nextBytes(Policy.KEY_BITS_DEFAULT / 8);
+        SecretKey dek = new SecretKeySpec(raw, Policy.KEY_ALGO);
+        KeyWrap wrap = Recipient.password(masterPassword).wrap(dek);
+        synchronized (ks) {
+            ks.storeKey = raw;
+            ks.write(List.of(wrap));
+            ks.touch();
+        }
+        return ks;
+    }
+
+    /**
+     * <h3>Abre un almacén existente, bloqueado</h3>
+     *
+     * @param file Fichero del almacén.
+     * @return El almacén; hay que llamar a {@link #unlock(char[])} antes de usarlo.
+     */
+    public static LocalKeyStore open(Path file) {
+        return new LocalKeyStore(file);
+    }
+
+    /**
+     * <h3>Desbloquea el almacén</h3>
+     *
+     * <p>
+     * Es la única operación con coste de KDF. Si ya estaba desbloqueado, vuelve a
+     * leer el fichero.
+     * </p>
+     *
+     * @param masterPassword Contraseña maestra.
+     * @throws IOException     Si no se puede leer el fichero.
+     * @throws CryptoException Si la contraseña no es correcta o el fichero está dañado.
+     */
+    public synchronized void unlock(char[] masterPassword) throws IOException {
+        CipherArtifact a = Serializer.decode(Files.readAllBytes(file));
+        if (a.keyWraps.isEmpty()) throw new CryptoFormatException("El fichero no es un almacén de claves");
+        SecretKey dek = UseCases.payloadKey(a, Recipient.password(masterPassword, KdfParams.legacy()));
+        byte[] payload = UseCases.decryptPayload(a, dek);
+        lock();
+        try {
+            readEntries(payload);
+        } finally {
+            Arrays.fill(payload, (byte) 0);
+        }
+        storeKey = dek.getEncoded();
+        touch();
+    }
+
+    /**
+     * <h3>Bloquea el almacén y borra de memoria sus claves</h3>
+     */
+    public synchronized void lock() {
+        for (byte[] k : keys.values()) Arrays.fill(k, (byte) 0);
+        keys.clear();
+        if (storeKey != null) Arrays.fill(storeKey, (byte) 0);
+        storeKey = null;
+        if (idleCheck != null) idleCheck.cancel(false);
+        idleCheck = null;
+    }
+
+    /**
+     * @return {@code true} si el almacén está desbloqueado.
+     */
+    public synchronized boolean isUnlocked() {
+        return storeKey != null;
+    }
+
+    /**
+     * @return Nombres de las claves, en orden alfabético.
+     * @throws CryptoException Si el almacén está bloqueado.
+     */
+    public synchronized Set<String> keyIds() {
+        requireUnlocked();
+        touch();
+        return new TreeSet<>(keys.keySet());
+    }
+
+    /**
+     * <h3>Genera una clave aleatoria y la guarda</h3>
+     *
+     * @param keyId Nombre de la nueva clave.
+     * @throws IOException              Si no se puede escribir el fichero.
+     * @throws IllegalArgumentException Si el nombre no es válido o ya existe.
+     * @throws CryptoException          Si el almacén está bloqueado.
+     */
+    public synchronized void generateKey(String keyId) throws IOException {
+        checkKeyId(keyId);
+        requireUnlocked();
+        if (keys.containsKey(keyId)) throw new IllegalArgumentException("La clave ya existe: " + keyId);
+        keys.put(keyId, RandomSource.nextBytes(Policy.KEY_BITS_DEFAULT / 8));
+        save();
+    }
+
+    /**
+     * <h3>Borra una clave</h3>
+     *
+     * <p>
+     * Los datos cifrados solo con esa clave dejan de poder descifrarse.
+     * </p>
+     *
+     * @param keyId Nombre de la clave.
+     * @throws IOException     Si no se puede escribir el fichero.
+     * @throws CryptoException Si el almacén está bloqueado o la clave no existe.
+     */
+    public synchronized void deleteKey(String keyId) throws IOException {
+        requireUnlocked();
+        byte[] removed = keys.remove(keyId);
+        if (removed == null) throw new CryptoException("Clave desconocida: " + keyId);
+        Arrays.fill(removed, (byte) 0);
+        save();
+    }
+
+    /**
+     * Equivale a {@link #lock()}.
+     */
+    @Override
+    public void close() {
+        lock();
+    }
+
+    /**
+     * @param keyId Nombre de la clave.
+     * @return {@code true} si el almacén está desbloqueado y contiene la clave.
+     */
+    synchronized boolean contains(String keyId) {
+        return storeKey != null && keys.containsKey(keyId);
+    }
+
+    /**
+     * @param keyId Nombre de la clave.
+     * @return Copia de la clave para una operación.
+     * @throws CryptoException Si el almacén está bloqueado o la clave no existe.
+     */
+    synchronized SecretKey key(String keyId) {
+        requireUnlocked();
+        byte[] raw = keys.get(keyId);
+        if (raw == null) throw new CryptoException("Clave desconocida: " + keyId);
+        touch();
+        return new SecretKeySpec(raw, Policy.KEY_ALGO);
+    }
+
+    /**
+     * @param keyId Nombre de clave.
+     * @throws IllegalArgumentException Si está vacío o es demasiado largo.
+     */
+    static void checkKeyId(String keyId) {
+        if (keyId == null || keyId.isEmpty()
+                || keyId.getBytes(StandardCharsets.UTF_8).length > MAX_KEY_ID_BYTES)
+            throw new IllegalArgumentException("Nombre de clave inválido");
+    }
+
+    /**
+     * @throws CryptoException Si el almacén está bloqueado.
+     */
+    private void requireUnlocked() {
+        if (storeKey == null) throw new CryptoException("El almacén de claves está bloqueado");
+    }
+
+    /**
+     * Registra un uso y, si no hay ninguna, programa la comprobación de inactividad.
+     */
+    private void touch() {
+        lastUse = System.nanoTime();
+        if (idleCheck == null) idleCheck = IDLE_LOCKER.schedule(this::checkIdle, idleNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Bloquea si ha pasado el tiempo de inactividad; si no, se reprograma para el resto.
+     */
+    private synchronized void checkIdle() {
+        idleCheck = null;
+        if (storeKey == null) return;
+        long remaining = idleNanos - (System.nanoTime() - lastUse);
+        if (remaining <= 0) lock();
+        else idleCheck = IDLE_LOCKER.schedule(this::checkIdle, remaining, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Vuelve a cifrar la lista de claves con la clave del fichero, conservando las
+     * contraseñas maestras que tenga en ese momento.
+     *
+     * @throws IOException Si no se puede leer o escribir el fichero.
+     */
+    private void save() throws IOException {
+        CipherArtifact current = Serializer.decode(Files.readAllBytes(file));
+        write(current.keyWraps);
+        touch();
+    }
+
+    /**
+     * Cifra la lista de claves y sustituye el fichero de forma atómica.
+     *
+     * @param wraps Contraseñas maestras (claves envueltas del fichero).
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    private void write(List<KeyWrap> wraps) throws IOException {
+        byte[] payload = encodeEntries();
+        byte[] blob;
+        try {
+            blob = UseCases.seal(payload, Policy.KEYSTORE_AAD.getBytes(StandardCharsets.UTF_8), Policy.COMPRESSION_NONE,
+                    new SecretKeySpec(storeKey, Policy.KEY_ALGO), Policy.KDF_ID_WRAPPED, new byte[0], null, wraps);
+        } finally {
+            Arrays.fill(payload, (byte) 0);
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, ".keystore-", ".tmp");
+        try {
+            Files.write(tmp, blob);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return Lista de claves serializada según la estructura descrita en la clase.
+     */
+    private byte[] encodeEntries() {
+        int len = 2;
+        for (Map.Entry<String, byte[]> e : keys.entrySet())
+            len += 2 + e.getKey().getBytes(StandardCharsets.UTF_8).length + e.getValue().length;
+        ByteBuffer bb = ByteBuffer.allocate(len);
+        bb.putShort((short) keys.size());
+        for (Map.Entry<String, byte[]> e : keys.entrySet()) {
+            byte[] id = e.getKey().getBytes(StandardCharsets.UTF_8);
+            bb.put((byte) id.length).put(id);
+            bb.put((byte) e.getValue().length).put(e.getValue());
+        }
+        return bb.array();
+    }
+
+    /**
+     * Carga la lista de claves descifrada.
+     *
+     * @param payload Lista de claves serializada.
+     * @throws CryptoFormatException Si está truncada.
+     */
+    private void readEntries(byte[] payload) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(payload);
+            int count = bb.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[bb.get() & 0xFF];
+                bb.get(id);
+                byte[] key = new byte[bb.get() & 0xFF];
+                bb.get(key);
+                keys.put(new String(id, StandardCharsets.UTF_8), key);
+            }
+            if (bb.hasRemaining()) throw new CryptoFormatException("Bytes sobrantes en el almacén de claves");
+        } catch (RuntimeException e) {
+            lock();
+            if (e instanceof CryptoFormatException) throw e;
+            throw new CryptoFormatException("Almacén de claves truncado", e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.gaizkaFrost.AES;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * <h2>Cabecera del formato de log cifrado de solo anexado (v3)</h2>
+ *
+ * <p>
+ * Un log cifrado es una cabecera seguida de una secuencia de <i>frames</i>, cada uno
+ * con un segmento sellado con AES-GCM. A diferencia del formato v2
+ * ({@link SegmentedContainer}), los segmentos tienen tamaño variable y su número no
+ * se conoce de antemano: el escritor los va añadiendo al final del fichero.
+ * </p>
+ *
+ * <pre>
+ * MAGIC (3 bytes)
+ * version (1 byte) = 3
+ * mode (1 byte)
+ * kdf (1 byte)
+ * keyBits (2 bytes, BE)
+ * saltLen (2 bytes, BE)
+ * salt (...)
+ * [si kdf tiene {@link Policy#KDF_PARAMS_FLAG}] parámetros KDF (12 bytes)
+ * nonceLen (1 byte)
+ * nonce base (...)
+ * frame 0: ctLen (4 bytes, BE) + ciphertext + tag
+ * frame 1: ...
+ * </pre>
+ *
+ * <p>
+ * El texto en claro de cada segmento es una secuencia de registros
+ * {@code len (4 bytes, BE) + bytes}. Cada frame usa el nonce base combinado con su
+ * número de secuencia y, como AAD, la cabecera seguida de ese número, por lo que
+ * no pueden reordenarse ni moverse a otro log. Un frame incompleto al final del
+ * fichero indica un segmento aún no terminado de escribir (o una caída) y se ignora.
+ * </p>
+ *
+ * <p>
+ * Un frame con {@code ctLen = 0} es una marca de número de secuencia quemado: no
+ * contiene datos, pero consume un número de secuencia. El escritor la añade al
+ * reabrir un log con un frame incompleto al final, porque el texto cifrado de ese
+ * frame pudo llegar a disco y su nonce no debe reutilizarse con otro texto en claro.
+ * </p>
+ *
+ * @see EncryptedLogWriter
+ * @see EncryptedLogReader
+ * @see Policy#VERSION_LOG
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class LogContainer {
+
+    /**
+     * Longitud de la parte fija inicial de la cabecera (MAGIC … saltLen).
+     */
+    private static final int FIXED_PREFIX_LEN = 10;
+
+    /**
+     * Longitud del prefijo de longitud de cada frame y de cada registro.
+     */
+    static final int LEN_PREFIX = 4;
+
+    /**
+     * Tamaño máximo aceptado para un frame, como protección frente a cabeceras corruptas.
+     */
+    static final int MAX_FRAME_LEN = 256 * 1024 * 1024;
+
+    /**
+     * Longitud de frame que marca un número de secuencia quemado.
+     */
+    static final int BURNED_FRAME_LEN = 0;
+
+    /**
+     * Modo de cifrado usado.
+     */
+    final int mode;
+
+    /**
+     * Función KDF y sus parámetros de coste.
+     */
+    final KdfParams kdfParams;
+
+    /**
+     * Tamaño de la clave en bits.
+     */
+    final int keyBits;
+
+    /**
+     * Sal usada en la derivación de clave.
+     */
+    final byte[] salt;
+
+    /**
+     * Nonce base del que se derivan los nonces de cada frame.
+     */
+    final byte[] nonce;
+
+    /**
+     * Cabecera serializada; forma parte de la AAD de cada frame.
+     */
+    final byte[] headerBytes;
+
+    /**
+     * Construye la cabecera y calcula su forma serializada.
+     *
+     * @param mode      Modo de cifrado.
+     * @param kdfParams KDF y parámetros de coste.
+     * @param keyBits   Tamaño de clave en bits.
+     * @param salt      Sal de la KDF.
+     * @param nonce     Nonce base.
+     */
+    LogContainer(int mode, KdfParams kdfParams, int keyBits, byte[] salt, byte[] nonce) {
+        if (nonce.length != Policy.GCM_NONCE_LEN)
+            throw new CryptoFormatException("Longitud de nonce inválida: " + nonce.length);
+        this.mode = mode;
+        this.kdfParams = kdfParams;
+        this.keyBits = keyBits;
+        this.salt = salt;
+        this.nonce = nonce;
+        this.headerBytes = encodeHeader();
+    }
+
+    /**
+     * Calcula el nonce del frame indicado sobre un array reutilizable.
+     *
+     * @param seq Número de secuencia del frame.
+     * @param out Array de {@link Policy#GCM_NONCE_LEN} bytes.
+     * @return El propio {@code out}.
+     */
+    byte[] frameNonce(long seq, byte[] out) {
+        return SegmentedContainer.indexedNonce(nonce, seq, out);
+    }
+
+    /**
+     * Calcula la AAD del frame indicado sobre un array reutilizable.
+     *
+     * @param seq Número de secuencia del frame.
+     * @param out Array de {@code headerBytes.length + 4} bytes.
+     * @return El propio {@code out}.
+     */
+    byte[] frameAad(long seq, byte[] out) {
+        return SegmentedContainer.indexedAad(headerBytes, seq, out);
+    }
+
+    /**
+     * <h3>Lee y valida la cabecera v3 desde un canal</h3>
+     *
+     * @param in Canal posicionado al inicio del log.
+     * @return La cabecera reconstruida.
+     * @throws IOException           Si falla la lectura.
+     * @throws CryptoFormatException Si la cabecera es incorrecta, truncada o de otra versión.
+     */
+    static LogContainer readHeader(ReadableByteChannel in) throws IOException {
+        try {
+            ByteBuffer bb = SegmentedContainer.read(in, FIXED_PREFIX_LEN);
+            byte m0 = bb.get(), m1 = bb.get(), m2 = bb.get();
+            if (m0 != Policy.MAGIC[0] || m1 != Policy.MAGIC[1] || m2 != Policy.MAGIC[2])
+                throw new CryptoFormatException("Magic incorrecto");
+
+            int version = bb.get() & 0xFF;
+            if (version != Policy.VERSION_LOG)
+                throw new CryptoFormatException("Versión no soportada: v" + version);
+
+            int mode = bb.get() & 0xFF;
+            int kdf = bb.get() & 0xFF;
+            int keyBits = bb.getShort() & 0xFFFF;
+
+            int saltLen = bb.getShort() & 0xFFFF;
+            bb = SegmentedContainer.read(in, saltLen + KdfParams.headerLength(kdf) + 1);
+            byte[] salt = new byte[saltLen];
+            bb.get(salt);
+            KdfParams kdfParams = KdfParams.readHeader(kdf, bb);
+            bb.position(bb.position() + KdfParams.headerLength(kdf));
+
+            int nonceLen = bb.get() & 0xFF;
+            byte[] nonce = new byte[nonceLen];
+            SegmentedContainer.read(in, nonceLen).get(nonce);
+
+            return new LogContainer(mode, kdfParams, keyBits, salt, nonce);
+        } catch (EOFException e) {
+            throw new CryptoFormatException("Cabecera de log truncada", e);
+        }
+    }
+
+    /**
+     * Serializa la cabecera según la estructura descrita en la clase.
+     *
+     * @return Bytes de la cabecera.
+     */
+    private byte[] encodeHeader() {
+        ByteBuffer bb = ByteBuffer.allocate(FIXED_PREFIX_LEN + salt.length + kdfParams.headerLength() + 1 + nonce.length)
+                .order(ByteOrder.BIG_ENDIAN);
+        bb.put(Policy.MAGIC);
+        bb.put((byte) Policy.VERSION_LOG);
+        bb.put((byte) mode);
+        bb.put((byte) kdfParams.headerByte());
+        bb.putShort((short) keyBits);
+        bb.putShort((short) salt.length).put(salt);
+        kdfParams.writeHeader(bb);
+        bb.put((byte) nonce.length).put(nonce);
+        return bb.array();
+    }
+}
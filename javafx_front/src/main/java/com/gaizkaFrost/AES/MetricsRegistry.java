@@ -0,0 +1,47 @@
+package com.gaizkaFrost.AES;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * <h2>Registro de métricas externo</h2>
+ *
+ * <p>
+ * Punto de extensión para publicar las métricas de {@link CryptoMetrics} en un sistema
+ * de monitorización (Micrometer, Prometheus, Dropwizard...) sin que el módulo AES
+ * dependa de él. Basta un adaptador de pocas líneas que traduzca cada llamada a un
+ * {@code FunctionCounter} o {@code Gauge} del sistema elegido.
+ * </p>
+ *
+ * <p>
+ * Los valores se leen bajo demanda a través de las funciones registradas, así que el
+ * camino de cifrado nunca llama al registro.
+ * </p>
+ *
+ * @see CryptoMetrics#bindTo(MetricsRegistry)
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Registra un contador monótono.
+     *
+     * @param name        Nombre de la métrica (p. ej. {@code descifrador.encrypt.count}).
+     * @param description Descripción legible.
+     * @param value       Función que devuelve el valor acumulado.
+     */
+    void counter(String name, String description, LongSupplier value);
+
+    /**
+     * Registra un valor instantáneo.
+     *
+     * @param name        Nombre de la métrica.
+     * @param description Descripción legible.
+     * @param value       Función que devuelve el valor actual.
+     */
+    void gauge(String name, String description, DoubleSupplier value);
+}
@@ -0,0 +1,149 @@
+package com.gaizkaFrost.AES;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>Temporizador de una operación criptográfica</h2>
+ *
+ * <p>
+ * Acumula número de operaciones, bytes procesados, tiempo total, máximo y un
+ * histograma de latencias con cubos de potencias de dos en nanosegundos. Todo se
+ * guarda en {@link LongAdder} y {@link LongAccumulator}, así que
+ * {@link #record(long, long)} no reserva memoria ni bloquea aunque lo llamen muchos
+ * hilos a la vez; el coste de agregar se paga solo al leer.
+ * </p>
+ *
+ * <p>
+ * Los percentiles se calculan sobre el histograma y devuelven el límite superior del
+ * cubo, es decir, una cota con error menor que un factor 2.
+ * </p>
+ *
+ * @see CryptoMetrics
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class OperationTimer implements CryptoMetrics.TimerMXBean {
+
+    /**
+     * Número de cubos: el cubo {@code i} cuenta latencias en {@code [2^(i-1), 2^i)} ns.
+     */
+    private static final int BUCKETS = 64;
+
+    /**
+     * Nombre de la operación.
+     */
+    final String name;
+
+    /**
+     * Operaciones registradas.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Bytes procesados.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Tiempo total en nanosegundos.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Latencia máxima en nanosegundos.
+     */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Histograma de latencias.
+     */
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    /**
+     * @param name Nombre de la operación.
+     */
+    OperationTimer(String name) {
+        this.name = name;
+        for (int i = 0; i < BUCKETS; i++) histogram[i] = new LongAdder();
+    }
+
+    /**
+     * Registra una operación.
+     *
+     * @param nanos Duración en nanosegundos.
+     * @param n     Bytes procesados.
+     */
+    void record(long nanos, long n) {
+        long d = Math.max(0, nanos);
+        count.increment();
+        bytes.add(n);
+        totalNanos.add(d);
+        maxNanos.accumulate(d);
+        histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(d))].increment();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long c = count.sum();
+        return c == 0 ? 0 : totalNanos.sum() / 1e3 / c;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentileMicros(0.50);
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentileMicros(0.99);
+    }
+
+    @Override
+    public long[] getHistogram() {
+        long[] out = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) out[i] = histogram[i].sum();
+        return out;
+    }
+
+    /**
+     * @param p Percentil en {@code [0, 1]}.
+     * @return Cota superior del percentil en microsegundos.
+     */
+    double percentileMicros(double p) {
+        long[] h = getHistogram();
+        long total = 0;
+        for (long c : h) total += c;
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += h[i];
+            if (seen >= rank) return i == 0 ? 0 : (1L << Math.min(i, 62)) / 1e3;
+        }
+        return getMaxMicros();
+    }
+}
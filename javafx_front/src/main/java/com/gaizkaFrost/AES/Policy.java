@@ -53,16 +53,157 @@ public final class Policy {
      */
     public static final int VERSION = 0x01;
 
+    /**
+     * Versión del formato segmentado (v2): el texto cifrado se divide en
+     * segmentos de tamaño fijo que pueden descifrarse de forma independiente,
+     * permitiendo acceso aleatorio sin leer el contenedor completo.
+     */
+    public static final int VERSION_SEGMENTED = 0x02;
+
+    /**
+     * Tamaño por defecto (en bytes) del texto en claro de cada segmento
+     * del formato v2 (64 KiB).
+     */
+    public static final int SEGMENT_SIZE_DEFAULT = 64 * 1024;
+
+    /**
+     * Tamaño máximo de segmento que se acepta al leer una cabecera v2 (16 MiB).
+     * Cada lector reserva un búfer de este tamaño, así que una cabecera manipulada
+     * no debe poder pedir más.
+     */
+    public static final int SEGMENT_SIZE_MAX = 16 * 1024 * 1024;
+
+    /**
+     * Versión del formato de log cifrado de solo anexado (v3): secuencia de
+     * segmentos de tamaño variable que se sellan de forma incremental.
+     */
+    public static final int VERSION_LOG = 0x03;
+
+    /**
+     * Tamaño (en bytes) a partir del cual el escritor de log sella el segmento en curso.
+     */
+    public static final int LOG_SEGMENT_BYTES_DEFAULT = 64 * 1024;
+
+    /**
+     * Tiempo máximo (en milisegundos) que un registro puede esperar antes de sellarse.
+     */
+    public static final long LOG_SEAL_MILLIS_DEFAULT = 200;
+
+    /**
+     * Número de segmentos sellados que se agrupan en cada {@code fsync}.
+     */
+    public static final int LOG_SYNC_BATCH_DEFAULT = 8;
+
+    /**
+     * Versión del formato v1 ampliado con un bloque de extensiones
+     * (tipo, longitud, valor) tras {@code keyBits}. Solo se usa cuando el artefacto
+     * necesita alguna extensión; en otro caso se sigue escribiendo {@link #VERSION}.
+     */
+    public static final int VERSION_EXTENDED = 0x04;
+
+    /**
+     * Versión del formato de archivo (v5): muchas entradas cifradas empaquetadas en un
+     * solo fichero con un índice central cifrado al final ({@link ArchiveContainer}).
+     */
+    public static final int VERSION_ARCHIVE = 0x05;
+
+    /**
+     * Bytes en claro que se cifran en paralelo antes de escribirlos en el archivo.
+     */
+    public static final int ARCHIVE_BATCH_BYTES = 32 * 1024 * 1024;
+
+    /**
+     * Tipo de extensión: compresión aplicada al texto en claro antes de cifrar.
+     * Valor: codec (1 byte) + longitud original (4 bytes, BE).
+     */
+    public static final int EXT_COMPRESSION = 0x01;
+
+    /**
+     * Tipo de extensión v4 con los parámetros de coste de la KDF
+     * (ver {@link KdfParams}).
+     */
+    public static final int EXT_KDF_PARAMS = 0x02;
+
+    /**
+     * Tipo de extensión v4 con la clave de datos envuelta (ver {@link KeyWrap}).
+     */
+    public static final int EXT_KEY_WRAP = 0x03;
+
     /**
      * Identificador del modo AES-GCM dentro del protocolo.
      */
     public static final int MODE_ID_GCM = 0x01;
 
+    /**
+     * Identificador del modo ChaCha20-Poly1305 (RFC 8439) dentro del protocolo.
+     * Más rápido que AES-GCM en equipos sin instrucciones AES-NI.
+     */
+    public static final int MODE_ID_CHACHA20_POLY1305 = 0x02;
+
+    /**
+     * Identificador del modo AES-GCM-SIV (RFC 8452), resistente a la reutilización
+     * de nonce. Lo implementa BouncyCastle y solo se usa si se pide explícitamente.
+     */
+    public static final int MODE_ID_GCM_SIV = 0x03;
+
+    /**
+     * Propiedad del sistema que fuerza el modo AEAD usado al cifrar
+     * ({@code gcm}, {@code chacha20-poly1305} o {@code gcm-siv}), en lugar
+     * de elegirlo mediante la microprueba de rendimiento al arrancar.
+     */
+    public static final String AEAD_MODE_PROPERTY = "descifrador.aead";
+
     /**
      * Identificador del algoritmo KDF PBKDF2-HMAC-SHA256.
      */
     public static final int KDF_ID_PBKDF2 = 0x02; // 2 = PBKDF2WithHmacSHA256
 
+    /**
+     * Valor del byte {@code kdf} de los blobs cuya clave va envuelta en
+     * {@link #EXT_KEY_WRAP}: la clave del payload no se deriva de la contraseña.
+     */
+    public static final int KDF_ID_WRAPPED = 0x00;
+
+    /**
+     * Identificador del algoritmo KDF scrypt (RFC 7914).
+     */
+    public static final int KDF_ID_SCRYPT = 0x03;
+
+    /**
+     * Identificador del algoritmo KDF Argon2id (RFC 9106).
+     */
+    public static final int KDF_ID_ARGON2ID = 0x04;
+
+    /**
+     * Identificador de la derivación desde fichero de clave: HKDF-Extract con
+     * HMAC-SHA256 ({@link #KEYFILE_MAC}); el fichero ya tiene entropía suficiente.
+     */
+    public static final int KDF_ID_KEYFILE = 0x05;
+
+    /**
+     * Identificador de las claves envueltas con una clave con nombre de un almacén local
+     * ({@link LocalKeyStore}): no hay derivación y el campo de sal guarda el nombre.
+     */
+    public static final int KDF_ID_KEYSTORE = 0x06;
+
+    /**
+     * Bit del byte {@code kdf} de las cabeceras v2 y v3 que indica que, tras la sal,
+     * siguen los parámetros de coste explícitos ({@link KdfParams}).
+     */
+    public static final int KDF_PARAMS_FLAG = 0x80;
+
+    /**
+     * Propiedad del sistema que elige la KDF usada al cifrar
+     * ({@code pbkdf2}, {@code scrypt} o {@code argon2id}).
+     */
+    public static final String KDF_PROPERTY = "descifrador.kdf";
+
+    /**
+     * Propiedad del sistema con el tiempo objetivo de derivación, en milisegundos.
+     * Si se define, los parámetros de la KDF se calibran en el equipo al arrancar.
+     */
+    public static final String KDF_TARGET_MILLIS_PROPERTY = "descifrador.kdf.targetMillis";
+
     /**
      * Tamaño de clave AES por defecto (en bits).
      * Puede ser 128 o 256 dependiendo de la fortaleza deseada.
@@ -94,6 +235,67 @@ public final class Policy {
      */
     public static final int PBKDF2_ITERATIONS = 200_000;
 
+    /**
+     * Mínimo de iteraciones PBKDF2 que acepta la calibración.
+     */
+    public static final int PBKDF2_MIN_ITERATIONS = 10_000;
+
+    /**
+     * log2 del parámetro de coste N de scrypt por defecto (N = 2^15).
+     */
+    public static final int SCRYPT_LOG_N_DEFAULT = 15;
+
+    /**
+     * Tamaño de bloque r de scrypt.
+     */
+    public static final int SCRYPT_R_DEFAULT = 8;
+
+    /**
+     * Paralelismo p de scrypt.
+     */
+    public static final int SCRYPT_P_DEFAULT = 1;
+
+    /**
+     * Memoria de Argon2id por defecto, en KiB (19 MiB, recomendación OWASP).
+     */
+    public static final int ARGON2_MEMORY_KIB_DEFAULT = 19 * 1024;
+
+    /**
+     * Memoria mínima de Argon2id que acepta la calibración, en KiB.
+     */
+    public static final int ARGON2_MIN_MEMORY_KIB = 8 * 1024;
+
+    /**
+     * Número de pasadas de Argon2id por defecto.
+     */
+    public static final int ARGON2_ITERATIONS_DEFAULT = 2;
+
+    /**
+     * Paralelismo de Argon2id por defecto.
+     */
+    public static final int ARGON2_PARALLELISM_DEFAULT = 1;
+
+    /**
+     * Identificador de "sin compresión".
+     */
+    public static final int COMPRESSION_NONE = 0x00;
+
+    /**
+     * Identificador de compresión Deflate (RFC 1951).
+     */
+    public static final int COMPRESSION_DEFLATE = 0x01;
+
+    /**
+     * Tamaño mínimo (en bytes) para intentar comprimir; por debajo no compensa.
+     */
+    public static final int COMPRESSION_MIN_SIZE = 512;
+
+    /**
+     * Entropía muestreada (bits por byte) a partir de la cual se considera que los
+     * datos ya están comprimidos (PNG, JPEG, ZIP…) y se omite la compresión.
+     */
+    public static final double COMPRESSION_MAX_ENTROPY = 7.5;
+
     /**
      * Transformación de cifrado utilizada por defecto:
      * AES en modo GCM sin padding.
@@ -105,6 +307,85 @@ public final class Policy {
      */
     public static final String KDF_ALGO = "PBKDF2WithHmacSHA256";
 
+    /**
+     * Algoritmo de envoltorio de claves: AES Key Wrap (RFC 3394).
+     */
+    public static final String KEY_WRAP_ALGO = "AESWrap";
+
+    /**
+     * MAC usado para derivar la clave de envoltorio a partir de un fichero de clave.
+     */
+    public static final String KEYFILE_MAC = "HmacSHA256";
+
+    /**
+     * Bytes reservados por defecto para las claves envueltas de un fichero v2 en modo
+     * sobre; caben varios destinatarios y permite reescribirlas sin mover los segmentos.
+     */
+    public static final int KEY_WRAP_AREA_DEFAULT = 512;
+
+    /**
+     * Número máximo de entradas con contraseña que se intentan abrir por blob. Cada
+     * intento es una derivación completa con los parámetros (acotados) de la entrada,
+     * así que sin este límite una cabecera con cientos de entradas multiplicaría el coste.
+     */
+    public static final int KEY_WRAP_MAX_PASSWORD_TRIES = 8;
+
+    /**
+     * Propiedad del sistema con los segundos de inactividad tras los que un
+     * {@link LocalKeyStore} desbloqueado se vuelve a bloquear.
+     */
+    public static final String KEYSTORE_IDLE_PROPERTY = "descifrador.keystore.idleSeconds";
+
+    /**
+     * Segundos de inactividad por defecto antes de bloquear el almacén de claves.
+     */
+    public static final long KEYSTORE_IDLE_SECONDS_DEFAULT = 300;
+
+    /**
+     * AAD del fichero de un {@link LocalKeyStore}.
+     */
+    public static final String KEYSTORE_AAD = "descifrador-keystore;v=1";
+
+    /**
+     * Tamaño mínimo de un trozo del troceado por contenido ({@link ContentChunker}).
+     */
+    public static final int CDC_MIN_SIZE = 16 * 1024;
+
+    /**
+     * Tamaño medio buscado de un trozo del troceado por contenido (potencia de dos).
+     */
+    public static final int CDC_AVG_SIZE = 64 * 1024;
+
+    /**
+     * Tamaño máximo de un trozo del troceado por contenido.
+     */
+    public static final int CDC_MAX_SIZE = 256 * 1024;
+
+    /**
+     * MAC con el que se identifican los trozos y manifiestos de un {@link DedupRepository}.
+     */
+    public static final String CHUNK_ID_MAC = "HmacSHA256";
+
+    /**
+     * AAD del fichero de claves de un {@link DedupRepository}.
+     */
+    public static final String DEDUP_AAD = "descifrador-dedup;v=1";
+
+    /**
+     * Primera línea de un mensaje con armadura de texto ({@link Armor}).
+     */
+    public static final String ARMOR_BEGIN = "-----BEGIN DESCIFRADOR MESSAGE-----";
+
+    /**
+     * Última línea de un mensaje con armadura de texto.
+     */
+    public static final String ARMOR_END = "-----END DESCIFRADOR MESSAGE-----";
+
+    /**
+     * Caracteres Base64 por línea dentro de la armadura.
+     */
+    public static final int ARMOR_LINE_LEN = 64;
+
     /**
      * Algoritmo de clave simétrica utilizado: AES.
      */
@@ -0,0 +1,226 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * <h2>Destinatario de un cifrado en modo sobre</h2>
+ *
+ * <p>
+ * En el modo sobre (<i>envelope</i>) el contenido se cifra con una clave de datos
+ * aleatoria (DEK) y cada destinatario guarda su propia copia envuelta de esa clave
+ * ({@link KeyWrap}). Un destinatario es una contraseña, con la KDF y coste elegidos,
+ * un fichero de clave o una clave con nombre de un {@link LocalKeyStore}. Añadir, quitar o cambiar un destinatario solo reescribe la
+ * cabecera, nunca el contenido cifrado.
+ * </p>
+ *
+ * @see KeyWrap
+ * @see UseCases#encryptEnvelope(byte[], byte[], boolean, List)
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class Recipient {
+
+    /**
+     * Contraseña; {@code null} si es un fichero de clave.
+     */
+    private final char[] password;
+
+    /**
+     * Contenido del fichero de clave; {@code null} si es una contraseña.
+     */
+    private final byte[] keyFile;
+
+    /**
+     * Almacén de claves; {@code null} si no es una clave almacenada.
+     */
+    private final LocalKeyStore store;
+
+    /**
+     * Nombre de la clave en {@link #store}; {@code null} para cualquiera de sus claves.
+     */
+    private final String keyId;
+
+    /**
+     * KDF y parámetros con los que se envuelve la DEK.
+     */
+    private final KdfParams kdfParams;
+
+    /**
+     * @param password  Contraseña, o {@code null}.
+     * @param keyFile   Contenido del fichero de clave, o {@code null}.
+     * @param store     Almacén de claves, o {@code null}.
+     * @param keyId     Nombre de la clave almacenada, o {@code null}.
+     * @param kdfParams KDF y parámetros de coste.
+     */
+    private Recipient(char[] password, byte[] keyFile, LocalKeyStore store, String keyId, KdfParams kdfParams) {
+        this.password = password;
+        this.keyFile = keyFile;
+        this.store = store;
+        this.keyId = keyId;
+        this.kdfParams = kdfParams;
+    }
+
+    /**
+     * @param password Contraseña del destinatario.
+     * @return Destinatario con la KDF preferida ({@link KdfParams#preferred()}).
+     */
+    public static Recipient password(char[] password) {
+        return password(password, KdfParams.preferred());
+    }
+
+    /**
+     * @param password  Contraseña del destinatario.
+     * @param kdfParams KDF y parámetros de coste para su envoltura.
+     * @return Destinatario con contraseña.
+     */
+    public static Recipient password(char[] password, KdfParams kdfParams) {
+        if (kdfParams.kdf == Policy.KDF_ID_KEYFILE || kdfParams.kdf == Policy.KDF_ID_KEYSTORE)
+            throw new IllegalArgumentException("KDF no válida para una contraseña");
+        return new Recipient(password, null, null, null, kdfParams);
+    }
+
+    /**
+     * @param keyFile Contenido del fichero de clave (al menos 16 bytes).
+     * @return Destinatario con fichero de clave.
+     */
+    public static Recipient keyFile(byte[] keyFile) {
+        if (keyFile.length < Policy.SALT_LEN)
+            throw new IllegalArgumentException("Fichero de clave demasiado corto");
+        return new Recipient(null, keyFile, null, null, KdfParams.KEYFILE);
+    }
+
+    /**
+     * @param file Fichero de clave.
+     * @return Destinatario con el contenido del fichero.
+     * @throws IOException Si no se puede leer el fichero.
+     */
+    public static Recipient keyFile(Path file) throws IOException {
+        return keyFile(Files.readAllBytes(file));
+    }
+
+    /**
+     * @param store Almacén de claves desbloqueado.
+     * @param keyId Nombre de la clave.
+     * @return Destinatario que envuelve con esa clave, sin coste de KDF.
+     */
+    public static Recipient storedKey(LocalKeyStore store, String keyId) {
+        LocalKeyStore.checkKeyId(keyId);
+        return new Recipient(null, null, store, keyId, KdfParams.KEYSTORE);
+    }
+
+    /**
+     * @param store Almacén de claves desbloqueado.
+     * @return Destinatario que abre cualquier entrada envuelta con una clave del almacén.
+     *         No sirve para envolver.
+     */
+    public static Recipient keyStore(LocalKeyStore store) {
+        return new Recipient(null, null, store, null, KdfParams.KEYSTORE);
+    }
+
+    /**
+     * Envuelve la DEK para este destinatario con una sal nueva o, si es una clave
+     * almacenada, con su nombre en lugar de la sal.
+     *
+     * @param dek Clave de datos.
+     * @return Entrada para la cabecera.
+     */
+    KeyWrap wrap(SecretKey dek) {
+        if (store != null && keyId == null)
+            throw new IllegalStateException("Hay que indicar la clave del almacén con la que envolver");
+        byte[] salt = store != null
+                ? keyId.getBytes(StandardCharsets.UTF_8)
+                : RandomSource.nextBytes(Policy.SALT_LEN);
+        return KeyWrap.wrap(dek, kek(salt, kdfParams), kdfParams, salt);
+    }
+
+    /**
+     * Busca la entrada de este destinatario y recupera la DEK.
+     *
+     * <p>
+     * Con una contraseña se intentan como mucho {@link Policy#KEY_WRAP_MAX_PASSWORD_TRIES}
+     * entradas, porque cada una cuesta una derivación.
+     * </p>
+     *
+     * @param wraps Entradas de la cabecera.
+     * @return La DEK.
+     * @throws CryptoException Si ninguna entrada corresponde a este destinatario.
+     */
+    SecretKey unwrap(List<KeyWrap> wraps) {
+        int tries = 0;
+        for (KeyWrap w : wraps) {
+            if (password != null && matches(w) && ++tries > Policy.KEY_WRAP_MAX_PASSWORD_TRIES)
+                throw new CryptoException("Demasiadas entradas con contraseña en la cabecera");
+            SecretKey dek = tryUnwrap(w);
+            if (dek != null) return dek;
+        }
+        throw new CryptoException("Contraseña o fichero de clave incorrecto");
+    }
+
+    /**
+     * Deriva la clave de un blob sin clave envuelta (formato con clave directa).
+     *
+     * @param salt      Sal del blob.
+     * @param keyBits   Tamaño de clave.
+     * @param kdfParams Parámetros de la KDF del blob.
+     * @return Clave del payload.
+     * @throws CryptoException Si el destinatario es un fichero de clave.
+     */
+    SecretKey derive(byte[] salt, int keyBits, KdfParams kdfParams) {
+        if (password == null)
+            throw new CryptoException("El blob no está en modo sobre: se necesita una contraseña");
+        return KeyDerivation.derive(password, salt, keyBits, kdfParams).key();
+    }
+
+    /**
+     * Intenta abrir una entrada. Solo se prueban las de su mismo tipo (contraseña,
+     * fichero o clave almacenada), cada una con su sal y parámetros.
+     *
+     * @param w Entrada candidata.
+     * @return La DEK, o {@code null} si la entrada no es de este destinatario.
+     */
+    SecretKey tryUnwrap(KeyWrap w) {
+        if (!matches(w)) return null;
+        try {
+            return w.unwrap(kek(w.salt, w.kdfParams));
+        } catch (CryptoException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param w Entrada candidata.
+     * @return {@code true} si la entrada es del mismo tipo que este destinatario y,
+     *         si es una clave almacenada, de una clave presente en el almacén.
+     */
+    private boolean matches(KeyWrap w) {
+        int kdf = w.kdfParams.kdf;
+        if (store != null) {
+            if (kdf != Policy.KDF_ID_KEYSTORE) return false;
+            String id = new String(w.salt, StandardCharsets.UTF_8);
+            return keyId != null ? keyId.equals(id) : store.contains(id);
+        }
+        if (keyFile != null) return kdf == Policy.KDF_ID_KEYFILE;
+        return kdf != Policy.KDF_ID_KEYFILE && kdf != Policy.KDF_ID_KEYSTORE;
+    }
+
+    /**
+     * @param salt   Sal de la entrada (el nombre, si es una clave almacenada).
+     * @param params KDF y parámetros de la entrada.
+     * @return Clave de envoltorio.
+     */
+    private SecretKey kek(byte[] salt, KdfParams params) {
+        if (store != null)
+            return store.key(new String(salt, StandardCharsets.UTF_8));
+        if (keyFile != null)
+            return KeyDerivation.deriveFromKeyFile(keyFile, salt, Policy.KEY_BITS_DEFAULT).key();
+        return KeyDerivation.derive(password, salt, Policy.KEY_BITS_DEFAULT, params).key();
+    }
+}
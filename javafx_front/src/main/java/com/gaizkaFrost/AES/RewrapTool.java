@@ -0,0 +1,191 @@
+package com.gaizkaFrost.AES;
+
+import java.io.Console;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * <h2>Herramienta de línea de comandos para volver a envolver blobs cifrados</h2>
+ *
+ * <p>
+ * Aplica {@link UseCases#rewrap(byte[], char[], char[], KdfParams)} a cada fichero
+ * indicado y lo sustituye de forma atómica. Sirve para cambiar la contraseña o la KDF
+ * de blobs ya existentes sin volver a cifrar su contenido. Acepta blobs binarios, blobs
+ * en Base64 (por ejemplo, la salida de {@code AESCryptoService}), conservando la
+ * codificación de cada fichero, y ficheros v2 en modo sobre, de los que solo se
+ * reescribe el área de claves.
+ * </p>
+ *
+ * <pre>
+ * java com.gaizkaFrost.AES.RewrapTool [--kdf pbkdf2|scrypt|argon2id] [--target-millis N] fichero...
+ * </pre>
+ *
+ * <p>
+ * Sin opciones se usan los parámetros de {@link KdfParams#preferred()}. Las contraseñas
+ * se piden por consola, sin eco.
+ * </p>
+ *
+ * @see UseCases#rewrap(byte[], char[], char[], KdfParams)
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class RewrapTool {
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private RewrapTool() {}
+
+    /**
+     * <h3>Punto de entrada</h3>
+     *
+     * @param args Opciones y ficheros a procesar.
+     */
+    public static void main(String[] args) {
+        int kdf = -1;
+        long targetMillis = -1;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--kdf":
+                        kdf = kdfId(args[++i]);
+                        break;
+                    case "--target-millis":
+                        targetMillis = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        files.add(Path.of(args[i]));
+                }
+            }
+        } catch (RuntimeException e) {
+            usage();
+            return;
+        }
+        if (files.isEmpty()) {
+            usage();
+            return;
+        }
+
+        KdfParams params;
+        if (kdf < 0 && targetMillis < 0) params = KdfParams.preferred();
+        else if (targetMillis < 0) params = KdfParams.defaults(kdf);
+        else params = KdfParams.calibrate(kdf < 0 ? Policy.KDF_ID_PBKDF2 : kdf, targetMillis);
+
+        Console console = System.console();
+        if (console == null) {
+            System.err.println("Se necesita una consola interactiva para pedir las contraseñas");
+            System.exit(2);
+            return;
+        }
+        char[] oldPassword = console.readPassword("Contraseña actual: ");
+        char[] newPassword = console.readPassword("Contraseña nueva (vacía para mantenerla): ");
+        if (newPassword == null || newPassword.length == 0) newPassword = oldPassword;
+
+        System.out.println("KDF: " + params);
+        int failed = 0;
+        for (Path file : files) {
+            try {
+                rewrapFile(file, oldPassword, newPassword, params);
+                System.out.println("OK    " + file);
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                System.err.println("ERROR " + file + ": " + e.getMessage());
+            }
+        }
+        Arrays.fill(oldPassword, '\0');
+        Arrays.fill(newPassword, '\0');
+        if (failed > 0) System.exit(1);
+    }
+
+    /**
+     * <h3>Vuelve a envolver un fichero y lo sustituye de forma atómica</h3>
+     *
+     * @param file        Fichero con un blob binario o en Base64.
+     * @param oldPassword Contraseña actual.
+     * @param newPassword Nueva contraseña.
+     * @param params      KDF y parámetros de la nueva envoltura.
+     * @throws IOException     Si falla la lectura o escritura.
+     * @throws CryptoException Si la contraseña actual no es correcta.
+     */
+    static void rewrapFile(Path file, char[] oldPassword, char[] newPassword, KdfParams params) throws IOException {
+        if (isSegmented(file)) {
+            UseCases.rewrap(file, oldPassword, newPassword, params);
+            return;
+        }
+
+        byte[] content = Files.readAllBytes(file);
+        boolean base64 = !startsWithMagic(content);
+        byte[] blob = base64
+                ? Base64.getMimeDecoder().decode(new String(content, StandardCharsets.US_ASCII).trim())
+                : content;
+
+        byte[] out = UseCases.rewrap(blob, oldPassword, newPassword, params);
+        if (base64) out = Base64.getEncoder().encode(out);
+
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), ".rewrap-", ".tmp");
+        try {
+            Files.write(tmp, out);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @param file Fichero a comprobar.
+     * @return {@code true} si es un contenedor segmentado v2, sin leerlo entero.
+     * @throws IOException Si falla la lectura.
+     */
+    private static boolean isSegmented(Path file) throws IOException {
+        byte[] head = new byte[Policy.MAGIC.length + 1];
+        try (InputStream in = Files.newInputStream(file)) {
+            if (in.readNBytes(head, 0, head.length) < head.length) return false;
+        }
+        return startsWithMagic(head) && head[Policy.MAGIC.length] == Policy.VERSION_SEGMENTED;
+    }
+
+    /**
+     * @param content Contenido del fichero.
+     * @return {@code true} si empieza por {@link Policy#MAGIC}.
+     */
+    private static boolean startsWithMagic(byte[] content) {
+        return content.length >= Policy.MAGIC.length
+                && Arrays.equals(content, 0, Policy.MAGIC.length, Policy.MAGIC, 0, Policy.MAGIC.length);
+    }
+
+    /**
+     * @param name Nombre de la KDF.
+     * @return Identificador de la KDF.
+     */
+    private static int kdfId(String name) {
+        switch (name.toLowerCase()) {
+            case "pbkdf2":
+                return Policy.KDF_ID_PBKDF2;
+            case "scrypt":
+                return Policy.KDF_ID_SCRYPT;
+            case "argon2id":
+                return Policy.KDF_ID_ARGON2ID;
+            default:
+                throw new IllegalArgumentException("KDF desconocida: " + name);
+        }
+    }
+
+    /**
+     * Muestra la ayuda de uso.
+     */
+    private static void usage() {
+        System.err.println("Uso: RewrapTool [--kdf pbkdf2|scrypt|argon2id] [--target-millis N] fichero...");
+    }
+}
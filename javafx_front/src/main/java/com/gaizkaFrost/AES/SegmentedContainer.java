@@ -0,0 +1,558 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>Contenedor segmentado (formato v2) con acceso aleatorio</h2>
+ *
+ * <p>
+ * A diferencia del formato v1 de {@link Serializer}, que guarda un único bloque
+ * cifrado, el formato v2 divide el texto en claro en segmentos de tamaño fijo
+ * cifrados de forma independiente con AES-GCM (u otro modo de {@link AeadMode}). Como todos los segmentos (salvo
+ * el último) tienen el mismo tamaño, la posición de cualquier segmento se calcula
+ * directamente a partir de su índice, sin necesidad de leer el resto del fichero.
+ * </p>
+ *
+ * <p>
+ * Estructura binaria:
+ * </p>
+ *
+ * <pre>
+ * MAGIC (3 bytes)
+ * version (1 byte) = 2
+ * mode (1 byte)
+ * kdf (1 byte)
+ * keyBits (2 bytes, BE)
+ * saltLen (2 bytes, BE)
+ * salt (...)
+ * [si kdf tiene {@link Policy#KDF_PARAMS_FLAG}] parámetros KDF (12 bytes)
+ * nonceLen (1 byte)
+ * nonce base (...)
+ * aadLen (2 bytes, BE)
+ * aad (...)
+ * segmentSize (4 bytes, BE)
+ * plaintextLen (8 bytes, BE)
+ * [si kdf = {@link Policy#KDF_ID_WRAPPED}] área de claves:
+ *     areaLen (2 bytes, BE)
+ *     count (1 byte) + count × (len (2 bytes, BE) + {@link KeyWrap}) + relleno con ceros
+ * segmento 0: ciphertext (segmentSize) + tag
+ * segmento 1: ciphertext (segmentSize) + tag
+ * ...
+ * segmento n-1: ciphertext (resto) + tag
+ * </pre>
+ *
+ * <p>
+ * Cada segmento usa como nonce el nonce base con los 4 últimos bytes combinados
+ * (XOR) con el índice del segmento, y como AAD la cabecera completa seguida del
+ * índice. Así se detecta la reordenación, el truncado y la manipulación de la cabecera.
+ * </p>
+ *
+ * <p>
+ * En modo sobre ({@link Recipient}) los segmentos se cifran con una clave de datos
+ * aleatoria, envuelta para cada destinatario en el área de claves. Esa área queda
+ * fuera de la AAD, de modo que añadir o quitar destinatarios o cambiar una
+ * contraseña no toca los segmentos: se copian tal cual, sin descifrarlos.
+ * Manipularla no compromete el contenido: una clave envuelta alterada no se abre,
+ * y una clave distinta no supera el tag de ningún segmento.
+ * </p>
+ *
+ * @see SegmentedReadChannel
+ * @see Policy#VERSION_SEGMENTED
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class SegmentedContainer {
+
+    /**
+     * Longitud de la parte fija inicial de la cabecera (MAGIC … saltLen).
+     */
+    private static final int FIXED_PREFIX_LEN = 10;
+
+    /**
+     * Número máximo de segmentos: el índice se codifica en 4 bytes.
+     */
+    static final long MAX_SEGMENTS = 0xFFFFFFFFL;
+
+    /**
+     * Modo de cifrado usado.
+     */
+    final int mode;
+
+    /**
+     * Función KDF y sus parámetros de coste.
+     */
+    final KdfParams kdfParams;
+
+    /**
+     * Tamaño de la clave en bits.
+     */
+    final int keyBits;
+
+    /**
+     * Sal usada en la derivación de clave.
+     */
+    final byte[] salt;
+
+    /**
+     * Nonce base del que se derivan los nonces de cada segmento.
+     */
+    final byte[] nonce;
+
+    /**
+     * Datos autenticados adicionales del usuario.
+     */
+    final byte[] aad;
+
+    /**
+     * Tamaño del texto en claro de cada segmento completo.
+     */
+    final int segmentSize;
+
+    /**
+     * Longitud total del texto en claro.
+     */
+    final long plaintextLength;
+
+    /**
+     * Cabecera serializada; forma parte de la AAD de cada segmento.
+     */
+    final byte[] headerBytes;
+
+    /**
+     * Claves de datos envueltas (modo sobre); vacía si la clave se deriva directamente.
+     */
+    final List<KeyWrap> keyWraps;
+
+    /**
+     * Capacidad del área de claves en bytes, sin contar su prefijo de longitud;
+     * 0 si el contenedor no está en modo sobre.
+     */
+    final int wrapAreaLen;
+
+    /**
+     * Construye la cabecera y calcula su forma serializada.
+     *
+     * @param mode            Modo de cifrado.
+     * @param kdfParams       KDF y parámetros de coste.
+     * @param keyBits         Tamaño de clave en bits.
+     * @param salt            Sal de la KDF.
+     * @param nonce           Nonce base.
+     * @param aad             AAD del usuario (puede ser {@code null}).
+     * @param segmentSize     Tamaño de segmento en bytes.
+     * @param plaintextLength Longitud total del texto en claro.
+     */
+    SegmentedContainer(int mode, KdfParams kdfParams, int keyBits, byte[] salt, byte[] nonce, byte[] aad,
+                       int segmentSize, long plaintextLength) {
+        this(mode, kdfParams, keyBits, salt, nonce, aad, segmentSize, plaintextLength, List.of(), 0);
+    }
+
+    /**
+     * Construye una cabecera en modo sobre cuando {@code wrapAreaLen > 0}.
+     *
+     * @param mode            Modo de cifrado.
+     * @param kdfParams       KDF y parámetros de coste (se ignoran en modo sobre).
+     * @param keyBits         Tamaño de clave en bits.
+     * @param salt            Sal de la KDF (vacía en modo sobre).
+     * @param nonce           Nonce base.
+     * @param aad             AAD del usuario (puede ser {@code null}).
+     * @param segmentSize     Tamaño de segmento en bytes.
+     * @param plaintextLength Longitud total del texto en claro.
+     * @param keyWraps        Claves de datos envueltas.
+     * @param wrapAreaLen     Capacidad del área de claves.
+     */
+    SegmentedContainer(int mode, KdfParams kdfParams, int keyBits, byte[] salt, byte[] nonce, byte[] aad,
+                       int segmentSize, long plaintextLength, List<KeyWrap> keyWraps, int wrapAreaLen) {
+        if (segmentSize <= 0 || segmentSize > Policy.SEGMENT_SIZE_MAX)
+            throw new CryptoFormatException("Tamaño de segmento inválido: " + segmentSize);
+        if (plaintextLength < 0)
+            throw new CryptoFormatException("Longitud inválida: " + plaintextLength);
+        if (nonce.length != Policy.GCM_NONCE_LEN)
+            throw new CryptoFormatException("Longitud de nonce inválida: " + nonce.length);
+        this.mode = mode;
+        this.kdfParams = kdfParams;
+        this.keyBits = keyBits;
+        this.salt = salt;
+        this.nonce = nonce;
+        this.aad = aad != null ? aad : new byte[0];
+        this.segmentSize = segmentSize;
+        this.plaintextLength = plaintextLength;
+        if (segmentCount() > MAX_SEGMENTS)
+            throw new CryptoFormatException("Demasiados segmentos para el tamaño indicado");
+        if (wrapAreaLen < 0 || wrapAreaLen > 0xFFFF || (wrapAreaLen > 0) == keyWraps.isEmpty()
+                || (wrapAreaLen > 0 && wrapAreaSize(keyWraps) > wrapAreaLen))
+            throw new CryptoFormatException("Área de claves inválida");
+        this.keyWraps = List.copyOf(keyWraps);
+        this.wrapAreaLen = wrapAreaLen;
+        this.headerBytes = encodeHeader();
+    }
+
+    /**
+     * @return {@code true} si el contenedor está en modo sobre.
+     */
+    boolean isEnvelope() {
+        return wrapAreaLen > 0;
+    }
+
+    /**
+     * Copia de la cabecera con otras claves envueltas. Los segmentos existentes
+     * siguen siendo válidos porque el área de claves no forma parte de su AAD.
+     *
+     * @param wraps Nuevas claves envueltas.
+     * @return Cabecera con el área de claves actual o, si no caben, una mayor.
+     */
+    SegmentedContainer withKeyWraps(List<KeyWrap> wraps) {
+        return new SegmentedContainer(mode, kdfParams, keyBits, salt, nonce, aad, segmentSize, plaintextLength,
+                wraps, wrapAreaCapacity(wrapAreaLen, wraps));
+    }
+
+    /**
+     * @param current Capacidad actual (o inicial) del área de claves.
+     * @param wraps   Claves envueltas que debe alojar.
+     * @return La capacidad actual si caben; si no, la duplica hasta que quepan.
+     */
+    static int wrapAreaCapacity(int current, List<KeyWrap> wraps) {
+        int area = current;
+        while (area < wrapAreaSize(wraps)) area *= 2;
+        return Math.min(area, 0xFFFF);
+    }
+
+    /**
+     * @param wraps Claves envueltas.
+     * @return Bytes que ocupan en el área de claves.
+     */
+    static int wrapAreaSize(List<KeyWrap> wraps) {
+        int n = 1;
+        for (KeyWrap w : wraps) n += 2 + w.encode().length;
+        return n;
+    }
+
+    /**
+     * Serializa el área de claves, con su prefijo de longitud y rellena con ceros.
+     *
+     * @return Bytes del área de claves.
+     */
+    byte[] encodeWrapArea() {
+        ByteBuffer bb = ByteBuffer.allocate(2 + wrapAreaLen).order(ByteOrder.BIG_ENDIAN);
+        bb.putShort((short) wrapAreaLen);
+        bb.put((byte) keyWraps.size());
+        for (KeyWrap w : keyWraps) {
+            byte[] e = w.encode();
+            bb.putShort((short) e.length).put(e);
+        }
+        return bb.array();
+    }
+
+    /**
+     * Número de segmentos del contenedor. Un texto vacío ocupa un único
+     * segmento vacío, de modo que la cabecera siempre queda autenticada.
+     *
+     * @return Número de segmentos.
+     */
+    long segmentCount() {
+        if (plaintextLength == 0) return 1;
+        return (plaintextLength + segmentSize - 1) / segmentSize;
+    }
+
+    /**
+     * Longitud del texto en claro del segmento indicado.
+     *
+     * @param index Índice del segmento.
+     * @return Bytes en claro del segmento.
+     */
+    int plainLength(long index) {
+        long start = index * segmentSize;
+        return (int) Math.min(segmentSize, plaintextLength - start);
+    }
+
+    /**
+     * Posición absoluta en el contenedor donde empieza el segmento indicado.
+     *
+     * @param index Índice del segmento.
+     * @return Desplazamiento en bytes desde el inicio del contenedor.
+     */
+    long segmentOffset(long index) {
+        long start = headerBytes.length + (isEnvelope() ? 2L + wrapAreaLen : 0);
+        return start + index * (segmentSize + (long) Policy.GCM_TAG_LEN);
+    }
+
+    /**
+     * Calcula el nonce del segmento indicado sobre un array reutilizable.
+     *
+     * @param index Índice del segmento.
+     * @param out   Array de {@link Policy#GCM_NONCE_LEN} bytes a rellenar.
+     * @return El propio {@code out}.
+     */
+    byte[] segmentNonce(long index, byte[] out) {
+        return indexedNonce(nonce, index, out);
+    }
+
+    /**
+     * Calcula la AAD del segmento indicado (cabecera + índice) sobre un array reutilizable.
+     *
+     * @param index Índice del segmento.
+     * @param out   Array de {@code headerBytes.length + 4} bytes a rellenar.
+     * @return El propio {@code out}.
+     */
+    byte[] segmentAad(long index, byte[] out) {
+        return indexedAad(headerBytes, index, out);
+    }
+
+    /**
+     * Combina (XOR) los 4 últimos bytes de un nonce base con un índice de segmento.
+     * Compartido por todos los formatos segmentados del paquete.
+     *
+     * @param base  Nonce base.
+     * @param index Índice del segmento (32 bits).
+     * @param out   Array de la misma longitud que {@code base} a rellenar.
+     * @return El propio {@code out}.
+     */
+    static byte[] indexedNonce(byte[] base, long index, byte[] out) {
+        System.arraycopy(base, 0, out, 0, base.length);
+        int n = out.length;
+        out[n - 4] ^= (byte) (index >>> 24);
+        out[n - 3] ^= (byte) (index >>> 16);
+        out[n - 2] ^= (byte) (index >>> 8);
+        out[n - 1] ^= (byte) index;
+        return out;
+    }
+
+    /**
+     * Construye la AAD de un segmento: cabecera serializada seguida del índice (4 bytes, BE).
+     *
+     * @param header Cabecera serializada del contenedor.
+     * @param index  Índice del segmento (32 bits).
+     * @param out    Array de {@code header.length + 4} bytes a rellenar.
+     * @return El propio {@code out}.
+     */
+    static byte[] indexedAad(byte[] header, long index, byte[] out) {
+        int n = header.length;
+        System.arraycopy(header, 0, out, 0, n);
+        out[n] = (byte) (index >>> 24);
+        out[n + 1] = (byte) (index >>> 16);
+        out[n + 2] = (byte) (index >>> 8);
+        out[n + 3] = (byte) index;
+        return out;
+    }
+
+    /**
+     * <h3>Cifra un flujo completo en formato v2</h3>
+     *
+     * <p>
+     * Escribe la cabecera y, a continuación, cada segmento cifrado.
+     * Solo se mantiene en memoria un segmento cada vez.
+     * </p>
+     *
+     * @param in  Origen del texto en claro; debe aportar exactamente {@link #plaintextLength} bytes.
+     * @param out Destino del contenedor.
+     * @param key Clave AES derivada.
+     * @throws IOException     Si falla la E/S o el origen termina antes de lo esperado.
+     * @throws CryptoException Si ocurre un error criptográfico.
+     */
+    void encrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key) throws IOException {
+        writeFully(out, ByteBuffer.wrap(headerBytes));
+        if (isEnvelope()) writeFully(out, ByteBuffer.wrap(encodeWrapArea()));
+
+        AeadMode aead = AeadMode.byId(mode);
+        SecretKey k = aead.adapt(key);
+        Cipher cipher = CryptoEngine.newCipher(aead);
+        ByteBuffer plain = ByteBuffer.allocate(segmentSize);
+        ByteBuffer ct = ByteBuffer.allocate(segmentSize + Policy.GCM_TAG_LEN);
+        byte[] segNonce = new byte[nonce.length];
+        byte[] segAad = new byte[headerBytes.length + 4];
+
+        long count = segmentCount();
+        for (long i = 0; i < count; i++) {
+            plain.clear().limit(plainLength(i));
+            readFully(in, plain);
+            plain.flip();
+            ct.clear();
+            CryptoEngine.encryptSegment(cipher, aead, k, segmentNonce(i, segNonce), segmentAad(i, segAad), plain, ct);
+            ct.flip();
+            writeFully(out, ct);
+        }
+    }
+
+    /**
+     * <h3>Descifra en orden los segmentos de un flujo v2</h3>
+     *
+     * <p>
+     * Para orígenes sin acceso aleatorio (p. ej. un texto con armadura); con un fichero
+     * es preferible {@link SegmentedReadChannel}. Cada segmento se autentica antes de
+     * escribirlo, pero si uno falla los anteriores ya están en {@code out}: el
+     * resultado de un descifrado fallido debe descartarse entero.
+     * </p>
+     *
+     * @param in  Origen posicionado tras la cabecera (y el área de claves).
+     * @param out Destino del texto en claro.
+     * @param key Clave AES del contenedor.
+     * @throws IOException           Si falla la E/S o el origen termina antes de lo esperado.
+     * @throws CryptoFormatException Si hay datos después del último segmento.
+     * @throws CryptoException       Si algún segmento no supera la verificación.
+     */
+    void decrypt(ReadableByteChannel in, WritableByteChannel out, SecretKey key) throws IOException {
+        AeadMode aead = AeadMode.byId(mode);
+        SecretKey k = aead.adapt(key);
+        Cipher cipher = CryptoEngine.newCipher(aead);
+        ByteBuffer ct = ByteBuffer.allocate(segmentSize + Policy.GCM_TAG_LEN);
+        ByteBuffer plain = ByteBuffer.allocate(segmentSize);
+        byte[] segNonce = new byte[nonce.length];
+        byte[] segAad = new byte[headerBytes.length + 4];
+
+        long count = segmentCount();
+        for (long i = 0; i < count; i++) {
+            ct.clear().limit(plainLength(i) + Policy.GCM_TAG_LEN);
+            readFully(in, ct);
+            ct.flip();
+            plain.clear();
+            try {
+                CryptoEngine.decryptSegment(cipher, aead, k, segmentNonce(i, segNonce), segmentAad(i, segAad), ct, plain);
+            } catch (CryptoException e) {
+                throw new CryptoException("Segmento " + i + " corrupto o manipulado", e);
+            }
+            plain.flip();
+            writeFully(out, plain);
+        }
+        if (in.read(ct.clear().limit(1)) >= 0)
+            throw new CryptoFormatException("Datos sobrantes tras el último segmento");
+    }
+
+    /**
+     * <h3>Lee y valida la cabecera v2 desde un canal</h3>
+     *
+     * @param in Canal posicionado al inicio del contenedor.
+     * @return La cabecera reconstruida.
+     * @throws IOException           Si falla la lectura.
+     * @throws CryptoFormatException Si la cabecera es incorrecta, truncada o de otra versión.
+     */
+    static SegmentedContainer readHeader(ReadableByteChannel in) throws IOException {
+        try {
+            ByteBuffer bb = read(in, FIXED_PREFIX_LEN);
+            byte m0 = bb.get(), m1 = bb.get(), m2 = bb.get();
+            if (m0 != Policy.MAGIC[0] || m1 != Policy.MAGIC[1] || m2 != Policy.MAGIC[2])
+                throw new CryptoFormatException("Magic incorrecto");
+
+            int version = bb.get() & 0xFF;
+            if (version != Policy.VERSION_SEGMENTED)
+                throw new CryptoFormatException("Versión no soportada: v" + version);
+
+            int mode = bb.get() & 0xFF;
+            int kdf = bb.get() & 0xFF;
+            int keyBits = bb.getShort() & 0xFFFF;
+
+            boolean envelope = kdf == Policy.KDF_ID_WRAPPED;
+            int saltLen = bb.getShort() & 0xFFFF;
+            bb = read(in, saltLen + KdfParams.headerLength(kdf) + 1);
+            byte[] salt = new byte[saltLen];
+            bb.get(salt);
+            KdfParams kdfParams = envelope ? KdfParams.legacy() : KdfParams.readHeader(kdf, bb);
+            bb.position(bb.position() + KdfParams.headerLength(kdf));
+
+            int nonceLen = bb.get() & 0xFF;
+            bb = read(in, nonceLen + 2);
+            byte[] nonce = new byte[nonceLen];
+            bb.get(nonce);
+
+            int aadLen = bb.getShort() & 0xFFFF;
+            bb = read(in, aadLen + 12);
+            byte[] aad = new byte[aadLen];
+            bb.get(aad);
+
+            int segmentSize = bb.getInt();
+            long plaintextLength = bb.getLong();
+
+            List<KeyWrap> wraps = new ArrayList<>();
+            int wrapAreaLen = 0;
+            if (envelope) {
+                wrapAreaLen = read(in, 2).getShort() & 0xFFFF;
+                ByteBuffer area = read(in, wrapAreaLen);
+                int count = area.get() & 0xFF;
+                for (int i = 0; i < count; i++) {
+                    int len = area.getShort() & 0xFFFF;
+                    wraps.add(KeyWrap.decode(area.slice().limit(len)));
+                    area.position(area.position() + len);
+                }
+            }
+
+            return new SegmentedContainer(mode, kdfParams, keyBits, salt, nonce, aad, segmentSize, plaintextLength,
+                    wraps, wrapAreaLen);
+        } catch (CryptoFormatException e) {
+            throw e;
+        } catch (EOFException | RuntimeException e) {
+            throw new CryptoFormatException("Cabecera v2 truncada", e);
+        }
+    }
+
+    /**
+     * Serializa la cabecera según la estructura descrita en la clase.
+     *
+     * @return Bytes de la cabecera.
+     */
+    private byte[] encodeHeader() {
+        int paramsLen = isEnvelope() ? 0 : kdfParams.headerLength();
+        ByteBuffer bb = ByteBuffer.allocate(FIXED_PREFIX_LEN + salt.length + paramsLen + 1 + nonce.length
+                        + 2 + aad.length + 12)
+                .order(ByteOrder.BIG_ENDIAN);
+        bb.put(Policy.MAGIC);
+        bb.put((byte) Policy.VERSION_SEGMENTED);
+        bb.put((byte) mode);
+        bb.put((byte) (isEnvelope() ? Policy.KDF_ID_WRAPPED : kdfParams.headerByte()));
+        bb.putShort((short) keyBits);
+        bb.putShort((short) salt.length).put(salt);
+        if (!isEnvelope()) kdfParams.writeHeader(bb);
+        bb.put((byte) nonce.length).put(nonce);
+        bb.putShort((short) aad.length).put(aad);
+        bb.putInt(segmentSize);
+        bb.putLong(plaintextLength);
+        return bb.array();
+    }
+
+    /**
+     * Lee exactamente {@code n} bytes del canal.
+     *
+     * @param in Canal de origen.
+     * @param n  Número de bytes.
+     * @return Buffer en modo lectura con los {@code n} bytes.
+     * @throws IOException Si el canal termina antes.
+     */
+    static ByteBuffer read(ReadableByteChannel in, int n) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(n).order(ByteOrder.BIG_ENDIAN);
+        readFully(in, bb);
+        return bb.flip();
+    }
+
+    /**
+     * Rellena los bytes restantes del buffer leyendo del canal.
+     *
+     * @param in  Canal de origen.
+     * @param dst Buffer de destino.
+     * @throws IOException Si el canal termina antes de llenar el buffer.
+     */
+    static void readFully(ReadableByteChannel in, ByteBuffer dst) throws IOException {
+        while (dst.hasRemaining()) {
+            if (in.read(dst) < 0) throw new EOFException("Fin de datos inesperado");
+        }
+    }
+
+    /**
+     * Escribe todos los bytes restantes del buffer en el canal.
+     *
+     * @param out Canal de destino.
+     * @param src Buffer de origen.
+     * @throws IOException Si falla la escritura.
+     */
+    static void writeFully(WritableByteChannel out, ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) out.write(src);
+    }
+}
@@ -0,0 +1,256 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+
+/**
+ * <h2>Canal de lectura con acceso aleatorio sobre un contenedor v2</h2>
+ *
+ * <p>
+ * Expone el texto en claro de un {@link SegmentedContainer} como un
+ * {@link SeekableByteChannel} de solo lectura. Cada lectura descifra únicamente
+ * los segmentos que cubren el rango pedido, por lo que la E/S y el coste
+ * criptográfico son proporcionales al rango y no al tamaño del fichero.
+ * </p>
+ *
+ * <p>
+ * Se conserva en memoria el último segmento descifrado, de modo que las lecturas
+ * secuenciales pequeñas no vuelven a descifrar el mismo segmento.
+ * </p>
+ *
+ * <p>
+ * La clase no es segura para uso concurrente, igual que la mayoría de canales.
+ * </p>
+ *
+ * @see SegmentedContainer
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class SegmentedReadChannel implements SeekableByteChannel {
+
+    /**
+     * Canal subyacente con el contenedor cifrado.
+     */
+    private final SeekableByteChannel src;
+
+    /**
+     * Cabecera del contenedor.
+     */
+    private final SegmentedContainer header;
+
+    /**
+     * Clave derivada, adaptada al modo AEAD.
+     */
+    private final SecretKey key;
+
+    /**
+     * Modo AEAD declarado por la cabecera.
+     */
+    private final AeadMode mode;
+
+    /**
+     * Instancia de {@link Cipher} reutilizada entre segmentos.
+     */
+    private final Cipher cipher;
+
+    /**
+     * Buffer reutilizable para el texto cifrado de un segmento.
+     */
+    private final ByteBuffer ctBuf;
+
+    /**
+     * Buffer con el texto en claro del último segmento descifrado.
+     */
+    private final ByteBuffer plainBuf;
+
+    /**
+     * Nonce reutilizable por segmento.
+     */
+    private final byte[] segNonce;
+
+    /**
+     * AAD reutilizable por segmento.
+     */
+    private final byte[] segAad;
+
+    /**
+     * Índice del segmento contenido en {@link #plainBuf}, o -1 si no hay ninguno.
+     */
+    private long loadedSegment = -1;
+
+    /**
+     * Posición actual dentro del texto en claro.
+     */
+    private long position;
+
+    /**
+     * Indica si el canal sigue abierto.
+     */
+    private boolean open = true;
+
+    /**
+     * Crea el canal sobre un contenedor cuya cabecera ya se ha leído.
+     *
+     * @param src    Canal con el contenedor cifrado.
+     * @param header Cabecera leída con {@link SegmentedContainer#readHeader}.
+     * @param key    Clave AES derivada de la contraseña.
+     */
+    SegmentedReadChannel(SeekableByteChannel src, SegmentedContainer header, SecretKey key) {
+        this.src = src;
+        this.header = header;
+        this.mode = AeadMode.byId(header.mode);
+        this.key = mode.adapt(key);
+        this.cipher = CryptoEngine.newCipher(mode);
+        this.ctBuf = ByteBuffer.allocate(header.segmentSize + Policy.GCM_TAG_LEN);
+        this.plainBuf = ByteBuffer.allocate(header.segmentSize);
+        this.segNonce = new byte[header.nonce.length];
+        this.segAad = new byte[header.headerBytes.length + 4];
+    }
+
+    /**
+     * Lee texto en claro desde la posición actual, descifrando bajo demanda
+     * los segmentos necesarios.
+     *
+     * @param dst Buffer de destino.
+     * @return Número de bytes leídos, o -1 al final del contenido.
+     * @throws IOException     Si falla la E/S o el contenedor está truncado.
+     * @throws CryptoException Si un segmento no supera la verificación GCM.
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= header.plaintextLength) return -1;
+
+        int total = 0;
+        while (dst.hasRemaining() && position < header.plaintextLength) {
+            long index = position / header.segmentSize;
+            load(index);
+
+            int offset = (int) (position - index * header.segmentSize);
+            int n = Math.min(dst.remaining(), plainBuf.limit() - offset);
+            dst.put(plainBuf.array(), offset, n);
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Descifra el segmento indicado si no es el que ya está en memoria.
+     *
+     * @param index Índice del segmento.
+     * @throws IOException Si falla la lectura del segmento.
+     */
+    private void load(long index) throws IOException {
+        if (index == loadedSegment) return;
+        loadedSegment = -1;
+
+        int plainLen = header.plainLength(index);
+        ctBuf.clear().limit(plainLen + Policy.GCM_TAG_LEN);
+        src.position(header.segmentOffset(index));
+        SegmentedContainer.readFully(src, ctBuf);
+        ctBuf.flip();
+
+        plainBuf.clear();
+        CryptoEngine.decryptSegment(cipher, mode, key,
+                header.segmentNonce(index, segNonce), header.segmentAad(index, segAad), ctBuf, plainBuf);
+        plainBuf.flip();
+        loadedSegment = index;
+    }
+
+    /**
+     * Operación no soportada: el canal es de solo lectura.
+     *
+     * @param src Ignorado.
+     * @return Nunca retorna.
+     */
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * @return Posición actual dentro del texto en claro.
+     * @throws IOException Si el canal está cerrado.
+     */
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    /**
+     * Cambia la posición de lectura dentro del texto en claro.
+     *
+     * @param newPosition Nueva posición (puede superar el tamaño; entonces se lee fin de datos).
+     * @return Este mismo canal.
+     * @throws IOException Si el canal está cerrado.
+     */
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) throw new IllegalArgumentException("Posición negativa: " + newPosition);
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * @return Longitud total del texto en claro.
+     * @throws IOException Si el canal está cerrado.
+     */
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return header.plaintextLength;
+    }
+
+    /**
+     * Operación no soportada: el canal es de solo lectura.
+     *
+     * @param size Ignorado.
+     * @return Nunca retorna.
+     */
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * @return {@code true} mientras el canal no se haya cerrado.
+     */
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Cierra el canal subyacente y limpia el texto en claro retenido en memoria.
+     *
+     * @throws IOException Si falla el cierre del canal subyacente.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!open) return;
+        open = false;
+        Arrays.fill(plainBuf.array(), (byte) 0);
+        src.close();
+    }
+
+    /**
+     * Comprueba que el canal siga abierto.
+     *
+     * @throws ClosedChannelException Si ya se cerró.
+     */
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) throw new ClosedChannelException();
+    }
+}
@@ -1,8 +1,11 @@
 package com.gaizkaFrost.AES;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <h2>Serializador y deserializador del artefacto AES</h2>
@@ -25,6 +28,8 @@ import java.nio.ByteOrder;
  * mode (1 byte)
  * kdf (1 byte)
  * keyBits (2 bytes, BE)
+ * [solo v4] extCount (1 byte)
+ * [solo v4] extensiones: type (1 byte) + len (2 bytes, BE) + valor (...)
  * saltLen (2 bytes, BE)
  * salt (...)
  * nonceLen (1 byte)
@@ -41,6 +46,15 @@ import java.nio.ByteOrder;
  * Todos los enteros se escriben en big-endian (BE), acorde con la política del módulo.
  * </p>
  *
+ * <p>
+ * La versión {@link Policy#VERSION_EXTENDED} (v4) añade un bloque de extensiones
+ * para campos opcionales como la compresión ({@link Policy#EXT_COMPRESSION}) o los
+ * parámetros de coste de la KDF ({@link Policy#EXT_KDF_PARAMS}) y la clave de datos
+ * envuelta ({@link Policy#EXT_KEY_WRAP}).
+ * Los artefactos sin extensiones se siguen escribiendo en v1, de modo que
+ * lectores antiguos pueden abrirlos.
+ * </p>
+ *
  * @see CipherArtifact
  * @see Policy
  * @see CryptoFormatException
@@ -60,6 +74,11 @@ final class Serializer {
      */
     private Serializer() {}
 
+    /**
+     * Array vacío para los campos aún no leídos.
+     */
+    private static final byte[] EMPTY = new byte[0];
+
     /**
      * <h3>Serializa un {@link CipherArtifact} a un array de bytes</h3>
      *
@@ -74,29 +93,11 @@ final class Serializer {
      * @throws CryptoException Si ocurre cualquier error de E/S o ensamblado.
      */
     static byte[] encode(CipherArtifact a) {
+        CryptoEvents.Serialize ev = new CryptoEvents.Serialize();
+        ev.begin();
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-            // Cabecera mágica
-            out.write(Policy.MAGIC);
-
-            // Campos principales
-            out.write((byte) a.version);
-            out.write((byte) a.mode);
-            out.write((byte) a.kdf);
-            out.write(shortToBE((short) a.keyBits));
-
-            // SALT
-            out.write(shortToBE((short) a.salt.length));
-            out.write(a.salt);
-
-            // NONCE
-            out.write((byte) a.nonce.length);
-            out.write(a.nonce);
-
-            // AAD
-            out.write(shortToBE((short) a.aad.length));
-            if (a.aad.length > 0) out.write(a.aad);
+            writePrefix(out, a);
 
             // CIPHERTEXT
             out.write(intToBE(a.ciphertext.length));
@@ -106,13 +107,75 @@ final class Serializer {
             out.write((byte) a.tag.length);
             out.write(a.tag);
 
-            return out.toByteArray();
+            byte[] blob = out.toByteArray();
+            CryptoEvents.commit(ev, e -> {
+                e.operation = "encode";
+                e.version = a.version;
+                e.bytes = blob.length;
+            });
+            return blob;
 
         } catch (Exception e) {
             throw new CryptoException("Error serializando: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * <h3>Serializa la parte del artefacto anterior al texto cifrado</h3>
+     *
+     * <p>
+     * Cabecera, extensiones, sal, nonce y AAD; ignora {@code ciphertext} y {@code tag}.
+     * Permite escribir el texto cifrado directamente a continuación, sin componer el
+     * blob completo en un array (ver {@link TextCipher}).
+     * </p>
+     *
+     * @param a Artefacto (sus campos {@code ciphertext} y {@code tag} no se usan).
+     * @return Bytes anteriores al campo {@code ctLen}.
+     * @throws CryptoException Si ocurre cualquier error de ensamblado.
+     */
+    static byte[] encodePrefix(CipherArtifact a) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writePrefix(out, a);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new CryptoException("Error serializando: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Escribe cabecera, extensiones, sal, nonce y AAD.
+     *
+     * @param out Flujo de salida.
+     * @param a   Artefacto a serializar.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void writePrefix(ByteArrayOutputStream out, CipherArtifact a) throws IOException {
+        // Cabecera mágica
+        out.write(Policy.MAGIC);
+
+        // Campos principales
+        out.write((byte) a.version);
+        out.write((byte) a.mode);
+        out.write((byte) a.kdf);
+        out.write(shortToBE((short) a.keyBits));
+
+        // EXTENSIONES (solo v4)
+        if (a.version == Policy.VERSION_EXTENDED) writeExtensions(out, a);
+
+        // SALT
+        out.write(shortToBE((short) a.salt.length));
+        out.write(a.salt);
+
+        // NONCE
+        out.write((byte) a.nonce.length);
+        out.write(a.nonce);
+
+        // AAD
+        out.write(shortToBE((short) a.aad.length));
+        if (a.aad.length > 0) out.write(a.aad);
+    }
+
     /**
      * <h3>Deserializa un bloque binario en un {@link CipherArtifact}</h3>
      *
@@ -134,37 +197,11 @@ final class Serializer {
      * @throws CryptoFormatException Si el formato es incorrecto, truncado o incompatible.
      */
     static CipherArtifact decode(byte[] blob) {
+        CryptoEvents.Serialize ev = new CryptoEvents.Serialize();
+        ev.begin();
         try {
             ByteBuffer bb = ByteBuffer.wrap(blob).order(ByteOrder.BIG_ENDIAN);
-
-            // Validación MAGIC
-            byte m0 = bb.get(), m1 = bb.get(), m2 = bb.get();
-            if (m0 != Policy.MAGIC[0] || m1 != Policy.MAGIC[1] || m2 != Policy.MAGIC[2])
-                throw new CryptoFormatException("Magic incorrecto");
-
-            int version = bb.get() & 0xFF;
-            int mode = bb.get() & 0xFF;
-            int kdf = bb.get() & 0xFF;
-            int keyBits = bb.getShort() & 0xFFFF;
-
-            // validación de versión del protocolo
-            if (version != Policy.VERSION)
-                throw new CryptoFormatException("Versión no soportada: v" + version);
-
-            // SALT
-            int saltLen = bb.getShort() & 0xFFFF;
-            byte[] salt = new byte[saltLen];
-            bb.get(salt);
-
-            // NONCE
-            int nonceLen = bb.get() & 0xFF;
-            byte[] nonce = new byte[nonceLen];
-            bb.get(nonce);
-
-            // AAD
-            int aadLen = bb.getShort() & 0xFFFF;
-            byte[] aad = new byte[aadLen];
-            if (aadLen > 0) bb.get(aad);
+            CipherArtifact p = readPrefix(bb);
 
             // CIPHERTEXT
             int ctLen = bb.getInt();
@@ -176,13 +213,149 @@ final class Serializer {
             byte[] tag = new byte[tagLen];
             bb.get(tag);
 
-            return new CipherArtifact(version, mode, kdf, keyBits, salt, nonce, aad, ct, tag);
+            CipherArtifact a = new CipherArtifact(p.version, p.mode, p.kdf, p.keyBits, p.salt, p.nonce, p.aad, ct, tag,
+                    p.compression, p.originalLength, p.kdfParams, p.keyWraps);
+            CryptoEvents.commit(ev, e -> {
+                e.operation = "decode";
+                e.version = p.version;
+                e.bytes = blob.length;
+            });
+            return a;
+
+        } catch (CryptoFormatException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CryptoFormatException("Blob inválido o truncado: " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * <h3>Deserializa la parte del blob anterior al texto cifrado</h3>
+     *
+     * <p>
+     * Deja {@code bb} posicionado en el campo {@code ctLen}, de modo que el texto
+     * cifrado y el tag pueden leerse del propio búfer sin copiarlos.
+     * </p>
+     *
+     * @param bb Búfer big-endian posicionado al inicio del blob.
+     * @return Artefacto con {@code ciphertext} y {@code tag} vacíos.
+     * @throws CryptoFormatException Si el formato es incorrecto, truncado o incompatible.
+     */
+    static CipherArtifact decodePrefix(ByteBuffer bb) {
+        try {
+            return readPrefix(bb);
+        } catch (CryptoFormatException e) {
+            throw e;
         } catch (Exception e) {
             throw new CryptoFormatException("Blob inválido o truncado: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Lee cabecera, extensiones, sal, nonce y AAD.
+     *
+     * @param bb Búfer big-endian posicionado al inicio del blob.
+     * @return Artefacto con {@code ciphertext} y {@code tag} vacíos.
+     */
+    private static CipherArtifact readPrefix(ByteBuffer bb) {
+        // Validación MAGIC
+        byte m0 = bb.get(), m1 = bb.get(), m2 = bb.get();
+        if (m0 != Policy.MAGIC[0] || m1 != Policy.MAGIC[1] || m2 != Policy.MAGIC[2])
+            throw new CryptoFormatException("Magic incorrecto");
+
+        int version = bb.get() & 0xFF;
+        int mode = bb.get() & 0xFF;
+        int kdf = bb.get() & 0xFF;
+        int keyBits = bb.getShort() & 0xFFFF;
+
+        // validación de versión del protocolo
+        if (version != Policy.VERSION && version != Policy.VERSION_EXTENDED)
+            throw new CryptoFormatException("Versión no soportada: v" + version);
+
+        // EXTENSIONES (solo v4)
+        int compression = Policy.COMPRESSION_NONE;
+        int originalLength = 0;
+        KdfParams kdfParams = null;
+        List<KeyWrap> keyWraps = new ArrayList<>();
+        if (version == Policy.VERSION_EXTENDED) {
+            int extCount = bb.get() & 0xFF;
+            for (int i = 0; i < extCount; i++) {
+                int type = bb.get() & 0xFF;
+                int len = bb.getShort() & 0xFFFF;
+                ByteBuffer value = bb.slice().limit(len);
+                bb.position(bb.position() + len);
+                if (type == Policy.EXT_COMPRESSION) {
+                    compression = value.get() & 0xFF;
+                    originalLength = value.getInt();
+                    if (originalLength < 0)
+                        throw new CryptoFormatException("Longitud original inválida");
+                } else if (type == Policy.EXT_KDF_PARAMS) {
+                    kdfParams = KdfParams.decode(kdf, value);
+                } else if (type == Policy.EXT_KEY_WRAP) {
+                    keyWraps.add(KeyWrap.decode(value));
+                } else {
+                    throw new CryptoFormatException("Extensión desconocida: " + type);
+                }
+            }
+        }
+
+        if ((kdf == Policy.KDF_ID_WRAPPED) == keyWraps.isEmpty())
+            throw new CryptoFormatException("Clave envuelta ausente o inesperada");
+        if (kdfParams == null && kdf != Policy.KDF_ID_PBKDF2 && kdf != Policy.KDF_ID_WRAPPED)
+            throw new CryptoFormatException("Faltan los parámetros de la KDF " + kdf);
+
+        // SALT
+        int saltLen = bb.getShort() & 0xFFFF;
+        byte[] salt = new byte[saltLen];
+        bb.get(salt);
+
+        // NONCE
+        int nonceLen = bb.get() & 0xFF;
+        byte[] nonce = new byte[nonceLen];
+        bb.get(nonce);
+
+        // AAD
+        int aadLen = bb.getShort() & 0xFFFF;
+        byte[] aad = new byte[aadLen];
+        if (aadLen > 0) bb.get(aad);
+
+        return new CipherArtifact(version, mode, kdf, keyBits, salt, nonce, aad, EMPTY, EMPTY,
+                compression, originalLength, kdfParams, keyWraps);
+    }
+
+    /**
+     * Escribe el bloque de extensiones del formato v4.
+     *
+     * @param out Flujo de salida.
+     * @param a   Artefacto a serializar.
+     * @throws IOException Si falla la escritura.
+     */
+    private static void writeExtensions(ByteArrayOutputStream out, CipherArtifact a) throws IOException {
+        boolean kdfExt = !a.kdfParams.isLegacy();
+        int count = (a.compression != Policy.COMPRESSION_NONE ? 1 : 0) + (kdfExt ? 1 : 0) + a.keyWraps.size();
+        out.write((byte) count);
+
+        if (a.compression != Policy.COMPRESSION_NONE) {
+            out.write((byte) Policy.EXT_COMPRESSION);
+            out.write(shortToBE((short) 5));
+            out.write((byte) a.compression);
+            out.write(intToBE(a.originalLength));
+        }
+
+        if (kdfExt) {
+            out.write((byte) Policy.EXT_KDF_PARAMS);
+            out.write(shortToBE((short) KdfParams.ENCODED_LEN));
+            out.write(a.kdfParams.encode());
+        }
+
+        for (KeyWrap w : a.keyWraps) {
+            byte[] value = w.encode();
+            out.write((byte) Policy.EXT_KEY_WRAP);
+            out.write(shortToBE((short) value.length));
+            out.write(value);
+        }
+    }
+
     /**
      * Convierte un entero corto (short) a big-endian.
      *
@@ -0,0 +1,445 @@
+package com.gaizkaFrost.AES;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h2>Cifrado de texto sin copias intermedias</h2>
+ *
+ * <p>
+ * Equivalente a {@link UseCases#encryptToBase64(byte[], char[], String, boolean)} y
+ * {@link UseCases#decryptFromBase64(String, char[])}, con el mismo formato de salida,
+ * pero trabajando sobre búferes reutilizables de cada hilo: el texto se codifica en
+ * UTF-8 con un {@link CharsetEncoder} directamente en el búfer que alimenta al cifrado,
+ * el blob se compone en su sitio (cabecera, texto cifrado y tag) y el Base64 se
+ * escribe por bloques en un {@link Appendable}. Al descifrar se recorre el camino
+ * inverso. No se crean {@code byte[]} ni {@code String} del tamaño del texto salvo los
+ * que pida el destino (p. ej. el {@code toString()} final de un {@link StringBuilder}).
+ * </p>
+ *
+ * <p>
+ * Los búferes solo se conservan hasta {@link #POOLED_MAX} bytes por hilo; los textos
+ * mayores usan búferes temporales (o, mejor, la armadura en flujo de
+ * {@link UseCases#encryptToArmor}). Al terminar cada llamada se borra la parte usada
+ * de cada búfer, para que el texto en claro no quede en memoria mientras viva el hilo.
+ * </p>
+ *
+ * @see AESCryptoService
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class TextCipher {
+
+    /**
+     * Tamaño máximo de cada búfer que se conserva entre llamadas.
+     */
+    static final int POOLED_MAX = 1 << 20;
+
+    /**
+     * Bytes por bloque de Base64 (múltiplo de 3, sin relleno intermedio).
+     */
+    private static final int B64_BLOCK = 3 * 1024;
+
+    /**
+     * Alfabeto Base64 estándar (RFC 4648).
+     */
+    private static final char[] B64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    /**
+     * Valor de cada carácter ASCII en el alfabeto, o -1.
+     */
+    private static final byte[] B64_INV = new byte[128];
+
+    static {
+        Arrays.fill(B64_INV, (byte) -1);
+        for (int i = 0; i < B64.length; i++) B64_INV[B64[i]] = (byte) i;
+    }
+
+    /**
+     * Búferes de cada hilo.
+     */
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private TextCipher() {}
+
+    /**
+     * <h3>Cifra un texto y añade el resultado en Base64 a un destino</h3>
+     *
+     * @param text     Texto en claro.
+     * @param password Contraseña usada para generar la clave.
+     * @param aad      AAD (opcional), codificada en UTF-8.
+     * @param compress {@code true} para comprimir antes de cifrar cuando compense.
+     * @param out      Destino del Base64 (p. ej. un {@link StringBuilder} reutilizado).
+     * @throws IOException     Si falla la escritura en {@code out}.
+     * @throws CryptoException Si ocurre un error criptográfico.
+     */
+    public static void encrypt(CharSequence text, char[] password, CharSequence aad, boolean compress,
+                               Appendable out) throws IOException {
+        byte[] salt = RandomSource.nextBytes(Policy.SALT_LEN);
+        KdfParams kdfParams = KdfParams.preferred();
+        SecretKey key = KeyDerivation.derive(password, salt, Policy.KEY_BITS_DEFAULT, kdfParams).key();
+
+        long start = System.nanoTime();
+        Buffers b = BUFFERS.get();
+        try {
+            ByteBuffer plain = b.encode(text);
+            int plainLen = plain.remaining();
+
+            int compression = Policy.COMPRESSION_NONE;
+            ByteBuffer payload = plain;
+            int codec = UseCases.codecFor(compress);
+            if (codec != Policy.COMPRESSION_NONE && Compression.worthCompressing(plain.array(), plainLen)) {
+                ByteBuffer packed = b.compress(plain, Compression.codec(codec));
+                if (packed.remaining() < plainLen) {
+                    compression = codec;
+                    payload = packed;
+                }
+            }
+
+            byte[] userAad = aad != null ? aad.toString().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            byte[] nonce = RandomSource.nextBytes(Policy.GCM_NONCE_LEN);
+            AeadMode mode = AeadMode.preferred();
+            boolean extended = compression != Policy.COMPRESSION_NONE || !kdfParams.isLegacy();
+            CipherArtifact header = new CipherArtifact(
+                    extended ? Policy.VERSION_EXTENDED : Policy.VERSION,
+                    mode.id, kdfParams.kdf, Policy.KEY_BITS_DEFAULT, salt, nonce, userAad,
+                    new byte[0], new byte[0], compression, plainLen, kdfParams, List.of());
+            byte[] prefix = Serializer.encodePrefix(header);
+
+            int ctLen = payload.remaining();
+            ByteBuffer blob = b.blob(prefix.length + 4 + ctLen + 1 + Policy.GCM_TAG_LEN);
+            blob.put(prefix).putInt(ctLen);
+            CryptoEngine.encryptSegment(b.cipher(mode), mode, key, nonce, header.payloadAad(), payload, blob);
+
+            // El cifrado deja texto cifrado + tag seguidos; el formato lleva tagLen entre ambos.
+            byte[] arr = blob.array();
+            int tagAt = blob.position() - Policy.GCM_TAG_LEN;
+            System.arraycopy(arr, tagAt, arr, tagAt + 1, Policy.GCM_TAG_LEN);
+            arr[tagAt] = (byte) Policy.GCM_TAG_LEN;
+            int blobLen = blob.position() + 1;
+            CryptoMetrics.ENCRYPT.record(System.nanoTime() - start, plainLen);
+
+            b.base64(arr, blobLen, out);
+        } finally {
+            b.release();
+        }
+    }
+
+    /**
+     * <h3>Descifra un texto en Base64 y añade el texto en claro a un destino</h3>
+     *
+     * @param base64   Blob en Base64 generado por {@link #encrypt} o por
+     *                 {@link UseCases#encryptToBase64(byte[], char[], String, boolean)}.
+     * @param password Contraseña utilizada al cifrar.
+     * @param out      Destino del texto en claro.
+     * @throws IOException           Si falla la escritura en {@code out}.
+     * @throws CryptoFormatException Si el Base64 o el blob no son válidos.
+     * @throws CryptoException       Si la contraseña es incorrecta o los datos están corruptos.
+     */
+    public static void decrypt(CharSequence base64, char[] password, Appendable out) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Buffers b = BUFFERS.get();
+            ByteBuffer bb = b.unbase64(base64);
+            byte[] arr = bb.array();
+            CipherArtifact a = Serializer.decodePrefix(bb);
+
+            int ctLen = bb.getInt();
+            if (ctLen < 0 || ctLen > bb.remaining() - 1)
+                throw new CryptoFormatException("Blob inválido o truncado");
+            int ctAt = bb.position();
+            int tagLen = arr[ctAt + ctLen] & 0xFF;
+            if (tagLen != Policy.GCM_TAG_LEN || ctAt + ctLen + 1 + tagLen != bb.limit())
+                throw new CryptoFormatException("Blob inválido o truncado");
+            // Juntar texto cifrado y tag, como espera el cifrado.
+            System.arraycopy(arr, ctAt + ctLen + 1, arr, ctAt + ctLen, tagLen);
+            bb.limit(ctAt + ctLen + tagLen);
+
+            SecretKey key = UseCases.payloadKey(a, UseCases.passwordHolder(password));
+            AeadMode mode = AeadMode.byId(a.mode);
+            ByteBuffer plain = b.plain(ctLen);
+            CryptoEngine.decryptSegment(b.cipher(mode), mode, key, a.nonce, a.payloadAad(), bb, plain);
+            plain.flip();
+            if (a.compression != Policy.COMPRESSION_NONE) plain = b.inflate(a, plain);
+
+            b.decode(plain, out);
+            CryptoMetrics.DECRYPT.record(System.nanoTime() - start, plain.limit());
+        } catch (RuntimeException e) {
+            CryptoMetrics.failed(e);
+            throw e;
+        } finally {
+            BUFFERS.get().release();
+        }
+    }
+
+    /**
+     * Búferes, codificadores y cifradores reutilizables de un hilo.
+     */
+    private static final class Buffers {
+        /** Codificador UTF-8 (sustituye secuencias inválidas, como {@code String#getBytes}). */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        /** Decodificador UTF-8 (sustituye secuencias inválidas, como {@code new String}). */
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        /** Texto en claro en UTF-8. */
+        private ByteBuffer plain = ByteBuffer.allocate(0);
+        /** Texto comprimido o descomprimido. */
+        private ByteBuffer packed = ByteBuffer.allocate(0);
+        /** Blob serializado. */
+        private ByteBuffer blob = ByteBuffer.allocate(0);
+        /** Bloque de caracteres para Base64 y para el texto decodificado. */
+        private final char[] chars = new char[B64_BLOCK / 3 * 4];
+        /** Vista de {@link #chars} para el decodificador. */
+        private final CharBuffer charView = CharBuffer.wrap(chars);
+        /** Bytes escritos en {@link #plain}, {@link #packed} y {@link #blob} desde la última limpieza. */
+        private int plainUsed, packedUsed, blobUsed;
+        /** Un {@link Cipher} por modo. */
+        private final Map<AeadMode, Cipher> ciphers = new EnumMap<>(AeadMode.class);
+
+        /**
+         * @param mode Modo AEAD.
+         * @return Cifrador reutilizable para ese modo.
+         */
+        Cipher cipher(AeadMode mode) {
+            return ciphers.computeIfAbsent(mode, CryptoEngine::newCipher);
+        }
+
+        /**
+         * @param n Bytes necesarios.
+         * @return Búfer de texto en claro vacío con al menos {@code n} bytes libres.
+         */
+        ByteBuffer plain(int n) {
+            plainUsed = Math.max(plainUsed, n);
+            return (plain = reuse(plain, n)).clear();
+        }
+
+        /**
+         * @param n Bytes necesarios.
+         * @return Búfer de blob vacío con al menos {@code n} bytes libres.
+         */
+        ByteBuffer blob(int n) {
+            blobUsed = Math.max(blobUsed, n);
+            return (blob = reuse(blob, n)).clear();
+        }
+
+        /**
+         * @param text Texto.
+         * @return Su codificación UTF-8, lista para leer.
+         */
+        ByteBuffer encode(CharSequence text) {
+            CharBuffer in = text instanceof CharBuffer ? ((CharBuffer) text).duplicate() : CharBuffer.wrap(text);
+            ByteBuffer out = plain((int) Math.min(Integer.MAX_VALUE - 8,
+                    (long) in.remaining() * (long) encoder.maxBytesPerChar()));
+            encoder.reset();
+            CoderResult r = encoder.encode(in, out, true);
+            if (r.isOverflow()) throw new CryptoException("Texto demasiado grande");
+            encoder.flush(out);
+            return out.flip();
+        }
+
+        /**
+         * @param in  Texto en UTF-8.
+         * @param out Destino del texto decodificado.
+         * @throws IOException Si falla la escritura.
+         */
+        void decode(ByteBuffer in, Appendable out) throws IOException {
+            decoder.reset();
+            CoderResult r;
+            do {
+                charView.clear();
+                r = decoder.decode(in, charView, true);
+                append(out, 0, charView.position());
+            } while (r.isOverflow());
+            do {
+                charView.clear();
+                r = decoder.flush(charView);
+                append(out, 0, charView.position());
+            } while (r.isOverflow());
+        }
+
+        /**
+         * @param in    Texto en claro.
+         * @param codec Codec de compresión.
+         * @return Texto comprimido, listo para leer.
+         */
+        ByteBuffer compress(ByteBuffer in, CompressionCodec codec) {
+            packed = reuse(packed, in.remaining() / 2 + 64).clear();
+            try (OutputStream z = codec.compressing(new OutputStream() {
+                @Override
+                public void write(int v) {
+                    write(new byte[]{(byte) v}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] src, int off, int len) {
+                    if (packed.remaining() < len) packed = grow(packed, packed.position() + len);
+                    packed.put(src, off, len);
+                }
+            })) {
+                z.write(in.array(), in.position(), in.remaining());
+            } catch (IOException e) {
+                throw new CryptoException("Error comprimiendo: " + e.getMessage(), e);
+            } finally {
+                packedUsed = Math.max(packedUsed, packed.position());
+            }
+            return packed.flip();
+        }
+
+        /**
+         * @param a  Artefacto con el codec y la longitud original.
+         * @param in Texto comprimido.
+         * @return Texto descomprimido, listo para leer.
+         */
+        ByteBuffer inflate(CipherArtifact a, ByteBuffer in) {
+            packed = reuse(packed, a.originalLength).clear();
+            packedUsed = Math.max(packedUsed, a.originalLength);
+            Compression.decompress(Compression.codec(a.compression), in.array(), in.limit(),
+                    packed.array(), a.originalLength);
+            return packed.limit(a.originalLength);
+        }
+
+        /**
+         * Escribe {@code len} bytes en Base64 estándar, por bloques.
+         *
+         * @param src Datos.
+         * @param len Bytes válidos en {@code src}.
+         * @param out Destino.
+         * @throws IOException Si falla la escritura.
+         */
+        void base64(byte[] src, int len, Appendable out) throws IOException {
+            int i = 0;
+            while (i < len) {
+                int end = Math.min(len, i + B64_BLOCK);
+                int n = 0;
+                for (; i + 2 < end; i += 3) {
+                    int v = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+                    chars[n++] = B64[v >>> 18];
+                    chars[n++] = B64[(v >>> 12) & 0x3F];
+                    chars[n++] = B64[(v >>> 6) & 0x3F];
+                    chars[n++] = B64[v & 0x3F];
+                }
+                if (i < end) {
+                    int v = (src[i] & 0xFF) << 16 | (i + 1 < end ? (src[i + 1] & 0xFF) << 8 : 0);
+                    chars[n++] = B64[v >>> 18];
+                    chars[n++] = B64[(v >>> 12) & 0x3F];
+                    chars[n++] = i + 1 < end ? B64[(v >>> 6) & 0x3F] : '=';
+                    chars[n++] = '=';
+                    i = end;
+                }
+                append(out, 0, n);
+            }
+        }
+
+        /**
+         * Decodifica Base64 estándar (se ignoran espacios y saltos de línea en los extremos).
+         *
+         * @param text Texto Base64.
+         * @return Búfer del blob con los bytes decodificados, listo para leer.
+         * @throws CryptoFormatException Si no es Base64 válido.
+         */
+        ByteBuffer unbase64(CharSequence text) {
+            int from = 0, to = text.length();
+            while (from < to && Character.isWhitespace(text.charAt(from))) from++;
+            while (to > from && Character.isWhitespace(text.charAt(to - 1))) to--;
+            int len = to - from;
+            if (len % 4 != 0) throw new CryptoFormatException("Base64 inválido");
+            int pad = len == 0 ? 0 : (text.charAt(to - 1) == '=' ? 1 : 0) + (text.charAt(to - 2) == '=' ? 1 : 0);
+            ByteBuffer out = blob(len / 4 * 3);
+            byte[] dst = out.array();
+            int n = 0;
+            for (int i = from; i < to; i += 4) {
+                boolean last = i + 4 == to;
+                int v = 0;
+                for (int j = 0; j < 4; j++) {
+                    char c = text.charAt(i + j);
+                    int d;
+                    if (last && c == '=' && j >= 4 - pad) d = 0;
+                    else if (c >= 128 || (d = B64_INV[c]) < 0) throw new CryptoFormatException("Base64 inválido");
+                    v = v << 6 | d;
+                }
+                dst[n++] = (byte) (v >>> 16);
+                if (!last || pad < 2) dst[n++] = (byte) (v >>> 8);
+                if (!last || pad < 1) dst[n++] = (byte) v;
+            }
+            return out.limit(n);
+        }
+
+        /**
+         * @param out Destino.
+         * @param off Inicio en {@link #chars}.
+         * @param len Caracteres.
+         * @throws IOException Si falla la escritura.
+         */
+        private void append(Appendable out, int off, int len) throws IOException {
+            if (len == 0) return;
+            if (out instanceof StringBuilder) ((StringBuilder) out).append(chars, off, len);
+            else out.append(charView.clear().position(off).limit(off + len));
+        }
+
+        /**
+         * Borra la parte usada de los búferes y suelta los que superan {@link #POOLED_MAX}.
+         */
+        void release() {
+            Arrays.fill(plain.array(), 0, Math.min(plainUsed, plain.capacity()), (byte) 0);
+            Arrays.fill(packed.array(), 0, Math.min(packedUsed, packed.capacity()), (byte) 0);
+            Arrays.fill(blob.array(), 0, Math.min(blobUsed, blob.capacity()), (byte) 0);
+            Arrays.fill(chars, '\0');
+            plainUsed = packedUsed = blobUsed = 0;
+            trim();
+        }
+
+        /**
+         * Suelta los búferes que superan {@link #POOLED_MAX} tras un texto grande.
+         */
+        private void trim() {
+            if (plain.capacity() > POOLED_MAX) plain = ByteBuffer.allocate(0);
+            if (packed.capacity() > POOLED_MAX) packed = ByteBuffer.allocate(0);
+            if (blob.capacity() > POOLED_MAX) blob = ByteBuffer.allocate(0);
+        }
+
+        /**
+         * @param buf Búfer actual.
+         * @param n   Capacidad necesaria.
+         * @return {@code buf} si basta; si no, uno nuevo.
+         */
+        private static ByteBuffer reuse(ByteBuffer buf, int n) {
+            if (buf.capacity() >= n) return buf;
+            return ByteBuffer.allocate(n);
+        }
+
+        /**
+         * @param buf Búfer en escritura.
+         * @param n   Capacidad mínima.
+         * @return Búfer mayor con el mismo contenido.
+         */
+        private static ByteBuffer grow(ByteBuffer buf, int n) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(n, buf.capacity() * 2));
+            bigger.put(buf.flip());
+            Arrays.fill(buf.array(), 0, buf.limit(), (byte) 0);
+            return bigger;
+        }
+    }
+}
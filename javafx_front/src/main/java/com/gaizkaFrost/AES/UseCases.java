@@ -1,8 +1,27 @@
 package com.gaizkaFrost.AES;
 
 import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.function.UnaryOperator;
 
 /**
  * <h2>Caso de uso de alto nivel para cifrado y descifrado AES</h2>
@@ -14,11 +33,16 @@ import java.util.Base64;
  * </p>
  *
  * <ul>
- *     <li>KDF (PBKDF2-HMAC-SHA256)</li>
+ *     <li>KDF (PBKDF2-HMAC-SHA256, scrypt o Argon2id)</li>
  *     <li>Nonce seguro generado aleatoriamente</li>
  *     <li>AAD opcional</li>
- *     <li>Cifrado AES-GCM autenticado</li>
+ *     <li>Compresión opcional previa al cifrado (Deflate por defecto, codecs enchufables)</li>
+ *     <li>Cifrado autenticado AES-GCM (o ChaCha20-Poly1305 en equipos sin AES-NI)</li>
  *     <li>Serialización compacta mediante {@link Serializer}</li>
+ *     <li>Modo sobre opcional: clave de datos envuelta para varios destinatarios</li>
+ *     <li>Claves con nombre de un {@link LocalKeyStore}, sin coste de KDF por operación</li>
+ *     <li>Armadura de texto por líneas (estilo PEM) en flujo para textos grandes</li>
+ *     <li>Cifrado y descifrado segmentado v2 entre flujos (cuerpos HTTP, tuberías)</li>
  * </ul>
  *
  * <p>
@@ -43,45 +67,125 @@ public final class UseCases {
      * <h3>Cifra datos binarios usando una contraseña</h3>
      *
      * <p>
+     * Equivale a {@link #encryptWithPassword(byte[], char[], byte[], boolean)} sin
+     * compresión. El blob solo es v1 si la KDF preferida ({@link KdfParams#preferred()})
+     * es la implícita de v1 ({@link KdfParams#legacy()}); si las propiedades del sistema
+     * eligen otra KDF o calibran su coste, se escribe en v4. El modo AEAD es el
+     * preferido del equipo ({@link AeadMode#preferred()}), que no tiene por qué ser GCM.
+     * </p>
+     *
+     * @param plaintext Datos originales que se desean cifrar.
+     * @param password  Contraseña usada para generar la clave.
+     * @param aad       Datos adicionales autenticados (opcional).
+     * @return Blob binario que contiene el artefacto cifrado completo.
+     */
+    public static byte[] encryptWithPassword(byte[] plaintext, char[] password, byte[] aad) {
+        return encryptWithPassword(plaintext, password, aad, false);
+    }
+
+    /**
+     * <h3>Cifra datos binarios usando una contraseña, con compresión opcional</h3>
+     *
+     * <p>
      * El proceso ejecutado es el siguiente:
      * </p>
      * <ol>
+     *     <li>Si se pide compresión y los datos no parecen ya comprimidos, comprimirlos con el
+     *     codec por defecto ({@link Compression#defaultCodec()}).</li>
      *     <li>Generar sal aleatoria.</li>
-     *     <li>Derivar una clave AES mediante PBKDF2.</li>
-     *     <li>Generar nonce seguro para AES-GCM.</li>
-     *     <li>Cifrar utilizando {@link CryptoEngine}.</li>
+     *     <li>Derivar una clave AES con la KDF preferida ({@link KdfParams#preferred()}).</li>
+     *     <li>Generar nonce seguro de 12 bytes.</li>
+     *     <li>Cifrar utilizando {@link CryptoEngine} con el modo AEAD preferido del equipo
+     *     ({@link AeadMode#preferred()}).</li>
      *     <li>Construir un {@link CipherArtifact} con toda la metadata.</li>
      *     <li>Serializar el artefacto mediante {@link Serializer}.</li>
      * </ol>
      *
+     * <p>
+     * Si la compresión no reduce el tamaño se descarta; sin compresión y con una KDF
+     * preferida igual a {@link KdfParams#legacy()} el blob se escribe en v1, y si no,
+     * en v4.
+     * </p>
+     *
      * @param plaintext Datos originales que se desean cifrar.
      * @param password  Contraseña usada para generar la clave.
      * @param aad       Datos adicionales autenticados (opcional).
+     * @param compress  {@code true} para comprimir antes de cifrar cuando compense.
      * @return Blob binario que contiene el artefacto cifrado completo.
      */
-    public static byte[] encryptWithPassword(byte[] plaintext, char[] password, byte[] aad) {
-        int keyBits = Policy.KEY_BITS_DEFAULT;
-
-        byte[] salt = RandomSource.nextBytes(Policy.SALT_LEN);
-        KeyMaterial km = KeyDerivation.deriveFromPassword(password, salt, keyBits, Policy.PBKDF2_ITERATIONS);
-
-        byte[] nonce = RandomSource.nextBytes(Policy.GCM_NONCE_LEN);
+    public static byte[] encryptWithPassword(byte[] plaintext, char[] password, byte[] aad, boolean compress) {
+        return encryptWithPassword(plaintext, password, aad, compress, KdfParams.preferred());
+    }
 
-        CryptoEngine.EncryptResult res = CryptoEngine.encrypt(plaintext, km.key(), nonce, aad);
+    /**
+     * <h3>Cifra datos binarios usando una contraseña y una KDF concreta</h3>
+     *
+     * <p>
+     * Igual que {@link #encryptWithPassword(byte[], char[], byte[], boolean)}, pero la
+     * clave se deriva con los parámetros indicados, que se guardan en el blob para
+     * que el descifrado los use. Con {@link KdfParams#legacy()} y sin compresión el
+     * blob mantiene el formato v1.
+     * </p>
+     *
+     * @param plaintext Datos originales que se desean cifrar.
+     * @param password  Contraseña usada para generar la clave.
+     * @param aad       Datos adicionales autenticados (opcional).
+     * @param compress  {@code true} para comprimir antes de cifrar cuando compense.
+     * @param kdfParams KDF y parámetros de coste.
+     * @return Blob binario que contiene el artefacto cifrado completo.
+     */
+    public static byte[] encryptWithPassword(byte[] plaintext, char[] password, byte[] aad, boolean compress,
+                                             KdfParams kdfParams) {
+        return encryptWithPassword(plaintext, password, aad, codecFor(compress), kdfParams);
+    }
 
-        CipherArtifact artifact = new CipherArtifact(
-                Policy.VERSION,
-                Policy.MODE_ID_GCM,
-                Policy.KDF_ID_PBKDF2,
-                keyBits,
-                salt,
-                nonce,
-                aad != null ? aad : new byte[0],
-                res.ciphertext,
-                res.tag
-        );
+    /**
+     * <h3>Cifra datos binarios usando una contraseña y un codec de compresión concreto</h3>
+     *
+     * <p>
+     * Igual que {@link #encryptWithPassword(byte[], char[], byte[], boolean, KdfParams)},
+     * pero comprime con el codec indicado (registrado con
+     * {@link Compression#register(CompressionCodec)}) en lugar del codec por defecto.
+     * </p>
+     *
+     * @param plaintext   Datos originales que se desean cifrar.
+     * @param password    Contraseña usada para generar la clave.
+     * @param aad         Datos adicionales autenticados (opcional).
+     * @param compression Identificador del codec, o {@link Policy#COMPRESSION_NONE} para no comprimir.
+     * @param kdfParams   KDF y parámetros de coste.
+     * @return Blob binario que contiene el artefacto cifrado completo.
+     * @throws CryptoFormatException Si el codec no está registrado.
+     */
+    public static byte[] encryptWithPassword(byte[] plaintext, char[] password, byte[] aad, int compression,
+                                             KdfParams kdfParams) {
+        byte[] salt = RandomSource.nextBytes(Policy.SALT_LEN);
+        KeyMaterial km = KeyDerivation.derive(password, salt, Policy.KEY_BITS_DEFAULT, kdfParams);
+        return seal(plaintext, aad, compression, km.key(), kdfParams.kdf, salt, kdfParams, List.of());
+    }
 
-        return Serializer.encode(artifact);
+    /**
+     * <h3>Cifra datos binarios en modo sobre para uno o varios destinatarios</h3>
+     *
+     * <p>
+     * El payload se cifra con una clave de datos aleatoria (DEK) que se guarda envuelta
+     * una vez por destinatario ({@link Recipient}: contraseña o fichero de clave).
+     * Cualquiera de ellos puede descifrar el blob con {@link #decrypt(byte[], Recipient)},
+     * y cambiar una contraseña o la lista de destinatarios solo reescribe la cabecera
+     * ({@link #rewrap(byte[], char[], char[], KdfParams)},
+     * {@link #addRecipient(byte[], Recipient, Recipient)},
+     * {@link #removeRecipient(byte[], Recipient)}).
+     * </p>
+     *
+     * @param plaintext  Datos originales que se desean cifrar.
+     * @param aad        Datos adicionales autenticados (opcional).
+     * @param compress   {@code true} para comprimir antes de cifrar cuando compense.
+     * @param recipients Destinatarios (al menos uno).
+     * @return Blob v4 con la clave envuelta para cada destinatario.
+     */
+    public static byte[] encryptEnvelope(byte[] plaintext, byte[] aad, boolean compress, List<Recipient> recipients) {
+        SecretKey dek = newDataKey();
+        return seal(plaintext, aad, codecFor(compress), dek, Policy.KDF_ID_WRAPPED, new byte[0], null,
+                wrapAll(dek, recipients));
     }
 
     /**
@@ -92,8 +196,10 @@ public final class UseCases {
      * </p>
      * <ol>
      *     <li>Deserializar el artefacto con {@link Serializer#decode(byte[])}.</li>
-     *     <li>Derivar la misma clave AES a partir de la contraseña y la sal almacenada.</li>
-     *     <li>Descifrar usando {@link CryptoEngine#decrypt(byte[], byte[], SecretKey, byte[], byte[])}.</li>
+     *     <li>Derivar la misma clave AES a partir de la contraseña, la sal y los parámetros KDF almacenados
+     *     o, si el blob lleva la clave envuelta, desenvolverla con la contraseña.</li>
+     *     <li>Descifrar usando {@link CryptoEngine#decrypt(AeadMode, byte[], byte[], SecretKey, byte[], byte[])}.</li>
+     *     <li>Descomprimir si el artefacto indica compresión.</li>
      * </ol>
      *
      * @param blob     Blob cifrado en el formato del módulo AES.
@@ -101,9 +207,324 @@ public final class UseCases {
      * @return Datos descifrados en su forma binaria original.
      */
     public static byte[] decryptWithPassword(byte[] blob, char[] password) {
+        return decrypt(blob, passwordHolder(password));
+    }
+
+    /**
+     * <h3>Descifra un blob con cualquiera de sus destinatarios</h3>
+     *
+     * @param blob      Blob cifrado en el formato del módulo AES.
+     * @param recipient Contraseña o fichero de clave de uno de los destinatarios.
+     * @return Datos descifrados en su forma binaria original.
+     * @throws CryptoException Si el destinatario no puede abrir el blob.
+     */
+    public static byte[] decrypt(byte[] blob, Recipient recipient) {
+        return decrypt(blob, recipient, null);
+    }
+
+    /**
+     * Descifra un blob exigiendo que su AAD sea la indicada, para blobs que van ligados
+     * a un contenedor (por ejemplo, la clave de un {@link ArchiveContainer}).
+     *
+     * @param blob        Blob cifrado en el formato del módulo AES.
+     * @param recipient   Contraseña o fichero de clave de uno de los destinatarios.
+     * @param expectedAad AAD exigida, o {@code null} para aceptar cualquiera.
+     * @return Datos descifrados en su forma binaria original.
+     * @throws CryptoException Si la AAD no coincide o el destinatario no puede abrir el blob.
+     */
+    static byte[] decrypt(byte[] blob, Recipient recipient, byte[] expectedAad) {
+        long start = System.nanoTime();
+        try {
+            CipherArtifact a = Serializer.decode(blob);
+            if (expectedAad != null && !Arrays.equals(a.aad, expectedAad))
+                throw new CryptoException("La AAD del blob no corresponde a su contenedor");
+            byte[] payload = decryptPayload(a, payloadKey(a, recipient));
+            byte[] plain = a.compression == Policy.COMPRESSION_NONE ? payload
+                    : Compression.decompress(Compression.codec(a.compression), payload, a.originalLength);
+            CryptoMetrics.DECRYPT.record(System.nanoTime() - start, plain.length);
+            return plain;
+        } catch (RuntimeException e) {
+            CryptoMetrics.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * <h3>Cifra datos con una clave con nombre de un almacén local</h3>
+     *
+     * <p>
+     * Equivale a {@link #encryptEnvelope(byte[], byte[], boolean, List)} con la clave
+     * {@code keyId} como único destinatario: no hay derivación de contraseña, por lo que
+     * el coste es solo el del cifrado.
+     * </p>
+     *
+     * @param plaintext Datos originales que se desean cifrar.
+     * @param aad       Datos adicionales autenticados (opcional).
+     * @param compress  {@code true} para comprimir antes de cifrar cuando compense.
+     * @param store     Almacén de claves desbloqueado.
+     * @param keyId     Nombre de la clave.
+     * @return Blob v4 con la clave de datos envuelta.
+     * @throws CryptoException Si el almacén está bloqueado o la clave no existe.
+     */
+    public static byte[] encryptWithKey(byte[] plaintext, byte[] aad, boolean compress, LocalKeyStore store,
+                                        String keyId) {
+        return encryptEnvelope(plaintext, aad, compress, List.of(Recipient.storedKey(store, keyId)));
+    }
+
+    /**
+     * <h3>Descifra un blob con cualquiera de las claves de un almacén local</h3>
+     *
+     * @param blob  Blob cifrado con {@link #encryptWithKey(byte[], byte[], boolean, LocalKeyStore, String)}
+     *              o con una clave del almacén entre sus destinatarios.
+     * @param store Almacén de claves desbloqueado.
+     * @return Datos descifrados en su forma binaria original.
+     * @throws CryptoException Si ninguna clave del almacén abre el blob.
+     */
+    public static byte[] decryptWithKeyStore(byte[] blob, LocalKeyStore store) {
+        return decrypt(blob, Recipient.keyStore(store));
+    }
+
+    /**
+     * <h3>Vuelve a envolver la clave de un blob con otra contraseña o KDF</h3>
+     *
+     * <p>
+     * El texto cifrado, el nonce, la AAD y el tag se conservan; solo cambia la
+     * cabecera. Los blobs con clave derivada directamente (v1 o v4 sin clave envuelta)
+     * se convierten a clave envuelta tomando como clave de datos la que ya cifraba el
+     * payload, por lo que tampoco se vuelven a cifrar. Permite así endurecer o
+     * abaratar la KDF de blobs antiguos, o cambiar su contraseña, a coste constante.
+     * En los blobs con varios destinatarios solo se sustituye el de la contraseña antigua.
+     * </p>
+     *
+     * <p>
+     * En los blobs sin clave envuelta la contraseña antigua se comprueba verificando
+     * el tag del payload, ya que la derivación por sí sola no la valida.
+     * </p>
+     *
+     * @param blob        Blob cifrado en el formato del módulo AES.
+     * @param oldPassword Contraseña actual.
+     * @param newPassword Nueva contraseña (puede ser la misma).
+     * @param kdfParams   KDF y parámetros de coste para la nueva envoltura.
+     * @return Blob v4 equivalente con la clave envuelta.
+     * @throws CryptoException Si la contraseña actual no es correcta.
+     */
+    public static byte[] rewrap(byte[] blob, char[] oldPassword, char[] newPassword, KdfParams kdfParams) {
+        CipherArtifact a = Serializer.decode(blob);
+        Recipient holder = passwordHolder(oldPassword);
+        Recipient replacement = Recipient.password(newPassword, kdfParams);
+        if (a.keyWraps.isEmpty()) {
+            SecretKey dek = payloadKey(a, holder);
+            decryptPayload(a, dek);
+            return Serializer.encode(a.withKeyWraps(List.of(replacement.wrap(dek))));
+        }
+        return Serializer.encode(a.withKeyWraps(replaceWrap(a.keyWraps, holder, replacement)));
+    }
+
+    /**
+     * <h3>Añade un destinatario a un blob</h3>
+     *
+     * <p>
+     * Si el blob no estaba en modo sobre, se convierte conservando el payload y
+     * {@code holder} (que debe ser una contraseña) queda como primer destinatario.
+     * </p>
+     *
+     * @param blob   Blob cifrado en el formato del módulo AES.
+     * @param holder Destinatario actual que puede abrir el blob.
+     * @param added  Nuevo destinatario.
+     * @return Blob con el destinatario añadido.
+     * @throws CryptoException Si {@code holder} no puede abrir el blob.
+     */
+    public static byte[] addRecipient(byte[] blob, Recipient holder, Recipient added) {
+        CipherArtifact a = Serializer.decode(blob);
+        SecretKey dek = payloadKey(a, holder);
+        List<KeyWrap> wraps = new ArrayList<>(a.keyWraps);
+        if (wraps.isEmpty()) {
+            decryptPayload(a, dek);
+            wraps.add(holder.wrap(dek));
+        }
+        wraps.add(added.wrap(dek));
+        return Serializer.encode(a.withKeyWraps(wraps));
+    }
+
+    /**
+     * <h3>Quita un destinatario de un blob en modo sobre</h3>
+     *
+     * @param blob    Blob cifrado en modo sobre.
+     * @param removed Destinatario que se quiere quitar.
+     * @return Blob sin ese destinatario.
+     * @throws CryptoException Si no es destinatario del blob o es el último.
+     */
+    public static byte[] removeRecipient(byte[] blob, Recipient removed) {
         CipherArtifact a = Serializer.decode(blob);
-        KeyMaterial km = KeyDerivation.deriveFromPassword(password, a.salt, a.keyBits, Policy.PBKDF2_ITERATIONS);
-        return CryptoEngine.decrypt(a.ciphertext, a.tag, km.key(), a.nonce, a.aad);
+        return Serializer.encode(a.withKeyWraps(removeWrap(a.keyWraps, removed)));
+    }
+
+    /**
+     * Comprime si procede, cifra y serializa un payload con la clave indicada.
+     *
+     * @param plaintext Datos originales.
+     * @param aad       AAD del usuario (opcional).
+     * @param codec     Codec con el que comprimir cuando compense, o {@link Policy#COMPRESSION_NONE}.
+     * @param key       Clave del payload.
+     * @param kdf       Byte {@code kdf} del blob.
+     * @param salt      Sal del blob (vacía en modo sobre).
+     * @param kdfParams Parámetros de la KDF ({@code null} en modo sobre).
+     * @param wraps     Claves envueltas (vacía si la clave es derivada).
+     * @return Blob serializado.
+     */
+    static byte[] seal(byte[] plaintext, byte[] aad, int codec, SecretKey key,
+                               int kdf, byte[] salt, KdfParams kdfParams, List<KeyWrap> wraps) {
+        long start = System.nanoTime();
+        try {
+            byte[] userAad = aad != null ? aad : new byte[0];
+
+            int compression = Policy.COMPRESSION_NONE;
+            byte[] payload = plaintext;
+            if (codec != Policy.COMPRESSION_NONE) {
+                CompressionCodec c = Compression.codec(codec);
+                if (Compression.worthCompressing(plaintext)) {
+                    byte[] packed = Compression.compress(c, plaintext);
+                    if (packed.length < plaintext.length) {
+                        compression = codec;
+                        payload = packed;
+                    }
+                }
+            }
+
+            byte[] nonce = RandomSource.nextBytes(Policy.GCM_NONCE_LEN);
+
+            byte[] payloadAad = CipherArtifact.payloadAad(compression, plaintext.length, userAad);
+            AeadMode mode = AeadMode.preferred();
+            CryptoEngine.EncryptResult res = CryptoEngine.encrypt(mode, payload, key, nonce, payloadAad);
+
+            boolean extended = compression != Policy.COMPRESSION_NONE || !wraps.isEmpty()
+                    || (kdfParams != null && !kdfParams.isLegacy());
+            CipherArtifact artifact = new CipherArtifact(
+                    extended ? Policy.VERSION_EXTENDED : Policy.VERSION,
+                    mode.id,
+                    kdf,
+                    Policy.KEY_BITS_DEFAULT,
+                    salt,
+                    nonce,
+                    userAad,
+                    res.ciphertext,
+                    res.tag,
+                    compression,
+                    plaintext.length,
+                    kdfParams,
+                    wraps
+            );
+
+            byte[] blob = Serializer.encode(artifact);
+            CryptoMetrics.ENCRYPT.record(System.nanoTime() - start, plaintext.length);
+            return blob;
+        } catch (RuntimeException e) {
+            CryptoMetrics.failed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @param compress {@code true} si se pidió comprimir.
+     * @return Codec por defecto, o {@link Policy#COMPRESSION_NONE} si no se comprime.
+     */
+    static int codecFor(boolean compress) {
+        return compress ? Compression.defaultCodec() : Policy.COMPRESSION_NONE;
+    }
+
+    /**
+     * Obtiene la clave que cifra el payload: derivada de la contraseña o desenvuelta.
+     *
+     * @param a         Artefacto deserializado.
+     * @param recipient Destinatario.
+     * @return Clave del payload.
+     * @throws CryptoException Si ninguna clave envuelta se abre con ese destinatario.
+     */
+    static SecretKey payloadKey(CipherArtifact a, Recipient recipient) {
+        if (a.keyWraps.isEmpty()) return recipient.derive(a.salt, a.keyBits, a.kdfParams);
+        return recipient.unwrap(a.keyWraps);
+    }
+
+    /**
+     * Descifra y autentica el payload de un artefacto, sin descomprimir.
+     *
+     * @param a   Artefacto deserializado.
+     * @param key Clave del payload.
+     * @return Payload en claro.
+     */
+    static byte[] decryptPayload(CipherArtifact a, SecretKey key) {
+        return CryptoEngine.decrypt(AeadMode.byId(a.mode), a.ciphertext, a.tag, key, a.nonce, a.payloadAad());
+    }
+
+    /**
+     * @param password Contraseña.
+     * @return Destinatario para abrir blobs; sus parámetros KDF solo se usan al envolver.
+     */
+    static Recipient passwordHolder(char[] password) {
+        return Recipient.password(password, KdfParams.legacy());
+    }
+
+    /**
+     * @return Clave de datos aleatoria para el modo sobre.
+     */
+    private static SecretKey newDataKey() {
+        byte[] raw = RandomSource.nextBytes(Policy.KEY_BITS_DEFAULT / 8);
+        SecretKey dek = new SecretKeySpec(raw, Policy.KEY_ALGO);
+        Arrays.fill(raw, (byte) 0);
+        return dek;
+    }
+
+    /**
+     * @param dek        Clave de datos.
+     * @param recipients Destinatarios.
+     * @return Una clave envuelta por destinatario.
+     */
+    private static List<KeyWrap> wrapAll(SecretKey dek, List<Recipient> recipients) {
+        if (recipients.isEmpty()) throw new IllegalArgumentException("Se necesita al menos un destinatario");
+        List<KeyWrap> wraps = new ArrayList<>();
+        for (Recipient r : recipients) wraps.add(r.wrap(dek));
+        return wraps;
+    }
+
+    /**
+     * Sustituye la entrada que abre {@code holder} por una nueva para {@code replacement}.
+     *
+     * @param wraps       Entradas actuales.
+     * @param holder      Destinatario actual.
+     * @param replacement Destinatario que lo sustituye.
+     * @return Nuevas entradas.
+     * @throws CryptoException Si {@code holder} no abre ninguna entrada.
+     */
+    private static List<KeyWrap> replaceWrap(List<KeyWrap> wraps, Recipient holder, Recipient replacement) {
+        List<KeyWrap> out = new ArrayList<>(wraps);
+        for (int i = 0; i < out.size(); i++) {
+            SecretKey dek = holder.tryUnwrap(out.get(i));
+            if (dek != null) {
+                out.set(i, replacement.wrap(dek));
+                return out;
+            }
+        }
+        throw new CryptoException("Contraseña o fichero de clave incorrecto");
+    }
+
+    /**
+     * Quita la entrada que abre {@code removed}.
+     *
+     * @param wraps   Entradas actuales.
+     * @param removed Destinatario que se quita.
+     * @return Nuevas entradas.
+     * @throws CryptoException Si no abre ninguna entrada o es la única.
+     */
+    private static List<KeyWrap> removeWrap(List<KeyWrap> wraps, Recipient removed) {
+        List<KeyWrap> out = new ArrayList<>(wraps);
+        for (int i = 0; i < out.size(); i++) {
+            if (removed.tryUnwrap(out.get(i)) != null) {
+                if (out.size() == 1) throw new CryptoException("No se puede quitar el último destinatario");
+                out.remove(i);
+                return out;
+            }
+        }
+        throw new CryptoException("Contraseña o fichero de clave incorrecto");
     }
 
     /**
@@ -119,9 +540,29 @@ public final class UseCases {
      * @return Cadena Base64 que representa un artefacto cifrado completo.
      */
     public static String encryptToBase64(byte[] plaintext, char[] password, String aadUtf8) {
+        return encryptToBase64(plaintext, password, aadUtf8, false);
+    }
+
+    /**
+     * <h3>Cifra datos, con compresión opcional, y devuelve el resultado en Base64</h3>
+     *
+     * @param plaintext Datos en claro.
+     * @param password  Contraseña para cifrar.
+     * @param aadUtf8   Cadena que se usará como AAD (opcional), codificada en UTF-8.
+     * @param compress  {@code true} para comprimir antes de cifrar cuando compense.
+     * @return Cadena Base64 que representa un artefacto cifrado completo.
+     */
+    public static String encryptToBase64(byte[] plaintext, char[] password, String aadUtf8, boolean compress) {
         byte[] aad = aadUtf8 != null ? aadUtf8.getBytes(StandardCharsets.UTF_8) : new byte[0];
-        byte[] blob = encryptWithPassword(plaintext, password, aad);
-        return Base64.getEncoder().encodeToString(blob);
+        byte[] blob = encryptWithPassword(plaintext, password, aad, compress);
+        CryptoEvents.Base64Codec ev = new CryptoEvents.Base64Codec();
+        ev.begin();
+        String b64 = Base64.getEncoder().encodeToString(blob);
+        CryptoEvents.commit(ev, e -> {
+            e.operation = "encode";
+            e.bytes = blob.length;
+        });
+        return b64;
     }
 
     /**
@@ -137,7 +578,358 @@ public final class UseCases {
      * @return Datos binarios originales descifrados.
      */
     public static byte[] decryptFromBase64(String b64, char[] password) {
+        CryptoEvents.Base64Codec ev = new CryptoEvents.Base64Codec();
+        ev.begin();
         byte[] blob = Base64.getDecoder().decode(b64);
+        CryptoEvents.commit(ev, e -> {
+            e.operation = "decode";
+            e.bytes = blob.length;
+        });
         return decryptWithPassword(blob, password);
     }
+
+    /**
+     * <h3>Cifra un flujo y lo escribe como texto con armadura</h3>
+     *
+     * <p>
+     * Alternativa en flujo a {@link #encryptToBase64(byte[], char[], String)} para textos
+     * grandes: el contenido se cifra en formato segmentado v2 y se codifica en Base64
+     * por líneas entre {@link Policy#ARMOR_BEGIN} y {@link Policy#ARMOR_END}, sin
+     * construir en memoria ni el blob ni la cadena. Solo hay en memoria un segmento.
+     * </p>
+     *
+     * @param in       Texto en claro (p. ej. en UTF-8); se lee hasta {@code length} bytes.
+     * @param length   Número exacto de bytes que aportará {@code in}.
+     * @param out      Destino del texto con armadura (no se cierra).
+     * @param password Contraseña usada para generar la clave.
+     * @param aad      Datos adicionales autenticados (opcional).
+     * @throws IOException Si falla la E/S o {@code in} termina antes de {@code length} bytes.
+     */
+    public static void encryptToArmor(InputStream in, long length, OutputStream out, char[] password, byte[] aad)
+            throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, Policy.SEGMENT_SIZE_DEFAULT);
+        try (OutputStream armored = Armor.encoder(buffered)) {
+            encryptStream(in, length, armored, password, aad);
+        }
+        buffered.flush();
+    }
+
+    /**
+     * <h3>Descifra un texto con armadura escribiendo el resultado en flujo</h3>
+     *
+     * @param in       Texto generado por {@link #encryptToArmor(InputStream, long, OutputStream, char[], byte[])}.
+     * @param out      Destino del texto en claro (no se cierra).
+     * @param password Contraseña utilizada al cifrar.
+     * @throws IOException Si falla la E/S.
+     * @see #decryptFromArmor(InputStream, OutputStream, Recipient)
+     */
+    public static void decryptFromArmor(InputStream in, OutputStream out, char[] password) throws IOException {
+        decryptFromArmor(in, out, passwordHolder(password));
+    }
+
+    /**
+     * <h3>Descifra un texto con armadura con cualquiera de sus destinatarios</h3>
+     *
+     * <p>
+     * Cada segmento se autentica antes de escribirse, pero si el descifrado falla a
+     * mitad, lo ya escrito en {@code out} debe descartarse.
+     * </p>
+     *
+     * @param in        Texto con armadura.
+     * @param out       Destino del texto en claro (no se cierra).
+     * @param recipient Contraseña o fichero de clave de uno de los destinatarios.
+     * @throws IOException           Si falla la E/S.
+     * @throws CryptoFormatException Si el texto no tiene armadura, está truncado o dañado.
+     * @throws CryptoException       Si el destinatario no puede abrirlo o algún segmento
+     *                               no supera la verificación.
+     */
+    public static void decryptFromArmor(InputStream in, OutputStream out, Recipient recipient) throws IOException {
+        decryptStream(Armor.decoder(new BufferedInputStream(in, Policy.SEGMENT_SIZE_DEFAULT)), out, recipient);
+    }
+
+    /**
+     * <h3>Cifra un flujo en el formato segmentado v2</h3>
+     *
+     * <p>
+     * Igual que {@link #encryptFileSegmented(Path, Path, char[], byte[])}, pero entre
+     * flujos: pensado para cuerpos HTTP y tuberías. Solo hay en memoria un segmento.
+     * </p>
+     *
+     * @param in       Datos en claro; se leen exactamente {@code length} bytes.
+     * @param length   Número exacto de bytes que aportará {@code in}.
+     * @param out      Destino del contenedor v2 (no se cierra).
+     * @param password Contraseña usada para generar la clave.
+     * @param aad      Datos adicionales autenticados (opcional).
+     * @throws IOException Si falla la E/S o {@code in} termina antes de {@code length} bytes.
+     */
+    public static void encryptStream(InputStream in, long length, OutputStream out, char[] password, byte[] aad)
+            throws IOException {
+        int keyBits = Policy.KEY_BITS_DEFAULT;
+        byte[] salt = RandomSource.nextBytes(Policy.SALT_LEN);
+        KdfParams kdfParams = KdfParams.preferred();
+        KeyMaterial km = KeyDerivation.derive(password, salt, keyBits, kdfParams);
+
+        SegmentedContainer container = new SegmentedContainer(
+                AeadMode.preferred().id,
+                kdfParams,
+                keyBits,
+                salt,
+                RandomSource.nextBytes(Policy.GCM_NONCE_LEN),
+                aad,
+                Policy.SEGMENT_SIZE_DEFAULT,
+                length
+        );
+        container.encrypt(Channels.newChannel(in), Channels.newChannel(out), km.key());
+    }
+
+    /**
+     * <h3>Descifra un contenedor v2 leído de un flujo</h3>
+     *
+     * <p>
+     * Cada segmento se autentica antes de escribirse, pero si el descifrado falla a
+     * mitad, lo ya escrito en {@code out} debe descartarse.
+     * </p>
+     *
+     * @param in        Contenedor v2 generado por {@link #encryptStream} o
+     *                  {@link #encryptFileSegmented(Path, Path, char[], byte[])}.
+     * @param out       Destino de los datos en claro (no se cierra).
+     * @param recipient Contraseña o fichero de clave de uno de los destinatarios.
+     * @throws IOException           Si falla la E/S.
+     * @throws CryptoFormatException Si el contenedor está truncado o dañado.
+     * @throws CryptoException       Si el destinatario no puede abrirlo o algún segmento
+     *                               no supera la verificación.
+     */
+    public static void decryptStream(InputStream in, OutputStream out, Recipient recipient) throws IOException {
+        ReadableByteChannel src = Channels.newChannel(in);
+        SegmentedContainer header = SegmentedContainer.readHeader(src);
+        SecretKey key = header.isEnvelope()
+                ? recipient.unwrap(header.keyWraps)
+                : recipient.derive(header.salt, header.keyBits, header.kdfParams);
+        BufferedOutputStream buffered = new BufferedOutputStream(out, Policy.SEGMENT_SIZE_DEFAULT);
+        header.decrypt(src, Channels.newChannel(buffered), key);
+        buffered.flush();
+    }
+
+    /**
+     * <h3>Descifra con contraseña un contenedor v2 leído de un flujo</h3>
+     *
+     * @param in       Contenedor v2.
+     * @param out      Destino de los datos en claro (no se cierra).
+     * @param password Contraseña utilizada al cifrar.
+     * @throws IOException Si falla la E/S.
+     * @see #decryptStream(InputStream, OutputStream, Recipient)
+     */
+    public static void decryptStream(InputStream in, OutputStream out, char[] password) throws IOException {
+        decryptStream(in, out, passwordHolder(password));
+    }
+
+    /**
+     * <h3>Cifra un fichero en el formato segmentado v2</h3>
+     *
+     * <p>
+     * El fichero se procesa por segmentos de {@link Policy#SEGMENT_SIZE_DEFAULT} bytes,
+     * sin cargarlo entero en memoria. El resultado puede abrirse después con
+     * {@link #openSegmented(Path, char[])} para leer cualquier rango sin descifrar el resto.
+     * </p>
+     *
+     * @param input    Fichero en claro.
+     * @param output   Fichero cifrado de destino (se sobrescribe si existe).
+     * @param password Contraseña usada para generar la clave.
+     * @param aad      Datos adicionales autenticados (opcional).
+     * @throws IOException Si falla la lectura o escritura de los ficheros.
+     */
+    public static void encryptFileSegmented(Path input, Path output, char[] password, byte[] aad) throws IOException {
+        int keyBits = Policy.KEY_BITS_DEFAULT;
+
+        byte[] salt = RandomSource.nextBytes(Policy.SALT_LEN);
+        KdfParams kdfParams = KdfParams.preferred();
+        KeyMaterial km = KeyDerivation.derive(password, salt, keyBits, kdfParams);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SegmentedContainer container = new SegmentedContainer(
+                    AeadMode.preferred().id,
+                    kdfParams,
+                    keyBits,
+                    salt,
+                    RandomSource.nextBytes(Policy.GCM_NONCE_LEN),
+                    aad,
+                    Policy.SEGMENT_SIZE_DEFAULT,
+                    in.size()
+            );
+            container.encrypt(in, out, km.key());
+        }
+    }
+
+    /**
+     * <h3>Cifra un fichero en formato v2 en modo sobre</h3>
+     *
+     * <p>
+     * Igual que {@link #encryptFileSegmented(Path, Path, char[], byte[])}, pero con una
+     * clave de datos aleatoria envuelta para cada destinatario en un área de claves con
+     * hueco reservado ({@link Policy#KEY_WRAP_AREA_DEFAULT}). Cambiar contraseñas o
+     * destinatarios reescribe después solo esa área, sin tocar los segmentos.
+     * </p>
+     *
+     * @param input      Fichero en claro.
+     * @param output     Fichero cifrado de destino (se sobrescribe si existe).
+     * @param aad        Datos adicionales autenticados (opcional).
+     * @param recipients Destinatarios (al menos uno).
+     * @throws IOException Si falla la lectura o escritura de los ficheros.
+     */
+    public static void encryptFileEnvelope(Path input, Path output, byte[] aad, List<Recipient> recipients)
+            throws IOException {
+        SecretKey dek = newDataKey();
+        List<KeyWrap> wraps = wrapAll(dek, recipients);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SegmentedContainer container = new SegmentedContainer(
+                    AeadMode.preferred().id,
+                    KdfParams.legacy(),
+                    Policy.KEY_BITS_DEFAULT,
+                    new byte[0],
+                    RandomSource.nextBytes(Policy.GCM_NONCE_LEN),
+                    aad,
+                    Policy.SEGMENT_SIZE_DEFAULT,
+                    in.size(),
+                    wraps,
+                    SegmentedContainer.wrapAreaCapacity(Policy.KEY_WRAP_AREA_DEFAULT, wraps)
+            );
+            container.encrypt(in, out, dek);
+        }
+    }
+
+    /**
+     * <h3>Abre un fichero v2 como canal de lectura con acceso aleatorio</h3>
+     *
+     * <p>
+     * Solo se leen y descifran los segmentos que cubren cada lectura, por lo que
+     * leer los últimos KB de un fichero de varios GB cuesta lo mismo que leer
+     * los últimos KB de uno pequeño. El canal devuelto es de solo lectura y
+     * debe cerrarse al terminar.
+     * </p>
+     *
+     * @param input    Fichero cifrado con {@link #encryptFileSegmented(Path, Path, char[], byte[])}.
+     * @param password Contraseña utilizada al cifrar.
+     * @return Canal posicionable sobre el texto en claro.
+     * @throws IOException Si falla la apertura o lectura de la cabecera.
+     */
+    public static SeekableByteChannel openSegmented(Path input, char[] password) throws IOException {
+        return openSegmented(input, passwordHolder(password));
+    }
+
+    /**
+     * <h3>Abre un fichero v2 con cualquiera de sus destinatarios</h3>
+     *
+     * @param input     Fichero cifrado en formato v2, con clave derivada o en modo sobre.
+     * @param recipient Contraseña o fichero de clave de uno de los destinatarios.
+     * @return Canal posicionable sobre el texto en claro.
+     * @throws IOException     Si falla la apertura o lectura de la cabecera.
+     * @throws CryptoException Si el destinatario no puede abrir el fichero.
+     */
+    public static SeekableByteChannel openSegmented(Path input, Recipient recipient) throws IOException {
+        SeekableByteChannel src = Files.newByteChannel(input, StandardOpenOption.READ);
+        try {
+            SegmentedContainer header = SegmentedContainer.readHeader(src);
+            SecretKey key = header.isEnvelope()
+                    ? recipient.unwrap(header.keyWraps)
+                    : recipient.derive(header.salt, header.keyBits, header.kdfParams);
+            return new SegmentedReadChannel(src, header, key);
+        } catch (IOException | RuntimeException e) {
+            src.close();
+            throw e;
+        }
+    }
+
+    /**
+     * <h3>Cambia la contraseña o la KDF de un fichero v2 en modo sobre</h3>
+     *
+     * @param file        Fichero cifrado con {@link #encryptFileEnvelope(Path, Path, byte[], List)}.
+     * @param oldPassword Contraseña actual.
+     * @param newPassword Nueva contraseña (puede ser la misma).
+     * @param kdfParams   KDF y parámetros de coste para la nueva envoltura.
+     * @throws IOException     Si falla la lectura o escritura.
+     * @throws CryptoException Si la contraseña actual no es correcta.
+     */
+    public static void rewrap(Path file, char[] oldPassword, char[] newPassword, KdfParams kdfParams)
+            throws IOException {
+        Recipient replacement = Recipient.password(newPassword, kdfParams);
+        updateKeyWraps(file, wraps -> replaceWrap(wraps, passwordHolder(oldPassword), replacement));
+    }
+
+    /**
+     * <h3>Añade un destinatario a un fichero v2 en modo sobre</h3>
+     *
+     * @param file   Fichero cifrado en modo sobre.
+     * @param holder Destinatario actual que puede abrir el fichero.
+     * @param added  Nuevo destinatario.
+     * @throws IOException     Si falla la lectura o escritura.
+     * @throws CryptoException Si {@code holder} no puede abrir el fichero.
+     */
+    public static void addRecipient(Path file, Recipient holder, Recipient added) throws IOException {
+        updateKeyWraps(file, wraps -> {
+            List<KeyWrap> out = new ArrayList<>(wraps);
+            out.add(added.wrap(holder.unwrap(wraps)));
+            return out;
+        });
+    }
+
+    /**
+     * <h3>Quita un destinatario de un fichero v2 en modo sobre</h3>
+     *
+     * @param file    Fichero cifrado en modo sobre.
+     * @param removed Destinatario que se quiere quitar.
+     * @throws IOException     Si falla la lectura o escritura.
+     * @throws CryptoException Si no es destinatario del fichero o es el último.
+     */
+    public static void removeRecipient(Path file, Recipient removed) throws IOException {
+        updateKeyWraps(file, wraps -> removeWrap(wraps, removed));
+    }
+
+    /**
+     * Reescribe el área de claves de un fichero v2 en modo sobre.
+     *
+     * <p>
+     * Siempre se escribe una copia con la nueva área seguida de los segmentos tal cual
+     * (sin descifrarlos), se fuerza a disco y se sustituye el original de forma atómica:
+     * reescribir el área en el propio fichero dejaría, si algo falla a medias, un
+     * fichero que ninguna clave puede abrir.
+     * </p>
+     *
+     * @param file Fichero cifrado en modo sobre.
+     * @param edit Función que calcula las nuevas claves a partir de las actuales.
+     * @throws IOException     Si falla la lectura o escritura.
+     * @throws CryptoException Si el fichero no está en modo sobre o la edición falla.
+     */
+    private static void updateKeyWraps(Path file, UnaryOperator<List<KeyWrap>> edit) throws IOException {
+        Path tmp;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            SegmentedContainer header = SegmentedContainer.readHeader(ch);
+            if (!header.isEnvelope())
+                throw new CryptoException("El fichero no está en modo sobre");
+
+            SegmentedContainer updated = header.withKeyWraps(edit.apply(header.keyWraps));
+            tmp = Files.createTempFile(file.toAbsolutePath().getParent(), ".wraps-", ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                SegmentedContainer.writeFully(out, ByteBuffer.wrap(updated.headerBytes));
+                SegmentedContainer.writeFully(out, ByteBuffer.wrap(updated.encodeWrapArea()));
+                long pos = header.segmentOffset(0);
+                long end = ch.size();
+                while (pos < end) pos += ch.transferTo(pos, end - pos, out);
+                out.force(true);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+        }
+        // El original ya está cerrado: algunos sistemas no permiten reemplazar un fichero abierto
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package com.gaizkaFrost;
 
 import com.gaizkaFrost.AES.CryptoException;
+import com.gaizkaFrost.AES.LocalKeyStore;
+import com.gaizkaFrost.AES.TextCipher;
 import com.gaizkaFrost.AES.UseCases;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
 
 /**
  * <h2>Servicio de cifrado y descifrado AES (versión alternativa)</h2>
@@ -50,9 +54,10 @@ public class AESCryptoService {
      * <h3>Cifra un texto utilizando AES</h3>
      *
      * <p>
-     * Convierte el texto plano a UTF-8, deriva internamente la clave y delega la operación
-     * en {@link UseCases#encryptToBase64(byte[], char[], String)}.
-     * Devuelve el resultado en Base64 listo para transporte o almacenamiento.
+     * Deriva internamente la clave y cifra con {@link TextCipher}, sin compresión (la
+     * longitud del cifrado no depende de lo compresible que sea el texto). El resultado
+     * es el mismo formato que {@link UseCases#encryptToBase64(byte[], char[], String)} y se
+     * devuelve en Base64 listo para transporte o almacenamiento.
      * </p>
      *
      * @param textoPlano Texto original que se desea cifrar. Si es {@code null}, se usa cadena vacía.
@@ -61,19 +66,40 @@ public class AESCryptoService {
      * @throws CryptoException Si ocurre un error criptográfico (clave incorrecta, fallo interno…).
      */
     public static String cifrar(String textoPlano, String password) throws CryptoException {
-        String seguroTexto = nonNull(textoPlano);
-        String seguraPassword = nonNull(password);
+        char[] pwdChars = nonNull(password).toCharArray();
+        try {
+            StringBuilder resultado = new StringBuilder();
+            cifrar(nonNull(textoPlano), pwdChars, resultado);
+            return resultado.toString();
+        } finally {
+            Arrays.fill(pwdChars, '\0');
+        }
+    }
 
+    /**
+     * <h3>Cifra un texto y añade el Base64 a un destino</h3>
+     *
+     * <p>
+     * Variante sin copias intermedias de {@link #cifrar(String, String)}: el texto se
+     * codifica en UTF-8, se cifra y se escribe en Base64 sobre búferes reutilizables,
+     * sin pasar por {@code byte[]} ni {@code String} del tamaño del texto. Reutilizar el
+     * mismo {@link StringBuilder} entre llamadas evita también la cadena de salida.
+     * </p>
+     *
+     * @param textoPlano Texto original que se desea cifrar. Si es {@code null}, se usa cadena vacía.
+     * @param password   Contraseña utilizada para generar la clave AES.
+     * @param destino    Destino del texto cifrado en Base64.
+     * @throws CryptoException Si ocurre un error criptográfico.
+     */
+    public static void cifrar(CharSequence textoPlano, char[] password, Appendable destino)
+            throws CryptoException {
+        CharSequence seguroTexto = textoPlano == null ? "" : textoPlano;
         logger.info("Cifrando texto con AES (longitud={} caracteres)", seguroTexto.length());
 
         try {
-            byte[] plainBytes = seguroTexto.getBytes(StandardCharsets.UTF_8);
-            char[] pwdChars = seguraPassword.toCharArray();
+            TextCipher.encrypt(seguroTexto, nonNull(password), AAD, false, destino);
 
-            String resultado = UseCases.encryptToBase64(plainBytes, pwdChars, AAD);
-
-            logger.info("Cifrado AES completado correctamente (Base64 length={})", resultado.length());
-            return resultado;
+            logger.info("Cifrado AES completado correctamente");
 
         } catch (CryptoException e) {
             logger.error("Error criptográfico durante el cifrado AES", e);
@@ -98,17 +124,38 @@ public class AESCryptoService {
      * @throws CryptoException Si la contraseña es incorrecta o los datos están corruptos.
      */
     public static String descifrar(String cifradoBase64, String password) throws CryptoException {
-        String seguroCifrado = nonNull(cifradoBase64);
-        String seguraPassword = nonNull(password);
+        char[] pwdChars = nonNull(password).toCharArray();
+        try {
+            StringBuilder resultado = new StringBuilder();
+            descifrar(nonNull(cifradoBase64), pwdChars, resultado);
+            return resultado.toString();
+        } finally {
+            Arrays.fill(pwdChars, '\0');
+        }
+    }
 
+    /**
+     * <h3>Descifra un texto en Base64 y añade el texto plano a un destino</h3>
+     *
+     * <p>
+     * Variante sin copias intermedias de {@link #descifrar(String, String)}: decodifica
+     * el Base64, descifra y decodifica el UTF-8 sobre búferes reutilizables.
+     * </p>
+     *
+     * @param cifradoBase64 Texto cifrado en Base64. Si es {@code null}, se usa cadena vacía.
+     * @param password      Contraseña necesaria para descifrar correctamente.
+     * @param destino       Destino del texto plano.
+     * @throws CryptoException Si la contraseña es incorrecta o los datos están corruptos.
+     */
+    public static void descifrar(CharSequence cifradoBase64, char[] password, Appendable destino)
+            throws CryptoException {
+        CharSequence seguroCifrado = cifradoBase64 == null ? "" : cifradoBase64;
         logger.info("Descifrando texto con AES (Base64 length={})", seguroCifrado.length());
 
         try {
-            char[] pwdChars = seguraPassword.toCharArray();
-            byte[] plainBytes = UseCases.decryptFromBase64(seguroCifrado, pwdChars);
+            TextCipher.decrypt(seguroCifrado, nonNull(password), destino);
 
             logger.info("Descifrado AES completado correctamente");
-            return new String(plainBytes, StandardCharsets.UTF_8);
 
         } catch (CryptoException e) {
             logger.warn("Falló el descifrado AES: contraseña incorrecta o datos corruptos", e);
@@ -119,6 +166,65 @@ public class AESCryptoService {
         }
     }
 
+    /**
+     * <h3>Cifra un texto con una clave con nombre de un almacén local</h3>
+     *
+     * <p>
+     * Igual que {@link #cifrar(String, String)}, pero sin derivar ninguna clave de una
+     * contraseña: usa la clave {@code keyId} de un {@link LocalKeyStore} ya desbloqueado.
+     * </p>
+     *
+     * @param textoPlano Texto original que se desea cifrar. Si es {@code null}, se usa cadena vacía.
+     * @param almacen    Almacén de claves desbloqueado.
+     * @param keyId      Nombre de la clave.
+     * @return El texto cifrado codificado en Base64.
+     * @throws CryptoException Si el almacén está bloqueado o la clave no existe.
+     */
+    public static String cifrarConClave(String textoPlano, LocalKeyStore almacen, String keyId)
+            throws CryptoException {
+        String seguroTexto = nonNull(textoPlano);
+
+        logger.info("Cifrando texto con la clave '{}' (longitud={} caracteres)", keyId, seguroTexto.length());
+
+        try {
+            byte[] blob = UseCases.encryptWithKey(seguroTexto.getBytes(StandardCharsets.UTF_8),
+                    AAD.getBytes(StandardCharsets.UTF_8), true, almacen, keyId);
+            return Base64.getEncoder().encodeToString(blob);
+
+        } catch (CryptoException e) {
+            logger.error("Error criptográfico durante el cifrado con clave almacenada", e);
+            throw e;
+        }
+    }
+
+    /**
+     * <h3>Descifra un texto con las claves de un almacén local</h3>
+     *
+     * <p>
+     * Los descifrados repetidos no pagan el coste de la KDF: la clave ya está en memoria
+     * desde que se desbloqueó el almacén.
+     * </p>
+     *
+     * @param cifradoBase64 Texto cifrado en Base64. Si es {@code null}, se usa cadena vacía.
+     * @param almacen       Almacén de claves desbloqueado.
+     * @return Texto plano descifrado.
+     * @throws CryptoException Si ninguna clave del almacén abre el texto o los datos están corruptos.
+     */
+    public static String descifrarConClave(String cifradoBase64, LocalKeyStore almacen) throws CryptoException {
+        String seguroCifrado = nonNull(cifradoBase64);
+
+        logger.info("Descifrando texto con el almacén de claves (Base64 length={})", seguroCifrado.length());
+
+        try {
+            byte[] plainBytes = UseCases.decryptWithKeyStore(Base64.getDecoder().decode(seguroCifrado), almacen);
+            return new String(plainBytes, StandardCharsets.UTF_8);
+
+        } catch (CryptoException e) {
+            logger.warn("Falló el descifrado con el almacén de claves", e);
+            throw e;
+        }
+    }
+
     /**
      * Devuelve una cadena vacía cuando el valor es {@code null}, evitando
      * excepciones innecesarias.
@@ -129,4 +235,15 @@ public class AESCryptoService {
     private static String nonNull(String value) {
         return value == null ? "" : value;
     }
+
+    /**
+     * Devuelve una contraseña vacía cuando el valor es {@code null}, como
+     * {@link #nonNull(String)} en las variantes con {@code char[]}.
+     *
+     * @param value Contraseña recibida que podría ser {@code null}.
+     * @return El mismo array o uno vacío.
+     */
+    private static char[] nonNull(char[] value) {
+        return value == null ? new char[0] : value;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.gaizkaFrost;
 
+import com.gaizkaFrost.AES.CryptoEvents;
+
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
@@ -115,7 +117,7 @@ public class AESImageService {
      * @throws Exception Si ocurre algún error durante el proceso de cifrado.
      */
     public void encryptImage(Path inputImagePath, Path outputEncryptedPath) throws Exception {
-        byte[] inputBytes = Files.readAllBytes(inputImagePath);
+        byte[] inputBytes = read(inputImagePath);
 
         // Generar IV aleatorio
         byte[] iv = new byte[IV_LENGTH];
@@ -133,7 +135,7 @@ public class AESImageService {
         baos.write(iv);
         baos.write(encryptedBytes);
 
-        Files.write(outputEncryptedPath, baos.toByteArray());
+        write(outputEncryptedPath, baos.toByteArray());
     }
 
     /**
@@ -155,7 +157,7 @@ public class AESImageService {
      * @throws Exception Si el archivo está corrupto o la clave no coincide.
      */
     public void decryptImage(Path inputEncryptedPath, Path outputImagePath) throws Exception {
-        byte[] fileBytes = Files.readAllBytes(inputEncryptedPath);
+        byte[] fileBytes = read(inputEncryptedPath);
 
         if (fileBytes.length < IV_LENGTH) {
             throw new IllegalArgumentException("El archivo cifrado es demasiado pequeño o está corrupto.");
@@ -171,6 +173,43 @@ public class AESImageService {
 
         byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
 
-        Files.write(outputImagePath, decryptedBytes);
+        write(outputImagePath, decryptedBytes);
+    }
+
+    /**
+     * Lee un fichero completo registrando un evento JFR {@link CryptoEvents.FileIo}.
+     *
+     * @param path Fichero.
+     * @return Su contenido.
+     * @throws IOException Si no se puede leer.
+     */
+    private static byte[] read(Path path) throws IOException {
+        CryptoEvents.FileIo ev = new CryptoEvents.FileIo();
+        ev.begin();
+        byte[] data = Files.readAllBytes(path);
+        CryptoEvents.commit(ev, e -> {
+            e.operation = "read";
+            e.file = String.valueOf(path.getFileName());
+            e.bytes = data.length;
+        });
+        return data;
+    }
+
+    /**
+     * Escribe un fichero completo registrando un evento JFR {@link CryptoEvents.FileIo}.
+     *
+     * @param path Fichero.
+     * @param data Contenido.
+     * @throws IOException Si no se puede escribir.
+     */
+    private static void write(Path path, byte[] data) throws IOException {
+        CryptoEvents.FileIo ev = new CryptoEvents.FileIo();
+        ev.begin();
+        Files.write(path, data);
+        CryptoEvents.commit(ev, e -> {
+            e.operation = "write";
+            e.file = String.valueOf(path.getFileName());
+            e.bytes = data.length;
+        });
     }
 }
\ No newline at end of file
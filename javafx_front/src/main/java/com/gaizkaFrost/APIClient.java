@@ -1,10 +1,18 @@
 package com.gaizkaFrost;
 
+import com.gaizkaFrost.vigenere.CacheResultados;
+import com.gaizkaFrost.vigenere.Trama;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * <h2>Cliente HTTP para la API Vigenère</h2>
@@ -21,6 +29,23 @@ import org.json.JSONObject;
  * devolviendo únicamente el texto cifrado o descifrado.
  * </p>
  *
+ * <p>
+ * Por defecto las peticiones viajan como {@link Trama} binaria (campos UTF-8 con
+ * longitud, sin escapes ni nombres de campo), negociada con {@code Content-Type}. Si el
+ * backend no la entiende (responde 415, o un 2xx en otro formato), el cliente vuelve a
+ * JSON para el resto de la sesión. Un 500 en otro formato puede ser un backend
+ * anterior a la trama (Flask rechaza el tipo y su {@code except Exception} lo convierte
+ * en error interno): esa petición se repite una vez en JSON y, solo si funciona, se
+ * pasa a JSON. Cualquier otro error se comunica sin cambiar de formato.
+ * Con {@code -Ddescifrador.api.formato=json} se usa siempre JSON.
+ * </p>
+ *
+ * <p>
+ * Los resultados correctos se guardan en una {@link CacheResultados} LRU: repetir una
+ * operación con la misma clave y el mismo texto no sale a la red. Su tamaño se fija con
+ * {@code -Ddescifrador.cache.bytes} (8 MiB por defecto, {@code 0} la desactiva).
+ * </p>
+ *
  * @see <a href="http://localhost:5000/api/vigenere/">API Vigenère Backend</a>
  * @author Gaizka
  * @author Diego
@@ -39,6 +64,24 @@ public class APIClient {
      */
     private static final HttpClient client = HttpClient.newHttpClient();
 
+    /**
+     * Logger de la clase.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(APIClient.class);
+
+    /**
+     * Resultados ya obtenidos de la API.
+     */
+    private static final CacheResultados cache =
+            new CacheResultados(Long.getLong("descifrador.cache.bytes", 8L << 20));
+
+    /**
+     * {@code true} mientras se use la trama binaria; pasa a {@code false} si el backend
+     * no la admite.
+     */
+    private static volatile boolean trama =
+            !"json".equalsIgnoreCase(System.getProperty("descifrador.api.formato", "trama"));
+
     /**
      * <h3>Método de cifrado Vigenère</h3>
      *
@@ -47,10 +90,10 @@ public class APIClient {
      *
      * <p>El proceso consiste en:</p>
      * <ul>
-     *     <li>Crear un objeto JSON con el texto y la clave.</li>
+     *     <li>Codificar el texto y la clave (trama binaria o JSON).</li>
      *     <li>Enviar la petición POST al backend.</li>
      *     <li>Validar el código de estado HTTP recibido.</li>
-     *     <li>Devolver el campo {@code "texto_cifrado"} del JSON de respuesta.</li>
+     *     <li>Devolver el texto cifrado de la respuesta (campo {@code "texto_cifrado"} en JSON).</li>
      * </ul>
      *
      * @param texto Texto plano que se desea cifrar.
@@ -59,29 +102,7 @@ public class APIClient {
      * @throws Exception Si ocurre un error de red o la API devuelve un mensaje de error.
      */
     public static String cifrarVigenere(String texto, String clave) throws Exception {
-
-        JSONObject json = new JSONObject();
-        json.put("texto", texto);
-        json.put("clave", clave);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL + "cifrar"))
-                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
-                .header("Content-Type", "application/json")
-                .build();
-
-        HttpResponse<String> response = client.send(
-                request,
-                HttpResponse.BodyHandlers.ofString()
-        );
-
-        if (response.statusCode() != 200) {
-            JSONObject errorJson = new JSONObject(response.body());
-            throw new Exception(errorJson.getString("error"));
-        }
-
-        JSONObject responseJson = new JSONObject(response.body());
-        return responseJson.getString("texto_cifrado");
+        return llamar("cifrar", texto, clave, "texto_cifrado");
     }
 
     /**
@@ -92,10 +113,10 @@ public class APIClient {
      *
      * <p>Proceso:</p>
      * <ul>
-     *     <li>Construcción del JSON con el texto cifrado y la clave.</li>
+     *     <li>Codificación del texto cifrado y la clave (trama binaria o JSON).</li>
      *     <li>Envío de la petición POST.</li>
      *     <li>Control de errores basado en el código HTTP.</li>
-     *     <li>Extracción del valor {@code "texto_descifrado"}.</li>
+     *     <li>Extracción del texto descifrado (campo {@code "texto_descifrado"} en JSON).</li>
      * </ul>
      *
      * @param texto Texto cifrado que se desea descifrar.
@@ -104,13 +125,130 @@ public class APIClient {
      * @throws Exception Si el backend devuelve un mensaje de error o falla la conexión.
      */
     public static String descifrarVigenere(String texto, String clave) throws Exception {
+        return llamar("descifrar", texto, clave, "texto_descifrado");
+    }
 
+    /**
+     * @return Caché de resultados del cliente (para consultar o publicar sus métricas).
+     */
+    public static CacheResultados cacheResultados() {
+        return cache;
+    }
+
+    /**
+     * Resuelve la operación desde la caché o, si no está, llamando a la API.
+     *
+     * @param endpoint  {@code cifrar} o {@code descifrar}.
+     * @param texto     Texto.
+     * @param clave     Clave.
+     * @param resultado Campo del resultado en la respuesta JSON.
+     * @return Texto devuelto por la API.
+     * @throws Exception Si falla la conexión o la API devuelve un error.
+     */
+    private static String llamar(String endpoint, String texto, String clave, String resultado) throws Exception {
+        String r = cache.obtener(endpoint, clave, texto);
+        if (r == null) {
+            r = llamarApi(endpoint, texto, clave, resultado);
+            cache.guardar(endpoint, clave, texto, r);
+        }
+        return r;
+    }
+
+    /**
+     * Llama a un endpoint en el formato negociado.
+     *
+     * @param endpoint  {@code cifrar} o {@code descifrar}.
+     * @param texto     Texto.
+     * @param clave     Clave.
+     * @param resultado Campo del resultado en la respuesta JSON.
+     * @return Texto devuelto por la API.
+     * @throws Exception Si falla la conexión o la API devuelve un error.
+     */
+    private static String llamarApi(String endpoint, String texto, String clave, String resultado)
+            throws Exception {
+        if (trama) {
+            String r = llamarTrama(endpoint, texto, clave);
+            if (r != null) return r;
+            // Si JSON también falla, el error se comunica y se sigue intentando la trama
+            r = llamarJson(endpoint, texto, clave, resultado);
+            logger.info("El backend no admite {}; se usará JSON", Trama.TIPO);
+            trama = false;
+            return r;
+        }
+        return llamarJson(endpoint, texto, clave, resultado);
+    }
+
+    /**
+     * Petición y respuesta como {@link Trama} binaria. El cuerpo se envía directamente
+     * desde el búfer reutilizable del hilo (la llamada es síncrona).
+     *
+     * @param endpoint Endpoint.
+     * @param texto    Texto.
+     * @param clave    Clave.
+     * @return Texto devuelto, o {@code null} si puede que el backend no admita la trama
+     *         (415, o respuesta correcta o 500 en otro formato).
+     * @throws Exception Si falla la conexión o la API devuelve un error.
+     */
+    private static String llamarTrama(String endpoint, String texto, String clave) throws Exception {
+        ByteBuffer peticion = Trama.peticion(texto, clave);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(API_BASE_URL + endpoint))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(peticion.array(), 0, peticion.limit()))
+                .header("Content-Type", Trama.TIPO)
+                .header("Accept", Trama.TIPO)
+                .build();
+
+        HttpResponse<InputStream> response = client.send(
+                request,
+                HttpResponse.BodyHandlers.ofInputStream()
+        );
+
+        try (InputStream body = response.body()) {
+            String tipo = response.headers().firstValue("Content-Type").orElse("");
+            int status = response.statusCode();
+            if (!tipo.startsWith(Trama.TIPO)) {
+                if (status == 415 || status == 500 || status / 100 == 2) return null;
+                throw new Exception(mensajeError(status, new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+            Trama.Respuesta r = Trama.leerRespuesta(body);
+            if (status != 200 || !r.ok()) throw new Exception(r.texto());
+            return r.texto();
+        }
+    }
+
+    /**
+     * @param status Código HTTP.
+     * @param cuerpo Cuerpo de la respuesta.
+     * @return Campo {@code error} si el cuerpo es el JSON de error de la API; si no, un
+     *         mensaje con el código.
+     */
+    private static String mensajeError(int status, String cuerpo) {
+        try {
+            return new JSONObject(cuerpo).getString("error");
+        } catch (JSONException e) {
+            return "La API respondió con el código HTTP " + status;
+        }
+    }
+
+    /**
+     * Petición y respuesta en JSON.
+     *
+     * @param endpoint  Endpoint.
+     * @param texto     Texto.
+     * @param clave     Clave.
+     * @param resultado Campo del resultado.
+     * @return Texto devuelto.
+     * @throws Exception Si falla la conexión o la API devuelve un error.
+     */
+    private static String llamarJson(String endpoint, String texto, String clave, String resultado)
+            throws Exception {
         JSONObject json = new JSONObject();
         json.put("texto", texto);
         json.put("clave", clave);
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL + "descifrar"))
+                .uri(URI.create(API_BASE_URL + endpoint))
                 .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
                 .header("Content-Type", "application/json")
                 .build();
@@ -126,6 +264,6 @@ public class APIClient {
         }
 
         JSONObject responseJson = new JSONObject(response.body());
-        return responseJson.getString("texto_descifrado");
+        return responseJson.getString(resultado);
     }
-}
\ No newline at end of file
+}
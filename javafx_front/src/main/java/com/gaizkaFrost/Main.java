@@ -1,5 +1,6 @@
 package com.gaizkaFrost;
 
+import com.gaizkaFrost.AES.CryptoMetrics;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -9,6 +10,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <h2>Clase Main</h2>
@@ -26,6 +28,16 @@ import java.io.InputStreamReader;
  */
 public class Main extends Application
 {
+    /**
+     * Segundos que se espera al apagado ordenado de la API antes de forzarlo.
+     */
+    private static final int ESPERA_APAGADO = 15;
+
+    /**
+     * Proceso de la API Python, o {@code null} si no se pudo lanzar.
+     */
+    private Process apiPython;
+
     /**
      * <h3>Método start</h3>
      * Punto de entrada de la aplicación JavaFX.
@@ -38,6 +50,13 @@ public class Main extends Application
      */
     @Override
     public void start(Stage stage) throws Exception {
+        try {
+            CryptoMetrics.registerJmx(); // métricas de cifrado visibles en JConsole/VisualVM
+            APIClient.cacheResultados().registrarJmx("cliente");
+        } catch (RuntimeException e) {
+            // Sin JMX la aplicación funciona igual; solo se pierde la monitorización
+            System.err.println("AVISO: no se pudieron publicar las métricas JMX: " + e.getMessage());
+        }
         try {
             stage.getIcons().add(new Image(getClass().getResourceAsStream("/imagenes/icono.png")));
             String env = System.getProperty("env", "prod");
@@ -45,11 +64,17 @@ public class Main extends Application
                     ? "C:\\Users\\GaizkaClase\\IdeaProjects\\Descifrador\\Python_backend"
                     : "Python_backend";
 
-            ProcessBuilder pb = new ProcessBuilder("python", "app.py");
+            // Modo producción: varios procesos trabajadores, sin debug, y apagado
+            // ordenado al cerrar su entrada estándar (ver stop())
+            String trabajadores = System.getProperty("descifrador.api.trabajadores",
+                    String.valueOf(Runtime.getRuntime().availableProcessors()));
+            ProcessBuilder pb = new ProcessBuilder("python", "app.py", "--produccion",
+                    "--trabajadores", trabajadores, "--vigilar-stdin");
             pb.directory(new File(rutaApi));
             pb.redirectErrorStream(true); // junta error y salida
 
             Process process = pb.start();
+            apiPython = process;
             /**
              * <h4>Hilo de lectura de la API Python</h4>
              * Este hilo independiente evita bloquear el hilo principal de JavaFX
@@ -83,6 +108,32 @@ public class Main extends Application
     }
 
 
+    /**
+     * <h3>Método stop</h3>
+     * Se invoca al cerrar la aplicación JavaFX. Pide a la API Python un apagado
+     * ordenado cerrando su entrada estándar (termina las peticiones en curso y
+     * detiene sus trabajadores) y solo la mata si no ha salido tras
+     * {@value #ESPERA_APAGADO} segundos.
+     */
+    @Override
+    public void stop() {
+        Process process = apiPython;
+        if (process == null || !process.isAlive()) return;
+        try {
+            process.getOutputStream().close();
+            if (!process.waitFor(ESPERA_APAGADO, TimeUnit.SECONDS)) {
+                System.err.println("La API no se detuvo a tiempo; forzando su cierre");
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+
+
     /**
      * <h3>Método main</h3>
      * Método principal del programa.
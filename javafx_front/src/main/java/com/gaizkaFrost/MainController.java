@@ -1,5 +1,9 @@
 package com.gaizkaFrost;
 
+import com.gaizkaFrost.AES.Policy;
+import com.gaizkaFrost.AES.UseCases;
+import com.gaizkaFrost.cipher.CipherAlgorithm;
+import com.gaizkaFrost.cipher.CipherRegistry;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -17,6 +21,8 @@ import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
@@ -26,9 +32,13 @@ import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.ResourceBundle;
 import javafx.concurrent.Task;
@@ -70,6 +80,12 @@ public class MainController {
      */
     private static final int TAG_LENGTH = 128; // bits
 
+    /**
+     * Caracteres a partir de los cuales un texto se cifra en formato v2 con armadura
+     * ({@link UseCases#encryptToArmor}) en lugar de en un único bloque Base64.
+     */
+    private static final int ARMADURA_DESDE = 1 << 20;
+
     // ====== Controles mapeados 1:1 con el FXML ======
 
     @FXML
@@ -115,6 +131,12 @@ public class MainController {
     ResourceBundle bundle = ResourceBundle.getBundle("messages", new Locale("es", "ES"));
     // fx:id="descifrarBtn"
 
+    /**
+     * Algoritmos del {@link CipherRegistry} por el nombre con el que aparecen en el combo
+     * (AES se gestiona aparte porque también cifra imágenes).
+     */
+    private final Map<String, CipherAlgorithm> algoritmos = new LinkedHashMap<>();
+
     /**
      * Si no es null, indica que se está trabajando con una imagen
      * (original o cifrada) en lugar de texto.
@@ -132,16 +154,11 @@ public class MainController {
     public void initialize() {
         logger.info("Inicializando MainController");
         cambiarIdioma(new Locale("es", "ES"));
+        // AES seleccionado por defecto (cambiarIdioma ya ha rellenado el combo)
         if (algoritmoCombo != null && (algoritmoCombo.getValue() == null || algoritmoCombo.getValue().isBlank())) {
-            algoritmoCombo.getItems().setAll("Vigenère", "AES");
-            algoritmoCombo.setValue("AES");
+            algoritmoCombo.setValue(bundle.getString("aes"));
         }
         actualizarStatus("Listo");
-
-        // Opcional: seleccionar AES por defecto
-        if (algoritmoCombo != null && algoritmoCombo.getValue() == null) {
-            algoritmoCombo.getSelectionModel().select("AES");
-        }
     }
 
     /**
@@ -221,8 +238,9 @@ public class MainController {
      * (texto o imagen), realiza el cifrado correspondiente.
      *
      * <ul>
-     *     <li>Vigenère: solo texto, vía API externa ({@code APIClient}).</li>
      *     <li>AES: texto o imagen, cifrado local.</li>
+     *     <li>Algoritmos del {@link CipherRegistry} (Vigenère vía API, César, Beaufort,
+     *     autoclave...): solo texto.</li>
      * </ul>
      *
      * @param event Evento de acción generado al pulsar el botón "Cifrar".
@@ -245,35 +263,7 @@ public class MainController {
                 return;
             }
 
-            if ("Vigenère".equalsIgnoreCase(algoritmo)) {
-                if (rutaImagenSeleccionada != null) {
-                    actualizarStatus("Vigenère no soporta cifrar imágenes");
-                    showInfoAlert("Por ahora la encriptación de imágenes solo está soportada con AES.");
-                    return;
-                }
-                String texto = textoEntradaArea != null ? textoEntradaArea.getText() : "";
-                if (texto == null || texto.isBlank()) {
-                    actualizarStatus("No hay texto para cifrar");
-                    showInfoAlert("Escribe un texto antes de cifrar.");
-                    return;
-                }
-                actualizarStatus("Cifrando texto con Vigenère (API)...");
-                Task<String> task = new Task<>() {
-                    @Override
-                    protected String call() throws Exception {
-                        return APIClient.cifrarVigenere(texto, clave);
-                    }
-                };
-                task.setOnSucceeded(e -> {
-                    textoSalidaArea.setText(task.getValue());
-                    actualizarStatus("Texto cifrado con Vigenère correctamente");
-                });
-                task.setOnFailed(e -> {
-                    actualizarStatus("Error cifrando texto con Vigenère");
-                    showInfoAlert("Error al cifrar con Vigenère: " + task.getException().getMessage());
-                });
-                new Thread(task).start();
-            } else if ("AES".equalsIgnoreCase(algoritmo)) {
+            if ("AES".equalsIgnoreCase(algoritmo)) {
                 if (rutaImagenSeleccionada != null) {
                     cifrarImagen();
                 } else {
@@ -285,9 +275,22 @@ public class MainController {
                     }
                     cifrarTexto();
                 }
+            } else if (algoritmos.containsKey(algoritmo)) {
+                if (rutaImagenSeleccionada != null) {
+                    actualizarStatus(algoritmo + " no soporta cifrar imágenes");
+                    showInfoAlert("Por ahora la encriptación de imágenes solo está soportada con AES.");
+                    return;
+                }
+                String texto = textoEntradaArea != null ? textoEntradaArea.getText() : "";
+                if (texto == null || texto.isBlank()) {
+                    actualizarStatus("No hay texto para cifrar");
+                    showInfoAlert("Escribe un texto antes de cifrar.");
+                    return;
+                }
+                ejecutarAlgoritmo(algoritmos.get(algoritmo), algoritmo, texto, clave, true);
             } else {
                 actualizarStatus("Algoritmo no soportado: " + algoritmo);
-                showInfoAlert("Solo se soportan AES y Vigenère actualmente.");
+                showInfoAlert("Algoritmo no soportado: " + algoritmo);
             }
         } catch (Exception e) {
             logger.error("Error al cifrar", e);
@@ -303,7 +306,8 @@ public class MainController {
     /**
      * Maneja la acción del botón "Descifrar".
      * Según el algoritmo seleccionado y el tipo de entrada, realiza el descifrado
-     * de texto o imagen, ya sea mediante la API (Vigenère) o lógica local (AES).
+     * de texto o imagen: AES localmente, o el algoritmo del {@link CipherRegistry}
+     * seleccionado (Vigenère a través de la API).
      *
      * @param event Evento de acción generado al pulsar el botón "Descifrar".
      */
@@ -325,30 +329,7 @@ public class MainController {
                 return;
             }
 
-            if ("Vigenère".equalsIgnoreCase(algoritmo)) {
-                String texto = textoEntradaArea != null ? textoEntradaArea.getText() : "";
-                if (texto == null || texto.isBlank() || texto.startsWith("🖼️ Imagen cargada")) {
-                    actualizarStatus("No hay texto para descifrar");
-                    showInfoAlert("Escribe un texto válido para descifrar con Vigenère.");
-                    return;
-                }
-                actualizarStatus("Descifrando texto con Vigenère (API)...");
-                Task<String> task = new Task<>() {
-                    @Override
-                    protected String call() throws Exception {
-                        return APIClient.descifrarVigenere(texto, clave);
-                    }
-                };
-                task.setOnSucceeded(e -> {
-                    textoSalidaArea.setText(task.getValue());
-                    actualizarStatus("Texto descifrado con Vigenère correctamente");
-                });
-                task.setOnFailed(e -> {
-                    actualizarStatus("Error descifrando texto con Vigenère");
-                    showInfoAlert("Error al descifrar con Vigenère: " + task.getException().getMessage());
-                });
-                new Thread(task).start();
-            } else if ("AES".equalsIgnoreCase(algoritmo)) {
+            if ("AES".equalsIgnoreCase(algoritmo)) {
                 if (rutaImagenSeleccionada != null) {
                     descifrarImagenDesdeRuta(rutaImagenSeleccionada, clave);
                 } else {
@@ -360,9 +341,17 @@ public class MainController {
                     }
                     descifrarTextoDesdeTextArea();
                 }
+            } else if (algoritmos.containsKey(algoritmo)) {
+                String texto = textoEntradaArea != null ? textoEntradaArea.getText() : "";
+                if (texto == null || texto.isBlank() || texto.startsWith("🖼️ Imagen cargada")) {
+                    actualizarStatus("No hay texto para descifrar");
+                    showInfoAlert("Escribe un texto válido para descifrar con " + algoritmo + ".");
+                    return;
+                }
+                ejecutarAlgoritmo(algoritmos.get(algoritmo), algoritmo, texto, clave, false);
             } else {
                 actualizarStatus("Algoritmo no soportado: " + algoritmo);
-                showInfoAlert("Solo se soportan AES y Vigenère actualmente.");
+                showInfoAlert("Algoritmo no soportado: " + algoritmo);
             }
         } catch (Exception e) {
             logger.error("Error al descifrar", e);
@@ -371,6 +360,38 @@ public class MainController {
         }
     }
 
+    /**
+     * Cifra o descifra texto con un algoritmo del {@link CipherRegistry} en segundo plano
+     * y muestra el resultado en el área de salida.
+     *
+     * @param algoritmo Algoritmo seleccionado.
+     * @param nombre    Nombre mostrado en el combo.
+     * @param texto     Texto de entrada.
+     * @param clave     Clave introducida por el usuario.
+     * @param cifrar    {@code true} para cifrar, {@code false} para descifrar.
+     */
+    private void ejecutarAlgoritmo(CipherAlgorithm algoritmo, String nombre, String texto, String clave,
+                                   boolean cifrar) {
+        String origen = algoritmo.remoto() ? " (API)" : "";
+        actualizarStatus((cifrar ? "Cifrando" : "Descifrando") + " texto con " + nombre + origen + "...");
+        Task<String> task = new Task<>() {
+            @Override
+            protected String call() throws Exception {
+                return cifrar ? algoritmo.cifrar(texto, clave) : algoritmo.descifrar(texto, clave);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            textoSalidaArea.setText(task.getValue());
+            actualizarStatus("Texto " + (cifrar ? "cifrado" : "descifrado") + " con " + nombre + " correctamente");
+        });
+        task.setOnFailed(e -> {
+            actualizarStatus("Error " + (cifrar ? "cifrando" : "descifrando") + " texto con " + nombre);
+            showInfoAlert("Error al " + (cifrar ? "cifrar" : "descifrar") + " con " + nombre + ": "
+                    + task.getException().getMessage());
+        });
+        new Thread(task).start();
+    }
+
     /**
      * Descifra una imagen cifrada con AES a partir de una ruta dada
      * y una clave proporcionada por el usuario.
@@ -484,6 +505,51 @@ public class MainController {
         return new String(plano, StandardCharsets.UTF_8);
     }
 
+    /**
+     * Cifra un texto grande en el formato segmentado v2 con armadura de texto, que
+     * autentica cada segmento por separado y puede pegarse o guardarse como texto.
+     *
+     * @param textoPlano Texto original a cifrar.
+     * @param clave      Contraseña proporcionada por el usuario.
+     * @return Texto entre {@link Policy#ARMOR_BEGIN} y {@link Policy#ARMOR_END}.
+     * @throws IOException Si falla el cifrado en flujo.
+     */
+    private String cifrarTextoConArmadura(String textoPlano, String clave) throws IOException {
+        byte[] plano = textoPlano.getBytes(StandardCharsets.UTF_8);
+        char[] pwd = clave.toCharArray();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plano.length / 3 * 4 + 4096);
+            UseCases.encryptToArmor(new ByteArrayInputStream(plano), plano.length, out, pwd, null);
+            return out.toString(StandardCharsets.US_ASCII);
+        } finally {
+            Arrays.fill(pwd, '\0');
+            Arrays.fill(plano, (byte) 0);
+        }
+    }
+
+    /**
+     * Descifra un texto con armadura, ya venga de esta aplicación, del portapapeles o
+     * de la API ({@code /api/aes/cifrar} con {@code Accept: text/plain}).
+     *
+     * @param textoArmadura Texto con armadura.
+     * @param clave         Contraseña usada al cifrar.
+     * @return Texto plano resultante tras el descifrado.
+     * @throws IOException Si falla la lectura de la armadura.
+     * @throws com.gaizkaFrost.AES.CryptoFormatException Si la armadura está dañada.
+     * @throws com.gaizkaFrost.AES.CryptoException       Si la clave no es correcta.
+     */
+    private String descifrarTextoConArmadura(String textoArmadura, String clave) throws IOException {
+        char[] pwd = clave.toCharArray();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            UseCases.decryptFromArmor(new ByteArrayInputStream(textoArmadura.getBytes(StandardCharsets.US_ASCII)),
+                    out, pwd);
+            return out.toString(StandardCharsets.UTF_8);
+        } finally {
+            Arrays.fill(pwd, '\0');
+        }
+    }
+
     /**
      * Cifra el contenido del área de texto de entrada usando AES
      * y coloca el resultado cifrado en el área de texto de salida.
@@ -506,7 +572,9 @@ public class MainController {
 
         logger.info("Cifrando texto con AES...");
 
-        String cifradoBase64 = cifrarTextoAES(texto, clave);
+        String cifradoBase64 = texto.length() >= ARMADURA_DESDE
+                ? cifrarTextoConArmadura(texto, clave)
+                : cifrarTextoAES(texto, clave);
 
         textoSalidaArea.setText(cifradoBase64);
         actualizarStatus("Texto cifrado correctamente");
@@ -534,7 +602,10 @@ public class MainController {
 
         logger.info("Descifrando texto con AES...");
 
-        String textoPlano = descifrarTextoAES(textoCifrado.trim(), clave);
+        String cifrado = textoCifrado.trim();
+        String textoPlano = cifrado.startsWith(Policy.ARMOR_BEGIN)
+                ? descifrarTextoConArmadura(cifrado, clave)
+                : descifrarTextoAES(cifrado, clave);
 
         textoSalidaArea.setText(textoPlano);
         actualizarStatus("Texto descifrado correctamente");
@@ -790,7 +861,14 @@ public class MainController {
         claveLabel.setText(bundle.getString("clave"));
         claveField.setPromptText(bundle.getString("introduce_wizard_key"));
         algoritmoLabel.setText(bundle.getString("algoritmo"));
-        algoritmoCombo.getItems().setAll(bundle.getString("vigenere"), bundle.getString("aes"));
+        int seleccionado = algoritmoCombo.getSelectionModel().getSelectedIndex();
+        algoritmos.clear();
+        for (CipherAlgorithm a : CipherRegistry.todos())
+            algoritmos.put(bundle.containsKey(a.id()) ? bundle.getString(a.id()) : a.nombre(), a);
+        List<String> nombres = new ArrayList<>(algoritmos.keySet());
+        nombres.add(bundle.getString("aes"));
+        algoritmoCombo.getItems().setAll(nombres);
+        if (seleccionado >= 0) algoritmoCombo.getSelectionModel().select(seleccionado);
         cifrarBtn.setText(bundle.getString("cifrar"));
         descifrarBtn.setText(bundle.getString("descifrar"));
         entradaLabel.setText(bundle.getString("texto_entrada"));
@@ -0,0 +1,69 @@
+package com.gaizkaFrost.cipher;
+
+/**
+ * <h2>Cifrado de autoclave</h2>
+ *
+ * <p>
+ * Vigenère en el que, agotada la clave, se sigue con el propio texto en claro:
+ * la letra {@code i} se desplaza con {@code clave[i]} si {@code i < |clave|} y con la
+ * letra en claro {@code i - |clave|} en otro caso. La clave no se repite, así que el
+ * programa depende del texto y se procesa siempre en secuencia.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class AutokeyCipher extends PolyalphabeticCipher {
+
+    @Override
+    public String id() {
+        return "autoclave";
+    }
+
+    @Override
+    public String nombre() {
+        return "Autoclave";
+    }
+
+    @Override
+    public int orden() {
+        return 40;
+    }
+
+    @Override
+    protected KeySchedule programa(String clave, boolean cifrar) {
+        return new Programa(letrasClave(clave), cifrar);
+    }
+
+    /**
+     * Cola circular con los desplazamientos pendientes: empieza con la clave y cada
+     * posición consumida se rellena con la letra en claro que acaba de procesarse.
+     */
+    private static final class Programa implements KeySchedule {
+        /** Desplazamientos de las próximas {@code cola.length} letras. */
+        private final int[] cola;
+        /** {@code true} para cifrar. */
+        private final boolean cifrar;
+        /** Siguiente posición de la cola. */
+        private int pos;
+
+        Programa(int[] clave, boolean cifrar) {
+            this.cola = clave;
+            this.cifrar = cifrar;
+        }
+
+        @Override
+        public char[] fila() {
+            return SubstitutionKernel.desplazamiento(cifrar ? cola[pos] : -cola[pos]);
+        }
+
+        @Override
+        public void avanzar(int plano) {
+            cola[pos] = plano;
+            if (++pos == cola.length) pos = 0;
+        }
+    }
+}
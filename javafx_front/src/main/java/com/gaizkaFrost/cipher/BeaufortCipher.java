@@ -0,0 +1,44 @@
+package com.gaizkaFrost.cipher;
+
+import java.util.Locale;
+
+/**
+ * <h2>Cifrado de Beaufort</h2>
+ *
+ * <p>
+ * Variante recíproca de Vigenère: cada letra se sustituye por {@code clave - letra}
+ * sobre el alfabeto extendido, de modo que cifrar y descifrar son la misma operación.
+ * La clave solo admite letras del alfabeto.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class BeaufortCipher extends PolyalphabeticCipher {
+
+    @Override
+    public String id() {
+        return "beaufort";
+    }
+
+    @Override
+    public String nombre() {
+        return "Beaufort";
+    }
+
+    @Override
+    public int orden() {
+        return 30;
+    }
+
+    @Override
+    protected KeySchedule programa(String clave, boolean cifrar) {
+        int[] letras = letrasClave(clave);
+        char[][] filas = new char[letras.length][];
+        for (int j = 0; j < letras.length; j++) filas[j] = SubstitutionKernel.reflexion(letras[j]);
+        return new KeySchedule.Cycle(filas, clave.strip().toUpperCase(Locale.ROOT));
+    }
+}
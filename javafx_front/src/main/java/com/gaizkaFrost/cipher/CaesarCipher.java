@@ -0,0 +1,53 @@
+package com.gaizkaFrost.cipher;
+
+/**
+ * <h2>Cifrado César</h2>
+ *
+ * <p>
+ * Desplaza todas las letras la misma cantidad sobre el alfabeto extendido. La clave es
+ * el desplazamiento, como número ({@code 3}, {@code -5}) o como la letra que ocupa esa
+ * posición ({@code D} equivale a 8, porque el alfabeto incluye las vocales acentuadas).
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class CaesarCipher extends PolyalphabeticCipher {
+
+    @Override
+    public String id() {
+        return "cesar";
+    }
+
+    @Override
+    public String nombre() {
+        return "César";
+    }
+
+    @Override
+    public int orden() {
+        return 20;
+    }
+
+    @Override
+    protected KeySchedule programa(String clave, boolean cifrar) {
+        int d = desplazamiento(clave);
+        char[] fila = SubstitutionKernel.desplazamiento(cifrar ? d : -d);
+        return new KeySchedule.Cycle(new char[][] {fila}, "");
+    }
+
+    /**
+     * @param clave Número o letra.
+     * @return Desplazamiento.
+     * @throws IllegalArgumentException Si no es ni un número ni una letra del alfabeto.
+     */
+    static int desplazamiento(String clave) {
+        String k = clave == null ? "" : clave.strip();
+        if (k.matches("[+-]?\\d{1,9}")) return Integer.parseInt(k);
+        if (k.length() == 1 && SubstitutionKernel.indice(k.charAt(0)) >= 0) return SubstitutionKernel.indice(k.charAt(0));
+        throw new IllegalArgumentException("La clave de César debe ser un número o una sola letra");
+    }
+}
@@ -0,0 +1,71 @@
+package com.gaizkaFrost.cipher;
+
+/**
+ * <h2>SPI de algoritmos de cifrado de texto</h2>
+ *
+ * <p>
+ * Cada algoritmo que aparece en la interfaz implementa esta interfaz y se declara en
+ * {@code META-INF/services/com.gaizkaFrost.cipher.CipherAlgorithm}; {@link CipherRegistry}
+ * los descubre con {@link java.util.ServiceLoader}. Añadir un algoritmo no requiere tocar
+ * el controlador: basta con registrar su proveedor.
+ * </p>
+ *
+ * <p>
+ * Los cifrados clásicos deberían extender {@link PolyalphabeticCipher}, que solo pide
+ * el programa de clave y aporta los caminos por lotes, en flujo y en paralelo sobre
+ * {@link SubstitutionKernel}. Las implementaciones deben tener un constructor público
+ * sin argumentos y ser seguras entre hilos.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public interface CipherAlgorithm {
+
+    /**
+     * @return Identificador estable; también es la clave de su nombre en {@code messages_*.properties}.
+     */
+    String id();
+
+    /**
+     * @return Nombre que se muestra si no hay traducción para {@link #id()}.
+     */
+    String nombre();
+
+    /**
+     * @return Posición en las listas (menor primero).
+     */
+    default int orden() {
+        return 100;
+    }
+
+    /**
+     * @return {@code true} si la operación se delega en un servicio remoto.
+     */
+    default boolean remoto() {
+        return false;
+    }
+
+    /**
+     * <h3>Cifra un texto</h3>
+     *
+     * @param texto Texto en claro.
+     * @param clave Clave.
+     * @return Texto cifrado.
+     * @throws Exception Si la clave o el texto no son válidos o falla el servicio.
+     */
+    String cifrar(String texto, String clave) throws Exception;
+
+    /**
+     * <h3>Descifra un texto</h3>
+     *
+     * @param texto Texto cifrado.
+     * @param clave Clave.
+     * @return Texto en claro.
+     * @throws Exception Si la clave o el texto no son válidos o falla el servicio.
+     */
+    String descifrar(String texto, String clave) throws Exception;
+}
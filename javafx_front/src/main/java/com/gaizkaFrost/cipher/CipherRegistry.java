@@ -0,0 +1,78 @@
+package com.gaizkaFrost.cipher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * <h2>Registro de algoritmos de cifrado</h2>
+ *
+ * <p>
+ * Carga una sola vez, con {@link ServiceLoader}, los {@link CipherAlgorithm} declarados
+ * en el classpath y los ordena por {@link CipherAlgorithm#orden()}. Un proveedor que no
+ * se puede instanciar se registra en el log y se omite, sin impedir cargar los demás.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class CipherRegistry {
+
+    /**
+     * Logger de la clase.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CipherRegistry.class);
+
+    /**
+     * Algoritmos disponibles, en orden.
+     */
+    private static final List<CipherAlgorithm> ALGORITMOS = cargar();
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private CipherRegistry() {}
+
+    /**
+     * @return Algoritmos disponibles (lista inmutable, en orden).
+     */
+    public static List<CipherAlgorithm> todos() {
+        return ALGORITMOS;
+    }
+
+    /**
+     * @param id Identificador del algoritmo.
+     * @return El algoritmo con ese identificador, si está registrado.
+     */
+    public static Optional<CipherAlgorithm> buscar(String id) {
+        return ALGORITMOS.stream().filter(a -> a.id().equals(id)).findFirst();
+    }
+
+    /**
+     * @return Proveedores encontrados, ordenados.
+     */
+    private static List<CipherAlgorithm> cargar() {
+        List<CipherAlgorithm> out = new ArrayList<>();
+        var it = ServiceLoader.load(CipherAlgorithm.class, CipherRegistry.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) break;
+                out.add(it.next());
+            } catch (ServiceConfigurationError e) {
+                logger.error("No se pudo cargar un algoritmo de cifrado", e);
+            }
+        }
+        out.sort(Comparator.comparingInt(CipherAlgorithm::orden).thenComparing(CipherAlgorithm::id));
+        logger.info("Algoritmos de cifrado registrados: {}", out.stream().map(CipherAlgorithm::id).toList());
+        return List.copyOf(out);
+    }
+}
@@ -0,0 +1,82 @@
+package com.gaizkaFrost.cipher;
+
+/**
+ * <h2>Programa de clave</h2>
+ *
+ * <p>
+ * Decide qué fila de sustitución se aplica a cada letra del texto. Es lo único que
+ * distingue un cifrado clásico de otro dentro de {@link SubstitutionKernel}. Tiene
+ * estado (la posición en la clave), por lo que cada operación o flujo usa su propia
+ * instancia.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public interface KeySchedule {
+
+    /**
+     * @return Fila de sustitución para la siguiente letra.
+     * @throws IllegalArgumentException Si la letra de la clave que toca no es válida.
+     */
+    char[] fila();
+
+    /**
+     * Avanza a la siguiente letra.
+     *
+     * @param plano Posición en el alfabeto de la letra en claro recién procesada (la
+     *              usan los programas que dependen del texto, como la autoclave).
+     */
+    void avanzar(int plano);
+
+    /**
+     * <h3>Programa periódico</h3>
+     *
+     * <p>
+     * Recorre cíclicamente una fila por letra de la clave, sin depender del texto. El
+     * núcleo lo procesa con un bucle especializado y {@link PolyalphabeticCipher} puede
+     * repartir textos grandes entre varios hilos, porque la posición en la clave al
+     * inicio de cada trozo se deduce contando letras.
+     * </p>
+     */
+    final class Cycle implements KeySchedule {
+        /** Fila de cada posición de la clave ({@code null} si esa letra no es válida). */
+        final char[][] filas;
+        /** Clave en mayúsculas, para los mensajes de error. */
+        final CharSequence clave;
+        /** Posición actual en la clave. */
+        int pos;
+
+        /**
+         * @param filas Fila de cada posición; una sola fila para un desplazamiento fijo.
+         * @param clave Clave en mayúsculas, de la misma longitud que {@code filas}.
+         */
+        public Cycle(char[][] filas, CharSequence clave) {
+            if (filas.length == 0) throw new IllegalArgumentException("La clave no puede estar vacía");
+            this.filas = filas;
+            this.clave = clave;
+        }
+
+        /**
+         * @return Longitud del ciclo.
+         */
+        public int periodo() {
+            return filas.length;
+        }
+
+        @Override
+        public char[] fila() {
+            char[] f = filas[pos];
+            if (f == null) throw new IllegalArgumentException("Caracter no válido: '" + clave.charAt(pos) + "'");
+            return f;
+        }
+
+        @Override
+        public void avanzar(int plano) {
+            if (++pos == filas.length) pos = 0;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.gaizkaFrost.cipher;
+
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * <h2>Base de los cifrados clásicos por sustitución</h2>
+ *
+ * <p>
+ * Una subclase solo describe su {@link KeySchedule programa de clave}; a cambio hereda
+ * sobre {@link SubstitutionKernel}:
+ * </p>
+ *
+ * <ul>
+ *     <li>Por lotes: {@link #cifrar(String, String)} y {@link #descifrar(String, String)}.</li>
+ *     <li>En flujo: {@link #flujo(String, boolean)} procesa bloques de cualquier tamaño
+ *     arrastrando la posición en la clave.</li>
+ *     <li>En paralelo: con un programa periódico y más de un procesador, los textos de
+ *     al menos {@value #UMBRAL_PARALELO} caracteres se reparten en trozos entre los hilos del
+ *     {@link java.util.concurrent.ForkJoinPool#commonPool() pool común}. El resultado y
+ *     el error (el del primer carácter inválido) son los mismos que en secuencia.</li>
+ * </ul>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public abstract class PolyalphabeticCipher implements CipherAlgorithm {
+
+    /**
+     * Longitud a partir de la cual el camino por lotes se paraleliza.
+     */
+    static final int UMBRAL_PARALELO = 1 << 16;
+
+    /**
+     * Caracteres por trozo en el camino paralelo.
+     */
+    static final int TROZO = 1 << 14;
+
+    /**
+     * <h3>Programa de clave del algoritmo</h3>
+     *
+     * @param clave  Clave introducida por el usuario.
+     * @param cifrar {@code true} para cifrar, {@code false} para descifrar.
+     * @return Programa nuevo, en la posición inicial.
+     * @throws IllegalArgumentException Si la clave no es válida para el algoritmo.
+     */
+    protected abstract KeySchedule programa(String clave, boolean cifrar);
+
+    @Override
+    public String cifrar(String texto, String clave) throws Exception {
+        return aplicar(texto, clave, true);
+    }
+
+    @Override
+    public String descifrar(String texto, String clave) throws Exception {
+        return aplicar(texto, clave, false);
+    }
+
+    /**
+     * <h3>Cifrado o descifrado por bloques</h3>
+     *
+     * @param clave  Clave.
+     * @param cifrar {@code true} para cifrar.
+     * @return Flujo nuevo.
+     * @throws IllegalArgumentException Si la clave no es válida para el algoritmo.
+     */
+    public Stream flujo(String clave, boolean cifrar) {
+        return new Stream(programa(clave, cifrar), cifrar);
+    }
+
+    /**
+     * @param texto  Texto.
+     * @param clave  Clave.
+     * @param cifrar {@code true} para cifrar.
+     * @return Resultado, en mayúsculas.
+     */
+    final String aplicar(String texto, String clave, boolean cifrar) {
+        KeySchedule programa = programa(clave, cifrar);
+        char[] chars = texto.toUpperCase(Locale.ROOT).toCharArray();
+        if (programa instanceof KeySchedule.Cycle ciclo && chars.length >= UMBRAL_PARALELO
+                && Runtime.getRuntime().availableProcessors() > 1) paralelo(chars, ciclo);
+        else SubstitutionKernel.aplicar(chars, 0, chars.length, programa, cifrar);
+        return new String(chars);
+    }
+
+    /**
+     * Traduce en paralelo con un programa periódico: primero cuenta las letras de cada
+     * trozo para saber en qué posición de la clave empieza, después traduce los trozos
+     * de forma independiente.
+     *
+     * @param chars Texto en mayúsculas; se traduce en su sitio.
+     * @param ciclo Programa periódico.
+     * @throws IllegalArgumentException El del trozo más temprano que haya fallado.
+     */
+    static void paralelo(char[] chars, KeySchedule.Cycle ciclo) {
+        int trozos = (chars.length + TROZO - 1) / TROZO;
+        int[] letras = new int[trozos];
+        IntStream.range(0, trozos).parallel().forEach(t ->
+                letras[t] = SubstitutionKernel.letras(chars, t * TROZO, Math.min(TROZO, chars.length - t * TROZO)));
+
+        int[] inicio = new int[trozos];
+        long acumulado = ciclo.pos;
+        for (int t = 0; t < trozos; t++) {
+            inicio[t] = (int) (acumulado % ciclo.periodo());
+            acumulado += letras[t];
+        }
+
+        IllegalArgumentException[] errores = new IllegalArgumentException[trozos];
+        IntStream.range(0, trozos).parallel().forEach(t -> {
+            try {
+                SubstitutionKernel.aplicar(chars, t * TROZO, Math.min(TROZO, chars.length - t * TROZO),
+                        ciclo.filas, inicio[t], ciclo.clave);
+            } catch (IllegalArgumentException e) {
+                errores[t] = e;
+            }
+        });
+        for (IllegalArgumentException e : errores) if (e != null) throw e;
+    }
+
+    /**
+     * <h3>Flujo de cifrado o descifrado</h3>
+     *
+     * <p>
+     * Conserva el programa de clave entre llamadas, de modo que procesar un texto en
+     * varios bloques da el mismo resultado que hacerlo de una vez. No es seguro entre
+     * hilos: cada flujo usa su propia instancia.
+     * </p>
+     */
+    public static final class Stream {
+        /** Programa de clave. */
+        private final KeySchedule programa;
+        /** {@code true} para cifrar. */
+        private final boolean cifrar;
+
+        /**
+         * @param programa Programa de clave.
+         * @param cifrar   {@code true} para cifrar.
+         */
+        Stream(KeySchedule programa, boolean cifrar) {
+            this.programa = programa;
+            this.cifrar = cifrar;
+        }
+
+        /**
+         * Transforma en su sitio un bloque de texto. Las minúsculas se pasan a mayúsculas.
+         *
+         * @param buf Caracteres.
+         * @param off Inicio.
+         * @param len Número de caracteres.
+         * @throws IllegalArgumentException Si hay un carácter fuera del alfabeto; el bloque
+         *                                  queda a medio transformar.
+         */
+        public void aplicar(char[] buf, int off, int len) {
+            SubstitutionKernel.aplicar(buf, off, len, programa, cifrar);
+        }
+    }
+
+    /**
+     * Convierte una clave alfabética en las posiciones de sus letras.
+     *
+     * @param clave Clave.
+     * @return Posición en el alfabeto de cada letra, en mayúsculas.
+     * @throws IllegalArgumentException Si la clave está vacía o tiene caracteres fuera del alfabeto.
+     */
+    protected static int[] letrasClave(String clave) {
+        String k = clave == null ? "" : clave.strip().toUpperCase(Locale.ROOT);
+        if (k.isEmpty()) throw new IllegalArgumentException("La clave no puede estar vacía");
+        int[] out = new int[k.length()];
+        for (int j = 0; j < out.length; j++) {
+            out[j] = SubstitutionKernel.indice(k.charAt(j));
+            if (out[j] < 0) throw new IllegalArgumentException("Caracter no válido: '" + k.charAt(j) + "'");
+        }
+        return out;
+    }
+}
@@ -0,0 +1,175 @@
+package com.gaizkaFrost.cipher;
+
+import com.gaizkaFrost.vigenere.Vigenere;
+
+/**
+ * <h2>Núcleo de sustitución compartido por los cifrados clásicos</h2>
+ *
+ * <p>
+ * Todos los cifrados polialfabéticos del proyecto (Vigenère, Beaufort, autoclave,
+ * César) se reducen a lo mismo: cada letra del texto se traduce con una fila de una
+ * tabla de sustitución sobre el alfabeto extendido de {@link Vigenere#ABC}, y lo único
+ * que cambia entre algoritmos es qué fila toca a cada letra ({@link KeySchedule}).
+ * </p>
+ *
+ * <p>
+ * Las filas se calculan una sola vez al cargar la clase y se comparten entre todas las
+ * claves. El bucle interno es una consulta de índice y otra de fila por carácter, sin
+ * aritmética modular ni búsquedas en cadenas; para los programas periódicos
+ * ({@link KeySchedule.Cycle}) hay además un bucle especializado sin llamadas virtuales.
+ * </p>
+ *
+ * <p>
+ * Reglas comunes (las de {@code vigenere.py}): las minúsculas se pasan a mayúsculas,
+ * los espacios se conservan sin consumir clave y cualquier otro carácter fuera del
+ * alfabeto es un error.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class SubstitutionKernel {
+
+    /**
+     * Alfabeto sobre el que se sustituye.
+     */
+    public static final String ALFABETO = Vigenere.ABC;
+
+    /**
+     * Tamaño del alfabeto.
+     */
+    public static final int N = ALFABETO.length();
+
+    /**
+     * Posición en el alfabeto de cada carácter Latin-1 (pasado a mayúsculas), o -1.
+     */
+    private static final byte[] INDICE = new byte[256];
+
+    /**
+     * {@code DESPLAZAR[d][p]}: letra {@code p} desplazada {@code d} posiciones.
+     */
+    private static final char[][] DESPLAZAR = new char[N][N];
+
+    /**
+     * {@code REFLEJAR[d][p]}: letra {@code d - p} (Beaufort).
+     */
+    private static final char[][] REFLEJAR = new char[N][N];
+
+    static {
+        for (int c = 0; c < INDICE.length; c++) INDICE[c] = (byte) ALFABETO.indexOf(Character.toUpperCase((char) c));
+        for (int d = 0; d < N; d++) {
+            for (int p = 0; p < N; p++) {
+                DESPLAZAR[d][p] = ALFABETO.charAt((p + d) % N);
+                REFLEJAR[d][p] = ALFABETO.charAt(Math.floorMod(d - p, N));
+            }
+        }
+    }
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private SubstitutionKernel() {}
+
+    /**
+     * @param c Carácter (en cualquier caja).
+     * @return Posición de su mayúscula en el alfabeto, o -1 si no pertenece.
+     */
+    public static int indice(char c) {
+        return c < 256 ? INDICE[c] : ALFABETO.indexOf(Character.toUpperCase(c));
+    }
+
+    /**
+     * @param d Desplazamiento (cualquier entero; se reduce módulo {@link #N}).
+     * @return Fila compartida que desplaza cada letra {@code d} posiciones.
+     */
+    public static char[] desplazamiento(int d) {
+        return DESPLAZAR[Math.floorMod(d, N)];
+    }
+
+    /**
+     * @param d Letra de la clave.
+     * @return Fila compartida que lleva cada letra {@code p} a {@code d - p}; es su propia
+     *         inversa.
+     */
+    public static char[] reflexion(int d) {
+        return REFLEJAR[Math.floorMod(d, N)];
+    }
+
+    /**
+     * <h3>Traduce un bloque en su sitio</h3>
+     *
+     * @param buf      Caracteres.
+     * @param off      Inicio.
+     * @param len      Número de caracteres.
+     * @param programa Programa de clave; avanza una posición por letra.
+     * @param cifrar   {@code true} si se cifra (la letra en claro es la de entrada).
+     * @throws IllegalArgumentException Si hay un carácter fuera del alfabeto en el texto
+     *                                  o en la posición de la clave que le toca; el bloque
+     *                                  queda a medio traducir.
+     */
+    public static void aplicar(char[] buf, int off, int len, KeySchedule programa, boolean cifrar) {
+        if (programa instanceof KeySchedule.Cycle ciclo) {
+            ciclo.pos = aplicar(buf, off, len, ciclo.filas, ciclo.pos, ciclo.clave);
+            return;
+        }
+        for (int i = off, fin = off + len; i < fin; i++) {
+            char c = buf[i];
+            if (c == ' ') continue;
+            int p = indice(c);
+            if (p < 0) throw textoInvalido(c);
+            char s = programa.fila()[p];
+            buf[i] = s;
+            programa.avanzar(cifrar ? p : INDICE[s]);
+        }
+    }
+
+    /**
+     * <h3>Bucle especializado para claves periódicas</h3>
+     *
+     * @param buf   Caracteres.
+     * @param off   Inicio.
+     * @param len   Número de caracteres.
+     * @param filas Fila de cada posición de la clave ({@code null} si esa letra de la
+     *              clave no es válida).
+     * @param pos   Posición actual en la clave.
+     * @param clave Clave en mayúsculas, para los mensajes de error.
+     * @return Posición en la clave tras el bloque.
+     * @throws IllegalArgumentException Como {@link #aplicar(char[], int, int, KeySchedule, boolean)}.
+     */
+    public static int aplicar(char[] buf, int off, int len, char[][] filas, int pos, CharSequence clave) {
+        for (int i = off, fin = off + len; i < fin; i++) {
+            char c = buf[i];
+            if (c == ' ') continue;
+            int p = indice(c);
+            if (p < 0) throw textoInvalido(c);
+            char[] fila = filas[pos];
+            if (fila == null) throw new IllegalArgumentException("Caracter no válido: '" + clave.charAt(pos) + "'");
+            buf[i] = fila[p];
+            if (++pos == filas.length) pos = 0;
+        }
+        return pos;
+    }
+
+    /**
+     * @param buf Caracteres.
+     * @param off Inicio.
+     * @param len Número de caracteres.
+     * @return Caracteres que consumen clave (todos menos los espacios).
+     */
+    static int letras(char[] buf, int off, int len) {
+        int n = 0;
+        for (int i = off, fin = off + len; i < fin; i++) if (buf[i] != ' ') n++;
+        return n;
+    }
+
+    /**
+     * @param c Carácter rechazado.
+     * @return Error con el mismo mensaje que {@code vigenere.py}.
+     */
+    private static IllegalArgumentException textoInvalido(char c) {
+        return new IllegalArgumentException("Caracter inválido en texto: '" + Character.toUpperCase(c) + "'");
+    }
+}
@@ -0,0 +1,69 @@
+package com.gaizkaFrost.cipher;
+
+import com.gaizkaFrost.APIClient;
+import com.gaizkaFrost.vigenere.ClaveVigenere;
+import com.gaizkaFrost.vigenere.Vigenere;
+
+/**
+ * <h2>Cifrado Vigenère</h2>
+ *
+ * <p>
+ * Por lotes se sigue usando la API (validaciones, mensajes y caché del backend, vía
+ * {@link APIClient}). Con {@code -Ddescifrador.vigenere.local=true} se cifra en el propio
+ * proceso con el mismo resultado, tras las mismas validaciones que la API
+ * ({@link Vigenere#validarPeticion}) y con la clave tal cual la usa ella. El flujo y el
+ * camino paralelo siempre son locales, sobre la {@link ClaveVigenere} compilada.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class VigenereCipher extends PolyalphabeticCipher {
+
+    /**
+     * {@code true} para cifrar por lotes sin pasar por la API.
+     */
+    private static final boolean LOCAL = Boolean.getBoolean("descifrador.vigenere.local");
+
+    @Override
+    public String id() {
+        return "vigenere";
+    }
+
+    @Override
+    public String nombre() {
+        return "Vigenère";
+    }
+
+    @Override
+    public int orden() {
+        return 10;
+    }
+
+    @Override
+    public boolean remoto() {
+        return !LOCAL;
+    }
+
+    @Override
+    public String cifrar(String texto, String clave) throws Exception {
+        if (!LOCAL) return APIClient.cifrarVigenere(texto, clave);
+        Vigenere.validarPeticion(texto, clave);
+        return super.cifrar(texto, clave);
+    }
+
+    @Override
+    public String descifrar(String texto, String clave) throws Exception {
+        if (!LOCAL) return APIClient.descifrarVigenere(texto, clave);
+        Vigenere.validarPeticion(texto, clave);
+        return super.descifrar(texto, clave);
+    }
+
+    @Override
+    protected KeySchedule programa(String clave, boolean cifrar) {
+        return ClaveVigenere.de(clave).programa(cifrar);
+    }
+}
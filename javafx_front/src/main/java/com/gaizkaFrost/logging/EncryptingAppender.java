@@ -0,0 +1,302 @@
+package com.gaizkaFrost.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import com.gaizkaFrost.AES.CryptoMetrics;
+import com.gaizkaFrost.AES.EncryptedLogWriter;
+import com.gaizkaFrost.AES.Policy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <h2>Appender de Logback que cifra los logs en disco</h2>
+ *
+ * <p>
+ * Escribe los eventos en un log cifrado con AES-GCM mediante
+ * {@link EncryptedLogWriter}. El hilo que registra el evento solo lo deposita en un
+ * {@link LogRingBuffer} sin bloqueos; un hilo en segundo plano lo codifica, lo agrupa
+ * en lotes y lo entrega al escritor cifrado. Si el buffer está lleno, el evento se
+ * descarta y se contabiliza, de modo que el registro de logs nunca bloquea a los
+ * hilos de cifrado.
+ * </p>
+ *
+ * <h3>Ejemplo de configuración</h3>
+ * <pre>
+ * {@code
+ * <appender name="ENCRYPTED" class="com.gaizkaFrost.logging.EncryptingAppender">
+ *     <file>application.log.enc</file>
+ *     <password>${DESCIFRADOR_LOG_KEY}</password>
+ *     <bufferSize>8192</bufferSize>
+ *     <batchSize>256</batchSize>
+ *     <flushIntervalMillis>200</flushIntervalMillis>
+ *     <encoder>
+ *         <pattern>%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n</pattern>
+ *     </encoder>
+ * </appender>
+ * }
+ * </pre>
+ *
+ * <p>
+ * Las métricas {@link #getDroppedCount()}, {@link #getWrittenCount()} y
+ * {@link #getQueueDepth()} permiten vigilar el desbordamiento del buffer.
+ * </p>
+ *
+ * @see EncryptedLogWriter
+ * @see LogRingBuffer
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public class EncryptingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    /**
+     * Eventos descartados por buffer lleno.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Eventos escritos en el log cifrado.
+     */
+    private final LongAdder written = new LongAdder();
+
+    /**
+     * Codificador que convierte cada evento en bytes.
+     */
+    private Encoder<ILoggingEvent> encoder;
+
+    /**
+     * Ruta del fichero de log cifrado.
+     */
+    private String file;
+
+    /**
+     * Contraseña del log cifrado.
+     */
+    private String password;
+
+    /**
+     * Capacidad del buffer circular.
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * Número máximo de eventos escritos por lote.
+     */
+    private int batchSize = 256;
+
+    /**
+     * Intervalo máximo, en milisegundos, antes de sellar un segmento.
+     */
+    private long flushIntervalMillis = Policy.LOG_SEAL_MILLIS_DEFAULT;
+
+    /**
+     * Buffer entre los hilos productores y el hilo de escritura.
+     */
+    private LogRingBuffer<ILoggingEvent> ring;
+
+    /**
+     * Escritor del log cifrado.
+     */
+    private EncryptedLogWriter writer;
+
+    /**
+     * Hilo de escritura en segundo plano.
+     */
+    private Thread worker;
+
+    /**
+     * Indica al hilo de escritura que debe terminar.
+     */
+    private volatile boolean stopping;
+
+    /**
+     * Indica que el hilo de escritura está (o va a estar) dormido esperando eventos;
+     * el productor solo lo despierta en ese caso.
+     */
+    private volatile boolean idle;
+
+    /**
+     * Abre el log cifrado y arranca el hilo de escritura.
+     */
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No se ha configurado <encoder> para el appender " + name);
+            return;
+        }
+        if (file == null || password == null || password.isEmpty()) {
+            addError("Se requieren <file> y <password> para el appender " + name);
+            return;
+        }
+        if (bufferSize <= 0 || batchSize <= 0 || flushIntervalMillis <= 0) {
+            addError("Parámetros de buffer inválidos para el appender " + name);
+            return;
+        }
+
+        try {
+            writer = EncryptedLogWriter.open(Path.of(file), password.toCharArray(),
+                    Policy.LOG_SEGMENT_BYTES_DEFAULT, flushIntervalMillis, Policy.LOG_SYNC_BATCH_DEFAULT);
+        } catch (IOException | RuntimeException e) {
+            addError("No se pudo abrir el log cifrado " + file, e);
+            return;
+        }
+
+        ring = new LogRingBuffer<>(bufferSize);
+        stopping = false;
+        worker = new Thread(this::drainLoop, "encrypting-appender-" + name);
+        worker.setDaemon(true);
+        worker.start();
+        CryptoMetrics.registerQueue("log." + name, this::getQueueDepth);
+        super.start();
+    }
+
+    /**
+     * Deposita el evento en el buffer sin bloquear; si está lleno, lo descarta.
+     *
+     * @param event Evento de log.
+     */
+    @Override
+    protected void append(ILoggingEvent event) {
+        event.prepareForDeferredProcessing();
+        if (!ring.offer(event)) dropped.increment();
+        else if (idle) LockSupport.unpark(worker);
+    }
+
+    /**
+     * Detiene el hilo de escritura tras vaciar el buffer y cierra el log cifrado.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) return;
+        super.stop();
+        CryptoMetrics.unregisterQueue("log." + name);
+        stopping = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            addError("Error cerrando el log cifrado " + file, e);
+        }
+    }
+
+    /**
+     * Bucle del hilo de escritura: extrae lotes del buffer y los escribe cifrados.
+     * Con el buffer vacío duerme sin límite de tiempo hasta que un productor o
+     * {@link #stop()} lo despiertan; el sellado periódico lo hace el propio escritor.
+     */
+    private void drainLoop() {
+        while (true) {
+            int n = drainBatch();
+            if (n == 0) {
+                if (stopping) break;
+                // Se publica idle antes de volver a mirar el buffer: o el productor ve
+                // idle y despierta al hilo, o este ve el evento recién depositado.
+                idle = true;
+                if (ring.size() == 0 && !stopping) LockSupport.park(this);
+                idle = false;
+            }
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            addError("Error vaciando el log cifrado " + file, e);
+        }
+    }
+
+    /**
+     * Escribe hasta {@link #batchSize} eventos pendientes.
+     *
+     * @return Número de eventos extraídos del buffer.
+     */
+    private int drainBatch() {
+        int n = 0;
+        ILoggingEvent event;
+        while (n < batchSize && (event = ring.poll()) != null) {
+            n++;
+            try {
+                writer.append(encoder.encode(event));
+                written.increment();
+            } catch (IOException | RuntimeException e) {
+                dropped.increment();
+                addError("Error escribiendo en el log cifrado " + file, e);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return Eventos descartados por buffer lleno o error de escritura.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return Eventos escritos en el log cifrado.
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * @return Eventos pendientes en el buffer.
+     */
+    public int getQueueDepth() {
+        return ring != null ? ring.size() : 0;
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+}
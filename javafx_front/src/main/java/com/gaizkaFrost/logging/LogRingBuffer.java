@@ -0,0 +1,122 @@
+package com.gaizkaFrost.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <h2>Buffer circular acotado y sin bloqueos</h2>
+ *
+ * <p>
+ * Cola de capacidad fija para varios productores y un único consumidor.
+ * Cada celda lleva un número de secuencia que indica si está libre u ocupada,
+ * por lo que {@link #offer(Object)} y {@link #poll()} solo usan operaciones
+ * atómicas (CAS) y nunca bloquean: si el buffer está lleno, {@code offer}
+ * devuelve {@code false} de inmediato.
+ * </p>
+ *
+ * @param <E> Tipo de los elementos.
+ *
+ * @see EncryptingAppender
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class LogRingBuffer<E> {
+
+    /**
+     * Máscara para calcular el índice de celda (capacidad potencia de dos).
+     */
+    private final int mask;
+
+    /**
+     * Elementos almacenados.
+     */
+    private final AtomicReferenceArray<E> slots;
+
+    /**
+     * Número de secuencia de cada celda.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Siguiente posición a reservar por los productores.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Siguiente posición a consumir.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Crea el buffer con la capacidad indicada, redondeada a potencia de dos.
+     *
+     * @param capacity Capacidad mínima deseada.
+     */
+    LogRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+    }
+
+    /**
+     * Inserta un elemento si hay hueco. Seguro para varios productores.
+     *
+     * @param e Elemento a insertar.
+     * @return {@code false} si el buffer estaba lleno.
+     */
+    boolean offer(E e) {
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) pos & mask;
+            long dif = sequences.get(idx) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(idx, e);
+                    sequences.lazySet(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Extrae el elemento más antiguo. Solo debe llamarlo un único consumidor.
+     *
+     * @return El elemento, o {@code null} si el buffer está vacío.
+     */
+    E poll() {
+        long pos = head.get();
+        int idx = (int) pos & mask;
+        if (sequences.get(idx) != pos + 1) return null;
+        E e = slots.get(idx);
+        slots.set(idx, null);
+        sequences.lazySet(idx, pos + mask + 1);
+        head.lazySet(pos + 1);
+        return e;
+    }
+
+    /**
+     * @return Número aproximado de elementos pendientes.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * @return Capacidad real del buffer.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,111 @@
+package com.gaizkaFrost.server;
+
+import com.gaizkaFrost.AES.CryptoException;
+import com.gaizkaFrost.AES.CryptoFormatException;
+import com.gaizkaFrost.AES.UseCases;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <h2>Endpoints AES del servicio local</h2>
+ *
+ * <ul>
+ *     <li>{@code POST /api/aes/cifrar}: el cuerpo son los datos en claro. Responde el
+ *     contenedor segmentado v2 en binario o, si {@code Accept} pide {@code text/plain},
+ *     con armadura de texto.</li>
+ *     <li>{@code POST /api/aes/descifrar}: el cuerpo es un contenedor v2 en binario o con
+ *     armadura ({@code Content-Type: text/plain}). Responde los datos en claro.</li>
+ * </ul>
+ *
+ * <p>
+ * La contraseña llega en la cabecera {@code X-Password} y la AAD opcional en
+ * {@code X-AAD}, tal cual o, si no son ASCII, como {@code X-Password-B64} y
+ * {@code X-AAD-B64} con su UTF-8 en Base64 (ver {@link Http#header}). Los cuerpos se
+ * procesan por segmentos ({@link UseCases#encryptStream}, {@link UseCases#decryptStream})
+ * y la respuesta se envía en flujo según se produce, sin construir el resultado completo.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class AesHandler implements HttpHandler {
+
+    /**
+     * Logger de la clase.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AesHandler.class);
+
+    /**
+     * {@code true} para cifrar, {@code false} para descifrar.
+     */
+    private final boolean cifrar;
+
+    /**
+     * @param cifrar {@code true} para el endpoint de cifrado.
+     */
+    AesHandler(boolean cifrar) {
+        this.cifrar = cifrar;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) {
+            Http.error(ex, 405, "Método HTTP no permitido");
+            return;
+        }
+        char[] pwd = null;
+        Http.Respuesta out = null;
+        try {
+            String password = Http.header(ex, "X-Password");
+            if (password == null || password.isEmpty()) {
+                Http.error(ex, 400, "Se requiere la cabecera X-Password");
+                return;
+            }
+            String aad = cifrar ? Http.header(ex, "X-AAD") : null;
+            byte[] body = Http.cuerpo(ex);
+            if (body == null) return;
+            pwd = password.toCharArray();
+            InputStream in = new ByteArrayInputStream(body);
+            if (cifrar) {
+                long length = body.length;
+                byte[] aadBytes = aad == null ? null : aad.getBytes(StandardCharsets.UTF_8);
+                String accept = ex.getRequestHeaders().getFirst("Accept");
+                if (accept != null && accept.contains("text/plain")) {
+                    out = new Http.Respuesta(ex, "text/plain; charset=US-ASCII");
+                    UseCases.encryptToArmor(in, length, out, pwd, aadBytes);
+                } else {
+                    out = new Http.Respuesta(ex, Http.BINARIO);
+                    UseCases.encryptStream(in, length, out, pwd, aadBytes);
+                }
+                logger.info("AES: cifrados {} bytes", length);
+            } else {
+                out = new Http.Respuesta(ex, Http.BINARIO);
+                if (Http.esTipo(ex, "text/plain")) UseCases.decryptFromArmor(in, out, pwd);
+                else UseCases.decryptStream(in, out, pwd);
+                logger.info("AES: descifrado completado");
+            }
+            out.close();
+        } catch (CryptoFormatException | CryptoException | IllegalArgumentException e) {
+            logger.warn("AES: petición rechazada: {}", e.getMessage());
+            if (out != null && out.enviada()) throw e;
+            Http.error(ex, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.error("AES: error inesperado", e);
+            if (out != null && out.enviada()) throw e;
+            Http.error(ex, 500, "Error interno del servidor");
+        } finally {
+            if (pwd != null) Arrays.fill(pwd, '\0');
+        }
+    }
+}
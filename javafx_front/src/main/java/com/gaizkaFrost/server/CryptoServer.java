@@ -0,0 +1,251 @@
+package com.gaizkaFrost.server;
+
+import com.gaizkaFrost.AES.CryptoMetrics;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>Servicio HTTP local de cifrado</h2>
+ *
+ * <p>
+ * Expone el cifrado AES de {@link com.gaizkaFrost.AES.UseCases} y el motor
+ * {@link com.gaizkaFrost.vigenere.Vigenere} sobre HTTP, sin interfaz gráfica, para que
+ * otros servicios locales puedan delegar el cifrado. Usa el servidor HTTP del JDK
+ * ({@code com.sun.net.httpserver}) y atiende cada petición en su propio hilo: hilos
+ * virtuales cuando el JDK los ofrece (21+) y, si no, un grupo fijo de hilos de
+ * plataforma.
+ * </p>
+ *
+ * <p>
+ * Como cada petición guarda su cuerpo en memoria (hasta {@link Http#MAX_CUERPO}), el
+ * número de peticiones de cifrado en curso está limitado por un semáforo, aunque los
+ * hilos no lo estén: por defecto cabe la mitad del heap máximo en cuerpos. Una petición
+ * que no obtiene turno en {@value #ESPERA_TURNO_SEGUNDOS} s recibe un 503. El servicio
+ * vive en el mismo artefacto que la aplicación para reutilizar el módulo AES y el motor
+ * Vigenère sin dividir el proyecto Maven.
+ * </p>
+ *
+ * <h3>Endpoints</h3>
+ * <ul>
+ *     <li>{@code GET  /api/health}: estado del servicio.</li>
+ *     <li>{@code POST /api/aes/cifrar}, {@code POST /api/aes/descifrar}: ver {@link AesHandler}.</li>
+ *     <li>{@code POST /api/vigenere/cifrar}, {@code POST /api/vigenere/descifrar}: ver
+ *     {@link VigenereHandler}.</li>
+ * </ul>
+ *
+ * <h3>Ejemplo de ejecución</h3>
+ * <pre>
+ * {@code
+ * java -cp descifrador-1.0-SNAPSHOT.jar:libs/* com.gaizkaFrost.server.CryptoServer --port 5100 --max-peticiones 16
+ * }
+ * </pre>
+ *
+ * <p>
+ * Por defecto solo escucha en la interfaz de loopback: las contraseñas viajan en
+ * cabeceras y el servicio no usa TLS.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class CryptoServer {
+
+    /**
+     * Logger de la clase.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CryptoServer.class);
+
+    /**
+     * Puerto por defecto (el backend Python usa el 5000).
+     */
+    public static final int PUERTO_DEFECTO = 5100;
+
+    /**
+     * Conexiones pendientes de aceptar que admite el socket.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * Segundos que una petición espera turno antes de responder 503.
+     */
+    static final int ESPERA_TURNO_SEGUNDOS = 5;
+
+    /**
+     * Servidor HTTP.
+     */
+    private final HttpServer server;
+
+    /**
+     * Ejecutor de las peticiones.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * @param server   Servidor ya configurado.
+     * @param executor Ejecutor de las peticiones.
+     */
+    private CryptoServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * <h3>Arranca el servicio</h3>
+     *
+     * @param address Dirección y puerto de escucha (puerto 0 para uno libre).
+     * @param hilos         Hilos del grupo cuando no hay hilos virtuales; 0 para el valor
+     *                      por defecto (8 por núcleo).
+     * @param maxPeticiones Peticiones de cifrado en curso a la vez; 0 para el valor por
+     *                      defecto (según el heap máximo).
+     * @return Servicio en marcha.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public static CryptoServer start(InetSocketAddress address, int hilos, int maxPeticiones) throws IOException {
+        long porHeap = Runtime.getRuntime().maxMemory() / (2L * Http.MAX_CUERPO);
+        int cupo = maxPeticiones > 0 ? maxPeticiones : (int) Math.max(1, Math.min(BACKLOG, porHeap));
+        Semaphore turnos = new Semaphore(cupo, true);
+
+        HttpServer server = HttpServer.create(address, BACKLOG);
+        server.createContext("/api/health", ex -> Http.json(ex, 200, new JSONObject()
+                .put("status", "ok")
+                .put("mensaje", "El servidor está funcionando correctamente")));
+        server.createContext("/api/aes/cifrar", limitado(turnos, new AesHandler(true)));
+        server.createContext("/api/aes/descifrar", limitado(turnos, new AesHandler(false)));
+        server.createContext("/api/vigenere/cifrar", limitado(turnos, new VigenereHandler(true)));
+        server.createContext("/api/vigenere/descifrar", limitado(turnos, new VigenereHandler(false)));
+
+        ExecutorService executor = newExecutor(hilos > 0 ? hilos : 8 * Runtime.getRuntime().availableProcessors());
+        if (executor instanceof ThreadPoolExecutor)
+            CryptoMetrics.registerQueue("http", ((ThreadPoolExecutor) executor).getQueue()::size);
+        server.setExecutor(executor);
+        server.start();
+        logger.info("Servicio de cifrado escuchando en {} ({} peticiones a la vez)", server.getAddress(), cupo);
+        return new CryptoServer(server, executor);
+    }
+
+    /**
+     * @return Puerto en el que escucha.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * <h3>Detiene el servicio</h3>
+     *
+     * <p>
+     * Deja de aceptar conexiones y espera hasta {@code segundos} a que terminen las
+     * peticiones en curso.
+     * </p>
+     *
+     * @param segundos Espera máxima.
+     */
+    public void stop(int segundos) {
+        server.stop(segundos);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(segundos, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        CryptoMetrics.unregisterQueue("http");
+        logger.info("Servicio de cifrado detenido");
+    }
+
+    /**
+     * Envuelve un manejador para que solo se ejecute con un turno del semáforo; sin turno
+     * no se llega a leer el cuerpo de la petición.
+     *
+     * @param turnos  Semáforo compartido por los endpoints de cifrado.
+     * @param handler Manejador.
+     * @return Manejador limitado.
+     */
+    static HttpHandler limitado(Semaphore turnos, HttpHandler handler) {
+        return ex -> {
+            boolean turno;
+            try {
+                turno = turnos.tryAcquire(ESPERA_TURNO_SEGUNDOS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                turno = false;
+            }
+            if (!turno) {
+                ex.getResponseHeaders().set("Retry-After", String.valueOf(ESPERA_TURNO_SEGUNDOS));
+                Http.error(ex, 503, "Servidor ocupado, inténtelo de nuevo");
+                return;
+            }
+            try {
+                handler.handle(ex);
+            } finally {
+                turnos.release();
+            }
+        };
+    }
+
+    /**
+     * Un hilo virtual por petición si el JDK lo permite (se busca por reflexión para
+     * seguir compilando con Java 17); si no, un grupo fijo de hilos.
+     *
+     * @param hilos Tamaño del grupo alternativo.
+     * @return Ejecutor.
+     */
+    static ExecutorService newExecutor(int hilos) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(hilos, r -> {
+                Thread t = new Thread(r, "crypto-http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * <h3>Punto de entrada del servicio</h3>
+     *
+     * <p>
+     * Opciones: {@code --port N} (por defecto {@value #PUERTO_DEFECTO}),
+     * {@code --bind HOST} (por defecto loopback), {@code --hilos N} y
+     * {@code --max-peticiones N}.
+     * </p>
+     *
+     * @param args Argumentos de la línea de comandos.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = PUERTO_DEFECTO;
+        int hilos = 0;
+        int maxPeticiones = 0;
+        InetAddress bind = InetAddress.getLoopbackAddress();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--hilos": hilos = Integer.parseInt(args[i + 1]); break;
+                case "--max-peticiones": maxPeticiones = Integer.parseInt(args[i + 1]); break;
+                case "--bind": bind = InetAddress.getByName(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        CryptoMetrics.registerJmx();
+        CryptoServer server = start(new InetSocketAddress(bind, port), hilos, maxPeticiones);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(5), "crypto-http-stop"));
+    }
+}
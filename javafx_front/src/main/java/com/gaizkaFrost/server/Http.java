@@ -0,0 +1,211 @@
+package com.gaizkaFrost.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * <h2>Utilidades HTTP comunes a los manejadores del servicio</h2>
+ *
+ * <p>
+ * Respuestas JSON de error con el mismo formato que la API Python
+ * ({@code {"error": "..."}}), lectura de cabeceras y un cuerpo de respuesta que
+ * retrasa el envío de las cabeceras hasta el primer byte: mientras no se haya escrito
+ * nada, un error todavía puede responderse con su código HTTP.
+ * </p>
+ *
+ * <p>
+ * El cuerpo de la petición se lee entero antes de responder ({@link #cuerpo}): la
+ * mayoría de clientes HTTP/1.1, incluido {@code java.net.http.HttpClient}, no leen la
+ * respuesta hasta terminar de enviar, y contestar en flujo mientras aún llega la
+ * petición bloquearía a ambos extremos en cuanto se llenasen los búferes del socket.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class Http {
+
+    /**
+     * Tipo de los cuerpos binarios.
+     */
+    static final String BINARIO = "application/octet-stream";
+
+    /**
+     * Tipo de los cuerpos de texto.
+     */
+    static final String TEXTO = "text/plain; charset=UTF-8";
+
+    /**
+     * Tipo de los cuerpos JSON.
+     */
+    static final String JSON = "application/json; charset=UTF-8";
+
+    /**
+     * Tamaño máximo del cuerpo de una petición.
+     */
+    static final int MAX_CUERPO = 64 << 20;
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private Http() {}
+
+    /**
+     * Lee el cuerpo completo de la petición.
+     *
+     * @param ex Intercambio.
+     * @return Cuerpo, o {@code null} si supera {@link #MAX_CUERPO} (ya se ha respondido 413).
+     * @throws IOException Si falla la lectura.
+     */
+    static byte[] cuerpo(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_CUERPO + 1);
+            if (body.length <= MAX_CUERPO) return body;
+        }
+        error(ex, 413, "El cuerpo supera " + (MAX_CUERPO >> 20) + " MiB");
+        return null;
+    }
+
+    /**
+     * Envía una respuesta JSON completa y cierra el intercambio.
+     *
+     * @param ex     Intercambio.
+     * @param status Código HTTP.
+     * @param body   Cuerpo.
+     * @throws IOException Si falla la escritura.
+     */
+    static void json(HttpExchange ex, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", JSON);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Envía {@code {"error": mensaje}} y cierra el intercambio.
+     *
+     * @param ex      Intercambio.
+     * @param status  Código HTTP.
+     * @param mensaje Mensaje de error.
+     * @throws IOException Si falla la escritura.
+     */
+    static void error(HttpExchange ex, int status, String mensaje) throws IOException {
+        json(ex, status, new JSONObject().put("error", mensaje));
+    }
+
+    /**
+     * Lee una cabecera de texto. El valor se toma tal cual (un {@code %} o un {@code +}
+     * en una contraseña no se transforman); para valores no ASCII el cliente envía en su
+     * lugar {@code <nombre>-B64} con el UTF-8 del valor en Base64 estándar.
+     *
+     * @param ex     Intercambio.
+     * @param nombre Nombre de la cabecera.
+     * @return Su valor, o {@code null} si no está ninguna de las dos formas.
+     * @throws IllegalArgumentException Si la forma {@code -B64} no es Base64 válido.
+     */
+    static String header(HttpExchange ex, String nombre) {
+        String v = ex.getRequestHeaders().getFirst(nombre);
+        if (v != null) return v;
+        String b64 = ex.getRequestHeaders().getFirst(nombre + "-B64");
+        if (b64 == null) return null;
+        try {
+            return new String(Base64.getDecoder().decode(b64.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("La cabecera " + nombre + "-B64 no es Base64 válido", e);
+        }
+    }
+
+    /**
+     * @param ex   Intercambio.
+     * @param tipo Prefijo del tipo MIME.
+     * @return {@code true} si el {@code Content-Type} de la petición empieza por {@code tipo}.
+     */
+    static boolean esTipo(HttpExchange ex, String tipo) {
+        String ct = ex.getRequestHeaders().getFirst("Content-Type");
+        return ct != null && ct.regionMatches(true, 0, tipo, 0, tipo.length());
+    }
+
+    /**
+     * <h3>Cuerpo de respuesta en flujo con cabeceras diferidas</h3>
+     *
+     * <p>
+     * Las cabeceras (200, codificación por fragmentos) se envían con el primer byte. Si
+     * el manejador falla después, ya no hay forma de cambiar el código: se relanza el
+     * error para que el servidor corte la conexión sin el fragmento final y el cliente
+     * vea la respuesta como incompleta.
+     * </p>
+     */
+    static final class Respuesta extends OutputStream {
+        /** Intercambio. */
+        private final HttpExchange ex;
+        /** Tipo del cuerpo. */
+        private final String tipo;
+        /** Cuerpo real, una vez enviadas las cabeceras. */
+        private OutputStream body;
+
+        /**
+         * @param ex   Intercambio.
+         * @param tipo {@code Content-Type} de la respuesta.
+         */
+        Respuesta(HttpExchange ex, String tipo) {
+            this.ex = ex;
+            this.tipo = tipo;
+        }
+
+        /**
+         * @return {@code true} si las cabeceras ya se enviaron.
+         */
+        boolean enviada() {
+            return body != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            abrir().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) abrir().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) body.flush();
+        }
+
+        /**
+         * Termina la respuesta con éxito (un cuerpo vacío también es válido).
+         *
+         * @throws IOException Si falla la escritura.
+         */
+        @Override
+        public void close() throws IOException {
+            abrir().close();
+        }
+
+        /**
+         * @return Cuerpo real, enviando antes las cabeceras si hace falta.
+         * @throws IOException Si falla el envío.
+         */
+        private OutputStream abrir() throws IOException {
+            if (body == null) {
+                ex.getResponseHeaders().set("Content-Type", tipo);
+                ex.sendResponseHeaders(200, 0);
+                body = ex.getResponseBody();
+            }
+            return body;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.gaizkaFrost.server;
+
+import com.gaizkaFrost.vigenere.Trama;
+import com.gaizkaFrost.vigenere.Vigenere;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h2>Endpoints Vigenère del servicio local</h2>
+ *
+ * <p>
+ * {@code POST /api/vigenere/cifrar} y {@code POST /api/vigenere/descifrar} admiten tres
+ * formas de cuerpo:
+ * </p>
+ *
+ * <ul>
+ *     <li>{@code application/json} con {@code texto} y {@code clave}: mismas validaciones,
+ *     mensajes y respuesta que la API Python, de modo que {@code APIClient} puede
+ *     apuntar a cualquiera de los dos servicios.</li>
+ *     <li>{@link Trama#TIPO}: la misma petición como trama binaria, también compatible
+ *     con la API Python; la respuesta es otra trama con el resultado o el error.</li>
+ *     <li>{@code text/plain} en UTF-8 con la clave en la cabecera {@code X-Clave}: el
+ *     texto se transforma por bloques y se devuelve en flujo, sin construir
+ *     {@code String} intermedios.</li>
+ * </ul>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+final class VigenereHandler implements HttpHandler {
+
+    /**
+     * Logger de la clase.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(VigenereHandler.class);
+
+    /**
+     * Caracteres por bloque en el modo en flujo.
+     */
+    private static final int BLOQUE = 8192;
+
+    /**
+     * {@code true} para cifrar, {@code false} para descifrar.
+     */
+    private final boolean cifrar;
+
+    /**
+     * @param cifrar {@code true} para el endpoint de cifrado.
+     */
+    VigenereHandler(boolean cifrar) {
+        this.cifrar = cifrar;
+    }
+
+    @Override
+    public void handle(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) {
+            Http.error(ex, 405, "Método HTTP no permitido");
+            return;
+        }
+        if (Http.esTipo(ex, "text/plain")) enFlujo(ex);
+        else if (Http.esTipo(ex, Trama.TIPO)) trama(ex);
+        else json(ex);
+    }
+
+    /**
+     * Valida como la API Python y aplica el cifrado.
+     *
+     * @param texto Texto recibido.
+     * @param clave Clave recibida.
+     * @return Resultado.
+     * @throws IllegalArgumentException Con el mensaje de validación de la API.
+     */
+    private String procesar(String texto, String clave) {
+        Vigenere.validarPeticion(texto, clave);
+        String resultado = cifrar ? Vigenere.cifrar(texto, clave) : Vigenere.descifrar(texto, clave);
+        logger.info("Vigenère: texto {} (longitud: {})", cifrar ? "cifrado" : "descifrado", texto.length());
+        return resultado;
+    }
+
+    /**
+     * Modo de trama binaria.
+     *
+     * @param ex Intercambio.
+     * @throws IOException Si falla la E/S.
+     */
+    private void trama(HttpExchange ex) throws IOException {
+        byte[] body = Http.cuerpo(ex);
+        if (body == null) return;
+        int status = 200;
+        ByteBuffer respuesta;
+        try {
+            String[] campos = Trama.leerPeticion(ByteBuffer.wrap(body));
+            respuesta = Trama.respuesta(Trama.ESTADO_OK, procesar(campos[0], campos[1]));
+        } catch (IllegalArgumentException e) {
+            logger.error("Error de validación: {}", e.getMessage());
+            status = 400;
+            respuesta = Trama.respuesta(Trama.ESTADO_ERROR, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado en Vigenère", e);
+            status = 500;
+            respuesta = Trama.respuesta(Trama.ESTADO_ERROR, "Error interno del servidor");
+        }
+        ex.getResponseHeaders().set("Content-Type", Trama.TIPO);
+        ex.sendResponseHeaders(status, respuesta.limit());
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(respuesta.array(), 0, respuesta.limit());
+        }
+    }
+
+    /**
+     * Modo compatible con la API Python.
+     *
+     * @param ex Intercambio.
+     * @throws IOException Si falla la E/S.
+     */
+    private void json(HttpExchange ex) throws IOException {
+        byte[] body = Http.cuerpo(ex);
+        if (body == null) return;
+        try {
+            JSONObject data;
+            try {
+                data = new JSONObject(new String(body, StandardCharsets.UTF_8));
+            } catch (JSONException e) {
+                data = null;
+            }
+            if (data == null || data.isEmpty()) {
+                Http.error(ex, 400, "No se proporcionaron datos JSON");
+                return;
+            }
+            String texto = data.optString("texto", "");
+            String clave = data.optString("clave", "");
+            String resultado = procesar(texto, clave);
+            JSONObject respuesta = cifrar
+                    ? new JSONObject()
+                        .put("texto_cifrado", resultado)
+                        .put("longitud_original", texto.length())
+                        .put("longitud_cifrado", resultado.length())
+                    : new JSONObject()
+                        .put("texto_descifrado", resultado)
+                        .put("longitud_cifrado", texto.length())
+                        .put("longitud_descifrado", resultado.length());
+            Http.json(ex, 200, respuesta);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error de validación: {}", e.getMessage());
+            Http.error(ex, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado en Vigenère", e);
+            Http.error(ex, 500, "Error interno del servidor");
+        }
+    }
+
+    /**
+     * Modo en flujo: texto plano de entrada y de salida.
+     *
+     * @param ex Intercambio.
+     * @throws IOException Si falla la E/S.
+     */
+    private void enFlujo(HttpExchange ex) throws IOException {
+        byte[] body = Http.cuerpo(ex);
+        if (body == null) return;
+        Http.Respuesta out = new Http.Respuesta(ex, Http.TEXTO);
+        try (Reader in = new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)) {
+            String clave = Http.header(ex, "X-Clave");
+            Vigenere.validarClave(clave);
+            Vigenere.Stream vigenere = new Vigenere.Stream(clave, cifrar);
+
+            Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            char[] buf = new char[BLOQUE];
+            long total = 0;
+            int n;
+            while ((n = in.read(buf)) >= 0) {
+                vigenere.aplicar(buf, 0, n);
+                w.write(buf, 0, n);
+                total += n;
+            }
+            w.close();
+            logger.info("Vigenère: texto {} en flujo (longitud: {})", cifrar ? "cifrado" : "descifrado", total);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error de validación: {}", e.getMessage());
+            if (out.enviada()) throw e;
+            Http.error(ex, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error inesperado en Vigenère", e);
+            if (out.enviada()) throw e;
+            Http.error(ex, 500, "Error interno del servidor");
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.gaizkaFrost.vigenere;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>Caché LRU de resultados Vigenère</h2>
+ *
+ * <p>
+ * Vigenère es determinista: la misma operación con la misma clave y el mismo texto
+ * devuelve siempre el mismo resultado. Esta caché guarda los resultados correctos
+ * para que las peticiones repetidas (plantillas que se cifran una y otra vez con la
+ * misma clave) no salgan a la red.
+ * </p>
+ *
+ * <p>
+ * Las entradas se indexan por (operación, clave, texto) con el hash precalculado; la
+ * igualdad compara las cadenas completas, así que una colisión de hash nunca devuelve
+ * un resultado ajeno. La capacidad se mide en bytes (estimación del tamaño de las
+ * cadenas guardadas) y se expulsa primero lo usado hace más tiempo. Los aciertos y
+ * fallos se publican por JMX con {@link #registrarJmx(String)}.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class CacheResultados {
+
+    /**
+     * Coste fijo estimado por entrada: objetos de clave y resultado, nodo del mapa.
+     */
+    private static final long SOBRECOSTE_ENTRADA = 160;
+
+    /**
+     * Entradas en orden de acceso (la primera es la menos reciente).
+     */
+    private final LinkedHashMap<Clave, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Tamaño máximo en bytes; {@code 0} desactiva la caché.
+     */
+    private final long maxBytes;
+
+    /**
+     * Tamaño actual en bytes (protegido por {@code this}).
+     */
+    private long bytes;
+
+    /**
+     * Consultas resueltas desde la caché.
+     */
+    private final LongAdder aciertos = new LongAdder();
+
+    /**
+     * Consultas que no estaban en la caché.
+     */
+    private final LongAdder fallos = new LongAdder();
+
+    /**
+     * Entradas expulsadas por falta de espacio.
+     */
+    private final LongAdder expulsiones = new LongAdder();
+
+    /**
+     * @param maxBytes Tamaño máximo en bytes; {@code 0} desactiva la caché.
+     */
+    public CacheResultados(long maxBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("El tamaño de la caché no puede ser negativo");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * <h3>Busca un resultado</h3>
+     *
+     * @param operacion {@code cifrar} o {@code descifrar}.
+     * @param clave     Clave.
+     * @param texto     Texto de entrada.
+     * @return Resultado guardado, o {@code null} si no está.
+     */
+    public String obtener(String operacion, String clave, String texto) {
+        if (maxBytes == 0) return null;
+        Entrada e;
+        synchronized (this) {
+            e = entradas.get(new Clave(operacion, clave, texto));
+        }
+        (e != null ? aciertos : fallos).increment();
+        return e != null ? e.resultado : null;
+    }
+
+    /**
+     * <h3>Guarda un resultado</h3>
+     *
+     * Expulsa las entradas menos recientes hasta que quepa. Una entrada mayor que la
+     * caché completa no se guarda.
+     *
+     * @param operacion {@code cifrar} o {@code descifrar}.
+     * @param clave     Clave.
+     * @param texto     Texto de entrada.
+     * @param resultado Resultado de la operación.
+     */
+    public void guardar(String operacion, String clave, String texto, String resultado) {
+        long tam = 2L * (clave.length() + texto.length() + resultado.length()) + SOBRECOSTE_ENTRADA;
+        if (tam > maxBytes) return;
+        synchronized (this) {
+            Entrada anterior = entradas.put(new Clave(operacion, clave, texto), new Entrada(resultado, tam));
+            if (anterior != null) bytes -= anterior.bytes;
+            bytes += tam;
+            Iterator<Entrada> it = entradas.values().iterator();
+            while (bytes > maxBytes) {
+                bytes -= it.next().bytes;
+                it.remove();
+                expulsiones.increment();
+            }
+        }
+    }
+
+    /**
+     * Vacía la caché (las estadísticas se conservan).
+     */
+    public synchronized void vaciar() {
+        entradas.clear();
+        bytes = 0;
+    }
+
+    /**
+     * @return Fracción de consultas resueltas desde la caché, entre 0 y 1.
+     */
+    public double tasaAciertos() {
+        long a = aciertos.sum(), total = a + fallos.sum();
+        return total == 0 ? 0 : (double) a / total;
+    }
+
+    /**
+     * <h3>Publica las estadísticas en el servidor JMX de la plataforma</h3>
+     *
+     * Se registran como {@code com.gaizkaFrost.vigenere:type=CacheResultados,name=<nombre>}.
+     * Llamarlo otra vez con el mismo nombre no tiene efecto.
+     *
+     * @param nombre Nombre de la caché.
+     * @throws IllegalStateException Si el servidor JMX rechaza el registro.
+     */
+    public void registrarJmx(String nombre) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName("com.gaizkaFrost.vigenere:type=CacheResultados,name=" + nombre);
+            if (!server.isRegistered(name))
+                server.registerMBean(new StandardMBean(new Vista(), EstadisticasMXBean.class, true), name);
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudieron registrar las métricas de la caché: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <h3>Vista JMX de la caché</h3>
+     */
+    public interface EstadisticasMXBean {
+        /** @return Entradas guardadas. */
+        int getEntradas();
+
+        /** @return Tamaño estimado en bytes. */
+        long getBytes();
+
+        /** @return Tamaño máximo en bytes. */
+        long getMaxBytes();
+
+        /** @return Consultas resueltas desde la caché. */
+        long getAciertos();
+
+        /** @return Consultas que no estaban en la caché. */
+        long getFallos();
+
+        /** @return Entradas expulsadas por falta de espacio. */
+        long getExpulsiones();
+
+        /** @return Fracción de aciertos, entre 0 y 1. */
+        double getTasaAciertos();
+    }
+
+    /**
+     * Implementación de la vista JMX.
+     */
+    private final class Vista implements EstadisticasMXBean {
+        @Override
+        public int getEntradas() {
+            synchronized (CacheResultados.this) {
+                return entradas.size();
+            }
+        }
+
+        @Override
+        public long getBytes() {
+            synchronized (CacheResultados.this) {
+                return bytes;
+            }
+        }
+
+        @Override
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        @Override
+        public long getAciertos() {
+            return aciertos.sum();
+        }
+
+        @Override
+        public long getFallos() {
+            return fallos.sum();
+        }
+
+        @Override
+        public long getExpulsiones() {
+            return expulsiones.sum();
+        }
+
+        @Override
+        public double getTasaAciertos() {
+            return tasaAciertos();
+        }
+    }
+
+    /**
+     * Clave de la caché con el hash calculado una sola vez.
+     */
+    private static final class Clave {
+        /** {@code cifrar} o {@code descifrar}. */
+        private final String operacion;
+        /** Clave de Vigenère tal como llegó. */
+        private final String clave;
+        /** Texto de la petición. */
+        private final String texto;
+        /** Hash precalculado: la clave se busca en cada petición. */
+        private final int hash;
+
+        /**
+         * @param operacion {@code cifrar} o {@code descifrar}.
+         * @param clave     Clave de Vigenère.
+         * @param texto     Texto de la petición.
+         */
+        Clave(String operacion, String clave, String texto) {
+            this.operacion = operacion;
+            this.clave = clave;
+            this.texto = texto;
+            this.hash = (operacion.hashCode() * 31 + clave.hashCode()) * 31 + texto.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Clave c && hash == c.hash
+                    && texto.equals(c.texto) && clave.equals(c.clave) && operacion.equals(c.operacion);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Resultado guardado y su tamaño estimado.
+     *
+     * @param resultado Resultado.
+     * @param bytes     Tamaño estimado de la entrada.
+     */
+    private record Entrada(String resultado, long bytes) {}
+}
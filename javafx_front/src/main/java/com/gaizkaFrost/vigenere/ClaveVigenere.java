@@ -0,0 +1,175 @@
+package com.gaizkaFrost.vigenere;
+
+import com.gaizkaFrost.cipher.KeySchedule;
+import com.gaizkaFrost.cipher.SubstitutionKernel;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <h2>Clave Vigenère compilada</h2>
+ *
+ * <p>
+ * Precalcula todo lo que depende solo de la clave: el desplazamiento de cada letra
+ * ({@code int[]}) y, para cada posición, la fila de traducción del alfabeto extendido
+ * que le corresponde al cifrar y al descifrar (filas compartidas de
+ * {@link SubstitutionKernel}). El bucle interno queda en una consulta de tabla por
+ * carácter, sin {@code indexOf} ni aritmética modular.
+ * </p>
+ *
+ * <p>
+ * Las claves compiladas son inmutables y se guardan en una caché por cadena
+ * ({@link #de(String)}): repetir operaciones con la misma clave no tiene coste de
+ * preparación. El resultado es idéntico al de {@code vigenere.py}, incluidos los
+ * errores: un carácter de la clave fuera del alfabeto solo falla si llega a usarse.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class ClaveVigenere {
+
+    /**
+     * Claves compiladas que se conservan.
+     */
+    private static final int MAX_CACHE = 256;
+
+    /**
+     * Caché LRU de claves compiladas.
+     */
+    private static final Map<String, ClaveVigenere> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ClaveVigenere> eldest) {
+            return size() > MAX_CACHE;
+        }
+    };
+
+    /**
+     * Clave en mayúsculas.
+     */
+    private final String clave;
+
+    /**
+     * Desplazamiento de cada letra de la clave, o -1 si no pertenece al alfabeto.
+     */
+    private final int[] desplazamientos;
+
+    /**
+     * Fila de cifrado de cada posición de la clave ({@code null} si no es válida).
+     */
+    private final char[][] cifrado;
+
+    /**
+     * Fila de descifrado de cada posición de la clave ({@code null} si no es válida).
+     */
+    private final char[][] descifrado;
+
+    /**
+     * @param clave Clave no vacía.
+     */
+    private ClaveVigenere(String clave) {
+        this.clave = clave.toUpperCase(Locale.ROOT);
+        int n = this.clave.length();
+        desplazamientos = new int[n];
+        cifrado = new char[n][];
+        descifrado = new char[n][];
+        for (int j = 0; j < n; j++) {
+            char k = this.clave.charAt(j);
+            // Igual que letra_a_num: el espacio vale -1
+            int d = k == ' ' ? SubstitutionKernel.N - 1 : Vigenere.ABC.indexOf(k);
+            desplazamientos[j] = d;
+            if (d >= 0) {
+                cifrado[j] = SubstitutionKernel.desplazamiento(d);
+                descifrado[j] = SubstitutionKernel.desplazamiento(-d);
+            }
+        }
+    }
+
+    /**
+     * <h3>Obtiene la clave compilada</h3>
+     *
+     * @param clave Clave.
+     * @return Clave compilada, de la caché si ya se usó.
+     * @throws IllegalArgumentException Si la clave está vacía.
+     */
+    public static ClaveVigenere de(String clave) {
+        if (clave == null || clave.isEmpty())
+            throw new IllegalArgumentException("La clave no puede estar vacía");
+        synchronized (CACHE) {
+            ClaveVigenere c = CACHE.get(clave);
+            if (c == null) CACHE.put(clave, c = new ClaveVigenere(clave));
+            return c;
+        }
+    }
+
+    /**
+     * @return Longitud de la clave (periodo del cifrado).
+     */
+    public int longitud() {
+        return desplazamientos.length;
+    }
+
+    /**
+     * @return Copia de los desplazamientos de cada letra (-1 si no pertenece al alfabeto).
+     */
+    public int[] desplazamientos() {
+        return desplazamientos.clone();
+    }
+
+    /**
+     * <h3>Transforma un bloque en su sitio</h3>
+     *
+     * Las minúsculas se pasan a mayúsculas y los espacios se conservan sin consumir clave.
+     *
+     * @param buf    Caracteres.
+     * @param off    Inicio.
+     * @param len    Número de caracteres.
+     * @param pos    Posición actual en la clave, entre 0 y {@link #longitud()} - 1.
+     * @param cifrar {@code true} para cifrar, {@code false} para descifrar.
+     * @return Posición en la clave tras el bloque.
+     * @throws IllegalArgumentException Si hay un carácter fuera del alfabeto en el texto o
+     *                                  en la posición de la clave que le toca; el bloque
+     *                                  queda a medio transformar.
+     */
+    public int aplicar(char[] buf, int off, int len, int pos, boolean cifrar) {
+        return SubstitutionKernel.aplicar(buf, off, len, cifrar ? cifrado : descifrado, pos, clave);
+    }
+
+    /**
+     * @param cifrar {@code true} para cifrar, {@code false} para descifrar.
+     * @return Programa periódico nuevo sobre esta clave, para el núcleo compartido.
+     */
+    public KeySchedule programa(boolean cifrar) {
+        return new KeySchedule.Cycle(cifrar ? cifrado : descifrado, clave);
+    }
+
+    /**
+     * <h3>Cifra un texto</h3>
+     *
+     * @param texto Texto.
+     * @return Texto cifrado, en mayúsculas.
+     * @throws IllegalArgumentException Si el texto contiene un carácter fuera del alfabeto.
+     */
+    public String cifrar(String texto) {
+        char[] chars = texto.toUpperCase(Locale.ROOT).toCharArray();
+        aplicar(chars, 0, chars.length, 0, true);
+        return new String(chars);
+    }
+
+    /**
+     * <h3>Descifra un texto</h3>
+     *
+     * @param texto Texto cifrado.
+     * @return Texto descifrado, en mayúsculas.
+     * @throws IllegalArgumentException Si el texto contiene un carácter fuera del alfabeto.
+     */
+    public String descifrar(String texto) {
+        char[] chars = texto.toUpperCase(Locale.ROOT).toCharArray();
+        aplicar(chars, 0, chars.length, 0, false);
+        return new String(chars);
+    }
+}
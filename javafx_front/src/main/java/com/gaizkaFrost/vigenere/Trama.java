@@ -0,0 +1,267 @@
+package com.gaizkaFrost.vigenere;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h2>Trama binaria de la API Vigenère</h2>
+ *
+ * <p>
+ * Alternativa compacta al JSON para peticiones de alto volumen: campos UTF-8
+ * precedidos de su longitud, sin escapes {@code \\uXXXX} ni nombres de campo. Se
+ * negocia con {@code Content-Type: }{@value #TIPO}; el formato es el mismo que
+ * {@code Python_backend/trama.py}:
+ * </p>
+ *
+ * <pre>
+ * Petición:  'V' | versión (1) | u32 len | texto | u32 len | clave
+ * Respuesta: 'V' | versión (1) | estado (0 ok, 1 error) | u32 len | texto o mensaje
+ * </pre>
+ *
+ * <p>
+ * Codifica y decodifica sobre búferes reutilizables de cada hilo: el array devuelto
+ * por {@link #peticion} solo es válido hasta la siguiente llamada en el mismo hilo.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class Trama {
+
+    /**
+     * Tipo MIME de la trama.
+     */
+    public static final String TIPO = "application/x-vigenere-trama";
+
+    /**
+     * Primer byte de toda trama ({@code 'V'}).
+     */
+    static final int MAGIA = 0x56;
+
+    /**
+     * Versión del formato.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Estado de una respuesta correcta.
+     */
+    public static final int ESTADO_OK = 0;
+
+    /**
+     * Estado de una respuesta de error.
+     */
+    public static final int ESTADO_ERROR = 1;
+
+    /**
+     * Tamaño máximo de un búfer que se conserva entre llamadas.
+     */
+    private static final int MAX_RETENIDO = 1 << 20;
+
+    /**
+     * Búferes de cada hilo.
+     */
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private Trama() {}
+
+    /**
+     * <h3>Respuesta decodificada</h3>
+     *
+     * @param estado {@link #ESTADO_OK} o {@link #ESTADO_ERROR}.
+     * @param texto  Resultado o mensaje de error.
+     */
+    public record Respuesta(int estado, String texto) {
+        /**
+         * @return {@code true} si la operación fue correcta.
+         */
+        public boolean ok() {
+            return estado == ESTADO_OK;
+        }
+    }
+
+    /**
+     * <h3>Codifica una petición</h3>
+     *
+     * @param texto Texto.
+     * @param clave Clave.
+     * @return Búfer listo para leer, cuyo array respalda las posiciones {@code 0..limit()}.
+     */
+    public static ByteBuffer peticion(CharSequence texto, CharSequence clave) {
+        Buffers b = BUFFERS.get();
+        ByteBuffer out = b.salida(2 + 4 + utf8Max(texto) + 4 + utf8Max(clave));
+        out.put((byte) MAGIA).put((byte) VERSION);
+        b.campo(texto, out);
+        b.campo(clave, out);
+        return out.flip();
+    }
+
+    /**
+     * <h3>Codifica una respuesta</h3>
+     *
+     * @param estado {@link #ESTADO_OK} o {@link #ESTADO_ERROR}.
+     * @param texto  Resultado o mensaje de error.
+     * @return Búfer listo para leer, cuyo array respalda las posiciones {@code 0..limit()}.
+     */
+    public static ByteBuffer respuesta(int estado, CharSequence texto) {
+        Buffers b = BUFFERS.get();
+        ByteBuffer out = b.salida(3 + 4 + utf8Max(texto));
+        out.put((byte) MAGIA).put((byte) VERSION).put((byte) estado);
+        b.campo(texto, out);
+        return out.flip();
+    }
+
+    /**
+     * <h3>Decodifica una petición</h3>
+     *
+     * @param in Trama.
+     * @return {@code {texto, clave}}.
+     * @throws IllegalArgumentException Si la trama está mal formada.
+     */
+    public static String[] leerPeticion(ByteBuffer in) {
+        try {
+            cabecera(in);
+            Buffers b = BUFFERS.get();
+            String[] campos = {b.leerCampo(in), b.leerCampo(in)};
+            if (in.hasRemaining()) throw new IllegalArgumentException("Datos sobrantes tras la trama");
+            return campos;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Trama incompleta");
+        }
+    }
+
+    /**
+     * <h3>Lee y decodifica una respuesta de un flujo</h3>
+     *
+     * @param in Cuerpo de la respuesta (se lee hasta el final).
+     * @return Respuesta.
+     * @throws IOException              Si falla la lectura.
+     * @throws IllegalArgumentException Si la trama está mal formada.
+     */
+    public static Respuesta leerRespuesta(InputStream in) throws IOException {
+        Buffers b = BUFFERS.get();
+        ByteBuffer bb = b.entrada(in);
+        try {
+            cabecera(bb);
+            int estado = bb.get() & 0xFF;
+            String texto = b.leerCampo(bb);
+            if (bb.hasRemaining()) throw new IllegalArgumentException("Datos sobrantes tras la trama");
+            return new Respuesta(estado, texto);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Trama incompleta");
+        }
+    }
+
+    /**
+     * @param in Trama.
+     * @throws IllegalArgumentException Si no empieza por la magia y la versión esperadas.
+     */
+    private static void cabecera(ByteBuffer in) {
+        if ((in.get() & 0xFF) != MAGIA || (in.get() & 0xFF) != VERSION)
+            throw new IllegalArgumentException("Trama no reconocida");
+    }
+
+    /**
+     * @param s Texto.
+     * @return Cota superior de su tamaño en UTF-8.
+     */
+    private static int utf8Max(CharSequence s) {
+        return s.length() * 3;
+    }
+
+    /**
+     * Búferes y codificadores reutilizables de un hilo.
+     */
+    private static final class Buffers {
+        /** Codificador UTF-8 (sustituye secuencias inválidas, como {@code String#getBytes}). */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        /** Decodificador UTF-8 estricto. */
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        /** Trama de salida. */
+        private ByteBuffer salida = ByteBuffer.allocate(4096);
+        /** Trama de entrada. */
+        private ByteBuffer entrada = ByteBuffer.allocate(4096);
+        /** Caracteres decodificados. */
+        private CharBuffer chars = CharBuffer.allocate(4096);
+
+        /**
+         * @param n Capacidad necesaria.
+         * @return Búfer de salida vacío.
+         */
+        ByteBuffer salida(int n) {
+            if (salida.capacity() < n || salida.capacity() > MAX_RETENIDO) salida = ByteBuffer.allocate(Math.max(n, 4096));
+            return salida.clear();
+        }
+
+        /**
+         * @param in Flujo.
+         * @return Su contenido completo, listo para leer.
+         * @throws IOException Si falla la lectura.
+         */
+        ByteBuffer entrada(InputStream in) throws IOException {
+            if (entrada.capacity() > MAX_RETENIDO) entrada = ByteBuffer.allocate(4096);
+            entrada.clear();
+            int n;
+            while ((n = in.read(entrada.array(), entrada.position(), entrada.remaining())) >= 0) {
+                entrada.position(entrada.position() + n);
+                if (!entrada.hasRemaining()) {
+                    ByteBuffer mayor = ByteBuffer.allocate(entrada.capacity() * 2);
+                    entrada = mayor.put(entrada.flip());
+                }
+            }
+            return entrada.flip();
+        }
+
+        /**
+         * Escribe la longitud y el texto en UTF-8.
+         *
+         * @param s   Texto.
+         * @param out Destino con espacio suficiente.
+         */
+        void campo(CharSequence s, ByteBuffer out) {
+            int at = out.position();
+            out.position(at + 4);
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(s), out, true);
+            encoder.flush(out);
+            out.putInt(at, out.position() - at - 4);
+        }
+
+        /**
+         * @param in Trama.
+         * @return Siguiente campo.
+         * @throws IllegalArgumentException Si la longitud excede la trama o el UTF-8 no es válido.
+         */
+        String leerCampo(ByteBuffer in) {
+            int n = in.getInt();
+            if (n < 0 || n > in.remaining()) throw new IllegalArgumentException("Trama incompleta");
+            ByteBuffer campo = in.slice(in.position(), n);
+            in.position(in.position() + n);
+            if (chars.capacity() < n || chars.capacity() > MAX_RETENIDO) chars = CharBuffer.allocate(Math.max(n, 4096));
+            chars.clear();
+            decoder.reset();
+            CoderResult r = decoder.decode(campo, chars, true);
+            if (!r.isError()) r = decoder.flush(chars);
+            if (r.isError()) throw new IllegalArgumentException("Texto UTF-8 no válido en la trama");
+            return chars.flip().toString();
+        }
+    }
+}
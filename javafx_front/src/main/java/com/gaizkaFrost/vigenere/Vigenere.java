@@ -0,0 +1,182 @@
+package com.gaizkaFrost.vigenere;
+
+import java.util.regex.Pattern;
+
+/**
+ * <h2>Motor Vigenère en Java</h2>
+ *
+ * <p>
+ * Port fiel de {@code Python_backend/vigenere.py}: mismo alfabeto extendido con vocales
+ * acentuadas y la Ñ, texto pasado a mayúsculas, espacios conservados sin consumir clave
+ * y error ante cualquier otro carácter. Permite cifrar en el propio proceso Java (p. ej.
+ * desde el servicio HTTP local) sin pasar por el backend Python; ambos dan el mismo
+ * resultado.
+ * </p>
+ *
+ * <p>
+ * Además de los métodos sobre cadenas completas ofrece {@link Stream}, que procesa el
+ * texto por bloques arrastrando la posición en la clave, para cuerpos de cualquier
+ * tamaño. Ambos usan la {@link ClaveVigenere} compilada y cacheada de cada clave.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+public final class Vigenere {
+
+    /**
+     * Alfabeto extendido, en el mismo orden que {@code ABC} en {@code vigenere.py}.
+     */
+    public static final String ABC = "AÁÀÄÂÃBCDEÉÈËÊFGHIÍÌÏÎJKLMNÑOÓÒÖÔÕPQRSTUÚÙÜÛVWXYZ";
+
+    /**
+     * Longitud mínima de la clave, como exige la API.
+     */
+    public static final int CLAVE_MIN = 3;
+
+    /**
+     * Claves válidas según la API: solo letras, sin números ni símbolos.
+     */
+    private static final Pattern CLAVE_VALIDA = Pattern.compile("[A-Za-zÑñ]+");
+
+    /**
+     * Caracteres que la API admite en texto y clave: letras, números, signos básicos y espacios.
+     */
+    private static final Pattern TEXTO_VALIDO = Pattern.compile(
+            "[A-Za-zÁÀÄÂÃÉÈËÊÍÌÏÎÓÒÖÔÕÚÙÜÛÑáàäâãéèëêíìïîóòöôõúùüûñ .,;:¡!¿?()\\-\n\r]*");
+
+    /**
+     * Constructor privado para evitar instanciación.
+     */
+    private Vigenere() {}
+
+    /**
+     * <h3>Cifra un texto</h3>
+     *
+     * @param texto Texto a cifrar.
+     * @param clave Clave.
+     * @return Texto cifrado, en mayúsculas.
+     * @throws IllegalArgumentException Si la clave está vacía o el texto contiene un carácter
+     *                                  fuera del alfabeto.
+     */
+    public static String cifrar(String texto, String clave) {
+        return aplicar(texto, clave, true);
+    }
+
+    /**
+     * <h3>Descifra un texto</h3>
+     *
+     * @param texto Texto cifrado.
+     * @param clave Clave usada al cifrar.
+     * @return Texto descifrado, en mayúsculas.
+     * @throws IllegalArgumentException Si la clave está vacía o el texto contiene un carácter
+     *                                  fuera del alfabeto.
+     */
+    public static String descifrar(String texto, String clave) {
+        return aplicar(texto, clave, false);
+    }
+
+    /**
+     * <h3>Valida una clave con las mismas reglas que la API</h3>
+     *
+     * @param clave Clave recibida.
+     * @throws IllegalArgumentException Con el mismo mensaje que devuelve {@code app.py}.
+     */
+    public static void validarClave(String clave) {
+        String limpia = clave == null ? "" : clave.strip();
+        if (limpia.isEmpty())
+            throw new IllegalArgumentException("La clave no puede estar vacía");
+        if (limpia.length() < CLAVE_MIN)
+            throw new IllegalArgumentException("La clave debe tener al menos 3 caracteres");
+        if (!CLAVE_VALIDA.matcher(limpia).matches())
+            throw new IllegalArgumentException(
+                    "La clave de Vigenère debe contener solo letras (sin números ni símbolos).");
+    }
+
+    /**
+     * <h3>Rechaza emoticonos y símbolos especiales, como la API</h3>
+     *
+     * @param texto Texto o clave recibidos.
+     * @throws IllegalArgumentException Con el mismo mensaje que devuelve {@code app.py}.
+     */
+    public static void validarTexto(String texto) {
+        if (!TEXTO_VALIDO.matcher(texto).matches())
+            throw new IllegalArgumentException("El texto contiene caracteres no permitidos,"
+                    + "como emoticonos o símbolos especiales.");
+    }
+
+    /**
+     * <h3>Valida una petición completa como la API</h3>
+     *
+     * <p>
+     * Mismas comprobaciones, en el mismo orden, que {@code app.py}: campos presentes,
+     * texto y clave sin símbolos especiales y clave alfabética.
+     * </p>
+     *
+     * @param texto Texto recibido.
+     * @param clave Clave recibida.
+     * @throws IllegalArgumentException Con el mismo mensaje que devuelve {@code app.py}.
+     */
+    public static void validarPeticion(String texto, String clave) {
+        if (texto == null || texto.isEmpty() || clave == null || clave.isEmpty())
+            throw new IllegalArgumentException("Se requieren los campos \"texto\" y \"clave\"");
+        validarTexto(texto);
+        validarTexto(clave);
+        validarClave(clave);
+    }
+
+    /**
+     * @param texto   Texto.
+     * @param clave   Clave.
+     * @param cifrar  {@code true} para cifrar.
+     * @return Resultado.
+     */
+    private static String aplicar(String texto, String clave, boolean cifrar) {
+        ClaveVigenere k = ClaveVigenere.de(clave);
+        return cifrar ? k.cifrar(texto) : k.descifrar(texto);
+    }
+
+    /**
+     * <h3>Cifrado o descifrado por bloques</h3>
+     *
+     * <p>
+     * Conserva la posición en la clave entre llamadas, de modo que procesar un texto en
+     * varios bloques da el mismo resultado que hacerlo de una vez. No es seguro entre
+     * hilos: cada flujo usa su propia instancia.
+     * </p>
+     */
+    public static final class Stream {
+        /** Clave compilada. */
+        private final ClaveVigenere clave;
+        /** {@code true} para cifrar. */
+        private final boolean cifrar;
+        /** Posición actual en la clave. */
+        private int pos;
+
+        /**
+         * @param clave  Clave.
+         * @param cifrar {@code true} para cifrar, {@code false} para descifrar.
+         * @throws IllegalArgumentException Si la clave está vacía.
+         */
+        public Stream(String clave, boolean cifrar) {
+            this.clave = ClaveVigenere.de(clave);
+            this.cifrar = cifrar;
+        }
+
+        /**
+         * Transforma en su sitio un bloque de texto. Las minúsculas se pasan a mayúsculas.
+         *
+         * @param buf Caracteres.
+         * @param off Inicio.
+         * @param len Número de caracteres.
+         * @throws IllegalArgumentException Si hay un carácter fuera del alfabeto; el bloque
+         *                                  queda a medio transformar.
+         */
+        public void aplicar(char[] buf, int off, int len) {
+            pos = clave.aplicar(buf, off, len, pos, cifrar);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.gaizkaFrost.AES;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * <h2>Pruebas del archivo cifrado v5</h2>
+ *
+ * <p>
+ * Empaquetado y extracción de una carpeta con subcarpetas, lectura de entradas sueltas,
+ * apertura por cada destinatario y rechazo de entradas, índices o pies manipulados.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class ArchiveContainerTest {
+
+    /** Primer destinatario de las pruebas. */
+    private static final Recipient KEY = Recipient.keyFile("fichero de clave de prueba, 32B".getBytes());
+
+    /** Segundo destinatario de las pruebas. */
+    private static final Recipient OTHER_KEY = Recipient.keyFile("segundo fichero de clave, 32 B!".getBytes());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void packedFolderRoundTrips() throws IOException {
+        Map<String, byte[]> files = sampleFiles();
+        Path archive = pack(files);
+
+        assertEquals(Policy.VERSION_ARCHIVE, Files.readAllBytes(archive)[Policy.MAGIC.length]);
+        try (ArchiveContainer a = ArchiveContainer.open(archive, KEY)) {
+            assertEquals(List.copyOf(files.keySet()), a.names());
+            for (Map.Entry<String, byte[]> e : files.entrySet())
+                assertArrayEquals(e.getValue(), a.read(e.getKey()), e.getKey());
+
+            Path target = dir.resolve("extraido");
+            a.extractAll(target);
+            for (Map.Entry<String, byte[]> e : files.entrySet())
+                assertArrayEquals(e.getValue(), Files.readAllBytes(target.resolve(e.getKey())), e.getKey());
+        }
+    }
+
+    @Test
+    void everyRecipientCanOpen() throws IOException {
+        Path archive = pack(sampleFiles(), List.of(KEY, OTHER_KEY));
+
+        try (ArchiveContainer a = ArchiveContainer.open(archive, OTHER_KEY)) {
+            assertArrayEquals("hola".getBytes(), a.read("a.txt"));
+        }
+        Recipient stranger = Recipient.keyFile("un fichero de clave que no está".getBytes());
+        assertThrows(CryptoException.class, () -> ArchiveContainer.open(archive, stranger));
+    }
+
+    @Test
+    void unknownEntryIsRejected() throws IOException {
+        try (ArchiveContainer a = ArchiveContainer.open(pack(sampleFiles()), KEY)) {
+            assertThrows(CryptoException.class, () -> a.read("no-existe.txt"));
+        }
+    }
+
+    @Test
+    void tamperedEntryIsRejected() throws IOException {
+        Path archive = pack(sampleFiles());
+        byte[] bytes = Files.readAllBytes(archive);
+        int headerLen = Policy.MAGIC.length + 2 + Policy.GCM_NONCE_LEN;
+        int keyLen = ByteBuffer.wrap(bytes, headerLen, 2).getShort() & 0xFFFF;
+        // Primera entrada en orden: "a.txt"
+        bytes[headerLen + 2 + keyLen] ^= 1;
+        Files.write(archive, bytes);
+
+        try (ArchiveContainer a = ArchiveContainer.open(archive, KEY)) {
+            assertThrows(CryptoException.class, () -> a.read("a.txt"));
+            assertArrayEquals(new byte[0], a.read("vacio.bin"));
+        }
+    }
+
+    @Test
+    void tamperedIndexIsRejected() throws IOException {
+        Path archive = pack(sampleFiles());
+        byte[] bytes = Files.readAllBytes(archive);
+        bytes[bytes.length - 13] ^= 1;
+        Files.write(archive, bytes);
+
+        assertThrows(CryptoException.class, () -> ArchiveContainer.open(archive, KEY));
+    }
+
+    @Test
+    void tamperedHeaderOrTrailerIsRejected() throws IOException {
+        Path archive = pack(sampleFiles());
+        byte[] original = Files.readAllBytes(archive);
+
+        byte[] nonce = original.clone();
+        nonce[Policy.MAGIC.length + 2] ^= 1;
+        Files.write(archive, nonce);
+        assertThrows(CryptoException.class, () -> ArchiveContainer.open(archive, KEY));
+
+        byte[] trailer = original.clone();
+        trailer[trailer.length - 1] ^= 1;
+        Files.write(archive, trailer);
+        assertThrows(CryptoFormatException.class, () -> ArchiveContainer.open(archive, KEY));
+    }
+
+    /**
+     * @return Ficheros de prueba por ruta relativa, en el orden en que se empaquetan.
+     */
+    private static Map<String, byte[]> sampleFiles() {
+        Map<String, byte[]> files = new TreeMap<>();
+        files.put("a.txt", "hola".getBytes());
+        files.put("sub/b.bin", SegmentedContainerTest.random(70_000));
+        files.put("sub/dentro/c.txt", "ñandú".repeat(100).getBytes(StandardCharsets.UTF_8));
+        files.put("vacio.bin", new byte[0]);
+        return files;
+    }
+
+    /**
+     * @param files Ficheros por ruta relativa.
+     * @return Archivo v5 para {@link #KEY}.
+     * @throws IOException Si falla la escritura.
+     */
+    private Path pack(Map<String, byte[]> files) throws IOException {
+        return pack(files, List.of(KEY));
+    }
+
+    /**
+     * @param files      Ficheros por ruta relativa.
+     * @param recipients Destinatarios.
+     * @return Archivo v5.
+     * @throws IOException Si falla la escritura.
+     */
+    private Path pack(Map<String, byte[]> files, List<Recipient> recipients) throws IOException {
+        Path source = dir.resolve("origen");
+        for (Map.Entry<String, byte[]> e : files.entrySet()) {
+            Path file = source.resolve(e.getKey());
+            Files.createDirectories(file.getParent());
+            Files.write(file, e.getValue());
+        }
+        Path archive = dir.resolve("archivo.enc");
+        ArchiveContainer.pack(source, archive, recipients);
+        return archive;
+    }
+}
@@ -0,0 +1,98 @@
+package com.gaizkaFrost.AES;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h2>Pruebas de la armadura de texto</h2>
+ *
+ * <p>
+ * Ida y vuelta de un texto de varios segmentos, tolerancia a los saltos de línea de
+ * Windows y rechazo de cuerpos manipulados y de textos sin línea de inicio o de fin.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class ArmorTest {
+
+    /** Contraseña de las pruebas. */
+    private static final char[] PASSWORD = "contraseña de prueba".toCharArray();
+
+    /** Texto en claro: varios segmentos v2. */
+    private static final byte[] PLAIN = SegmentedContainerTest.random(2 * Policy.SEGMENT_SIZE_DEFAULT + 77);
+
+    /** Texto con armadura de {@link #PLAIN}; se cifra una vez para todas las pruebas. */
+    private static String armored;
+
+    @BeforeAll
+    static void encrypt() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UseCases.encryptToArmor(new ByteArrayInputStream(PLAIN), PLAIN.length, out, PASSWORD, null);
+        armored = out.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void armoredTextRoundTrips() throws IOException {
+        String[] lines = armored.split("\n");
+        assertEquals(Policy.ARMOR_BEGIN, lines[0]);
+        assertEquals(Policy.ARMOR_END, lines[lines.length - 1]);
+        for (int i = 1; i < lines.length - 1; i++)
+            assertTrue(lines[i].length() <= Policy.ARMOR_LINE_LEN, "línea " + i);
+
+        assertArrayEquals(PLAIN, decrypt(armored));
+    }
+
+    @Test
+    void windowsLineEndingsAndSurroundingBlankLinesAreAccepted() throws IOException {
+        assertArrayEquals(PLAIN, decrypt("\r\n\n" + armored.replace("\n", "\r\n") + "\r\n"));
+    }
+
+    @Test
+    void tamperedBodyIsRejected() {
+        int at = armored.length() / 2;
+        char c = armored.charAt(at);
+        String tampered = armored.substring(0, at) + (c == 'A' ? 'B' : 'A') + armored.substring(at + 1);
+
+        assertThrows(CryptoException.class, () -> decrypt(tampered));
+    }
+
+    @Test
+    void missingEndLineIsRejected() {
+        String truncated = armored.substring(0, armored.lastIndexOf(Policy.ARMOR_END));
+
+        assertThrows(CryptoFormatException.class, () -> decrypt(truncated));
+    }
+
+    @Test
+    void missingBeginLineIsRejected() {
+        String headless = armored.substring(Policy.ARMOR_BEGIN.length() + 1);
+
+        assertThrows(CryptoFormatException.class, () -> decrypt(headless));
+        assertThrows(CryptoFormatException.class, () -> decrypt(""));
+    }
+
+    /**
+     * @param text Texto con armadura.
+     * @return Contenido descifrado.
+     * @throws IOException Si falla el descifrado.
+     */
+    private static byte[] decrypt(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UseCases.decryptFromArmor(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)), out, PASSWORD);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.gaizkaFrost.AES;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h2>Pruebas de los blobs v1 y v4</h2>
+ *
+ * <p>
+ * Ida y vuelta en cada variante (v1, v4 comprimido, v4 con KDF propia, v4 en modo sobre
+ * y Base64) y rechazo de blobs manipulados o con otra contraseña.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class BlobFormatTest {
+
+    /** Contraseña de las pruebas. */
+    private static final char[] PASSWORD = "contraseña de prueba".toCharArray();
+
+    /** KDF barata para las pruebas que no comprueban el formato v1. */
+    private static final KdfParams FAST = KdfParams.pbkdf2(Policy.PBKDF2_MIN_ITERATIONS);
+
+    /** Texto muy comprimible. */
+    private static final byte[] TEXT = "línea de log repetida una y otra vez\n".repeat(500)
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void legacyBlobIsV1AndRoundTrips() {
+        byte[] blob = UseCases.encryptWithPassword(TEXT, PASSWORD, null, false, KdfParams.legacy());
+
+        assertEquals(Policy.VERSION, blob[Policy.MAGIC.length]);
+        assertArrayEquals(TEXT, UseCases.decryptWithPassword(blob, PASSWORD));
+    }
+
+    @Test
+    void compressedBlobIsV4AndRoundTrips() {
+        byte[] blob = UseCases.encryptWithPassword(TEXT, PASSWORD, "aad".getBytes(), true, FAST);
+
+        assertEquals(Policy.VERSION_EXTENDED, blob[Policy.MAGIC.length]);
+        assertTrue(blob.length < TEXT.length / 4, "se esperaba un blob comprimido");
+        assertArrayEquals(TEXT, UseCases.decryptWithPassword(blob, PASSWORD));
+    }
+
+    @Test
+    void customKdfBlobIsV4AndRoundTrips() {
+        byte[] blob = UseCases.encryptWithPassword(TEXT, PASSWORD, null, false, FAST);
+
+        assertEquals(Policy.VERSION_EXTENDED, blob[Policy.MAGIC.length]);
+        assertArrayEquals(TEXT, UseCases.decryptWithPassword(blob, PASSWORD));
+    }
+
+    @Test
+    void envelopeBlobOpensForEveryRecipient() {
+        Recipient a = Recipient.keyFile("primer fichero de clave, 32 B...".getBytes());
+        Recipient b = Recipient.password(PASSWORD, FAST);
+        byte[] blob = UseCases.encryptEnvelope(TEXT, null, true, List.of(a, b));
+
+        assertArrayEquals(TEXT, UseCases.decrypt(blob, a));
+        assertArrayEquals(TEXT, UseCases.decrypt(blob, b));
+        assertThrows(CryptoException.class,
+                () -> UseCases.decrypt(blob, Recipient.keyFile("un fichero de clave que no está".getBytes())));
+    }
+
+    @Test
+    void base64RoundTrip() {
+        String b64 = UseCases.encryptToBase64(TEXT, PASSWORD, "aad", true);
+        assertArrayEquals(TEXT, UseCases.decryptFromBase64(b64, PASSWORD));
+    }
+
+    @Test
+    void tamperedTagOrCiphertextIsRejected() {
+        byte[] blob = UseCases.encryptWithPassword(TEXT, PASSWORD, null, true, FAST);
+
+        byte[] tag = blob.clone();
+        tag[tag.length - 1] ^= 1;
+        assertThrows(CryptoException.class, () -> UseCases.decryptWithPassword(tag, PASSWORD));
+
+        byte[] ct = blob.clone();
+        ct[ct.length - Policy.GCM_TAG_LEN - 10] ^= 1;
+        assertThrows(CryptoException.class, () -> UseCases.decryptWithPassword(ct, PASSWORD));
+    }
+
+    @Test
+    void tamperedOrTruncatedHeaderIsRejected() {
+        byte[] blob = UseCases.encryptWithPassword(TEXT, PASSWORD, null, true, FAST);
+
+        byte[] magic = blob.clone();
+        magic[0] ^= 1;
+        assertThrows(CryptoFormatException.class, () -> UseCases.decryptWithPassword(magic, PASSWORD));
+
+        byte[] truncated = java.util.Arrays.copyOf(blob, blob.length - 3);
+        assertThrows(CryptoFormatException.class, () -> UseCases.decryptWithPassword(truncated, PASSWORD));
+    }
+
+    @Test
+    void wrongPasswordIsRejected() {
+        byte[] blob = UseCases.encryptWithPassword(TEXT, PASSWORD, null, false, FAST);
+        assertThrows(CryptoException.class,
+                () -> UseCases.decryptWithPassword(blob, "otra contraseña".toCharArray()));
+    }
+}
@@ -0,0 +1,167 @@
+package com.gaizkaFrost.AES;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h2>Pruebas del log cifrado de solo anexado (v3)</h2>
+ *
+ * <p>
+ * Escritura y lectura de registros repartidos en varios segmentos, lectura incremental
+ * mientras se escribe, reapertura para seguir anexando y rechazo de frames manipulados.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class EncryptedLogTest {
+
+    /** Contraseña de las pruebas. */
+    private static final char[] PASSWORD = "contraseña del log".toCharArray();
+
+    /** Tamaño de segmento pequeño para que unos pocos registros ocupen varios. */
+    private static final int SEGMENT_BYTES = 256;
+
+    /** Temporizador de sellado largo: en las pruebas solo se sella por tamaño o flush. */
+    private static final long SEAL_MILLIS = 60_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsRoundTripAcrossSegments() throws IOException {
+        Path file = dir.resolve("app.log.enc");
+        List<String> written = records(0, 50);
+        try (EncryptedLogWriter w = open(file)) {
+            for (String r : written) w.append(r.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(Policy.VERSION_LOG, Files.readAllBytes(file)[Policy.MAGIC.length]);
+        try (EncryptedLogReader r = EncryptedLogReader.open(file, PASSWORD)) {
+            assertEquals(written, strings(r.poll()));
+            assertTrue(r.segmentsRead() > 1);
+            assertTrue(r.poll().isEmpty());
+        }
+    }
+
+    @Test
+    void readerFollowsTheWriter() throws IOException {
+        Path file = dir.resolve("tail.log.enc");
+        try (EncryptedLogWriter w = open(file);
+             EncryptedLogReader r = EncryptedLogReader.open(file, PASSWORD)) {
+            for (String s : records(0, 3)) w.append(s.getBytes(StandardCharsets.UTF_8));
+            w.flush();
+            assertEquals(records(0, 3), strings(r.poll()));
+
+            for (String s : records(3, 7)) w.append(s.getBytes(StandardCharsets.UTF_8));
+            w.flush();
+            assertEquals(records(3, 7), strings(r.poll()));
+        }
+    }
+
+    @Test
+    void reopenedLogKeepsAppending() throws IOException {
+        Path file = dir.resolve("reabierto.log.enc");
+        try (EncryptedLogWriter w = open(file)) {
+            for (String s : records(0, 10)) w.append(s.getBytes(StandardCharsets.UTF_8));
+        }
+        try (EncryptedLogWriter w = open(file)) {
+            for (String s : records(10, 20)) w.append(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (EncryptedLogReader r = EncryptedLogReader.open(file, PASSWORD)) {
+            assertEquals(records(0, 20), strings(r.poll()));
+        }
+    }
+
+    @Test
+    void tamperedFrameIsRejected() throws IOException {
+        Path file = dir.resolve("manipulado.log.enc");
+        try (EncryptedLogWriter w = open(file)) {
+            for (String s : records(0, 50)) w.append(s.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 20] ^= 1;
+        Files.write(file, bytes);
+
+        try (EncryptedLogReader r = EncryptedLogReader.open(file, PASSWORD)) {
+            assertThrows(CryptoException.class, r::poll);
+        }
+    }
+
+    @Test
+    void wrongPasswordIsRejected() throws IOException {
+        Path file = dir.resolve("clave.log.enc");
+        try (EncryptedLogWriter w = open(file)) {
+            w.append("registro".getBytes(StandardCharsets.UTF_8));
+        }
+
+        char[] wrong = "otra contraseña".toCharArray();
+        assertThrows(CryptoException.class, () -> EncryptedLogWriter.open(file, wrong, SEGMENT_BYTES,
+                SEAL_MILLIS, 1).close());
+        try (EncryptedLogReader r = EncryptedLogReader.open(file, wrong)) {
+            assertThrows(CryptoException.class, r::poll);
+        }
+    }
+
+    @Test
+    void incompleteFinalFrameIsLeftForLater() throws IOException {
+        Path file = dir.resolve("cortado.log.enc");
+        try (EncryptedLogWriter w = open(file)) {
+            for (String s : records(0, 50)) w.append(s.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+
+        try (EncryptedLogReader r = EncryptedLogReader.open(file, PASSWORD)) {
+            List<String> read = strings(r.poll());
+            assertTrue(!read.isEmpty() && read.size() < 50);
+            assertEquals(records(0, read.size()), read);
+        }
+    }
+
+    /**
+     * @param file Fichero de log.
+     * @return Escritor con segmentos pequeños y sin sellado por tiempo.
+     * @throws IOException Si falla la apertura.
+     */
+    private static EncryptedLogWriter open(Path file) throws IOException {
+        return EncryptedLogWriter.open(file, PASSWORD, SEGMENT_BYTES, SEAL_MILLIS, 1);
+    }
+
+    /**
+     * @param from Primer índice (incluido).
+     * @param to   Último índice (excluido).
+     * @return Registros de prueba con ese índice.
+     */
+    private static List<String> records(int from, int to) {
+        List<String> out = new ArrayList<>();
+        for (int i = from; i < to; i++) out.add("registro " + i + ": operación completada");
+        return out;
+    }
+
+    /**
+     * @param records Registros en bytes.
+     * @return Registros como texto UTF-8.
+     */
+    private static List<String> strings(List<byte[]> records) {
+        List<String> out = new ArrayList<>();
+        for (byte[] r : records) out.add(new String(r, StandardCharsets.UTF_8));
+        return out;
+    }
+}
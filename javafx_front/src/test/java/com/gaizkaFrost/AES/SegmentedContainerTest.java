@@ -0,0 +1,193 @@
+package com.gaizkaFrost.AES;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h2>Pruebas del contenedor segmentado v2</h2>
+ *
+ * <p>
+ * Ida y vuelta por fichero, por flujo y con acceso aleatorio, y rechazo de segmentos,
+ * cabeceras y ficheros manipulados o truncados.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class SegmentedContainerTest {
+
+    /** Contraseña de las pruebas. */
+    private static final char[] PASSWORD = "contraseña de prueba".toCharArray();
+
+    /** Fichero de clave de las pruebas: HKDF, sin el coste de una KDF lenta. */
+    private static final Recipient KEY = Recipient.keyFile("fichero de clave de prueba, 32B".getBytes());
+
+    /** Tamaño de los datos: varios segmentos y uno final incompleto. */
+    private static final int LENGTH = 3 * Policy.SEGMENT_SIZE_DEFAULT + 1234;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void passwordFileRoundTrip() throws IOException {
+        byte[] data = random(LENGTH);
+        Path plain = write("claro.bin", data);
+        Path enc = dir.resolve("cifrado.enc");
+        UseCases.encryptFileSegmented(plain, enc, PASSWORD, "aad".getBytes());
+
+        assertEquals(Policy.VERSION_SEGMENTED, Files.readAllBytes(enc)[Policy.MAGIC.length]);
+        assertArrayEquals(data, decrypt(enc, Recipient.password(PASSWORD)));
+    }
+
+    @Test
+    void streamRoundTrip() throws IOException {
+        byte[] data = random(LENGTH);
+        ByteArrayOutputStream enc = new ByteArrayOutputStream();
+        UseCases.encryptStream(new ByteArrayInputStream(data), data.length, enc, PASSWORD, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UseCases.decryptStream(new ByteArrayInputStream(enc.toByteArray()), out, PASSWORD);
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    void emptyInputRoundTrip() throws IOException {
+        Path enc = envelope(new byte[0]);
+        assertArrayEquals(new byte[0], decrypt(enc, KEY));
+    }
+
+    @Test
+    void randomAccessReadsAnyRange() throws IOException {
+        byte[] data = random(LENGTH);
+        Path enc = envelope(data);
+        try (SeekableByteChannel ch = UseCases.openSegmented(enc, KEY)) {
+            assertEquals(data.length, ch.size());
+            long from = Policy.SEGMENT_SIZE_DEFAULT - 100;
+            ByteBuffer buf = ByteBuffer.allocate(Policy.SEGMENT_SIZE_DEFAULT + 200);
+            ch.position(from);
+            while (buf.hasRemaining() && ch.read(buf) > 0) { }
+            assertArrayEquals(Arrays.copyOfRange(data, (int) from, (int) from + buf.capacity()), buf.array());
+        }
+    }
+
+    @Test
+    void tamperedSegmentIsRejected() throws IOException {
+        Path enc = envelope(random(LENGTH));
+        byte[] bytes = Files.readAllBytes(enc);
+        bytes[bytes.length - Policy.SEGMENT_SIZE_DEFAULT] ^= 1;
+        Files.write(enc, bytes);
+
+        assertThrows(CryptoException.class, () -> decrypt(enc, KEY));
+    }
+
+    @Test
+    void everyTamperedHeaderByteIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(envelope(random(1000)));
+        SegmentedContainer header = SegmentedContainer.readHeader(
+                Channels.newChannel(new ByteArrayInputStream(bytes)));
+        // El relleno final del área de claves es hueco libre para añadir destinatarios
+        long used = header.segmentOffset(0)
+                - (header.wrapAreaLen - SegmentedContainer.wrapAreaSize(header.keyWraps));
+        for (int i = 0; i < used; i++) {
+            byte[] tampered = bytes.clone();
+            tampered[i] ^= 1;
+            // La cabecera entera va en el AAD de cada segmento: o no se entiende, o promete
+            // más datos de los que hay, o no verifica
+            Exception e = assertThrows(Exception.class, () -> decrypt(tampered, KEY), "byte " + i);
+            assertTrue(e instanceof CryptoException || e instanceof CryptoFormatException
+                    || e instanceof EOFException, "byte " + i + ": " + e);
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(envelope(random(LENGTH)));
+
+        assertThrows(EOFException.class, () -> decrypt(Arrays.copyOf(bytes, bytes.length - 5), KEY));
+        assertThrows(EOFException.class,
+                () -> decrypt(Arrays.copyOf(bytes, bytes.length - Policy.SEGMENT_SIZE_DEFAULT / 2), KEY));
+    }
+
+    @Test
+    void wrongKeyIsRejected() throws IOException {
+        Path enc = envelope(random(1000));
+        Recipient other = Recipient.keyFile("otro fichero de clave de prueba!".getBytes());
+
+        assertThrows(CryptoException.class, () -> decrypt(enc, other));
+    }
+
+    /**
+     * @param data Datos en claro.
+     * @return Fichero v2 en modo sobre para {@link #KEY}.
+     * @throws IOException Si falla la escritura.
+     */
+    private Path envelope(byte[] data) throws IOException {
+        Path plain = write("claro-" + data.length + ".bin", data);
+        Path enc = dir.resolve("sobre-" + data.length + ".enc");
+        UseCases.encryptFileEnvelope(plain, enc, null, List.of(KEY));
+        return enc;
+    }
+
+    /**
+     * @param enc       Fichero v2.
+     * @param recipient Destinatario.
+     * @return Datos descifrados en flujo.
+     * @throws IOException Si falla la lectura.
+     */
+    private static byte[] decrypt(Path enc, Recipient recipient) throws IOException {
+        return decrypt(Files.readAllBytes(enc), recipient);
+    }
+
+    /**
+     * @param enc       Contenedor v2.
+     * @param recipient Destinatario.
+     * @return Datos descifrados en flujo.
+     * @throws IOException Si el contenedor está truncado.
+     */
+    private static byte[] decrypt(byte[] enc, Recipient recipient) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UseCases.decryptStream(new ByteArrayInputStream(enc), out, recipient);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param name Nombre del fichero.
+     * @param data Contenido.
+     * @return Ruta escrita.
+     * @throws IOException Si falla la escritura.
+     */
+    private Path write(String name, byte[] data) throws IOException {
+        return Files.write(dir.resolve(name), data);
+    }
+
+    /**
+     * @param n Longitud.
+     * @return Bytes pseudoaleatorios reproducibles.
+     */
+    static byte[] random(int n) {
+        byte[] b = new byte[n];
+        new Random(n).nextBytes(b);
+        return b;
+    }
+}
@@ -0,0 +1,162 @@
+package com.gaizkaFrost.cipher;
+
+import com.gaizkaFrost.vigenere.Vigenere;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * <h2>Pruebas de los cifrados por sustitución</h2>
+ *
+ * <p>
+ * El camino paralelo ({@link PolyalphabeticCipher#paralelo}) se llama directamente, para
+ * que se pruebe aunque la máquina tenga un solo procesador, y debe dar el mismo
+ * resultado y el mismo primer error que el flujo secuencial. El Vigenère local debe
+ * coincidir además con {@link Vigenere}, que {@code ClaveVigenereTest} compara con el
+ * algoritmo original de {@code vigenere.py}.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class PolyalphabeticCipherTest {
+
+    /** Cifrados con programa periódico, con una clave válida para cada uno. */
+    private static final List<Object[]> PERIODICOS = List.of(
+            new Object[]{new VigenereCipher(), "MI CLAVE"},
+            new Object[]{new BeaufortCipher(), "ÁRBOL"},
+            new Object[]{new CaesarCipher(), "7"});
+
+    /** Longitud de los textos: varios trozos, el último incompleto, por encima del umbral. */
+    private static final int LONGITUD =
+            PolyalphabeticCipher.UMBRAL_PARALELO + 3 * PolyalphabeticCipher.TROZO + 321;
+
+    @Test
+    void parallelMatchesSequential() {
+        String texto = aleatorio(LONGITUD);
+        for (Object[] c : PERIODICOS) {
+            PolyalphabeticCipher cifrado = (PolyalphabeticCipher) c[0];
+            String clave = (String) c[1];
+            for (boolean cifrar : new boolean[]{true, false}) {
+                String esperado = secuencial(cifrado, texto, clave, cifrar);
+                assertEquals(esperado, paralelo(cifrado, texto, clave, cifrar), cifrado.id());
+                assertEquals(esperado, cifrado.aplicar(texto, clave, cifrar), cifrado.id());
+            }
+        }
+    }
+
+    @Test
+    void parallelReportsTheFirstInvalidCharacter() {
+        char[] chars = aleatorio(LONGITUD).toCharArray();
+        chars[3 * PolyalphabeticCipher.TROZO + 5] = '#';
+        chars[PolyalphabeticCipher.TROZO + 7] = '!';
+        String texto = new String(chars);
+        for (Object[] c : PERIODICOS) {
+            PolyalphabeticCipher cifrado = (PolyalphabeticCipher) c[0];
+            String clave = (String) c[1];
+            String esperado = resultado(() -> secuencial(cifrado, texto, clave, true));
+            assertEquals("error: Caracter inválido en texto: '!'", esperado, cifrado.id());
+            assertEquals(esperado, resultado(() -> paralelo(cifrado, texto, clave, true)), cifrado.id());
+            assertEquals(esperado, resultado(() -> cifrado.aplicar(texto, clave, true)), cifrado.id());
+        }
+    }
+
+    @Test
+    void vigenereMatchesTheLocalImplementation() {
+        VigenereCipher cifrado = new VigenereCipher();
+        String largo = aleatorio(LONGITUD);
+        String[] textos = {"HOLA MUNDO", "  ñandú  camión ", "HOLA!", largo};
+        // Espacio y carácter no válido en la clave: el segundo solo falla si llega a usarse
+        String[] claves = {"CLAVE", "mi clave", " ", "CLA1VE", "AB1"};
+        for (String texto : textos) {
+            for (String clave : claves) {
+                String caso = "'" + texto.substring(0, Math.min(20, texto.length())) + "' con '" + clave + "'";
+                assertEquals(resultado(() -> Vigenere.cifrar(texto, clave)),
+                        resultado(() -> cifrado.aplicar(texto, clave, true)), caso);
+                assertEquals(resultado(() -> Vigenere.descifrar(texto, clave)),
+                        resultado(() -> cifrado.aplicar(texto, clave, false)), caso);
+            }
+        }
+        assertEquals("HP", cifrado.aplicar("ho", "AB1", true));
+        assertEquals("error: Caracter no válido: '1'", resultado(() -> cifrado.aplicar("hol", "AB1", true)));
+    }
+
+    @Test
+    void localVigenereValidatesLikeTheApi() {
+        assertThrows(IllegalArgumentException.class, () -> Vigenere.validarPeticion("HOLA", "CLA1VE"));
+        assertThrows(IllegalArgumentException.class, () -> Vigenere.validarPeticion("HOLA", "AB"));
+        Vigenere.validarPeticion("HOLA MUNDO", "Clave");
+    }
+
+    @Test
+    void autokeyStreamMatchesBatch() {
+        AutokeyCipher cifrado = new AutokeyCipher();
+        String texto = aleatorio(LONGITUD);
+        for (boolean cifrar : new boolean[]{true, false}) {
+            assertEquals(secuencial(cifrado, texto, "CLAVE", cifrar), cifrado.aplicar(texto, "CLAVE", cifrar));
+        }
+        String cifradoTexto = cifrado.aplicar(texto, "CLAVE", true);
+        assertEquals(texto.toUpperCase(Locale.ROOT), cifrado.aplicar(cifradoTexto, "CLAVE", false));
+    }
+
+    /**
+     * @param cifrado Algoritmo.
+     * @param texto   Texto.
+     * @param clave   Clave.
+     * @param cifrar  {@code true} para cifrar.
+     * @return Resultado del flujo en bloques pequeños que no coinciden con los trozos.
+     */
+    private static String secuencial(PolyalphabeticCipher cifrado, String texto, String clave, boolean cifrar) {
+        char[] chars = texto.toCharArray();
+        PolyalphabeticCipher.Stream s = cifrado.flujo(clave, cifrar);
+        for (int off = 0; off < chars.length; off += 1000)
+            s.aplicar(chars, off, Math.min(1000, chars.length - off));
+        return new String(chars);
+    }
+
+    /**
+     * @param cifrado Algoritmo con programa periódico.
+     * @param texto   Texto.
+     * @param clave   Clave.
+     * @param cifrar  {@code true} para cifrar.
+     * @return Resultado del camino paralelo.
+     */
+    private static String paralelo(PolyalphabeticCipher cifrado, String texto, String clave, boolean cifrar) {
+        char[] chars = texto.toUpperCase(Locale.ROOT).toCharArray();
+        PolyalphabeticCipher.paralelo(chars, (KeySchedule.Cycle) cifrado.programa(clave, cifrar));
+        return new String(chars);
+    }
+
+    /**
+     * @param op Operación.
+     * @return Su resultado, o el mensaje de error precedido de {@code "error: "}.
+     */
+    private static String resultado(Supplier<String> op) {
+        try {
+            return op.get();
+        } catch (IllegalArgumentException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * @param n Longitud.
+     * @return Texto reproducible con letras del alfabeto, minúsculas y espacios.
+     */
+    private static String aleatorio(int n) {
+        String alfabeto = Vigenere.ABC + Vigenere.ABC.toLowerCase(Locale.ROOT) + "     ";
+        Random rnd = new Random(n);
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) sb.append(alfabeto.charAt(rnd.nextInt(alfabeto.length())));
+        return sb.toString();
+    }
+}
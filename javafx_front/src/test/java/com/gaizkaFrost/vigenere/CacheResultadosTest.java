@@ -0,0 +1,104 @@
+package com.gaizkaFrost.vigenere;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * <h2>Pruebas de la caché LRU de resultados Vigenère</h2>
+ *
+ * <p>
+ * Expulsión de la entrada menos reciente, refresco al consultar, entradas que no
+ * caben y caché desactivada. Todas las entradas de estas pruebas tienen claves, textos
+ * y resultados de un carácter, así que ocupan lo mismo: {@link #ENTRADA} bytes.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class CacheResultadosTest {
+
+    /** Tamaño estimado de una entrada de un carácter por campo (2 bytes por carácter + 160). */
+    private static final long ENTRADA = 2 * 3 + 160;
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        CacheResultados cache = new CacheResultados(3 * ENTRADA);
+        cache.guardar("cifrar", "K", "A", "1");
+        cache.guardar("cifrar", "K", "B", "2");
+        cache.guardar("cifrar", "K", "C", "3");
+        cache.guardar("cifrar", "K", "D", "4");
+
+        assertNull(cache.obtener("cifrar", "K", "A"));
+        assertEquals("2", cache.obtener("cifrar", "K", "B"));
+        assertEquals("3", cache.obtener("cifrar", "K", "C"));
+        assertEquals("4", cache.obtener("cifrar", "K", "D"));
+    }
+
+    @Test
+    void lookupRefreshesTheEntry() {
+        CacheResultados cache = new CacheResultados(3 * ENTRADA);
+        cache.guardar("cifrar", "K", "A", "1");
+        cache.guardar("cifrar", "K", "B", "2");
+        cache.guardar("cifrar", "K", "C", "3");
+        assertEquals("1", cache.obtener("cifrar", "K", "A"));
+        cache.guardar("cifrar", "K", "D", "4");
+
+        assertEquals("1", cache.obtener("cifrar", "K", "A"));
+        assertNull(cache.obtener("cifrar", "K", "B"));
+    }
+
+    @Test
+    void replacingAnEntryDoesNotCountItTwice() {
+        CacheResultados cache = new CacheResultados(3 * ENTRADA);
+        cache.guardar("cifrar", "K", "A", "1");
+        cache.guardar("cifrar", "K", "A", "9");
+        cache.guardar("cifrar", "K", "B", "2");
+        cache.guardar("cifrar", "K", "C", "3");
+
+        assertEquals("9", cache.obtener("cifrar", "K", "A"));
+        assertEquals("2", cache.obtener("cifrar", "K", "B"));
+    }
+
+    @Test
+    void operationIsPartOfTheKey() {
+        CacheResultados cache = new CacheResultados(3 * ENTRADA);
+        cache.guardar("cifrar", "K", "A", "1");
+
+        assertNull(cache.obtener("descifrar", "K", "A"));
+        assertEquals("1", cache.obtener("cifrar", "K", "A"));
+    }
+
+    @Test
+    void entryLargerThanTheCacheIsNotStored() {
+        CacheResultados cache = new CacheResultados(3 * ENTRADA);
+        cache.guardar("cifrar", "K", "A", "1");
+        cache.guardar("cifrar", "K", "X".repeat(1000), "Y".repeat(1000));
+
+        assertNull(cache.obtener("cifrar", "K", "X".repeat(1000)));
+        assertEquals("1", cache.obtener("cifrar", "K", "A"));
+    }
+
+    @Test
+    void zeroSizeDisablesTheCache() {
+        CacheResultados cache = new CacheResultados(0);
+        cache.guardar("cifrar", "K", "A", "1");
+
+        assertNull(cache.obtener("cifrar", "K", "A"));
+        assertEquals(0, cache.tasaAciertos());
+    }
+
+    @Test
+    void hitRateCountsHitsAndMisses() {
+        CacheResultados cache = new CacheResultados(3 * ENTRADA);
+        cache.guardar("cifrar", "K", "A", "1");
+        cache.obtener("cifrar", "K", "A");
+        cache.obtener("cifrar", "K", "B");
+
+        assertEquals(0.5, cache.tasaAciertos());
+    }
+}
@@ -0,0 +1,170 @@
+package com.gaizkaFrost.vigenere;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * <h2>Pruebas de la clave Vigenère compilada</h2>
+ *
+ * <p>
+ * Compara {@link ClaveVigenere}, {@link Vigenere} y {@link Vigenere.Stream} con una
+ * copia literal del algoritmo original de {@code vigenere.py} (letra a letra, con
+ * {@code letra_a_num} y {@code num_a_letra}): mismo resultado y mismo primer error con
+ * espacios en el texto y en la clave, minúsculas y caracteres fuera del alfabeto.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class ClaveVigenereTest {
+
+    /** Textos de prueba. */
+    private static final String[] TEXTOS = {
+            "", "HOLA MUNDO", "ñandú camión", "  dobles  espacios ", "ÀÉÎÕÜ xyz ÑÓÒÖÔ", "HOLA!", "AB1 CD",
+    };
+
+    /** Claves de prueba: con espacios, minúsculas y caracteres fuera del alfabeto. */
+    private static final String[] CLAVES = {
+            "CLAVE", "clave", "MI CLAVE", " ", "A", "ÁRBOL", "CLA1VE", "X!", "Z",
+    };
+
+    @Test
+    void matchesTheOriginalAlgorithm() {
+        for (String texto : TEXTOS) {
+            for (String clave : CLAVES) {
+                for (boolean cifrar : new boolean[]{true, false}) {
+                    String caso = (cifrar ? "cifrar " : "descifrar ") + "'" + texto + "' con '" + clave + "'";
+                    String esperado = resultado(() -> original(texto, clave, cifrar));
+                    assertEquals(esperado, resultado(() -> cifrar
+                            ? ClaveVigenere.de(clave).cifrar(texto)
+                            : ClaveVigenere.de(clave).descifrar(texto)), caso);
+                    assertEquals(esperado, resultado(() -> cifrar
+                            ? Vigenere.cifrar(texto, clave)
+                            : Vigenere.descifrar(texto, clave)), caso);
+                    assertEquals(esperado, resultado(() -> porBloques(texto, clave, cifrar, 3)), caso);
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchesTheOriginalAlgorithmOnRandomInput() {
+        Random rnd = new Random(49);
+        String alfabeto = Vigenere.ABC + Vigenere.ABC.toLowerCase(Locale.ROOT) + "      1!";
+        for (int i = 0; i < 2000; i++) {
+            String texto = aleatorio(rnd, alfabeto, rnd.nextInt(40));
+            String clave = aleatorio(rnd, alfabeto, 1 + rnd.nextInt(8));
+            boolean cifrar = rnd.nextBoolean();
+            String esperado = resultado(() -> original(texto, clave, cifrar));
+            String caso = "'" + texto + "' con '" + clave + "'";
+
+            assertEquals(esperado, resultado(() -> cifrar
+                    ? ClaveVigenere.de(clave).cifrar(texto)
+                    : ClaveVigenere.de(clave).descifrar(texto)), caso);
+            assertEquals(esperado, resultado(() -> porBloques(texto, clave, cifrar, 1 + rnd.nextInt(7))), caso);
+        }
+    }
+
+    @Test
+    void decryptInvertsEncrypt() {
+        String texto = "EL VELOZ MURCIÉLAGO HINDÚ COMÍA FELIZ CARDILLO Y KIWI";
+        ClaveVigenere k = ClaveVigenere.de("PINGÜINO");
+
+        assertEquals(texto, k.descifrar(k.cifrar(texto)));
+    }
+
+    @Test
+    void emptyKeyIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ClaveVigenere.de(""));
+        assertThrows(IllegalArgumentException.class, () -> Vigenere.cifrar("HOLA", ""));
+    }
+
+    /**
+     * Algoritmo original de {@code vigenere.py}, antes de compilar la clave.
+     *
+     * @param texto  Texto.
+     * @param clave  Clave no vacía.
+     * @param cifrar {@code true} para cifrar.
+     * @return Resultado.
+     * @throws IllegalArgumentException Con el mismo mensaje que el {@code ValueError} de Python.
+     */
+    private static String original(String texto, String clave, boolean cifrar) {
+        texto = texto.toUpperCase(Locale.ROOT);
+        clave = clave.toUpperCase(Locale.ROOT);
+        StringBuilder resultado = new StringBuilder();
+        int indiceClave = 0;
+        for (char c : texto.toCharArray()) {
+            if (c == ' ') {
+                resultado.append(' ');
+            } else if (Vigenere.ABC.indexOf(c) >= 0) {
+                char k = clave.charAt(indiceClave % clave.length());
+                int n = cifrar ? letraANum(c) + letraANum(k) : letraANum(c) - letraANum(k);
+                resultado.append(Vigenere.ABC.charAt(Math.floorMod(n, Vigenere.ABC.length())));
+                indiceClave++;
+            } else {
+                throw new IllegalArgumentException("Caracter inválido en texto: '" + c + "'");
+            }
+        }
+        return resultado.toString();
+    }
+
+    /**
+     * @param letra Letra.
+     * @return Posición en el alfabeto; -1 para el espacio.
+     * @throws IllegalArgumentException Si no pertenece al alfabeto.
+     */
+    private static int letraANum(char letra) {
+        if (letra == ' ') return -1;
+        int n = Vigenere.ABC.indexOf(letra);
+        if (n < 0) throw new IllegalArgumentException("Caracter no válido: '" + letra + "'");
+        return n;
+    }
+
+    /**
+     * @param texto  Texto.
+     * @param clave  Clave.
+     * @param cifrar {@code true} para cifrar.
+     * @param bloque Tamaño de bloque.
+     * @return Resultado de {@link Vigenere.Stream} procesando el texto en bloques.
+     */
+    private static String porBloques(String texto, String clave, boolean cifrar, int bloque) {
+        char[] chars = texto.toCharArray();
+        Vigenere.Stream s = new Vigenere.Stream(clave, cifrar);
+        for (int off = 0; off < chars.length; off += bloque)
+            s.aplicar(chars, off, Math.min(bloque, chars.length - off));
+        return new String(chars);
+    }
+
+    /**
+     * @param op Operación.
+     * @return Su resultado, o el mensaje de error precedido de {@code "error: "}.
+     */
+    private static String resultado(Supplier<String> op) {
+        try {
+            return op.get();
+        } catch (IllegalArgumentException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * @param rnd      Generador.
+     * @param alfabeto Caracteres posibles.
+     * @param n        Longitud.
+     * @return Cadena aleatoria.
+     */
+    private static String aleatorio(Random rnd, String alfabeto, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) sb.append(alfabeto.charAt(rnd.nextInt(alfabeto.length())));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package com.gaizkaFrost.vigenere;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * <h2>Pruebas de la trama binaria de la API Vigenère</h2>
+ *
+ * <p>
+ * Ida y vuelta en Java, rechazo de tramas mal formadas y comprobación cruzada con
+ * {@code Python_backend/trama.py}: las peticiones que codifica Java las entiende
+ * Python, y las respuestas de Python son byte a byte las que codificaría Java. La
+ * parte cruzada se omite si no hay {@code python3} en el sistema.
+ * </p>
+ *
+ * @since 2025
+ * @version 1.0
+ *
+ * author Gaizka
+ * author Diego
+ */
+class TramaTest {
+
+    /** Carpeta del backend, relativa al módulo JavaFX donde se ejecutan las pruebas. */
+    private static final Path BACKEND = Path.of("..", "Python_backend");
+
+    /**
+     * Eco en Python: lee una petición por la entrada estándar y responde con
+     * {@code texto|clave}, o con el error si la trama está mal formada.
+     */
+    private static final String ECO = String.join("\n",
+            "import sys, trama",
+            "try:",
+            "    texto, clave = trama.leer_peticion(sys.stdin.buffer.read())",
+            "    sys.stdout.buffer.write(trama.escribir_respuesta(texto + '|' + clave))",
+            "except ValueError as e:",
+            "    sys.stdout.buffer.write(trama.escribir_respuesta(str(e), trama.ESTADO_ERROR))");
+
+    /** Textos de prueba: vacío, ASCII, acentos y caracteres fuera del plano básico. */
+    private static final String[][] CASOS = {
+            {"", ""},
+            {"HOLA MUNDO", "CLAVE"},
+            {"ÑANDÚ CAMIÓN", "ÁRBOL"},
+            {"clave vacía € 𝄞", ""},
+            {"X".repeat(100_000), "K"},
+    };
+
+    @Test
+    void requestRoundTrips() {
+        for (String[] c : CASOS) {
+            String[] leido = Trama.leerPeticion(ByteBuffer.wrap(bytes(Trama.peticion(c[0], c[1]))));
+            assertArrayEquals(c, leido);
+        }
+    }
+
+    @Test
+    void responseRoundTrips() throws IOException {
+        byte[] ok = bytes(Trama.respuesta(Trama.ESTADO_OK, "ÑANDÚ"));
+        Trama.Respuesta r = Trama.leerRespuesta(new ByteArrayInputStream(ok));
+        assertTrue(r.ok());
+        assertEquals("ÑANDÚ", r.texto());
+
+        byte[] error = bytes(Trama.respuesta(Trama.ESTADO_ERROR, "Clave inválida"));
+        r = Trama.leerRespuesta(new ByteArrayInputStream(error));
+        assertFalse(r.ok());
+        assertEquals("Clave inválida", r.texto());
+    }
+
+    @Test
+    void malformedFramesAreRejected() {
+        byte[] frame = bytes(Trama.peticion("HOLA", "CLAVE"));
+        for (int n = 0; n < frame.length; n++) {
+            byte[] truncated = Arrays.copyOf(frame, n);
+            assertThrows(IllegalArgumentException.class,
+                    () -> Trama.leerPeticion(ByteBuffer.wrap(truncated)), "longitud " + n);
+        }
+
+        byte[] extra = Arrays.copyOf(frame, frame.length + 1);
+        assertThrows(IllegalArgumentException.class, () -> Trama.leerPeticion(ByteBuffer.wrap(extra)));
+
+        byte[] magic = frame.clone();
+        magic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> Trama.leerPeticion(ByteBuffer.wrap(magic)));
+
+        byte[] response = bytes(Trama.respuesta(Trama.ESTADO_OK, "HOLA"));
+        assertThrows(IllegalArgumentException.class, () -> Trama.leerRespuesta(
+                new ByteArrayInputStream(Arrays.copyOf(response, response.length - 1))));
+    }
+
+    @Test
+    void pythonAgreesWithJava() throws IOException, InterruptedException {
+        assumeTrue(Files.isRegularFile(BACKEND.resolve("trama.py")), "no está Python_backend/trama.py");
+        for (String[] c : CASOS) {
+            byte[] respuesta = python(bytes(Trama.peticion(c[0], c[1])));
+            byte[] esperada = bytes(Trama.respuesta(Trama.ESTADO_OK, c[0] + "|" + c[1]));
+            assertArrayEquals(esperada, respuesta, "respuesta de Python para " + Arrays.toString(c));
+
+            Trama.Respuesta r = Trama.leerRespuesta(new ByteArrayInputStream(respuesta));
+            assertTrue(r.ok());
+            assertEquals(c[0] + "|" + c[1], r.texto());
+        }
+    }
+
+    @Test
+    void pythonRejectsWhatJavaRejects() throws IOException, InterruptedException {
+        assumeTrue(Files.isRegularFile(BACKEND.resolve("trama.py")), "no está Python_backend/trama.py");
+        byte[] frame = bytes(Trama.peticion("HOLA", "CLAVE"));
+
+        Trama.Respuesta r = Trama.leerRespuesta(new ByteArrayInputStream(
+                python(Arrays.copyOf(frame, frame.length - 1))));
+        assertFalse(r.ok());
+        assertEquals("Trama incompleta", r.texto());
+
+        r = Trama.leerRespuesta(new ByteArrayInputStream(python(Arrays.copyOf(frame, frame.length + 1))));
+        assertFalse(r.ok());
+        assertEquals("Datos sobrantes tras la trama", r.texto());
+    }
+
+    /**
+     * @param bb Búfer listo para leer.
+     * @return Copia de sus bytes pendientes.
+     */
+    private static byte[] bytes(ByteBuffer bb) {
+        byte[] out = new byte[bb.remaining()];
+        bb.duplicate().get(out);
+        return out;
+    }
+
+    /**
+     * Pasa una petición por {@link #ECO}.
+     *
+     * @param peticion Trama de petición.
+     * @return Trama de respuesta que escribe Python.
+     * @throws IOException          Si falla la comunicación con el proceso.
+     * @throws InterruptedException Si se interrumpe la espera.
+     */
+    private static byte[] python(byte[] peticion) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder("python3", "-c", ECO)
+                .directory(BACKEND.toFile())
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
+        pb.environment().put("PYTHONDONTWRITEBYTECODE", "1");
+        Process p;
+        try {
+            p = pb.start();
+        } catch (IOException e) {
+            assumeTrue(false, "python3 no disponible: " + e.getMessage());
+            throw e;
+        }
+        try (OutputStream stdin = p.getOutputStream()) {
+            stdin.write(peticion);
+        }
+        byte[] out;
+        try (InputStream stdout = p.getInputStream()) {
+            out = stdout.readAllBytes();
+        }
+        assertTrue(p.waitFor(30, TimeUnit.SECONDS), "python3 no terminó");
+        assertEquals(0, p.exitValue(), "python3 terminó con error");
+        return out;
+    }
+}